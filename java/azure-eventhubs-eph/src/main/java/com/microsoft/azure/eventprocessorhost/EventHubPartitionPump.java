@@ -76,7 +76,7 @@ class EventHubPartitionPump extends PartitionPump
             // meaning it is safe to set the handler and start calling IEventProcessor.onEvents.
             // Set the status to running before setting the javaClient handler, so the IEventProcessor.onEvents can never race and see status != running.
             this.pumpStatus = PartitionPumpStatus.PP_RUNNING;
-            this.partitionReceiver.setReceiveHandler(this.internalReceiveHandler);
+            this.partitionReceiver.setReceiveHandler(this.internalReceiveHandler, this.host.getEventProcessorOptions().getReceiveHandlerDispatchMode());
         }
         
         if (this.pumpStatus == PartitionPumpStatus.PP_OPENFAILED)
@@ -96,10 +96,19 @@ class EventHubPartitionPump extends PartitionPump
 		this.internalOperationFuture = null;
 		
 		// Create new receiver and set options
-    	String startingOffset = this.partitionContext.getInitialOffset();
     	long epoch = this.lease.getEpoch();
-    	this.host.logWithHostAndPartition(Level.FINE, this.partitionContext, "Opening EH receiver with epoch " + epoch + " at offset " + startingOffset);
-		this.internalOperationFuture = this.eventHubClient.createEpochReceiver(this.partitionContext.getConsumerGroupName(), this.partitionContext.getPartitionId(), startingOffset, epoch);
+    	Long startingSequenceNumber = this.partitionContext.getInitialSequenceNumber();
+    	if (startingSequenceNumber != null)
+    	{
+	    	this.host.logWithHostAndPartition(Level.FINE, this.partitionContext, "Opening EH receiver with epoch " + epoch + " at sequence number " + startingSequenceNumber);
+			this.internalOperationFuture = this.eventHubClient.createEpochReceiver(this.partitionContext.getConsumerGroupName(), this.partitionContext.getPartitionId(), startingSequenceNumber, true, epoch);
+    	}
+    	else
+    	{
+	    	String startingOffset = this.partitionContext.getInitialOffset();
+	    	this.host.logWithHostAndPartition(Level.FINE, this.partitionContext, "Opening EH receiver with epoch " + epoch + " at offset " + startingOffset);
+			this.internalOperationFuture = this.eventHubClient.createEpochReceiver(this.partitionContext.getConsumerGroupName(), this.partitionContext.getPartitionId(), startingOffset, epoch);
+    	}
 		this.lease.setEpoch(epoch);
 		this.partitionReceiver = (PartitionReceiver) this.internalOperationFuture.get();
 		this.partitionReceiver.setPrefetchCount(this.host.getEventProcessorOptions().getPrefetchCount());
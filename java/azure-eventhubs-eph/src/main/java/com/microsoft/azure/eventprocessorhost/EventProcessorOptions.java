@@ -9,6 +9,8 @@ import java.time.Duration;
 import java.util.function.Consumer;
 import java.util.function.Function;
 
+import com.microsoft.azure.eventhubs.ReceiveHandlerDispatchMode;
+
 public final class EventProcessorOptions
 {
 	private Consumer<ExceptionReceivedEventArgs> exceptionNotificationHandler = null;
@@ -17,6 +19,8 @@ public final class EventProcessorOptions
     private int prefetchCount = 300;
     private Duration receiveTimeOut = Duration.ofMinutes(1);
     private Function<String, String> initialOffsetProvider = null;
+    private Function<String, Long> initialSequenceNumberProvider = null;
+    private ReceiveHandlerDispatchMode receiveHandlerDispatchMode = ReceiveHandlerDispatchMode.DedicatedThread;
 
     /***
      * Returns an EventProcessorOptions instance with all options set to the default values.
@@ -28,6 +32,7 @@ public final class EventProcessorOptions
      * PrefetchCount: 300
      * InitialOffsetProvider: uses the last offset checkpointed, or START_OF_STREAM
      * InvokeProcessorAfterReceiveTimeout: false
+     * ReceiveHandlerDispatchMode: DedicatedThread
      * </pre>
      * 
      * @return an EventProcessorOptions instance with all options set to the default values
@@ -146,6 +151,32 @@ public final class EventProcessorOptions
     	this.initialOffsetProvider = initialOffsetProvider;
     }
     
+    /***
+     * Returns the current function used to determine the sequence number at which to start receiving
+     * events for a partition.
+     * 
+     * @return the current sequence number provider function; null if none is set
+     */
+    public Function<String, Long> getInitialSequenceNumberProvider()
+    {
+    	return this.initialSequenceNumberProvider;
+    }
+    
+    /***
+     * Sets the function used to determine the sequence number at which to start receiving events for a
+     * partition when the EventProcessorHost obtains a new partition.
+     * 
+     * The provider function takes one argument, the partition id (a string), and returns the sequence number
+     * of the first event to receive - or null to start from the initial offset provider or the checkpoint.
+     * It takes precedence over the initial offset provider.
+     * 
+     * @param initialSequenceNumberProvider
+     */
+    public void setInitialSequenceNumberProvider(Function<String, Long> initialSequenceNumberProvider)
+    {
+    	this.initialSequenceNumberProvider = initialSequenceNumberProvider;
+    }
+    
     /***
      * Returns whether the EventProcessorHost will call IEventProcessor.onEvents(null) when a receive
      * timeout occurs (true) or not (false).
@@ -172,6 +203,35 @@ public final class EventProcessorOptions
         this.invokeProcessorAfterReceiveTimeout = invokeProcessorAfterReceiveTimeout;
     }
     
+    /***
+     * Returns the threads IEventProcessor.onEvents is called on.
+     * 
+     * @return the dispatch mode of the partition receive handlers
+     */
+    public ReceiveHandlerDispatchMode getReceiveHandlerDispatchMode()
+    {
+        return this.receiveHandlerDispatchMode;
+    }
+
+    /***
+     * Sets the threads IEventProcessor.onEvents is called on.
+     * 
+     * The default is DedicatedThread - a thread per partition. With SharedExecutor, the partitions of all
+     * hosts in the process share a bounded pool of threads; onEvents is still called for one batch at a time per partition.
+     * ReactorThread suits only processors that never block (a checkpoint does) - and onEvents is not called on receive timeouts in that mode.
+     * 
+     * @param receiveHandlerDispatchMode  the new dispatch mode
+     */
+    public void setReceiveHandlerDispatchMode(ReceiveHandlerDispatchMode receiveHandlerDispatchMode)
+    {
+        if (receiveHandlerDispatchMode == null)
+        {
+            throw new IllegalArgumentException("receiveHandlerDispatchMode cannot be null");
+        }
+
+        this.receiveHandlerDispatchMode = receiveHandlerDispatchMode;
+    }
+
     void notifyOfException(String hostname, Exception exception, String action)
     {
     	// Capture handler so it doesn't get set to null between test and use
@@ -11,6 +11,7 @@ import java.util.logging.Level;
 
 import com.microsoft.azure.eventhubs.EventData;
 import com.microsoft.azure.eventhubs.PartitionReceiver;
+import com.microsoft.azure.servicebus.LatencyHistogram;
 
 public class PartitionContext
 {
@@ -22,8 +23,13 @@ public class PartitionContext
     private Lease lease;
     private String offset = PartitionReceiver.START_OF_STREAM;
     private long sequenceNumber = 0;;
+    // enqueued time of the event the offset was taken from - 0 if the offset was set without an event
+    private long enqueuedTimeMillis = 0;
+    // set while the sequence number comes from the initial sequence number provider and no event has set the offset yet
+    private boolean isOffsetPending = false;
     
     private Object offsetSynchronizer;
+    private final LatencyHistogram enqueueToCheckpointLag;
     
     PartitionContext(EventProcessorHost host, String partitionId, String eventHubPath, String consumerGroupName)
     {
@@ -33,6 +39,7 @@ public class PartitionContext
         this.consumerGroupName = consumerGroupName;
         
         this.offsetSynchronizer = new Object();
+        this.enqueueToCheckpointLag = new LatencyHistogram();
     }
 
     public String getConsumerGroupName()
@@ -73,7 +80,8 @@ public class PartitionContext
      */
     public void setOffsetAndSequenceNumber(EventData event) throws IllegalArgumentException
     {
-    	setOffsetAndSequenceNumber(event.getSystemProperties().getOffset(), event.getSystemProperties().getSequenceNumber());
+    	setOffsetAndSequenceNumber(event.getSystemProperties().getOffset(), event.getSystemProperties().getSequenceNumber(),
+    			event.getSystemProperties().getEnqueuedTime().toEpochMilli());
     }
     
     /**
@@ -89,6 +97,11 @@ public class PartitionContext
      * @throws IllegalArgumentException  If the new sequenceNumber is less than the current value
      */
     public void setOffsetAndSequenceNumber(String offset, long sequenceNumber) throws IllegalArgumentException
+    {
+    	setOffsetAndSequenceNumber(offset, sequenceNumber, 0);
+    }
+    
+    private void setOffsetAndSequenceNumber(String offset, long sequenceNumber, long enqueuedTimeMillis) throws IllegalArgumentException
     {
     	synchronized (this.offsetSynchronizer)
     	{
@@ -96,6 +109,8 @@ public class PartitionContext
     		{
     			this.offset = offset;
     			this.sequenceNumber = sequenceNumber;
+    			this.enqueuedTimeMillis = enqueuedTimeMillis;
+    			this.isOffsetPending = false;
     		}
     		else
     		{
@@ -109,6 +124,41 @@ public class PartitionContext
     	return this.partitionId;
     }
     
+    /***
+     * Lag from the time an event was enqueued on the partition (as stamped by the service) to the time a checkpoint at that event was persisted -
+     * recorded for the checkpoints taken at a received event: checkpoint(EventData), or checkpoint() after setOffsetAndSequenceNumber(EventData).
+     * 
+     * @return histogram of the lag in milliseconds, for the lifetime of this PartitionContext
+     */
+    public LatencyHistogram getEnqueueToCheckpointLag()
+    {
+    	return this.enqueueToCheckpointLag;
+    }
+    
+    // null unless the user-provided initial sequence number provider returns a sequence number for the partition
+    Long getInitialSequenceNumber()
+    {
+    	Function<String, Long> initialSequenceNumberProvider = this.host.getEventProcessorOptions().getInitialSequenceNumberProvider();
+    	if (initialSequenceNumberProvider == null)
+    	{
+    		return null;
+    	}
+
+    	this.host.logWithHostAndPartition(Level.FINE, this.partitionId, "Calling user-provided initial sequence number provider");
+    	Long initialSequenceNumber = initialSequenceNumberProvider.apply(this.partitionId);
+    	if (initialSequenceNumber != null)
+    	{
+    		// the first event received has this sequence number - so it passes the regression check in setOffsetAndSequenceNumber
+    		synchronized (this.offsetSynchronizer)
+    		{
+    			this.sequenceNumber = initialSequenceNumber;
+    			this.isOffsetPending = true;
+    		}
+	    	this.host.logWithHostAndPartition(Level.FINE, this.partitionId, "Initial sequence number provided: " + initialSequenceNumber);
+    	}
+    	return initialSequenceNumber;
+    }
+    
     String getInitialOffset() throws InterruptedException, ExecutionException
     {
     	Function<String, String> initialOffsetProvider = this.host.getEventProcessorOptions().getInitialOffsetProvider();
@@ -131,6 +181,7 @@ public class PartitionContext
 
     /**
      * Writes the current offset and sequenceNumber to the checkpoint store via the checkpoint manager.
+     * Does nothing if the partition was started from an initial sequence number and no event has set the offset yet.
      * @throws IllegalArgumentException  If this.sequenceNumber is less than the last checkpointed value  
      * @throws ExecutionException 
      * @throws InterruptedException 
@@ -144,11 +195,21 @@ public class PartitionContext
     	// event processor is itself multithreaded... Whether it's required or not, the amount of work
     	// required is trivial, so we might as well do it to be sure.
     	Checkpoint capturedCheckpoint = null;
+    	long capturedEnqueuedTimeMillis = 0;
     	synchronized (this.offsetSynchronizer)
     	{
+    		if (this.isOffsetPending)
+    		{
+    			// the offset is still the one from before the initial sequence number - don't persist a mismatched pair
+    			this.host.logWithHostAndPartition(Level.FINE, this.partitionId, "Skipping checkpoint: no event received since the initial sequence number " +
+    					this.sequenceNumber);
+    			return;
+    		}
     		capturedCheckpoint = new Checkpoint(this.partitionId, this.offset, this.sequenceNumber);
+    		capturedEnqueuedTimeMillis = this.enqueuedTimeMillis;
     	}
     	persistCheckpoint(capturedCheckpoint);
+    	recordCheckpointLag(capturedEnqueuedTimeMillis);
     }
 
     /**
@@ -162,8 +223,17 @@ public class PartitionContext
      */
     public void checkpoint(EventData event) throws IllegalArgumentException, InterruptedException, ExecutionException
     {
-    	setOffsetAndSequenceNumber(event.getSystemProperties().getOffset(), event.getSystemProperties().getSequenceNumber());
+    	setOffsetAndSequenceNumber(event);
     	persistCheckpoint(new Checkpoint(this.partitionId, event.getSystemProperties().getOffset(), event.getSystemProperties().getSequenceNumber()));
+    	recordCheckpointLag(event.getSystemProperties().getEnqueuedTime().toEpochMilli());
+    }
+    
+    private void recordCheckpointLag(long enqueuedTimeMillis)
+    {
+    	if (enqueuedTimeMillis > 0)
+    	{
+    		this.enqueueToCheckpointLag.record(System.currentTimeMillis() - enqueuedTimeMillis);
+    	}
     }
     
     private void persistCheckpoint(Checkpoint persistThis) throws IllegalArgumentException, InterruptedException, ExecutionException
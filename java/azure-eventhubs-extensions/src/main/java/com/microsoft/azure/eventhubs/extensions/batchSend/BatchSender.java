@@ -23,6 +23,9 @@ import com.microsoft.azure.servicebus.amqp.AmqpConstants;
 
 /**
  * Wraps up {@link EventHubClient} send APIs to provide Batching semantics.
+ * <p>
+ * Event bodies are encoded by the {@link com.microsoft.azure.servicebus.BodyCodec} configured on the {@link EventHubClient}
+ * (see {@link com.microsoft.azure.servicebus.SenderOptions#setBodyCodec}) - batches are sized using the bodies before encoding.
  */
 public class BatchSender {
 
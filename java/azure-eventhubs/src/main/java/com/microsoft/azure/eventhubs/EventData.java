@@ -12,6 +12,10 @@ import org.apache.qpid.proton.Proton;
 import org.apache.qpid.proton.amqp.*;
 import org.apache.qpid.proton.amqp.messaging.*;
 import org.apache.qpid.proton.message.*;
+
+import com.microsoft.azure.servicebus.BodyCodec;
+import com.microsoft.azure.servicebus.BodyCodecs;
+import com.microsoft.azure.servicebus.ReceivedMessage;
 import com.microsoft.azure.servicebus.amqp.*;
 
 /**
@@ -21,13 +25,19 @@ import com.microsoft.azure.servicebus.amqp.*;
 public class EventData
 {
 	private String partitionKey;
+	private String partitionId;
 	private String offset;
 	private long sequenceNumber;
 	private Instant enqueuedTime;
 	private Binary bodyData;
+	private BodyCodec bodyCodec;
+	private boolean hasBodyCodec;
 	private boolean isReceivedEvent;
 	private Map<String, String> properties;
 
+	// holds the encoded application properties & annotations of a received event - until they are accessed
+	private ReceivedMessage receivedMessage;
+
 	private SystemProperties systemProperties;
 
 	private EventData()
@@ -35,57 +45,32 @@ public class EventData
 	}
 
 	/**
-	 * Internal Constructor - intended to be used only by the {@link PartitionReceiver} to Create #EventData out of #Message
+	 * Internal Constructor - intended to be used only by the {@link PartitionReceiver} to Create #EventData out of #ReceivedMessage.
+	 * Only the system properties and the body are read on receive - the rest of the message is decoded on the first {@link #getProperties()}.
+	 * @param partitionId the partition the event was received from
 	 */
-	@SuppressWarnings("unchecked")
-	EventData(Message amqpMessage)
+	EventData(ReceivedMessage receivedMessage, String partitionId)
 	{
-		if (amqpMessage == null)
-		{
-			throw new IllegalArgumentException("amqpMessage cannot be null");
-		}
-
-		Map<Symbol, Object> messageAnnotations = amqpMessage.getMessageAnnotations().getValue();
-
-		Object partitionKeyObj = messageAnnotations.get(AmqpConstants.PARTITION_KEY);
-		if (partitionKeyObj != null)
+		if (receivedMessage == null)
 		{
-			this.partitionKey = partitionKeyObj.toString();
-			messageAnnotations.remove(AmqpConstants.PARTITION_KEY);
+			throw new IllegalArgumentException("receivedMessage cannot be null");
 		}
 
-		Object sequenceNumberObj = messageAnnotations.get(AmqpConstants.SEQUENCE_NUMBER);
-		this.sequenceNumber = (Long) sequenceNumberObj;
-		messageAnnotations.remove(AmqpConstants.SEQUENCE_NUMBER);
-
-		Object enqueuedTimeUtcObj = messageAnnotations.get(AmqpConstants.ENQUEUED_TIME_UTC);
-		this.enqueuedTime = ((Date) enqueuedTimeUtcObj).toInstant();
-		messageAnnotations.remove(AmqpConstants.ENQUEUED_TIME_UTC);
-
-		this.offset = messageAnnotations.get(AmqpConstants.OFFSET).toString();
-		messageAnnotations.remove(AmqpConstants.OFFSET);
-
-		this.properties = amqpMessage.getApplicationProperties() == null ? null 
-				: ((Map<String, String>)(amqpMessage.getApplicationProperties().getValue()));
-
-		if (!messageAnnotations.isEmpty())
-		{
-			if (this.properties == null)
-			{
-				this.properties = new HashMap<String, String>();
-			}
+		this.partitionKey = receivedMessage.getPartitionKey();
+		this.partitionId = partitionId;
+		this.sequenceNumber = receivedMessage.getSequenceNumber();
+		this.enqueuedTime = Instant.ofEpochMilli(receivedMessage.getEnqueuedTimeUtc());
+		this.offset = receivedMessage.getOffset();
 
-			for(Map.Entry<Symbol, Object> annotation: messageAnnotations.entrySet())
-			{
-				this.properties.put(annotation.getKey().toString(), annotation.getValue() != null ? annotation.getValue().toString() : null);
-			}
-		}
+		final byte[] body = receivedMessage.getBody();
+		this.bodyData = body == null ? null : new Binary(body);
 
-		this.bodyData = amqpMessage.getBody() == null ? null : ((Data) amqpMessage.getBody()).getValue();
+		// the body is decoded only when it is accessed
+		this.bodyCodec = body == null ? null : BodyCodecs.get(receivedMessage.getBodyCodecName());
+		this.hasBodyCodec = this.bodyCodec != null;
 
+		this.receivedMessage = receivedMessage.hasProperties() ? receivedMessage : null;
 		this.isReceivedEvent = true;
-
-		amqpMessage.clear();
 	}
 
 	/**
@@ -183,12 +168,25 @@ public class EventData
 	/**
 	 * Get Actual Payload/Data wrapped by EventData.
 	 * This is intended to be used after receiving EventData using @@PartitionReceiver.
+	 * A body encoded by the sender's {@link BodyCodec} is decoded on the first call.
 	 * @return returns the byte[] of the actual data 
 	 */
 	public byte[] getBody()
 	{
 		// TODO: enforce on-send constructor type 2
-		return this.bodyData == null ? null : this.bodyData.getArray();
+		final Binary body = this.getBodyData();
+		return body == null ? null : body.getArray();
+	}
+
+	private Binary getBodyData()
+	{
+		if (this.bodyCodec != null)
+		{
+			this.bodyData = new Binary(this.bodyCodec.decode(this.bodyData.getArray(), this.bodyData.getArrayOffset(), this.bodyData.getLength()));
+			this.bodyCodec = null;
+		}
+
+		return this.bodyData;
 	}
 
 	/**
@@ -197,11 +195,17 @@ public class EventData
 	 */
 	public Map<String, String> getProperties()
 	{
+		if (this.receivedMessage != null)
+		{
+			this.decodeProperties();
+		}
+
 		return this.properties;
 	}
 
 	public void setProperties(Map<String, String> applicationProperties)
 	{
+		this.receivedMessage = null;
 		this.properties = applicationProperties;
 	}
 
@@ -220,19 +224,72 @@ public class EventData
 		return this.systemProperties;
 	}
 
+	@SuppressWarnings("unchecked")
+	private void decodeProperties()
+	{
+		final Message amqpMessage = this.receivedMessage.getMessage();
+		this.receivedMessage = null;
+
+		this.properties = amqpMessage.getApplicationProperties() == null ? null 
+				: ((Map<String, String>)(amqpMessage.getApplicationProperties().getValue()));
+
+		if (this.properties != null && this.hasBodyCodec)
+		{
+			this.properties.remove(BodyCodecs.PROPERTY_NAME);
+		}
+
+		Map<Symbol, Object> messageAnnotations = amqpMessage.getMessageAnnotations() == null ? null : amqpMessage.getMessageAnnotations().getValue();
+		if (messageAnnotations == null)
+		{
+			return;
+		}
+
+		messageAnnotations.remove(AmqpConstants.PARTITION_KEY);
+		messageAnnotations.remove(AmqpConstants.SEQUENCE_NUMBER);
+		messageAnnotations.remove(AmqpConstants.ENQUEUED_TIME_UTC);
+		messageAnnotations.remove(AmqpConstants.OFFSET);
+
+		if (!messageAnnotations.isEmpty())
+		{
+			if (this.properties == null)
+			{
+				this.properties = new HashMap<String, String>();
+			}
+
+			for(Map.Entry<Symbol, Object> annotation: messageAnnotations.entrySet())
+			{
+				this.properties.put(annotation.getKey().toString(), annotation.getValue() != null ? annotation.getValue().toString() : null);
+			}
+		}
+	}
+
 	Message toAmqpMessage()
+	{
+		return this.toAmqpMessage((BodyCodec) null);
+	}
+
+	Message toAmqpMessage(final BodyCodec bodyCodec)
 	{
 		Message amqpMessage = Proton.message();
 
-		if (this.properties != null && !this.properties.isEmpty())
+		// a received event which is sent again goes out decoded - or re-encoded using the sender's codec
+		Binary body = this.getBodyData();
+		Map<String, String> applicationProperties = this.getProperties();
+		if (body != null && bodyCodec != null)
 		{
-			ApplicationProperties applicationProperties = new ApplicationProperties(this.properties);
-			amqpMessage.setApplicationProperties(applicationProperties);
+			body = new Binary(bodyCodec.encode(body.getArray(), body.getArrayOffset(), body.getLength()));
+			applicationProperties = applicationProperties == null ? new HashMap<String, String>() : new HashMap<String, String>(applicationProperties);
+			applicationProperties.put(BodyCodecs.PROPERTY_NAME, bodyCodec.getName());
 		}
 
-		if (this.bodyData != null)
+		if (applicationProperties != null && !applicationProperties.isEmpty())
 		{
-			amqpMessage.setBody(new Data(this.bodyData));
+			amqpMessage.setApplicationProperties(new ApplicationProperties(applicationProperties));
+		}
+
+		if (body != null)
+		{
+			amqpMessage.setBody(new Data(body));
 		}
 
 		return amqpMessage;
@@ -240,7 +297,12 @@ public class EventData
 
 	Message toAmqpMessage(String partitionKey)
 	{
-		Message amqpMessage = this.toAmqpMessage();
+		return this.toAmqpMessage(partitionKey, null);
+	}
+
+	Message toAmqpMessage(final String partitionKey, final BodyCodec bodyCodec)
+	{
+		Message amqpMessage = this.toAmqpMessage(bodyCodec);
 
 		MessageAnnotations messageAnnotations = (amqpMessage.getMessageAnnotations() == null) 
 				? new MessageAnnotations(new HashMap<Symbol, Object>()) 
@@ -279,5 +341,13 @@ public class EventData
 		{
 			return this.event.partitionKey;
 		}
+
+		/**
+		 * @return the partition the event was received from - tells apart the events of a {@link MultiPartitionReceiver}
+		 */
+		public String getPartitionId()
+		{
+			return this.event.partitionId;
+		}
 	}
 }
@@ -0,0 +1,170 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+package com.microsoft.azure.eventhubs;
+
+import java.nio.BufferOverflowException;
+import java.util.HashMap;
+
+import org.apache.qpid.proton.Proton;
+import org.apache.qpid.proton.amqp.Symbol;
+import org.apache.qpid.proton.amqp.messaging.MessageAnnotations;
+import org.apache.qpid.proton.message.Message;
+
+import com.microsoft.azure.servicebus.BatchMessageEncoder;
+import com.microsoft.azure.servicebus.BodyCodec;
+import com.microsoft.azure.servicebus.BufferPool;
+import com.microsoft.azure.servicebus.ClientConstants;
+import com.microsoft.azure.servicebus.amqp.AmqpConstants;
+
+/**
+ * A batch of {@link EventData}'s which is encoded as the events are added - so that its size on the wire is known exactly
+ * and the batch can be filled up to the maximum message size without trial and error.
+ * <pre>
+ * {@code
+ * EventDataBatch batch = eventHubClient.createBatch();
+ * while (batch.tryAdd(nextEvent))
+ * {
+ *     nextEvent = ...;
+ * }
+ *
+ * eventHubClient.send(batch);
+ * }
+ * </pre>
+ * The batch holds an encode buffer borrowed from the client's {@link BufferPool} until it is sent - a batch which is not going to be sent
+ * should be closed, to give the buffer back.
+ * Event bodies are encoded by the {@link BodyCodec} of the sender creating the batch as they are added - so a compressed batch fits 
+ * as many events as their compressed size allows.
+ * A batch can be sent only once and is not thread-safe.
+ * @see EventHubClient#createBatch()
+ * @see EventHubClient#createBatch(String)
+ * @see PartitionSender#createBatch()
+ */
+public final class EventDataBatch implements AutoCloseable
+{
+	// the 1 byte which MessageSender leaves free at the end of the encode buffer
+	private static final int MAX_BATCH_SIZE_BYTES = ClientConstants.MAX_MESSAGE_LENGTH_BYTES - 1;
+
+	private final BufferPool bufferPool;
+	private final String partitionKey;
+	private final BodyCodec bodyCodec;
+
+	private byte[] encodedBatch;
+	private int size;
+	private int count;
+
+	EventDataBatch(final BufferPool bufferPool, final String partitionKey, final BodyCodec bodyCodec)
+	{
+		this.bufferPool = bufferPool;
+		this.partitionKey = partitionKey;
+		this.bodyCodec = bodyCodec;
+		this.encodedBatch = bufferPool.borrow(ClientConstants.MAX_MESSAGE_LENGTH_BYTES);
+
+		final Message firstMessage = Proton.message();
+		if (partitionKey != null)
+		{
+			final HashMap<Symbol, Object> annotations = new HashMap<Symbol, Object>();
+			annotations.put(AmqpConstants.PARTITION_KEY, partitionKey);
+			firstMessage.setMessageAnnotations(new MessageAnnotations(annotations));
+		}
+
+		this.size = BatchMessageEncoder.encodeHeader(firstMessage, this.encodedBatch, 0, MAX_BATCH_SIZE_BYTES);
+	}
+
+	/**
+	 * Adds the event to the batch - if the batch still fits the maximum message size with it.
+	 * @param eventData the event to add
+	 * @return true if the event was added; false if the batch is full - the batch is left as it was
+	 */
+	public boolean tryAdd(final EventData eventData)
+	{
+		if (eventData == null)
+		{
+			throw new IllegalArgumentException("eventData cannot be null");
+		}
+
+		if (this.encodedBatch == null)
+		{
+			throw new IllegalStateException("EventDataBatch cannot be modified after it is sent or closed.");
+		}
+
+		// the size of an encoded body is known only after encoding it
+		final byte[] body = eventData.getBody();
+		if (this.bodyCodec == null && body != null && this.size + body.length > MAX_BATCH_SIZE_BYTES)
+		{
+			return false;
+		}
+
+		final Message amqpMessage = this.partitionKey == null ? eventData.toAmqpMessage(this.bodyCodec) : eventData.toAmqpMessage(this.partitionKey, this.bodyCodec);
+		try
+		{
+			this.size += BatchMessageEncoder.encodeDataSection(amqpMessage, this.encodedBatch, this.size, MAX_BATCH_SIZE_BYTES - this.size);
+		}
+		catch (BufferOverflowException exception)
+		{
+			return false;
+		}
+
+		this.count++;
+		return true;
+	}
+
+	/**
+	 * @return number of events in the batch
+	 */
+	public int getCount()
+	{
+		return this.count;
+	}
+
+	/**
+	 * @return the exact number of bytes the batch occupies on the wire - including the batch framing
+	 */
+	public int getSize()
+	{
+		return this.size;
+	}
+
+	/**
+	 * @return the partitionKey of all events in the batch, or null if the batch was created without one
+	 */
+	public String getPartitionKey()
+	{
+		return this.partitionKey;
+	}
+
+	/**
+	 * hands the encoded batch over to the sender - which gives the buffer back to the pool once the send completes
+	 */
+	byte[] seal()
+	{
+		if (this.encodedBatch == null)
+		{
+			throw new IllegalStateException("EventDataBatch can be sent only once, and not after it is closed.");
+		}
+
+		if (this.count == 0)
+		{
+			throw new IllegalArgumentException("Sending Empty batch of messages is not allowed.");
+		}
+
+		final byte[] sealedBatch = this.encodedBatch;
+		this.encodedBatch = null;
+		return sealedBatch;
+	}
+
+	/**
+	 * Gives the encode buffer of a batch which is not going to be sent back to the pool. The batch cannot be added to or sent afterwards.
+	 * Closing a batch which was sent, or is already closed, does nothing.
+	 */
+	@Override
+	public void close()
+	{
+		if (this.encodedBatch != null)
+		{
+			this.bufferPool.giveBack(this.encodedBatch);
+			this.encodedBatch = null;
+		}
+	}
+}
@@ -8,6 +8,9 @@ import java.util.*;
 import java.util.function.*;
 import org.apache.qpid.proton.message.*;
 
+import com.microsoft.azure.servicebus.BodyCodec;
+import com.microsoft.azure.servicebus.ReceivedMessage;
+
 /*
  * Internal utility class for EventData
  */
@@ -15,7 +18,7 @@ final class EventDataUtil
 {
 	private EventDataUtil(){}
 
-	static LinkedList<EventData> toEventDataCollection(final Collection<Message> messages)
+	static LinkedList<EventData> toEventDataCollection(final Collection<ReceivedMessage> messages, final String partitionId)
 	{
 		if (messages == null)
 		{
@@ -24,15 +27,20 @@ final class EventDataUtil
 
 		// TODO: no-copy solution
 		LinkedList<EventData> events = new LinkedList<EventData>();
-		for(Message message : messages)
+		for(ReceivedMessage message : messages)
 		{
-			events.add(new EventData(message));
+			events.add(new EventData(message, partitionId));
 		}
 
 		return events;
 	}
 
 	static Iterable<Message> toAmqpMessages(final Iterable<EventData> eventDatas, final String partitionKey)
+	{
+		return EventDataUtil.toAmqpMessages(eventDatas, partitionKey, null);
+	}
+
+	static Iterable<Message> toAmqpMessages(final Iterable<EventData> eventDatas, final String partitionKey, final BodyCodec bodyCodec)
 	{
 		final LinkedList<Message> messages = new LinkedList<Message>();
 		eventDatas.forEach(new Consumer<EventData>()
@@ -40,7 +48,7 @@ final class EventDataUtil
 			@Override
 			public void accept(EventData eventData)
 			{				
-				Message amqpMessage = partitionKey == null ? eventData.toAmqpMessage() : eventData.toAmqpMessage(partitionKey);
+				Message amqpMessage = partitionKey == null ? eventData.toAmqpMessage(bodyCodec) : eventData.toAmqpMessage(partitionKey, bodyCodec);
 				messages.add(amqpMessage);
 			}
 		});
@@ -25,6 +25,8 @@ public class EventHubClient extends ClientEntity
 	private final Object senderCreateSync;
 
 	private MessagingFactory underlyingFactory;
+	private SenderOptions senderOptions;
+	private BodyCodec bodyCodec;
 	private MessageSender sender;
 	private boolean isSenderCreateStarted;
 	private CompletableFuture<Void> createSender;
@@ -46,10 +48,24 @@ public class EventHubClient extends ClientEntity
 	 */
 	public static EventHubClient createFromConnectionStringSync(final String connectionString)
 			throws ServiceBusException, IOException
+	{
+		return createFromConnectionStringSync(connectionString, new SenderOptions());
+	}
+
+	/**
+	 * Synchronous version of {@link #createFromConnectionString(String, SenderOptions)}. 
+	 * @param connectionString The connection string to be used. See {@link ConnectionStringBuilder} to construct a connectionString.
+	 * @param senderOptions tuning of the Sender instance used by the send methods of the {@link EventHubClient}
+	 * @return EventHubClient which can be used to create Senders and Receivers to EventHub
+	 * @throws ServiceBusException If Service Bus service encountered problems during connection creation. 
+	 * @throws IOException  If the underlying Proton-J layer encounter network errors.
+	 */
+	public static EventHubClient createFromConnectionStringSync(final String connectionString, final SenderOptions senderOptions)
+			throws ServiceBusException, IOException
 	{
 		try
 		{
-			return createFromConnectionString(connectionString).get();
+			return createFromConnectionString(connectionString, senderOptions).get();
 		}
 		catch (InterruptedException|ExecutionException exception)
 		{
@@ -93,8 +109,32 @@ public class EventHubClient extends ClientEntity
 	public static CompletableFuture<EventHubClient> createFromConnectionString(final String connectionString)
 			throws ServiceBusException, IOException
 	{
+		return createFromConnectionString(connectionString, new SenderOptions());
+	}
+
+	/**
+	 * Factory method to create an instance of {@link EventHubClient} using the supplied connectionString.
+	 * Same as {@link #createFromConnectionString(String)} - except that the Sender instance used by the {@link #send(EventData)} methods 
+	 * is created with the supplied {@link SenderOptions}.
+	 * 
+	 * @param connectionString The connection string to be used. See {@link ConnectionStringBuilder} to construct a connectionString.
+	 * @param senderOptions tuning of the Sender instance used by the send methods of the {@link EventHubClient}
+	 * @return EventHubClient which can be used to create Senders and Receivers to EventHub
+	 * @throws ServiceBusException If Service Bus service encountered problems during connection creation. 
+	 * @throws IOException  If the underlying Proton-J layer encounter network errors.
+	 */
+	public static CompletableFuture<EventHubClient> createFromConnectionString(final String connectionString, final SenderOptions senderOptions)
+			throws ServiceBusException, IOException
+	{
+		if (senderOptions == null)
+		{
+			throw new IllegalArgumentException("senderOptions cannot be null");
+		}
+
 		ConnectionStringBuilder connStr = new ConnectionStringBuilder(connectionString);
 		final EventHubClient eventHubClient = new EventHubClient(connStr);
+		eventHubClient.senderOptions = senderOptions;
+		eventHubClient.bodyCodec = senderOptions.getBodyCodec();
 
 		return MessagingFactory.createFromConnectionString(connectionString.toString())
 				.thenApplyAsync(new Function<MessagingFactory, EventHubClient>()
@@ -185,7 +225,7 @@ public class EventHubClient extends ClientEntity
 			@Override
 			public CompletableFuture<Void> apply(Void voidArg)
 			{
-				return EventHubClient.this.sender.send(data.toAmqpMessage());
+				return EventHubClient.this.sender.send(data.toAmqpMessage(EventHubClient.this.bodyCodec));
 			}
 		});
 	}
@@ -286,7 +326,7 @@ public class EventHubClient extends ClientEntity
 			@Override
 			public CompletableFuture<Void> apply(Void voidArg)
 			{
-				return EventHubClient.this.sender.send(EventDataUtil.toAmqpMessages(eventDatas));
+				return EventHubClient.this.sender.send(EventDataUtil.toAmqpMessages(eventDatas, null, EventHubClient.this.bodyCodec));
 			}
 		});
 	}
@@ -374,7 +414,7 @@ public class EventHubClient extends ClientEntity
 			@Override
 			public CompletableFuture<Void> apply(Void voidArg)
 			{
-				return EventHubClient.this.sender.send(eventData.toAmqpMessage(partitionKey));
+				return EventHubClient.this.sender.send(eventData.toAmqpMessage(partitionKey, EventHubClient.this.bodyCodec));
 			}
 		});
 	}
@@ -461,7 +501,106 @@ public class EventHubClient extends ClientEntity
 			@Override
 			public CompletableFuture<Void> apply(Void voidArg)
 			{
-				return EventHubClient.this.sender.send(EventDataUtil.toAmqpMessages(eventDatas, partitionKey));
+				return EventHubClient.this.sender.send(EventDataUtil.toAmqpMessages(eventDatas, partitionKey, EventHubClient.this.bodyCodec));
+			}
+		});
+	}
+
+	/**
+	 * Creates an empty {@link EventDataBatch} to be sent using {@link #send(EventDataBatch)}. The sent {@link EventData}'s will land on any arbitrarily chosen EventHubs partition.
+	 * @return an empty batch, which can hold events upto the maximum message size
+	 */
+	public final EventDataBatch createBatch()
+	{
+		return new EventDataBatch(this.underlyingFactory.getBufferPool(), null, this.bodyCodec);
+	}
+
+	/**
+	 * Creates an empty {@link EventDataBatch} for events with the supplied partitionKey - see {@link #send(EventData, String)}.
+	 * @param partitionKey the partitionKey will be hash'ed to determine the partitionId to send the eventDatas to. On the Received message this can be accessed at {@link EventData.SystemProperties#getPartitionKey()}
+	 * @return an empty batch, which can hold events upto the maximum message size
+	 */
+	public final EventDataBatch createBatch(final String partitionKey)
+	{
+		if (partitionKey == null)
+		{
+			throw new IllegalArgumentException("partitionKey cannot be null");
+		}
+
+		return new EventDataBatch(this.underlyingFactory.getBufferPool(), partitionKey, this.bodyCodec);
+	}
+
+	/**
+	 * Synchronous version of {@link #send(EventDataBatch)}. 
+	 * @param eventDataBatch the batch of events to send to EventHub
+	 * @throws ServiceBusException             if Service Bus service encountered problems during the operation.
+	 */
+	public final void sendSync(final EventDataBatch eventDataBatch) 
+			throws ServiceBusException
+	{
+		try
+		{
+			this.send(eventDataBatch).get();
+		}
+		catch (InterruptedException|ExecutionException exception)
+		{
+			if (exception instanceof InterruptedException)
+			{
+				// Re-assert the thread's interrupted status
+				Thread.currentThread().interrupt();
+			}
+
+			Throwable throwable = exception.getCause();
+			if (throwable != null)
+			{
+				if (throwable instanceof RuntimeException)
+				{
+					throw (RuntimeException)throwable;
+				}
+
+				if (throwable instanceof ServiceBusException)
+				{
+					throw (ServiceBusException)throwable;
+				}
+
+				throw new ServiceBusException(true, throwable);
+			}
+		}
+	}
+
+	/**
+	 * Send an {@link EventDataBatch} created by {@link #createBatch()} or {@link #createBatch(String)} to EventHub.
+	 * The batch is already encoded - unlike {@link #send(Iterable)}, this can not fail with {@link PayloadSizeExceededException}.
+	 * @param eventDataBatch the batch of events to send to EventHub - the batch can be sent only once
+	 * @return     a CompletableFuture that can be completed when the send operations is done..
+	 * @see #send(Iterable)
+	 */
+	public final CompletableFuture<Void> send(final EventDataBatch eventDataBatch)
+	{
+		if (eventDataBatch == null)
+		{
+			throw new IllegalArgumentException("EventDataBatch cannot be null.");
+		}
+
+		final byte[] encodedBatch = eventDataBatch.seal();
+		final int encodedSize = eventDataBatch.getSize();
+		return this.createInternalSender().whenComplete(new BiConsumer<Void, Throwable>()
+		{
+			@Override
+			public void accept(Void voidArg, Throwable exception)
+			{
+				// the sender never got the batch - so it can't give the buffer back
+				if (exception != null)
+				{
+					EventHubClient.this.underlyingFactory.getBufferPool().giveBack(encodedBatch);
+				}
+			}
+		}).thenComposeAsync(new Function<Void, CompletableFuture<Void>>()
+		{
+			@Override
+			public CompletableFuture<Void> apply(Void voidArg)
+			{
+				return EventHubClient.this.sender.sendBatch(encodedBatch, encodedSize);
 			}
 		});
 	}
@@ -474,10 +613,23 @@ public class EventHubClient extends ClientEntity
 	 */
 	public final PartitionSender createPartitionSenderSync(final String partitionId)
 			throws ServiceBusException, IllegalArgumentException
+	{
+		return this.createPartitionSenderSync(partitionId, new SenderOptions());
+	}
+
+	/**
+	 * Synchronous version of {@link #createPartitionSender(String, SenderOptions)}. 
+	 * @param partitionId  partitionId of EventHub to send the {@link EventData}'s to
+	 * @param senderOptions tuning of the underlying Sender instance
+	 * @return PartitionSender which can be used to send events to a specific partition.
+	 * @throws ServiceBusException if Service Bus service encountered problems during connection creation. 
+	 */
+	public final PartitionSender createPartitionSenderSync(final String partitionId, final SenderOptions senderOptions)
+			throws ServiceBusException, IllegalArgumentException
 	{
 		try
 		{
-			return this.createPartitionSender(partitionId).get();
+			return this.createPartitionSender(partitionId, senderOptions).get();
 		}
 		catch (InterruptedException|ExecutionException exception)
 		{
@@ -525,7 +677,28 @@ public class EventHubClient extends ClientEntity
 	public final CompletableFuture<PartitionSender> createPartitionSender(final String partitionId)
 			throws ServiceBusException
 	{
-		return PartitionSender.Create(this.underlyingFactory, this.eventHubName, partitionId);
+		return this.createPartitionSender(partitionId, new SenderOptions());
+	}
+
+	/**
+	 * Create a {@link PartitionSender} which can publish {@link EventData}'s directly to a specific EventHub partition.
+	 * Same as {@link #createPartitionSender(String)} - with the underlying Sender instance created with the supplied {@link SenderOptions}.
+	 *
+	 * @param partitionId  partitionId of EventHub to send the {@link EventData}'s to
+	 * @param senderOptions tuning of the underlying Sender instance
+	 * @return             a CompletableFuture that would result in a PartitionSender when it is completed.
+	 * @throws ServiceBusException if Service Bus service encountered problems during connection creation. 
+	 * @see PartitionSender 
+	 */
+	public final CompletableFuture<PartitionSender> createPartitionSender(final String partitionId, final SenderOptions senderOptions)
+			throws ServiceBusException
+	{
+		if (senderOptions == null)
+		{
+			throw new IllegalArgumentException("senderOptions cannot be null");
+		}
+
+		return PartitionSender.Create(this.underlyingFactory, this.eventHubName, partitionId, senderOptions);
 	}
 
 	/**
@@ -649,7 +822,7 @@ public class EventHubClient extends ClientEntity
 	public final CompletableFuture<PartitionReceiver> createReceiver(final String consumerGroupName, final String partitionId, final String startingOffset, boolean offsetInclusive) 
 			throws ServiceBusException
 	{
-		return PartitionReceiver.create(this.underlyingFactory, this.eventHubName, consumerGroupName, partitionId, startingOffset, offsetInclusive, null, PartitionReceiver.NULL_EPOCH, false);
+		return PartitionReceiver.create(this.underlyingFactory, this.eventHubName, consumerGroupName, partitionId, startingOffset, offsetInclusive, null, null, PartitionReceiver.NULL_EPOCH, false);
 	}
 
 	/**
@@ -708,7 +881,188 @@ public class EventHubClient extends ClientEntity
 	public final CompletableFuture<PartitionReceiver> createReceiver(final String consumerGroupName, final String partitionId, final Instant dateTime)
 			throws ServiceBusException
 	{
-		return PartitionReceiver.create(this.underlyingFactory, this.eventHubName, consumerGroupName, partitionId, null, false, dateTime, PartitionReceiver.NULL_EPOCH, false);
+		return PartitionReceiver.create(this.underlyingFactory, this.eventHubName, consumerGroupName, partitionId, null, false, dateTime, null, PartitionReceiver.NULL_EPOCH, false);
+	}
+
+	/**
+	 * Synchronous version of {@link #createReceiver(String, String, long, boolean)}. 
+	 * @param consumerGroupName      the consumer group name that this receiver should be grouped under.
+	 * @param partitionId            the partition Id that the receiver belongs to. All data received will be from this partition only.
+	 * @param startingSequenceNumber the sequence number to start receiving the events from - see {@link EventData.SystemProperties#getSequenceNumber()}.
+	 * @param sequenceNumberInclusive if set to true, the first event returned is the one that has the starting sequence number. Otherwise the first event returned is the event after it.
+	 * @return                       PartitionReceiver instance which can be used for receiving {@link EventData}.
+	 * @throws ServiceBusException   if Service Bus service encountered problems during the operation.
+	 */
+	public final PartitionReceiver createReceiverSync(final String consumerGroupName, final String partitionId, final long startingSequenceNumber, final boolean sequenceNumberInclusive) 
+			throws ServiceBusException
+	{
+		try
+		{
+			return this.createReceiver(consumerGroupName, partitionId, startingSequenceNumber, sequenceNumberInclusive).get();
+		}
+		catch (InterruptedException|ExecutionException exception)
+		{
+			if (exception instanceof InterruptedException)
+			{
+				// Re-assert the thread's interrupted status
+				Thread.currentThread().interrupt();
+			}
+
+			Throwable throwable = exception.getCause();
+			if (throwable != null)
+			{
+				if (throwable instanceof RuntimeException)
+				{
+					throw (RuntimeException)throwable;
+				}
+
+				if (throwable instanceof ServiceBusException)
+				{
+					throw (ServiceBusException)throwable;
+				}
+
+				throw new ServiceBusException(true, throwable);
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * Create the EventHub receiver with given partition id and start receiving from the specified sequence number.
+	 * The receiver is created for a specific EventHub Partition from the specific consumer group.
+	 * <p>
+	 * Sequence numbers of a partition are consecutive - so a resume point can be computed from the sequence number of an event, without knowing its offset.
+	 * @param consumerGroupName      the consumer group name that this receiver should be grouped under.
+	 * @param partitionId            the partition Id that the receiver belongs to. All data received will be from this partition only.
+	 * @param startingSequenceNumber the sequence number to start receiving the events from - see {@link EventData.SystemProperties#getSequenceNumber()}.
+	 * @param sequenceNumberInclusive if set to true, the first event returned is the one that has the starting sequence number. Otherwise the first event returned is the event after it.
+	 * @return                       a CompletableFuture that would result in a PartitionReceiver when it is completed.
+	 * @throws ServiceBusException   if Service Bus service encountered problems during the operation.
+	 * @see PartitionReceiver
+	 */	
+	public final CompletableFuture<PartitionReceiver> createReceiver(final String consumerGroupName, final String partitionId, final long startingSequenceNumber, final boolean sequenceNumberInclusive)
+			throws ServiceBusException
+	{
+		return PartitionReceiver.create(this.underlyingFactory, this.eventHubName, consumerGroupName, partitionId, null, sequenceNumberInclusive, null, startingSequenceNumber, PartitionReceiver.NULL_EPOCH, false);
+	}
+
+	/**
+	 * Synchronous version of {@link #createMultiPartitionReceiver(String, String[], String)}. 
+	 * @param consumerGroupName    the consumer group name that this receiver should be grouped under.
+	 * @param partitionIds         the partitions to receive from.
+	 * @param startingOffset       the offset to start receiving the events of every partition from. To receive from start of the stream use: {@link PartitionReceiver#START_OF_STREAM}
+	 * @return                     MultiPartitionReceiver instance which can be used for receiving {@link EventData}.
+	 * @throws ServiceBusException if Service Bus service encountered problems during the operation.
+	 */
+	public final MultiPartitionReceiver createMultiPartitionReceiverSync(final String consumerGroupName, final String[] partitionIds, final String startingOffset) 
+			throws ServiceBusException
+	{
+		try
+		{
+			return this.createMultiPartitionReceiver(consumerGroupName, partitionIds, startingOffset).get();
+		}
+		catch (InterruptedException|ExecutionException exception)
+		{
+			if (exception instanceof InterruptedException)
+			{
+				// Re-assert the thread's interrupted status
+				Thread.currentThread().interrupt();
+			}
+
+			Throwable throwable = exception.getCause();
+			if (throwable != null)
+			{
+				if (throwable instanceof RuntimeException)
+				{
+					throw (RuntimeException)throwable;
+				}
+
+				if (throwable instanceof ServiceBusException)
+				{
+					throw (ServiceBusException)throwable;
+				}
+
+				throw new ServiceBusException(true, throwable);
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * Create a receiver that receives from several partitions of the EventHub at once - with one link per partition on the connection of this client,
+	 * instead of a {@link PartitionReceiver} and a receive thread per partition. The events of all partitions are returned by a single
+	 * {@link MultiPartitionReceiver#receive(int)}, taken fairly across the partitions.
+	 * @param consumerGroupName    the consumer group name that this receiver should be grouped under.
+	 * @param partitionIds         the partitions to receive from.
+	 * @param startingOffset       the offset to start receiving the events of every partition from. To receive from start of the stream use: {@link PartitionReceiver#START_OF_STREAM}
+	 * @return                     a CompletableFuture that would result in a MultiPartitionReceiver when it is completed.
+	 * @throws ServiceBusException if Service Bus service encountered problems during the operation.
+	 * @see MultiPartitionReceiver
+	 */
+	public final CompletableFuture<MultiPartitionReceiver> createMultiPartitionReceiver(final String consumerGroupName, final String[] partitionIds, final String startingOffset)
+			throws ServiceBusException
+	{
+		return MultiPartitionReceiver.create(this.underlyingFactory, this.eventHubName, consumerGroupName, partitionIds, startingOffset, false, null);
+	}
+
+	/**
+	 * Synchronous version of {@link #createMultiPartitionReceiver(String, String[], Instant)}. 
+	 * @param consumerGroupName    the consumer group name that this receiver should be grouped under.
+	 * @param partitionIds         the partitions to receive from.
+	 * @param dateTime             the date time instant that receive operations will start receive events from. Events received will have {@link EventData.SystemProperties#getEnqueuedTime()} later than this Instant.
+	 * @return                     MultiPartitionReceiver instance which can be used for receiving {@link EventData}.
+	 * @throws ServiceBusException if Service Bus service encountered problems during the operation.
+	 */
+	public final MultiPartitionReceiver createMultiPartitionReceiverSync(final String consumerGroupName, final String[] partitionIds, final Instant dateTime) 
+			throws ServiceBusException
+	{
+		try
+		{
+			return this.createMultiPartitionReceiver(consumerGroupName, partitionIds, dateTime).get();
+		}
+		catch (InterruptedException|ExecutionException exception)
+		{
+			if (exception instanceof InterruptedException)
+			{
+				// Re-assert the thread's interrupted status
+				Thread.currentThread().interrupt();
+			}
+
+			Throwable throwable = exception.getCause();
+			if (throwable != null)
+			{
+				if (throwable instanceof RuntimeException)
+				{
+					throw (RuntimeException)throwable;
+				}
+
+				if (throwable instanceof ServiceBusException)
+				{
+					throw (ServiceBusException)throwable;
+				}
+
+				throw new ServiceBusException(true, throwable);
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * Create a receiver that receives from several partitions of the EventHub at once, starting from the specified enqueued time.
+	 * @param consumerGroupName    the consumer group name that this receiver should be grouped under.
+	 * @param partitionIds         the partitions to receive from.
+	 * @param dateTime             the date time instant that receive operations will start receive events from. Events received will have {@link EventData.SystemProperties#getEnqueuedTime()} later than this Instant.
+	 * @return                     a CompletableFuture that would result in a MultiPartitionReceiver when it is completed.
+	 * @throws ServiceBusException if Service Bus service encountered problems during the operation.
+	 * @see #createMultiPartitionReceiver(String, String[], String)
+	 */
+	public final CompletableFuture<MultiPartitionReceiver> createMultiPartitionReceiver(final String consumerGroupName, final String[] partitionIds, final Instant dateTime)
+			throws ServiceBusException
+	{
+		return MultiPartitionReceiver.create(this.underlyingFactory, this.eventHubName, consumerGroupName, partitionIds, null, false, dateTime);
 	}
 
 	/**
@@ -848,7 +1202,7 @@ public class EventHubClient extends ClientEntity
 	public final CompletableFuture<PartitionReceiver> createEpochReceiver(final String consumerGroupName, final String partitionId, final String startingOffset, boolean offsetInclusive, final long epoch)
 			throws ServiceBusException
 	{
-		return PartitionReceiver.create(this.underlyingFactory, this.eventHubName, consumerGroupName, partitionId, startingOffset, offsetInclusive, null, epoch, true);
+		return PartitionReceiver.create(this.underlyingFactory, this.eventHubName, consumerGroupName, partitionId, startingOffset, offsetInclusive, null, null, epoch, true);
 	}
 
 	/**
@@ -917,7 +1271,134 @@ public class EventHubClient extends ClientEntity
 	public final CompletableFuture<PartitionReceiver> createEpochReceiver(final String consumerGroupName, final String partitionId, final Instant dateTime, final long epoch)
 			throws ServiceBusException
 	{
-		return PartitionReceiver.create(this.underlyingFactory,  this.eventHubName, consumerGroupName, partitionId, null, false, dateTime, epoch, true);
+		return PartitionReceiver.create(this.underlyingFactory,  this.eventHubName, consumerGroupName, partitionId, null, false, dateTime, null, epoch, true);
+	}
+
+	/**
+	 * Synchronous version of {@link #createEpochReceiver(String, String, long, boolean, long)}. 
+	 * @param consumerGroupName      the consumer group name that this receiver should be grouped under.
+	 * @param partitionId            the partition Id that the receiver belongs to. All data received will be from this partition only.
+	 * @param startingSequenceNumber the sequence number to start receiving the events from - see {@link EventData.SystemProperties#getSequenceNumber()}.
+	 * @param sequenceNumberInclusive if set to true, the first event returned is the one that has the starting sequence number. Otherwise the first event returned is the event after it.
+	 * @param epoch                  an unique identifier (epoch value) that the service uses, to enforce partition/lease ownership. 
+	 * @return                       PartitionReceiver instance which can be used for receiving {@link EventData}.
+	 * @throws ServiceBusException   if Service Bus service encountered problems during the operation.
+	 */
+	public final PartitionReceiver createEpochReceiverSync(final String consumerGroupName, final String partitionId, final long startingSequenceNumber, final boolean sequenceNumberInclusive, final long epoch) 
+			throws ServiceBusException
+	{
+		try
+		{
+			return this.createEpochReceiver(consumerGroupName, partitionId, startingSequenceNumber, sequenceNumberInclusive, epoch).get();
+		}
+		catch (InterruptedException|ExecutionException exception)
+		{
+			if (exception instanceof InterruptedException)
+			{
+				// Re-assert the thread's interrupted status
+				Thread.currentThread().interrupt();
+			}
+
+			Throwable throwable = exception.getCause();
+			if (throwable != null)
+			{
+				if (throwable instanceof RuntimeException)
+				{
+					throw (RuntimeException)throwable;
+				}
+
+				if (throwable instanceof ServiceBusException)
+				{
+					throw (ServiceBusException)throwable;
+				}
+
+				throw new ServiceBusException(true, throwable);
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * Create a Epoch based EventHub receiver with given partition id and start receiving from the specified sequence number.
+	 * The receiver is created for a specific EventHub Partition from the specific consumer group.
+	 * <p> 
+	 * It is important to pay attention to the following when creating epoch based receiver:
+	 * <ul>
+	 * <li> Ownership enforcement - Once you created an epoch based receiver, you cannot create a non-epoch receiver to the same consumerGroup-Partition combo until all receivers to the combo are closed.
+	 * <li> Ownership stealing - If a receiver with higher epoch value is created for a consumerGroup-Partition combo, any older epoch receiver to that combo will be force closed.
+	 * <li> Any receiver closed due to lost of ownership to a consumerGroup-Partition combo will get ReceiverDisconnectedException for all operations from that receiver.
+	 * </ul>
+	 * @param consumerGroupName      the consumer group name that this receiver should be grouped under.
+	 * @param partitionId            the partition Id that the receiver belongs to. All data received will be from this partition only.
+	 * @param startingSequenceNumber the sequence number to start receiving the events from - see {@link EventData.SystemProperties#getSequenceNumber()}.
+	 * @param sequenceNumberInclusive if set to true, the first event returned is the one that has the starting sequence number. Otherwise the first event returned is the event after it.
+	 * @param epoch                  a unique identifier (epoch value) that the service uses, to enforce partition/lease ownership. 
+	 * @return                       a CompletableFuture that would result in a PartitionReceiver when it is completed.
+	 * @throws ServiceBusException   if Service Bus service encountered problems during the operation.
+	 * @see PartitionReceiver
+	 * @see ReceiverDisconnectedException
+	 */	
+	public final CompletableFuture<PartitionReceiver> createEpochReceiver(final String consumerGroupName, final String partitionId, final long startingSequenceNumber, final boolean sequenceNumberInclusive, final long epoch)
+			throws ServiceBusException
+	{
+		return PartitionReceiver.create(this.underlyingFactory, this.eventHubName, consumerGroupName, partitionId, null, sequenceNumberInclusive, null, startingSequenceNumber, epoch, true);
+	}
+
+	/**
+	 * Number of sends in flight on the Sender instance used by the send methods of this client - which haven't completed yet. 
+	 * Bounded by {@link SenderOptions#setMaxPendingSends(int)}.
+	 * @return number of outstanding sends
+	 */
+	public final int getPendingSendCount()
+	{
+		final MessageSender currentSender = this.sender;
+		return currentSender == null ? 0 : currentSender.getPendingSendCount();
+	}
+
+	/**
+	 * Encoded bytes of the sends in flight on the Sender instance used by the send methods of this client. 
+	 * Bounded by {@link SenderOptions#setMaxPendingBytes(long)}.
+	 * @return number of outstanding bytes
+	 */
+	public final long getPendingSendBytes()
+	{
+		final MessageSender currentSender = this.sender;
+		return currentSender == null ? 0 : currentSender.getPendingSendBytes();
+	}
+
+	/**
+	 * Usage counters of the pooled encode buffers shared by all senders created from this client 
+	 * (including the {@link PartitionSender}s) - a low reuse ratio under steady load indicates that sends outlive the pool capacity.
+	 * @return a snapshot of the buffer pool counters
+	 */
+	public final BufferPoolStatistics getSendBufferPoolStatistics()
+	{
+		return this.underlyingFactory.getBufferPool().getStatistics();
+	}
+
+	/**
+	 * Get the limit on the memory all the receivers created from this client prefetch together.
+	 * @return the limit in bytes; 0 if the prefetch is limited per receiver only
+	 * @see #setPrefetchMemoryLimit(long)
+	 */
+	public final long getPrefetchMemoryLimit()
+	{
+		return this.underlyingFactory.getPrefetchMemoryBudget().getLimit();
+	}
+
+	/**
+	 * Limit the memory all the receivers created from this client prefetch together - so that the heap needed doesn't grow with
+	 * the number of partitions received from. Each receiver gets a share of the limit: half of it is split evenly, the other half
+	 * goes to the receivers in proportion to how fast their events are consumed. A receiver stops asking the service for more events
+	 * once its prefetched events reach its share; {@link PartitionReceiver#setPrefetchByteBudget(long)} can limit it further.
+	 * A {@link MultiPartitionReceiver} takes one share and splits it between its partitions -
+	 * {@link MultiPartitionReceiver#setPrefetchByteLimit(long)} can limit it further.
+	 * @param prefetchMemoryLimit the limit in bytes; 0 removes the limit
+	 */
+	public final void setPrefetchMemoryLimit(final long prefetchMemoryLimit)
+	{
+		this.underlyingFactory.getPrefetchMemoryBudget().setLimit(prefetchMemoryLimit);
 	}
 
 	@Override
@@ -950,7 +1431,7 @@ public class EventHubClient extends ClientEntity
 			{
 				if (!this.isSenderCreateStarted)
 				{
-					this.createSender = MessageSender.create(this.underlyingFactory, StringUtil.getRandomString(), this.eventHubName)
+					this.createSender = MessageSender.create(this.underlyingFactory, StringUtil.getRandomString(), this.eventHubName, this.senderOptions)
 							.thenAcceptAsync(new Consumer<MessageSender>()
 							{
 								public void accept(MessageSender a) { EventHubClient.this.sender = a;}
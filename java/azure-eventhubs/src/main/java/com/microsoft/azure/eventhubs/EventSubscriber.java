@@ -0,0 +1,36 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+package com.microsoft.azure.eventhubs;
+
+/**
+ * Receives the events of a partition pushed by {@link PartitionReceiver#subscribe(EventSubscriber)} - as many as it requested through its {@link EventSubscription}.
+ * Follows the contract of java.util.concurrent.Flow.Subscriber: the methods are called one at a time, {@link #onSubscribe} first, and 
+ * {@link #onError} or {@link #onComplete} last - so a Flow or reactive-streams adapter only has to forward the calls.
+ * @see PartitionReceiver#subscribe(EventSubscriber)
+ */
+public interface EventSubscriber
+{
+	/**
+	 * called before any other method - no events are pushed until {@link EventSubscription#request(long)} is called.
+	 * @param subscription the subscription to request events through
+	 */
+	void onSubscribe(EventSubscription subscription);
+
+	/**
+	 * @param event the next event of the partition
+	 */
+	void onNext(EventData event);
+
+	/**
+	 * the receiver was closed with a non-transient error - or the subscriber threw from {@link #onNext}; no other method is called after this.
+	 * @param error the error
+	 */
+	void onError(Throwable error);
+
+	/**
+	 * the receiver was closed; no other method is called after this.
+	 */
+	void onComplete();
+}
@@ -0,0 +1,22 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+package com.microsoft.azure.eventhubs;
+
+/**
+ * Links an {@link EventSubscriber} to the {@link PartitionReceiver} it subscribed to. Follows the contract of java.util.concurrent.Flow.Subscription.
+ */
+public interface EventSubscription
+{
+	/**
+	 * Ask for more events - the receiver asks the service for as many events as requested and not yet pushed (up to the prefetch count of the receiver).
+	 * @param count number of events to add to the demand; Long.MAX_VALUE for unbounded demand
+	 */
+	void request(long count);
+
+	/**
+	 * Stop pushing events; the receiver stays open and {@link PartitionReceiver#receive(int)} can be used again.
+	 */
+	void cancel();
+}
@@ -0,0 +1,225 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+package com.microsoft.azure.eventhubs;
+
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.microsoft.azure.servicebus.ClientConstants;
+import com.microsoft.azure.servicebus.IReceiveListener;
+import com.microsoft.azure.servicebus.MessageReceiver;
+import com.microsoft.azure.servicebus.ReceivedMessage;
+
+/**
+ * Calls a {@link PartitionReceiveHandler} on the reactor thread, right from the delivery - without the hop through a pending receive and a pump thread.
+ * The reactor thread serves every link of the connection, so a slow handler holds up all of them: a call longer than {@link #MAX_INLINE_HANDLER_NANOS}
+ * counts as slow, and after {@link #MAX_SLOW_CALLS} slow calls in a row - or a single call longer than {@link #MAX_BLOCKING_HANDLER_NANOS} -
+ * the handler is moved to the shared executor for good.
+ * <p>
+ * Either way the drain is serialized by the pending drain count - whichever thread takes the count from 0 runs the handler, the others only add to it -
+ * so the handler is called one batch at a time, never concurrently.
+ */
+final class InlineReceiveDispatcher implements IReceiveListener
+{
+	private static final Logger TRACE_LOGGER = Logger.getLogger(ClientConstants.SERVICEBUS_CLIENT_TRACE);
+
+	static final long MAX_INLINE_HANDLER_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+	static final long MAX_BLOCKING_HANDLER_NANOS = TimeUnit.MILLISECONDS.toNanos(20);
+	static final int MAX_SLOW_CALLS = 3;
+
+	private final MessageReceiver receiver;
+	private final String partitionId;
+	private final PartitionReceiveHandler handler;
+	private final AtomicInteger pendingDrains;
+	private final Runnable drainTask;
+
+	private volatile boolean isRunning;
+	// a dispatcher is started once - and not after it was stopped; guarded by this
+	private boolean isStarted;
+	private boolean isStopped;
+	// null while the handler runs on the reactor thread
+	private volatile Executor offloadExecutor;
+
+	// touched by the thread holding the drain
+	private int slowCallCount;
+
+	InlineReceiveDispatcher(final MessageReceiver receiver, final String partitionId, final PartitionReceiveHandler handler)
+	{
+		this.receiver = receiver;
+		this.partitionId = partitionId;
+		this.handler = handler;
+		this.pendingDrains = new AtomicInteger(0);
+		this.drainTask = new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				InlineReceiveDispatcher.this.drainLoop();
+			}
+		};
+	}
+
+	// a dispatcher waiting to be started counts as running
+	boolean isRunning()
+	{
+		synchronized (this)
+		{
+			return this.isRunning || (!this.isStarted && !this.isStopped);
+		}
+	}
+
+	boolean isOffloaded()
+	{
+		return this.offloadExecutor != null;
+	}
+
+	// events prefetched before the start are handed over on the calling thread
+	void start()
+	{
+		synchronized (this)
+		{
+			if (this.isStarted || this.isStopped)
+			{
+				return;
+			}
+
+			this.isStarted = true;
+			this.isRunning = true;
+			this.receiver.setReceiveListener(this);
+			this.receiver.request(Long.MAX_VALUE);
+		}
+
+		this.drain();
+	}
+
+	void stop()
+	{
+		synchronized (this)
+		{
+			this.isStopped = true;
+			if (this.isRunning)
+			{
+				this.isRunning = false;
+				this.receiver.setReceiveListener(null);
+			}
+		}
+	}
+
+	@Override
+	public void onMessagesAvailable()
+	{
+		this.drain();
+	}
+
+	@Override
+	public void onClose(final Exception error)
+	{
+		if (this.isRunning)
+		{
+			this.isRunning = false;
+			if (error != null)
+			{
+				this.handler.onError(error);
+			}
+		}
+	}
+
+	private void drain()
+	{
+		if (this.pendingDrains.getAndIncrement() == 0)
+		{
+			final Executor executor = this.offloadExecutor;
+			if (executor == null)
+			{
+				this.drainLoop();
+			}
+			else
+			{
+				executor.execute(this.drainTask);
+			}
+		}
+	}
+
+	private void drainLoop()
+	{
+		int pending = this.pendingDrains.get();
+		while (pending != 0)
+		{
+			if (this.isRunning && !this.dispatchAvailableEvents())
+			{
+				// the handler was just moved off the reactor thread - the executor takes over the drain, pending count included
+				this.offloadExecutor.execute(this.drainTask);
+				return;
+			}
+
+			pending = this.pendingDrains.addAndGet(-pending);
+		}
+	}
+
+	// @return false if the handler was moved to the executor - the rest of the events are to be handed over from there
+	private boolean dispatchAvailableEvents()
+	{
+		final boolean isInline = this.offloadExecutor == null;
+		while (this.isRunning)
+		{
+			final List<ReceivedMessage> messages = this.receiver.poll(this.handler.getMaxEventCount());
+			if (messages == null)
+			{
+				return true;
+			}
+
+			final LinkedList<EventData> events = EventDataUtil.toEventDataCollection(messages, this.partitionId);
+
+			final long callStartedAt = System.nanoTime();
+			try
+			{
+				this.handler.onReceive(events);
+			}
+			catch (Throwable userCodeError)
+			{
+				this.stop();
+				this.handler.onError(userCodeError);
+
+				if (TRACE_LOGGER.isLoggable(Level.SEVERE))
+				{
+					TRACE_LOGGER.log(Level.SEVERE, String.format("Receive pump for partition %s exiting after user exception %s", this.partitionId, userCodeError.toString()));
+				}
+
+				return true;
+			}
+
+			if (isInline && this.isTooSlowForReactor(System.nanoTime() - callStartedAt))
+			{
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	private boolean isTooSlowForReactor(final long callDurationNanos)
+	{
+		this.slowCallCount = callDurationNanos > MAX_INLINE_HANDLER_NANOS ? this.slowCallCount + 1 : 0;
+		if (this.slowCallCount < MAX_SLOW_CALLS && callDurationNanos <= MAX_BLOCKING_HANDLER_NANOS)
+		{
+			return false;
+		}
+
+		if (TRACE_LOGGER.isLoggable(Level.WARNING))
+		{
+			TRACE_LOGGER.log(Level.WARNING, String.format(Locale.US, "Receive handler for partition %s took %s microseconds on the reactor thread - moving it to the shared executor",
+					this.partitionId, TimeUnit.NANOSECONDS.toMicros(callDurationNanos)));
+		}
+
+		this.offloadExecutor = ReceiveHandlerExecutors.get(ReceiveHandlerDispatchMode.SharedExecutor);
+		return true;
+	}
+}
@@ -0,0 +1,771 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+package com.microsoft.azure.eventhubs;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.microsoft.azure.servicebus.ClientConstants;
+import com.microsoft.azure.servicebus.ClientEntity;
+import com.microsoft.azure.servicebus.IReceiveListener;
+import com.microsoft.azure.servicebus.MessageReceiver;
+import com.microsoft.azure.servicebus.MessagingFactory;
+import com.microsoft.azure.servicebus.PrefetchMemoryBudget;
+import com.microsoft.azure.servicebus.ReceiveDeadline;
+import com.microsoft.azure.servicebus.ReceivedMessage;
+import com.microsoft.azure.servicebus.ServiceBusException;
+import com.microsoft.azure.servicebus.StringUtil;
+
+/**
+ * Receives from several partitions of an EventHub behind a single {@link #receive(int)} or receive handler -
+ * over one link per partition, all on the connection of the {@link EventHubClient} it is created from.
+ * <p>
+ * Batches are filled round-robin across the partitions, starting one partition further with every batch - so a busy partition
+ * can't starve the others. Each event tells the partition it came from: {@link EventData.SystemProperties#getPartitionId()}.
+ * The partitions share one prefetch: the prefetch count is split between them, and {@link #setPrefetchByteLimit(long)}
+ * bounds the bytes they prefetch together - partitions whose events are drained faster get a larger part of it.
+ * The receiver takes one share of {@link EventHubClient#setPrefetchMemoryLimit(long)} like any other receiver of the client,
+ * and its partitions never prefetch more than that share together either.
+ * @see EventHubClient#createMultiPartitionReceiver(String, String[], String)
+ */
+public final class MultiPartitionReceiver extends ClientEntity
+{
+	private static final Logger TRACE_LOGGER = Logger.getLogger(ClientConstants.SERVICEBUS_CLIENT_TRACE);
+
+	private static final int MINIMUM_PARTITION_PREFETCH_COUNT = 10;
+
+	static final int DEFAULT_PREFETCH_COUNT = 999;
+
+	private final MessagingFactory underlyingFactory;
+	private final String eventHubName;
+	private final String consumerGroupName;
+	private final String[] partitionIds;
+	private final MessageReceiver[] partitionReceivers;
+	private final PrefetchMemoryBudget prefetchPool;
+	private final int prefetchCount;
+	private final Object receiveSync;
+	private final Object receiveHandlerSync;
+	// the earliest receive timeout among the pending receives
+	private final ReceiveDeadline receiveDeadline;
+
+	// guarded by receiveSync
+	private final LinkedList<PendingReceive> pendingReceives;
+	private int nextPartitionIndex;
+	private boolean isCreateFailed;
+
+	private volatile Exception lastKnownError;
+	private Duration receiveTimeout;
+
+	// a pump runs under a generation - bumped whenever a pump stops, so a stopped pump never calls its handler again; guarded by receiveHandlerSync
+	private long pumpGeneration;
+	private CompletableFuture<Iterable<EventData>> pumpReceive;
+
+	private MultiPartitionReceiver(final MessagingFactory factory,
+			final String eventHubName,
+			final String consumerGroupName,
+			final String[] partitionIds)
+	{
+		super(null, null);
+
+		this.underlyingFactory = factory;
+		this.eventHubName = eventHubName;
+		this.consumerGroupName = consumerGroupName;
+		this.partitionIds = partitionIds;
+		this.partitionReceivers = new MessageReceiver[partitionIds.length];
+		this.prefetchPool = new PrefetchMemoryBudget(factory.getPrefetchMemoryBudget());
+		this.prefetchCount = Math.max(DEFAULT_PREFETCH_COUNT, MINIMUM_PARTITION_PREFETCH_COUNT * partitionIds.length);
+		this.receiveSync = new Object();
+		this.receiveHandlerSync = new Object();
+		this.receiveDeadline = new ReceiveDeadline(new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				MultiPartitionReceiver.this.onDeadline();
+			}
+		});
+		this.pendingReceives = new LinkedList<PendingReceive>();
+		this.nextPartitionIndex = 0;
+		this.receiveTimeout = factory.getOperationTimeout();
+	}
+
+	static CompletableFuture<MultiPartitionReceiver> create(final MessagingFactory factory,
+			final String eventHubName,
+			final String consumerGroupName,
+			final String[] partitionIds,
+			final String startingOffset,
+			final boolean offsetInclusive,
+			final Instant dateTime)
+					throws ServiceBusException
+	{
+		if (StringUtil.isNullOrWhiteSpace(consumerGroupName))
+		{
+			throw new IllegalArgumentException("specify valid string for argument - 'consumerGroupName'");
+		}
+
+		if (partitionIds == null || partitionIds.length == 0)
+		{
+			throw new IllegalArgumentException("specify at least one partition for argument - 'partitionIds'");
+		}
+
+		for (String partitionId : partitionIds)
+		{
+			if (StringUtil.isNullOrWhiteSpace(partitionId))
+			{
+				throw new IllegalArgumentException("specify valid strings for argument - 'partitionIds'");
+			}
+		}
+
+		final MultiPartitionReceiver receiver = new MultiPartitionReceiver(factory, eventHubName, consumerGroupName, Arrays.copyOf(partitionIds, partitionIds.length));
+		return receiver.createInternalReceivers(startingOffset, offsetInclusive, dateTime).thenApplyAsync(new Function<Void, MultiPartitionReceiver>()
+		{
+			public MultiPartitionReceiver apply(Void a)
+			{
+				return receiver;
+			}
+		});
+	}
+
+	private CompletableFuture<Void> createInternalReceivers(final String startingOffset, final boolean offsetInclusive, final Instant dateTime)
+	{
+		final int partitionPrefetchCount = Math.max(MINIMUM_PARTITION_PREFETCH_COUNT, this.prefetchCount / this.partitionIds.length);
+		final CompletableFuture<?>[] creates = new CompletableFuture<?>[this.partitionIds.length];
+		for (int index = 0; index < this.partitionIds.length; index++)
+		{
+			final int partitionIndex = index;
+			creates[index] = MessageReceiver.create(this.underlyingFactory, StringUtil.getRandomString(),
+					String.format("%s/ConsumerGroups/%s/Partitions/%s", this.eventHubName, this.consumerGroupName, this.partitionIds[index]),
+					startingOffset, offsetInclusive, dateTime, null, partitionPrefetchCount, PartitionReceiver.NULL_EPOCH, false, this.prefetchPool)
+					.thenAccept(new Consumer<MessageReceiver>()
+					{
+						public void accept(MessageReceiver r)
+						{
+							final boolean isCreateFailed;
+							synchronized (MultiPartitionReceiver.this.receiveSync)
+							{
+								isCreateFailed = MultiPartitionReceiver.this.isCreateFailed;
+								if (!isCreateFailed)
+								{
+									MultiPartitionReceiver.this.partitionReceivers[partitionIndex] = r;
+								}
+							}
+
+							if (isCreateFailed)
+							{
+								// another partition failed while this one was opening - nobody will ever close it
+								r.close();
+								return;
+							}
+
+							r.setReceiveListener(new PartitionListener(partitionIndex));
+							r.request(Long.MAX_VALUE);
+
+							// events prefetched before the listener was set didn't notify it
+							MultiPartitionReceiver.this.onMessagesAvailable();
+						}
+					})
+					.whenComplete(new BiConsumer<Void, Throwable>()
+					{
+						@Override
+						public void accept(Void result, Throwable exception)
+						{
+							if (exception != null)
+							{
+								MultiPartitionReceiver.this.onCreateFailed();
+							}
+						}
+					});
+		}
+
+		return CompletableFuture.allOf(creates);
+	}
+
+	private void onCreateFailed()
+	{
+		synchronized (this.receiveSync)
+		{
+			if (this.isCreateFailed)
+			{
+				return;
+			}
+
+			this.isCreateFailed = true;
+		}
+
+		// don't leave the links that did open behind - the ones still opening close themselves
+		this.closeInternalReceivers();
+		this.prefetchPool.detach();
+	}
+
+	/**
+	 * @return the partitions this receiver receives from
+	 */
+	public final String[] getPartitionIds()
+	{
+		return Arrays.copyOf(this.partitionIds, this.partitionIds.length);
+	}
+
+	/**
+	 * @return the number of events prefetched across all partitions - also the largest maxEventCount {@link #receive(int)} accepts
+	 */
+	public final int getPrefetchCount()
+	{
+		return this.prefetchCount;
+	}
+
+	/**
+	 * Get the limit on the bytes the partitions of this receiver prefetch together - as set by {@link #setPrefetchByteLimit(long)}.
+	 * @return the limit in bytes; 0 if the prefetch is limited by the event count and the client's prefetch memory limit only
+	 * @see #setPrefetchByteLimit(long)
+	 */
+	public final long getPrefetchByteLimit()
+	{
+		return this.prefetchPool.getLimit();
+	}
+
+	/**
+	 * Limit the bytes the partitions of this receiver prefetch together. Half of the limit is split evenly between the partitions,
+	 * the other half follows the rate at which the events of each partition are received.
+	 * If the client limits the prefetch memory as well, the lower of this limit and the receiver's share of the client's limit applies.
+	 * @param prefetchByteLimit the limit in bytes; 0 removes the limit
+	 */
+	public final void setPrefetchByteLimit(final long prefetchByteLimit)
+	{
+		if (prefetchByteLimit < 0)
+		{
+			throw new IllegalArgumentException("prefetchByteLimit cannot be negative");
+		}
+
+		this.prefetchPool.setLimit(prefetchByteLimit);
+	}
+
+	public final Duration getReceiveTimeout()
+	{
+		return this.receiveTimeout;
+	}
+
+	public void setReceiveTimeout(final Duration value)
+	{
+		this.receiveTimeout = value;
+	}
+
+	/**
+	 * Synchronous version of {@link #receive}.
+	 * @param maxEventCount maximum number of {@link EventData}'s that this call should return
+	 * @return Batch of {@link EventData}'s from the partitions of this receiver. Returns 'null' if no {@link EventData} is present.
+	 * @throws ServiceBusException if ServiceBus client encountered any unrecoverable/non-transient problems during {@link #receive}
+	 */
+	public final Iterable<EventData> receiveSync(final int maxEventCount)
+			throws ServiceBusException
+	{
+		try
+		{
+			return this.receive(maxEventCount).get();
+		}
+		catch (InterruptedException|ExecutionException exception)
+		{
+			if (exception instanceof InterruptedException)
+			{
+				// Re-assert the thread's interrupted status
+				Thread.currentThread().interrupt();
+			}
+
+			Throwable throwable = exception.getCause();
+			if (throwable != null)
+			{
+				if (throwable instanceof RuntimeException)
+				{
+					throw (RuntimeException)throwable;
+				}
+
+				if (throwable instanceof ServiceBusException)
+				{
+					throw (ServiceBusException)throwable;
+				}
+
+				throw new ServiceBusException(true, throwable);
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * Receive a batch of {@link EventData}'s from the partitions of this receiver - taken fairly across the partitions that have events.
+	 * Returns as soon as there is an event on any partition.
+	 * @param maxEventCount maximum number of {@link EventData}'s that this call should return
+	 * @return A completableFuture that will yield a batch of {@link EventData}'s. Returns 'null' if no {@link EventData} arrived within the receive timeout.
+	 */
+	public CompletableFuture<Iterable<EventData>> receive(final int maxEventCount)
+	{
+		this.throwIfClosed(this.lastKnownError);
+
+		if (maxEventCount <= 0 || maxEventCount > this.prefetchCount)
+		{
+			throw new IllegalArgumentException(String.format(Locale.US, "parameter 'maxEventCount' should be a positive number and should be less than prefetchCount(%s)", this.prefetchCount));
+		}
+
+		final PendingReceive pendingReceive;
+		synchronized (this.receiveSync)
+		{
+			if (this.pendingReceives.isEmpty())
+			{
+				final LinkedList<EventData> events = this.pollFairly(maxEventCount);
+				if (events != null)
+				{
+					return CompletableFuture.completedFuture(events);
+				}
+			}
+
+			pendingReceive = new PendingReceive(maxEventCount, ReceiveDeadline.after(System.nanoTime(), this.receiveTimeout));
+			this.pendingReceives.add(pendingReceive);
+		}
+
+		this.receiveDeadline.arm(pendingReceive.deadlineNanos);
+
+		return pendingReceive.future;
+	}
+
+	// the armed deadline is reached - the receives which timed out complete with null, the timer is re-armed for the next one
+	private void onDeadline()
+	{
+		final long nowNanos = System.nanoTime();
+		final LinkedList<PendingReceive> timedoutReceives = new LinkedList<PendingReceive>();
+		boolean hasPendingReceive = false;
+		long nextDeadlineNanos = 0;
+		synchronized (this.receiveSync)
+		{
+			final Iterator<PendingReceive> pendingReceiveIterator = this.pendingReceives.iterator();
+			while (pendingReceiveIterator.hasNext())
+			{
+				final PendingReceive pendingReceive = pendingReceiveIterator.next();
+				if (pendingReceive.deadlineNanos - nowNanos <= 0)
+				{
+					pendingReceiveIterator.remove();
+					timedoutReceives.add(pendingReceive);
+				}
+				else if (!hasPendingReceive || pendingReceive.deadlineNanos - nextDeadlineNanos < 0)
+				{
+					nextDeadlineNanos = pendingReceive.deadlineNanos;
+					hasPendingReceive = true;
+				}
+			}
+		}
+
+		for (PendingReceive timedoutReceive : timedoutReceives)
+		{
+			timedoutReceive.future.complete(null);
+		}
+
+		if (hasPendingReceive)
+		{
+			this.receiveDeadline.arm(nextDeadlineNanos);
+		}
+	}
+
+	/**
+	 * Register a receive handler that will be called when events are available on any partition of this receiver.
+	 * The handler is called for one batch at a time, on the executor shared by the receive handlers of the process -
+	 * see {@link ReceiveHandlerDispatchMode#SharedExecutor}. Only {@link PartitionReceiveHandler#setMaxEventCount(int)} applies:
+	 * batches are handed over as soon as there is an event.
+	 * @param receiveHandler An implementation of {@link PartitionReceiveHandler}; null stops the pump
+	 */
+	public void setReceiveHandler(final PartitionReceiveHandler receiveHandler)
+	{
+		synchronized (this.receiveHandlerSync)
+		{
+			// the running pump stops before another one starts: the handler is never called concurrently
+			final CompletableFuture<Iterable<EventData>> previousReceive = this.stopReceivePump();
+			if (receiveHandler == null)
+			{
+				return;
+			}
+
+			final long generation = this.pumpGeneration;
+			final Executor executor = ReceiveHandlerExecutors.get(ReceiveHandlerDispatchMode.SharedExecutor);
+			if (previousReceive == null)
+			{
+				this.receiveOnExecutor(generation, receiveHandler, executor);
+			}
+			else
+			{
+				previousReceive.whenCompleteAsync(new BiConsumer<Iterable<EventData>, Throwable>()
+				{
+					@Override
+					public void accept(final Iterable<EventData> handedOverEvents, final Throwable exception)
+					{
+						if (MultiPartitionReceiver.this.onHandedOverEvents(generation, receiveHandler, handedOverEvents))
+						{
+							MultiPartitionReceiver.this.receiveOnExecutor(generation, receiveHandler, executor);
+						}
+					}
+				}, executor);
+			}
+		}
+	}
+
+	@Override
+	public CompletableFuture<Void> onClose()
+	{
+		synchronized (this.receiveHandlerSync)
+		{
+			this.stopReceivePump();
+		}
+
+		return this.closeInternalReceivers().whenComplete(new BiConsumer<Void, Throwable>()
+		{
+			@Override
+			public void accept(Void result, Throwable exception)
+			{
+				MultiPartitionReceiver.this.prefetchPool.detach();
+			}
+		});
+	}
+
+	// not-thread-safe: called under receiveHandlerSync
+	// withdraws the receive the stopped pump is waiting on - if events completed it already, it is returned for the next pump to take them
+	private CompletableFuture<Iterable<EventData>> stopReceivePump()
+	{
+		this.pumpGeneration++;
+
+		final CompletableFuture<Iterable<EventData>> previousReceive = this.pumpReceive;
+		this.pumpReceive = null;
+		if (previousReceive == null)
+		{
+			return null;
+		}
+
+		PendingReceive withdrawnReceive = null;
+		synchronized (this.receiveSync)
+		{
+			for (PendingReceive pendingReceive : this.pendingReceives)
+			{
+				if (pendingReceive.future == previousReceive)
+				{
+					withdrawnReceive = pendingReceive;
+					break;
+				}
+			}
+
+			if (withdrawnReceive != null)
+			{
+				this.pendingReceives.remove(withdrawnReceive);
+			}
+		}
+
+		if (withdrawnReceive != null)
+		{
+			withdrawnReceive.future.complete(null);
+			return null;
+		}
+
+		return previousReceive;
+	}
+
+	private boolean isCurrentPump(final long generation)
+	{
+		synchronized (this.receiveHandlerSync)
+		{
+			return generation == this.pumpGeneration;
+		}
+	}
+
+	// the pump takes the result of its receive - a pump stopped after this doesn't hand the same events to the next pump
+	private boolean takePumpReceive(final long generation)
+	{
+		synchronized (this.receiveHandlerSync)
+		{
+			if (generation != this.pumpGeneration)
+			{
+				return false;
+			}
+
+			this.pumpReceive = null;
+			return true;
+		}
+	}
+
+	// @return false if the pump was stopped meanwhile, or the handler threw
+	private boolean onHandedOverEvents(final long generation, final PartitionReceiveHandler handler, final Iterable<EventData> handedOverEvents)
+	{
+		if (!this.isCurrentPump(generation))
+		{
+			return false;
+		}
+
+		// a failed receive of the stopped pump is not reported - the receives of this pump report the errors which persist
+		if (handedOverEvents != null)
+		{
+			try
+			{
+				handler.onReceive(handedOverEvents);
+			}
+			catch (Throwable userCodeError)
+			{
+				this.stopOnReceivePump(generation, handler, userCodeError, "user exception");
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	private CompletableFuture<Void> closeInternalReceivers()
+	{
+		final LinkedList<CompletableFuture<Void>> closes = new LinkedList<CompletableFuture<Void>>();
+		synchronized (this.receiveSync)
+		{
+			for (MessageReceiver partitionReceiver : this.partitionReceivers)
+			{
+				if (partitionReceiver != null)
+				{
+					closes.add(partitionReceiver.close());
+				}
+			}
+		}
+
+		return CompletableFuture.allOf(closes.toArray(new CompletableFuture<?>[closes.size()]));
+	}
+
+	// not-thread-safe: called under receiveSync
+	// takes up to maxEventCount / partitionCount events from each partition per round - rounds continue while any partition has events
+	private LinkedList<EventData> pollFairly(final int maxEventCount)
+	{
+		final int partitionCount = this.partitionReceivers.length;
+		final int quantum = Math.max(1, maxEventCount / partitionCount);
+		final int startIndex = this.nextPartitionIndex;
+
+		LinkedList<EventData> events = null;
+		int eventCount = 0;
+		boolean isPolled = true;
+		while (isPolled && eventCount < maxEventCount)
+		{
+			isPolled = false;
+			for (int offset = 0; offset < partitionCount && eventCount < maxEventCount; offset++)
+			{
+				final int index = (startIndex + offset) % partitionCount;
+				final MessageReceiver partitionReceiver = this.partitionReceivers[index];
+				if (partitionReceiver == null)
+				{
+					continue;
+				}
+
+				final List<ReceivedMessage> messages = partitionReceiver.poll(Math.min(quantum, maxEventCount - eventCount));
+				if (messages == null)
+				{
+					continue;
+				}
+
+				if (events == null)
+				{
+					events = new LinkedList<EventData>();
+				}
+
+				for (ReceivedMessage message : messages)
+				{
+					events.add(new EventData(message, this.partitionIds[index]));
+				}
+
+				eventCount += messages.size();
+				isPolled = true;
+			}
+		}
+
+		if (events != null)
+		{
+			this.nextPartitionIndex = (startIndex + 1) % partitionCount;
+		}
+
+		return events;
+	}
+
+	private void onMessagesAvailable()
+	{
+		final LinkedList<PendingReceive> completedReceives = new LinkedList<PendingReceive>();
+		final LinkedList<LinkedList<EventData>> completedBatches = new LinkedList<LinkedList<EventData>>();
+		synchronized (this.receiveSync)
+		{
+			while (!this.pendingReceives.isEmpty())
+			{
+				final LinkedList<EventData> events = this.pollFairly(this.pendingReceives.peek().maxEventCount);
+				if (events == null)
+				{
+					break;
+				}
+
+				completedReceives.add(this.pendingReceives.poll());
+				completedBatches.add(events);
+			}
+		}
+
+		while (!completedReceives.isEmpty())
+		{
+			completedReceives.poll().future.complete(completedBatches.poll());
+		}
+	}
+
+	private void onPartitionClosed(final int partitionIndex, final Exception error)
+	{
+		if (error != null)
+		{
+			this.lastKnownError = error;
+			if (TRACE_LOGGER.isLoggable(Level.WARNING))
+			{
+				TRACE_LOGGER.log(Level.WARNING, String.format(Locale.US, "Receiver for partition %s closed with %s", this.partitionIds[partitionIndex], error.toString()));
+			}
+		}
+
+		final LinkedList<PendingReceive> closedReceives;
+		synchronized (this.receiveSync)
+		{
+			closedReceives = new LinkedList<PendingReceive>(this.pendingReceives);
+			this.pendingReceives.clear();
+		}
+
+		for (PendingReceive pendingReceive : closedReceives)
+		{
+			if (error == null)
+			{
+				pendingReceive.future.complete(null);
+			}
+			else
+			{
+				pendingReceive.future.completeExceptionally(error);
+			}
+		}
+	}
+
+	// the next batch is asked for once the handler returned from the previous one - so the handler runs one batch at a time
+	private void receiveOnExecutor(final long generation, final PartitionReceiveHandler handler, final Executor executor)
+	{
+		final CompletableFuture<Iterable<EventData>> receive;
+		try
+		{
+			// the receive is issued under the generation check - so a pump stopped meanwhile doesn't leave a receive behind that takes events
+			synchronized (this.receiveHandlerSync)
+			{
+				if (generation != this.pumpGeneration)
+				{
+					return;
+				}
+
+				receive = this.receive(Math.min(handler.getMaxEventCount(), this.prefetchCount));
+				this.pumpReceive = receive;
+			}
+		}
+		catch (RuntimeException exception)
+		{
+			this.stopOnReceivePump(generation, handler, exception, "receive exception");
+			return;
+		}
+
+		receive.whenCompleteAsync(new BiConsumer<Iterable<EventData>, Throwable>()
+		{
+			@Override
+			public void accept(final Iterable<EventData> receivedEvents, final Throwable exception)
+			{
+				if (!MultiPartitionReceiver.this.takePumpReceive(generation))
+				{
+					return;
+				}
+
+				if (exception != null)
+				{
+					final Throwable cause = exception instanceof CompletionException && exception.getCause() != null ? exception.getCause() : exception;
+					if ((cause instanceof ServiceBusException && !((ServiceBusException) cause).getIsTransient()) || cause instanceof RuntimeException)
+					{
+						MultiPartitionReceiver.this.stopOnReceivePump(generation, handler, cause, "receive exception");
+						return;
+					}
+				}
+				else
+				{
+					try
+					{
+						handler.onReceive(receivedEvents);
+					}
+					catch (Throwable userCodeError)
+					{
+						MultiPartitionReceiver.this.stopOnReceivePump(generation, handler, userCodeError, "user exception");
+						return;
+					}
+				}
+
+				MultiPartitionReceiver.this.receiveOnExecutor(generation, handler, executor);
+			}
+		}, executor);
+	}
+
+	private void stopOnReceivePump(final long generation, final PartitionReceiveHandler handler, final Throwable error, final String reason)
+	{
+		synchronized (this.receiveHandlerSync)
+		{
+			if (generation != this.pumpGeneration)
+			{
+				return;
+			}
+
+			this.pumpGeneration++;
+			this.pumpReceive = null;
+		}
+
+		handler.onError(error);
+
+		if (TRACE_LOGGER.isLoggable(Level.SEVERE))
+		{
+			TRACE_LOGGER.log(Level.SEVERE, String.format("Receive pump for partitions %s exiting after %s %s", Arrays.toString(this.partitionIds), reason, error.toString()));
+		}
+	}
+
+	private static final class PendingReceive
+	{
+		private final int maxEventCount;
+		private final long deadlineNanos;
+		private final CompletableFuture<Iterable<EventData>> future;
+
+		PendingReceive(final int maxEventCount, final long deadlineNanos)
+		{
+			this.maxEventCount = maxEventCount;
+			this.deadlineNanos = deadlineNanos;
+			this.future = new CompletableFuture<Iterable<EventData>>();
+		}
+	}
+
+	private final class PartitionListener implements IReceiveListener
+	{
+		private final int partitionIndex;
+
+		PartitionListener(final int partitionIndex)
+		{
+			this.partitionIndex = partitionIndex;
+		}
+
+		@Override
+		public void onMessagesAvailable()
+		{
+			MultiPartitionReceiver.this.onMessagesAvailable();
+		}
+
+		@Override
+		public void onClose(final Exception error)
+		{
+			MultiPartitionReceiver.this.onPartitionClosed(this.partitionIndex, error);
+		}
+	}
+}
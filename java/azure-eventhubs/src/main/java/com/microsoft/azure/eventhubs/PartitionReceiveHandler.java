@@ -4,6 +4,8 @@
  */
 package com.microsoft.azure.eventhubs;
 
+import java.time.Duration;
+
 /**
  * A handler class for the receive operation. Use any implementation of this abstract class to specify 
  * user action when using PartitionReceiver's setReceiveHandler().
@@ -12,10 +14,30 @@ package com.microsoft.azure.eventhubs;
 public abstract class PartitionReceiveHandler
 {
 	private int maxEventCount;
+	private int minEventCount;
+	private Duration maxLinger;
 
 	protected PartitionReceiveHandler(final int maxEventCount)
 	{
+		this(maxEventCount, 1, Duration.ZERO);
+	}
+
+	/**
+	 * @param maxEventCount maximum number of {@link EventData}'s passed to a {@link PartitionReceiveHandler#onReceive} call
+	 * @param minEventCount number of {@link EventData}'s to gather before {@link PartitionReceiveHandler#onReceive} is called - unless maxLinger elapses first
+	 * @param maxLinger the longest time to wait for minEventCount events
+	 * @see PartitionReceiver#receive(int, int, Duration)
+	 */
+	protected PartitionReceiveHandler(final int maxEventCount, final int minEventCount, final Duration maxLinger)
+	{
+		if (minEventCount <= 0 || maxLinger == null || maxLinger.isNegative())
+		{
+			throw new IllegalArgumentException("minEventCount should be a positive number and maxLinger should be a non-negative duration");
+		}
+
 		this.maxEventCount = maxEventCount;
+		this.minEventCount = minEventCount;
+		this.maxLinger = maxLinger;
 	}
 
 	int getMaxEventCount()
@@ -23,6 +45,16 @@ public abstract class PartitionReceiveHandler
 		return maxEventCount;
 	}
 
+	int getMinEventCount()
+	{
+		return minEventCount;
+	}
+
+	Duration getMaxLinger()
+	{
+		return maxLinger;
+	}
+
 	/**
 	 * implementor of {@link PartitionReceiveHandler#onReceive} can use this to set the limit on maximum {@link EventData}'s that
 	 * can be received by the next {@link PartitionReceiveHandler#onReceive} call
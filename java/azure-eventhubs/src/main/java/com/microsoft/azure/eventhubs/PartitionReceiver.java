@@ -9,20 +9,23 @@ import java.time.Instant;
 import java.util.Collection;
 import java.util.Locale;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
-import org.apache.qpid.proton.message.Message;
-
 import com.microsoft.azure.servicebus.ClientConstants;
 import com.microsoft.azure.servicebus.ClientEntity;
+import com.microsoft.azure.servicebus.LatencyHistogram;
 import com.microsoft.azure.servicebus.MessageReceiver;
 import com.microsoft.azure.servicebus.MessagingFactory;
+import com.microsoft.azure.servicebus.ReceivedMessage;
 import com.microsoft.azure.servicebus.ServiceBusException;
 import com.microsoft.azure.servicebus.StringUtil;
 
@@ -44,6 +47,7 @@ public final class PartitionReceiver extends ClientEntity
 	
 	private static final int MINIMUM_PREFETCH_COUNT = 10;
 	private static final int MAXIMUM_PREFETCH_COUNT = 999;
+	private static final int MAXIMUM_ADAPTIVE_PREFETCH_COUNT = 8000;
 
 	static final int DEFAULT_PREFETCH_COUNT = 999;
 	static final long NULL_EPOCH = 0;
@@ -62,12 +66,19 @@ public final class PartitionReceiver extends ClientEntity
 	private String startingOffset;
 	private boolean offsetInclusive;
 	private Instant startingDateTime;
+	private Long startingSequenceNumber;
 	private MessageReceiver internalReceiver; 
 	private Long epoch;
 	private boolean isEpochReceiver;
 	private PartitionReceiveHandler onReceiveHandler;
 	private boolean isOnReceivePumpRunning;
 	private Thread onReceivePumpThread;
+	// bumped whenever the pump stops - a pump runs only while its generation is the current one; guarded by receiveHandlerSync
+	private long pumpGeneration;
+	// the receive the running pump waits on; guarded by receiveHandlerSync
+	private CompletableFuture<Iterable<EventData>> pumpReceive;
+	private PartitionReceiverSubscription subscription;
+	private InlineReceiveDispatcher inlineDispatcher;
 
 	private PartitionReceiver(MessagingFactory factory, 
 			final String eventHubName, 
@@ -76,6 +87,7 @@ public final class PartitionReceiver extends ClientEntity
 			final String startingOffset, 
 			final boolean offsetInclusive,
 			final Instant dateTime,
+			final Long startingSequenceNumber,
 			final Long epoch,
 			final boolean isEpochReceiver)
 					throws ServiceBusException
@@ -89,6 +101,7 @@ public final class PartitionReceiver extends ClientEntity
 		this.startingOffset = startingOffset;
 		this.offsetInclusive = offsetInclusive;
 		this.startingDateTime = dateTime;
+		this.startingSequenceNumber = startingSequenceNumber;
 		this.epoch = epoch;
 		this.isEpochReceiver = isEpochReceiver;
 		this.receiveHandlerSync = new Object();
@@ -102,6 +115,7 @@ public final class PartitionReceiver extends ClientEntity
 			final String startingOffset, 
 			final boolean offsetInclusive,
 			final Instant dateTime,
+			final Long startingSequenceNumber,
 			final long epoch,
 			final boolean isEpochReceiver) 
 					throws ServiceBusException
@@ -116,7 +130,12 @@ public final class PartitionReceiver extends ClientEntity
 			throw new IllegalArgumentException("specify valid string for argument - 'consumerGroupName'");
 		}
 
-		final PartitionReceiver receiver = new PartitionReceiver(factory, eventHubName, consumerGroupName, partitionId, startingOffset, offsetInclusive, dateTime, epoch, isEpochReceiver);
+		if (startingSequenceNumber != null && startingSequenceNumber < 0)
+		{
+			throw new IllegalArgumentException("startingSequenceNumber cannot be a negative value.");
+		}
+
+		final PartitionReceiver receiver = new PartitionReceiver(factory, eventHubName, consumerGroupName, partitionId, startingOffset, offsetInclusive, dateTime, startingSequenceNumber, epoch, isEpochReceiver);
 		return receiver.createInternalReceiver().thenApplyAsync(new Function<Void, PartitionReceiver>()
 		{
 			public PartitionReceiver apply(Void a)
@@ -130,7 +149,7 @@ public final class PartitionReceiver extends ClientEntity
 	{
 		return MessageReceiver.create(this.underlyingFactory, StringUtil.getRandomString(), 
 				String.format("%s/ConsumerGroups/%s/Partitions/%s", this.eventHubName, this.consumerGroupName, this.partitionId), 
-				this.startingOffset, this.offsetInclusive, this.startingDateTime, PartitionReceiver.DEFAULT_PREFETCH_COUNT, this.epoch, this.isEpochReceiver)
+				this.startingOffset, this.offsetInclusive, this.startingDateTime, this.startingSequenceNumber, PartitionReceiver.DEFAULT_PREFETCH_COUNT, this.epoch, this.isEpochReceiver)
 				.thenAcceptAsync(new Consumer<MessageReceiver>()
 				{
 					public void accept(MessageReceiver r) { PartitionReceiver.this.internalReceiver = r;}
@@ -150,6 +169,14 @@ public final class PartitionReceiver extends ClientEntity
 		return this.offsetInclusive;
 	}
 
+	/**
+	 * @return The sequence number this Receiver started receiving from; null if it started from an offset or an enqueued time
+	 */
+	final Long getStartingSequenceNumber()
+	{
+		return this.startingSequenceNumber;
+	}
+
 	/**
 	 * Get EventHubs partition identifier.
 	 * @return The identifier representing the partition from which this receiver is fetching data
@@ -195,6 +222,118 @@ public final class PartitionReceiver extends ClientEntity
 		this.internalReceiver.setPrefetchCount(prefetchCount);
 	}
 
+	/**
+	 * Let the receiver size its prefetch from the rate at which the events are received from it and the round trip time to the service - 
+	 * so that a fast consumer doesn't wait for the next batch of events to arrive and a slow consumer doesn't build up a backlog in memory.
+	 * <p>The maximum bound can go beyond the fixed prefetch count limit. {@link #setPrefetchCount(int)} switches back to a fixed prefetch.
+	 * @param minPrefetchCount the lower bound of the prefetch. value must be between 10 and maxPrefetchCount.
+	 * @param maxPrefetchCount the upper bound of the prefetch - also the largest maxEventCount {@link #receive(int)} accepts. value must be between minPrefetchCount and 8000.
+	 */
+	public final void setAdaptivePrefetch(final int minPrefetchCount, final int maxPrefetchCount)
+	{
+		if (minPrefetchCount < PartitionReceiver.MINIMUM_PREFETCH_COUNT || maxPrefetchCount > PartitionReceiver.MAXIMUM_ADAPTIVE_PREFETCH_COUNT || minPrefetchCount > maxPrefetchCount)
+		{
+			throw new IllegalArgumentException(String.format(Locale.US, 
+					"minPrefetchCount and maxPrefetchCount have to be between %s and %s, and minPrefetchCount cannot be greater than maxPrefetchCount", 
+					PartitionReceiver.MINIMUM_PREFETCH_COUNT, PartitionReceiver.MAXIMUM_ADAPTIVE_PREFETCH_COUNT));
+		}
+
+		this.internalReceiver.setAdaptivePrefetch(minPrefetchCount, maxPrefetchCount);
+	}
+
+	/**
+	 * @return true if the prefetch is sized adaptively - see {@link #setAdaptivePrefetch(int, int)}
+	 */
+	public final boolean isAdaptivePrefetch()
+	{
+		return this.internalReceiver.isAdaptivePrefetch();
+	}
+
+	/**
+	 * Get the limit on the number of bytes the receiver prefetches.
+	 * @return the prefetch budget in bytes; 0 if the prefetch is limited by the event count only
+	 * @see #setPrefetchByteBudget(long)
+	 */
+	public final long getPrefetchByteBudget()
+	{
+		return this.internalReceiver.getPrefetchByteBudget();
+	}
+
+	/**
+	 * Limit the prefetch in bytes - in addition to the prefetch count, so that the memory a receiver holds doesn't depend on the size of the events.
+	 * The receiver stops asking the service for more events once the prefetched events and the events already asked for (at their average size)
+	 * reach the budget. A single event larger than the budget is still received.
+	 * @param prefetchByteBudget the prefetch budget in bytes; 0 removes the limit
+	 */
+	public final void setPrefetchByteBudget(final long prefetchByteBudget)
+	{
+		if (prefetchByteBudget < 0)
+		{
+			throw new IllegalArgumentException("prefetchByteBudget cannot be negative");
+		}
+
+		this.internalReceiver.setPrefetchByteBudget(prefetchByteBudget);
+	}
+
+	/**
+	 * Stop the inflow of events without closing the receiver - the receiver stops asking the service for more events, 
+	 * and resumes from where it stopped without re-opening its link. Events already prefetched can still be received.
+	 * The service still sends the events this receiver already asked for - up to the prefetch count; see {@link #pause(boolean)}.
+	 * @see #resume()
+	 */
+	public final void pause()
+	{
+		this.pause(false);
+	}
+
+	/**
+	 * Stop the inflow of events without closing the receiver.
+	 * @param drainOutstandingCredit true to also cancel the events this receiver asked for and the service didn't send yet - 
+	 * only the events already on the wire still arrive
+	 * @see #resume()
+	 */
+	public final void pause(final boolean drainOutstandingCredit)
+	{
+		this.internalReceiver.pause(drainOutstandingCredit);
+	}
+
+	/**
+	 * Resume the inflow of events stopped by {@link #pause()} - the receiver asks the service for a full prefetch at once.
+	 */
+	public final void resume()
+	{
+		this.internalReceiver.resume();
+	}
+
+	/**
+	 * @return true if the inflow of events is paused - see {@link #pause()}
+	 */
+	public final boolean isPaused()
+	{
+		return this.internalReceiver.isPaused();
+	}
+
+	/**
+	 * Get the lag of the events received by this receiver - from the time each event was enqueued on the partition to the time it reached
+	 * this receiver's prefetch. The enqueued time is stamped by the service, so the lag includes the skew between the service clock and the local clock.
+	 * <p>A lag that keeps growing means the events are enqueued faster than this receiver asks for them - ex: a signal to scale out the consumers.
+	 * @return histogram of the lag in milliseconds - updated as the events arrive
+	 */
+	public final LatencyHistogram getEnqueueToPrefetchLag()
+	{
+		return this.internalReceiver.getEnqueueToPrefetchLag();
+	}
+
+	/**
+	 * Get the time the events waited in this receiver's prefetch before {@link #receive(int)} or the {@link PartitionReceiveHandler} got them.
+	 * <p>A high lag here, while {@link #getEnqueueToPrefetchLag()} is low, points at a slow event processor rather than at the service.
+	 * @return histogram of the wait in milliseconds - updated as the events are received
+	 */
+	public final LatencyHistogram getPrefetchToHandlerLag()
+	{
+		return this.internalReceiver.getPrefetchToConsumerLag();
+	}
+
 	/**
 	 * Get the epoch value that this receiver is currently using for partition ownership.
 	 * <p>
@@ -247,6 +386,49 @@ public final class PartitionReceiver extends ClientEntity
 		return null;
 	}
 
+	/**
+	 * Synchronous version of {@link #receive(int, int, Duration)}. 
+	 * @param maxEventCount maximum number of {@link EventData}'s that this call should return
+	 * @param minEventCount number of {@link EventData}'s to wait for - until maxLinger elapses
+	 * @param maxLinger the longest time to wait for minEventCount events
+	 * @return Batch of {@link EventData}'s from the partition on which this receiver is created. Returns 'null' if no {@link EventData} is present.
+	 * @throws ServiceBusException if ServiceBus client encountered any unrecoverable/non-transient problems during {@link #receive}
+	 */
+	public final Iterable<EventData> receiveSync(final int maxEventCount, final int minEventCount, final Duration maxLinger) 
+			throws ServiceBusException
+	{
+		try
+		{
+			return this.receive(maxEventCount, minEventCount, maxLinger).get();
+		}
+		catch (InterruptedException|ExecutionException exception)
+		{
+			if (exception instanceof InterruptedException)
+			{
+				// Re-assert the thread's interrupted status
+				Thread.currentThread().interrupt();
+			}
+
+			Throwable throwable = exception.getCause();
+			if (throwable != null)
+			{
+				if (throwable instanceof RuntimeException)
+				{
+					throw (RuntimeException)throwable;
+				}
+
+				if (throwable instanceof ServiceBusException)
+				{
+					throw (ServiceBusException)throwable;
+				}
+
+				throw new ServiceBusException(true, throwable);
+			}
+		}
+
+		return null;
+	}
+
 	/** 
 	 * Receive a batch of {@link EventData}'s from an EventHub partition
 	 * <p>
@@ -281,12 +463,29 @@ public final class PartitionReceiver extends ClientEntity
 	 */
 	public CompletableFuture<Iterable<EventData>> receive(final int maxEventCount)
 	{
-		return this.internalReceiver.receive(maxEventCount).thenApply(new Function<Collection<Message>, Iterable<EventData>>()
+		return this.receive(maxEventCount, 1, Duration.ZERO);
+	}
+
+	/** 
+	 * Receive a batch of at least minEventCount {@link EventData}'s from an EventHub partition - unless maxLinger elapses first.
+	 * <p>
+	 * {@link #receive(int)} returns as soon as there is an event, so under a trickle of events it returns batches of one event. 
+	 * This overload keeps the batch open until minEventCount events are there, or until maxLinger elapsed since the call - 
+	 * then it returns the events received so far, or the next event if there is none yet.
+	 * The receive timeout still applies: if it is shorter than maxLinger, the receive returns what it has got by then (or null).
+	 * @param maxEventCount maximum number of {@link EventData}'s that this call should return
+	 * @param minEventCount number of {@link EventData}'s to wait for - between 1 and maxEventCount
+	 * @param maxLinger the longest time to wait for minEventCount events; Duration.ZERO returns as soon as there is an event
+	 * @return A completableFuture that will yield a batch of {@link EventData}'s from the partition on which this receiver is created. Returns 'null' if no {@link EventData} is present.
+	 */
+	public CompletableFuture<Iterable<EventData>> receive(final int maxEventCount, final int minEventCount, final Duration maxLinger)
+	{
+		return this.internalReceiver.receive(maxEventCount, minEventCount, maxLinger).thenApply(new Function<Collection<ReceivedMessage>, Iterable<EventData>>()
 		{
 			@Override
-			public Iterable<EventData> apply(Collection<Message> amqpMessages)
+			public Iterable<EventData> apply(Collection<ReceivedMessage> amqpMessages)
 			{
-				return EventDataUtil.toEventDataCollection(amqpMessages);
+				return EventDataUtil.toEventDataCollection(amqpMessages, PartitionReceiver.this.partitionId);
 			}
 		});
 	}
@@ -295,35 +494,224 @@ public final class PartitionReceiver extends ClientEntity
 	 * Register a receive handler that will be called when an event is available. A 
 	 * {@link PartitionReceiveHandler} is a handler that allows user to specify a callback
 	 * for event processing and error handling in a receive pump model. 
+	 * The handler runs on a thread dedicated to this receiver - see {@link ReceiveHandlerDispatchMode#DedicatedThread}.
 	 * @param receiveHandler An implementation of {@link PartitionReceiveHandler}
 	 */
 	public void setReceiveHandler(final PartitionReceiveHandler receiveHandler)
 	{
+		this.setReceiveHandler(receiveHandler, ReceiveHandlerDispatchMode.DedicatedThread);
+	}
+
+	/**
+	 * Register a receive handler that will be called when an event is available - on the thread the dispatchMode picks.
+	 * With {@link ReceiveHandlerDispatchMode#SharedExecutor}, many receivers share a few threads instead of each blocking a thread of its own
+	 * while it waits for events; the handler of a receiver is still called for one batch at a time, in order.
+	 * With {@link ReceiveHandlerDispatchMode#ReactorThread}, the handler is called as the events are delivered and {@link #receive(int)} can't be used.
+	 * A handler set while another one runs replaces it - in any mode: the running pump stops first, and the new handler gets the events of the receive it waited on.
+	 * @param receiveHandler An implementation of {@link PartitionReceiveHandler}; null stops the pump
+	 * @param dispatchMode the thread to call the handler on
+	 */
+	public void setReceiveHandler(final PartitionReceiveHandler receiveHandler, final ReceiveHandlerDispatchMode dispatchMode)
+	{
+		if (dispatchMode == null)
+		{
+			throw new IllegalArgumentException("dispatchMode cannot be null");
+		}
+
+		InlineReceiveDispatcher newInlineDispatcher = null;
+		CompletableFuture<Iterable<EventData>> previousReceive = null;
 		synchronized (this.receiveHandlerSync)
 		{
-			if (receiveHandler == null)
+			if (receiveHandler != null && this.subscription != null && this.subscription.isActive())
 			{
-				if (this.onReceiveHandler != null)
+				throw new IllegalStateException("a subscriber is active on this receiver");
+			}
+
+			// the running pump - in whichever mode - stops before another one starts: the handler is never called concurrently
+			previousReceive = this.stopReceivePump();
+			if (receiveHandler != null)
+			{
+				this.onReceiveHandler = receiveHandler;
+				final long generation = this.pumpGeneration;
+				if (dispatchMode == ReceiveHandlerDispatchMode.ReactorThread)
+				{
+					newInlineDispatcher = new InlineReceiveDispatcher(this.internalReceiver, this.partitionId, receiveHandler);
+					this.inlineDispatcher = newInlineDispatcher;
+				}
+				else if (dispatchMode == ReceiveHandlerDispatchMode.DedicatedThread)
 				{
-					this.isOnReceivePumpRunning = false;
-					this.onReceivePumpThread.interrupt();
+					this.isOnReceivePumpRunning = true;
+					this.startOnReceivePump(generation, receiveHandler, previousReceive);
+				}
+				else
+				{
+					this.isOnReceivePumpRunning = true;
+					final Executor executor = ReceiveHandlerExecutors.get(dispatchMode);
+					if (previousReceive == null)
+					{
+						this.receiveOnExecutor(generation, receiveHandler, executor);
+					}
+					else
+					{
+						previousReceive.whenCompleteAsync(new BiConsumer<Iterable<EventData>, Throwable>()
+						{
+							@Override
+							public void accept(final Iterable<EventData> handedOverEvents, final Throwable exception)
+							{
+								if (PartitionReceiver.this.onHandedOverEvents(generation, receiveHandler, handedOverEvents))
+								{
+									PartitionReceiver.this.receiveOnExecutor(generation, receiveHandler, executor);
+								}
+							}
+						}, executor);
+					}
 				}
 			}
+		}
+
+		if (newInlineDispatcher != null)
+		{
+			final long generation = this.getPumpGeneration();
+			final InlineReceiveDispatcher inlineDispatcher = newInlineDispatcher;
+			if (previousReceive == null)
+			{
+				inlineDispatcher.start();
+			}
 			else
 			{
-				this.onReceiveHandler = receiveHandler;
-				this.startOnReceivePump();
+				previousReceive.whenComplete(new BiConsumer<Iterable<EventData>, Throwable>()
+				{
+					@Override
+					public void accept(final Iterable<EventData> handedOverEvents, final Throwable exception)
+					{
+						if (PartitionReceiver.this.onHandedOverEvents(generation, receiveHandler, handedOverEvents))
+						{
+							inlineDispatcher.start();
+						}
+					}
+				});
 			}
 		}
 	}
 
-	@Override
-	public CompletableFuture<Void> onClose()
+	// not-thread-safe - returns the receive the stopped pump is waiting on, for the next pump to wait on (and take its events) first
+	private CompletableFuture<Iterable<EventData>> stopReceivePump()
 	{
+		this.pumpGeneration++;
 		this.isOnReceivePumpRunning = false;
-		if (this.onReceivePumpThread != null && !this.onReceivePumpThread.isInterrupted())
+		if (this.onReceivePumpThread != null)
 		{
 			this.onReceivePumpThread.interrupt();
+			this.onReceivePumpThread = null;
+		}
+
+		if (this.inlineDispatcher != null)
+		{
+			this.inlineDispatcher.stop();
+			this.inlineDispatcher = null;
+		}
+
+		final CompletableFuture<Iterable<EventData>> previousReceive = this.pumpReceive;
+		this.pumpReceive = null;
+		return previousReceive == null || previousReceive.isDone() ? null : previousReceive;
+	}
+
+	private long getPumpGeneration()
+	{
+		synchronized (this.receiveHandlerSync)
+		{
+			return this.pumpGeneration;
+		}
+	}
+
+	private boolean isCurrentPump(final long generation)
+	{
+		synchronized (this.receiveHandlerSync)
+		{
+			return generation == this.pumpGeneration;
+		}
+	}
+
+	// the receive of a pump - tracked, so that a pump replacing it waits for it
+	private CompletableFuture<Iterable<EventData>> receiveOnPump(final long generation, final PartitionReceiveHandler handler) throws ServiceBusException
+	{
+		final CompletableFuture<Iterable<EventData>> receive = 
+				this.receive(handler.getMaxEventCount(), Math.min(handler.getMinEventCount(), handler.getMaxEventCount()), handler.getMaxLinger());
+		synchronized (this.receiveHandlerSync)
+		{
+			if (generation == this.pumpGeneration)
+			{
+				this.pumpReceive = receive;
+			}
+		}
+
+		return receive;
+	}
+
+	// @return false if the pump was stopped meanwhile, or the handler threw
+	private boolean onHandedOverEvents(final long generation, final PartitionReceiveHandler handler, final Iterable<EventData> handedOverEvents)
+	{
+		if (!this.isCurrentPump(generation))
+		{
+			return false;
+		}
+
+		// a failed receive of the stopped pump is not reported - the receives of this pump report the errors which persist
+		if (handedOverEvents != null)
+		{
+			try
+			{
+				handler.onReceive(handedOverEvents);
+			}
+			catch (Throwable userCodeError)
+			{
+				this.stopOnReceivePump(generation, handler, userCodeError, "user exception");
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Push the events of the partition to the subscriber - without a thread waiting on {@link #receive(int)}. The receiver asks the service 
+	 * for as many events as the subscriber requested and not yet got (up to the prefetch count); the events are pushed from a pool thread 
+	 * as they arrive. {@link EventSubscriber#onComplete()} is called when the receiver is closed.
+	 * <p>
+	 * Only one subscriber can be active at a time, and {@link #receive(int)} or a receive handler can't be used while it is.
+	 * Events asked for before the subscription are pushed once the subscriber requests them.
+	 * @param subscriber the subscriber to push the events to
+	 * @throws IllegalStateException if a subscriber or a receive handler is active on this receiver
+	 */
+	public void subscribe(final EventSubscriber subscriber)
+	{
+		if (subscriber == null)
+		{
+			throw new IllegalArgumentException("subscriber cannot be null");
+		}
+
+		final PartitionReceiverSubscription newSubscription;
+		synchronized (this.receiveHandlerSync)
+		{
+			if (this.isOnReceivePumpRunning || (this.inlineDispatcher != null && this.inlineDispatcher.isRunning()) 
+					|| (this.subscription != null && this.subscription.isActive()))
+			{
+				throw new IllegalStateException("a subscriber or a receive handler is already active on this receiver");
+			}
+
+			newSubscription = new PartitionReceiverSubscription(this.internalReceiver, this.partitionId, subscriber);
+			this.subscription = newSubscription;
+		}
+
+		newSubscription.start();
+	}
+
+	@Override
+	public CompletableFuture<Void> onClose()
+	{
+		synchronized (this.receiveHandlerSync)
+		{
+			this.stopReceivePump();
 		}
 
 		if (this.internalReceiver != null)
@@ -336,30 +724,127 @@ public final class PartitionReceiver extends ClientEntity
 		}
 	}
 
-	private void startOnReceivePump()
+	// the next batch is asked for once the handler returned from the previous one - so the handler runs one batch at a time
+	private void receiveOnExecutor(final long generation, final PartitionReceiveHandler handler, final Executor executor)
+	{
+		if (!this.isCurrentPump(generation))
+		{
+			return;
+		}
+
+		final CompletableFuture<Iterable<EventData>> receive;
+		try
+		{
+			receive = this.receiveOnPump(generation, handler);
+		}
+		catch (ServiceBusException|RuntimeException exception)
+		{
+			this.stopOnReceivePump(generation, handler, exception, "receive exception");
+			return;
+		}
+
+		receive.whenCompleteAsync(new BiConsumer<Iterable<EventData>, Throwable>()
+		{
+			@Override
+			public void accept(final Iterable<EventData> receivedEvents, final Throwable exception)
+			{
+				if (!PartitionReceiver.this.isCurrentPump(generation))
+				{
+					return;
+				}
+
+				if (exception != null)
+				{
+					final Throwable cause = exception instanceof CompletionException && exception.getCause() != null ? exception.getCause() : exception;
+					if ((cause instanceof ServiceBusException && !((ServiceBusException) cause).getIsTransient()) || cause instanceof RuntimeException)
+					{
+						PartitionReceiver.this.stopOnReceivePump(generation, handler, cause, "receive exception");
+						return;
+					}
+				}
+				else
+				{
+					try
+					{
+						handler.onReceive(receivedEvents);
+					}
+					catch (Throwable userCodeError)
+					{
+						PartitionReceiver.this.stopOnReceivePump(generation, handler, userCodeError, "user exception");
+						return;
+					}
+				}
+
+				PartitionReceiver.this.receiveOnExecutor(generation, handler, executor);
+			}
+		}, executor);
+	}
+
+	// @return false if the pump was stopped already - a stopped pump doesn't call its handler
+	private boolean stopOnReceivePump(final long generation, final PartitionReceiveHandler handler, final Throwable error, final String reason)
+	{
+		synchronized (this.receiveHandlerSync)
+		{
+			if (generation != this.pumpGeneration)
+			{
+				return false;
+			}
+
+			this.isOnReceivePumpRunning = false;
+		}
+
+		handler.onError(error);
+
+		if (TRACE_LOGGER.isLoggable(Level.SEVERE))
+		{
+			TRACE_LOGGER.log(Level.SEVERE, String.format("Receive pump for partition %s exiting after %s %s", this.partitionId, reason, error.toString()));
+		}
+
+		return true;
+	}
+
+	private void startOnReceivePump(final long generation, final PartitionReceiveHandler handler, final CompletableFuture<Iterable<EventData>> previousReceive)
 	{
 		this.onReceivePumpThread = new Thread(new Runnable()
 		{
 			@Override
 			public void run()
 			{
-				synchronized (PartitionReceiver.this.receiveHandlerSync)
+				if (previousReceive != null)
 				{
-					PartitionReceiver.this.isOnReceivePumpRunning = true;
+					Iterable<EventData> handedOverEvents = null;
+					try
+					{
+						handedOverEvents = previousReceive.get();
+					}
+					catch (InterruptedException interruptedException)
+					{
+						Thread.currentThread().interrupt();
+						return;
+					}
+					catch (ExecutionException receiveException)
+					{
+						handedOverEvents = null;
+					}
+
+					if (!PartitionReceiver.this.onHandedOverEvents(generation, handler, handedOverEvents))
+					{
+						return;
+					}
 				}
 
-				while(PartitionReceiver.this.isOnReceivePumpRunning)
+				while(PartitionReceiver.this.isCurrentPump(generation))
 				{
 					Iterable<EventData> receivedEvents = null;
 
 					try
 					{
-						receivedEvents = PartitionReceiver.this.receive(PartitionReceiver.this.onReceiveHandler.getMaxEventCount())
+						receivedEvents = PartitionReceiver.this.receiveOnPump(generation, handler)
 								.get(PartitionReceiver.this.underlyingFactory.getOperationTimeout().getSeconds(), TimeUnit.SECONDS);
 					}
-					catch (InterruptedException|ExecutionException|TimeoutException clientException)
+					catch (ServiceBusException|InterruptedException|ExecutionException|TimeoutException clientException)
 					{
-						Throwable cause = clientException.getCause();
+						Throwable cause = clientException instanceof ServiceBusException ? clientException : clientException.getCause();
 
 						if (clientException instanceof TimeoutException)
 						{
@@ -371,15 +856,9 @@ public final class PartitionReceiver extends ClientEntity
 										&& ((cause instanceof ServiceBusException && !((ServiceBusException) cause).getIsTransient())
 										|| cause instanceof RuntimeException))))
 							{
-								synchronized (PartitionReceiver.this.receiveHandlerSync)
-								{
-									PartitionReceiver.this.isOnReceivePumpRunning = false;
-								}
-	
-								PartitionReceiver.this.onReceiveHandler.onError(cause);
+								PartitionReceiver.this.stopOnReceivePump(generation, handler, cause, "receive exception");
 							}
-	
-							if (clientException instanceof InterruptedException)
+							else if (clientException instanceof InterruptedException)
 							{
 								Thread.currentThread().interrupt();
 								if(TRACE_LOGGER.isLoggable(Level.FINE))
@@ -390,37 +869,31 @@ public final class PartitionReceiver extends ClientEntity
 							}
 							else if (TRACE_LOGGER.isLoggable(Level.SEVERE))
 							{
-								TRACE_LOGGER.log(Level.SEVERE, String.format("Receive pump for partition %s exiting after receive exception %s", PartitionReceiver.this.partitionId, cause.toString()));
+								TRACE_LOGGER.log(Level.SEVERE, String.format("Receive pump for partition %s exiting after receive exception %s", PartitionReceiver.this.partitionId, 
+										cause == null ? clientException.toString() : cause.toString()));
 							}
 							
 							return;
 						}
 					}
 
+					// the pump may have been stopped while it waited - a pump replacing it takes over only the receive still outstanding
+					if (!PartitionReceiver.this.isCurrentPump(generation))
+					{
+						return;
+					}
+
 					try
 					{
-						PartitionReceiver.this.onReceiveHandler.onReceive(receivedEvents);
+						handler.onReceive(receivedEvents);
 					}
 					catch (Throwable userCodeError)
 					{
-						synchronized (PartitionReceiver.this.receiveHandlerSync)
-						{
-							PartitionReceiver.this.isOnReceivePumpRunning = false;
-						}
-
-						PartitionReceiver.this.onReceiveHandler.onError(userCodeError);
+						PartitionReceiver.this.stopOnReceivePump(generation, handler, userCodeError, "user exception");
 
 						if (userCodeError instanceof InterruptedException)
 						{
 							Thread.currentThread().interrupt();
-							if(TRACE_LOGGER.isLoggable(Level.FINE))
-							{
-								TRACE_LOGGER.log(Level.FINE, String.format("Receive pump for partition %s interrupted", PartitionReceiver.this.partitionId));
-							}
-						}
-						else if (TRACE_LOGGER.isLoggable(Level.SEVERE))
-						{
-							TRACE_LOGGER.log(Level.SEVERE, String.format("Receive pump for partition %s exiting after user exception %s", PartitionReceiver.this.partitionId, userCodeError.toString()));
 						}
 						
 						return;
@@ -431,4 +904,4 @@ public final class PartitionReceiver extends ClientEntity
 
 		this.onReceivePumpThread.start();
 	}
-}
\ No newline at end of file
+}
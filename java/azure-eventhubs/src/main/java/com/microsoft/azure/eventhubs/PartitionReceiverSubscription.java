@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+package com.microsoft.azure.eventhubs;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.microsoft.azure.servicebus.ClientConstants;
+import com.microsoft.azure.servicebus.IReceiveListener;
+import com.microsoft.azure.servicebus.MessageReceiver;
+import com.microsoft.azure.servicebus.ReceivedMessage;
+
+/**
+ * Pushes the prefetched messages of a {@link MessageReceiver} to an {@link EventSubscriber} - as many as it requested.
+ * The demand is handed to the receiver, which flows link credit for it; deliveries wake up a drain task on the executor -
+ * the drain is serialized by the pending drain count, so the subscriber is called one event at a time, never concurrently.
+ */
+final class PartitionReceiverSubscription implements EventSubscription, IReceiveListener
+{
+	private static final Logger TRACE_LOGGER = Logger.getLogger(ClientConstants.SERVICEBUS_CLIENT_TRACE);
+
+	private final MessageReceiver receiver;
+	private final String partitionId;
+	private final EventSubscriber subscriber;
+	private final Executor executor;
+	private final AtomicInteger pendingDrains;
+	private final Runnable drainTask;
+
+	private volatile boolean isCancelled;
+	private volatile boolean isClosed;
+	private volatile Throwable closeError;
+
+	// touched by the drain task only
+	private boolean isTerminated;
+
+	PartitionReceiverSubscription(final MessageReceiver receiver, final String partitionId, final EventSubscriber subscriber)
+	{
+		this.receiver = receiver;
+		this.partitionId = partitionId;
+		this.subscriber = subscriber;
+		this.executor = ForkJoinPool.commonPool();
+		this.pendingDrains = new AtomicInteger(0);
+		this.drainTask = new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				PartitionReceiverSubscription.this.drainLoop();
+			}
+		};
+	}
+
+	boolean isActive()
+	{
+		return !this.isCancelled && !this.isClosed;
+	}
+
+	// the listener goes in first - the subscriber may request from onSubscribe, and without a listener poll isn't bounded by the demand
+	void start()
+	{
+		this.receiver.setReceiveListener(this);
+		this.subscriber.onSubscribe(this);
+	}
+
+	@Override
+	public void request(final long count)
+	{
+		if (count <= 0)
+		{
+			this.closeError = new IllegalArgumentException("count of requested events should be a positive number");
+			this.isClosed = true;
+		}
+		else if (this.isActive())
+		{
+			this.receiver.request(count);
+		}
+
+		this.drain();
+	}
+
+	@Override
+	public void cancel()
+	{
+		if (!this.isCancelled)
+		{
+			this.isCancelled = true;
+
+			// a closed subscription is no longer active - a newer subscription may have set its listener already
+			this.receiver.removeReceiveListener(this);
+		}
+	}
+
+	@Override
+	public void onMessagesAvailable()
+	{
+		this.drain();
+	}
+
+	@Override
+	public void onClose(final Exception error)
+	{
+		this.closeError = error;
+		this.isClosed = true;
+		this.drain();
+	}
+
+	private void drain()
+	{
+		if (this.pendingDrains.getAndIncrement() == 0)
+		{
+			this.executor.execute(this.drainTask);
+		}
+	}
+
+	private void drainLoop()
+	{
+		int pending = this.pendingDrains.get();
+		while (pending != 0)
+		{
+			if (!this.isTerminated)
+			{
+				this.pushAvailableEvents();
+			}
+
+			pending = this.pendingDrains.addAndGet(-pending);
+		}
+	}
+
+	private void pushAvailableEvents()
+	{
+		ReceivedMessage message = null;
+		while (!this.isCancelled && !this.isClosed && (message = this.receiver.poll()) != null)
+		{
+			try
+			{
+				this.subscriber.onNext(new EventData(message, this.partitionId));
+			}
+			catch (Throwable userCodeError)
+			{
+				if (TRACE_LOGGER.isLoggable(Level.WARNING))
+				{
+					TRACE_LOGGER.log(Level.WARNING, String.format("event subscriber threw from onNext - cancelling the subscription: %s", userCodeError.toString()));
+				}
+
+				this.cancel();
+				this.isTerminated = true;
+				this.subscriber.onError(userCodeError);
+				return;
+			}
+		}
+
+		if (this.isCancelled)
+		{
+			this.isTerminated = true;
+		}
+		else if (this.isClosed)
+		{
+			this.isTerminated = true;
+			this.cancel();
+			if (this.closeError == null)
+			{
+				this.subscriber.onComplete();
+			}
+			else
+			{
+				this.subscriber.onError(this.closeError);
+			}
+		}
+	}
+}
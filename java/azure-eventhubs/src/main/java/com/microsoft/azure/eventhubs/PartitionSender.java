@@ -20,24 +20,28 @@ public final class PartitionSender extends ClientEntity
 	private final String partitionId;
 	private final String eventHubName;
 	private final MessagingFactory factory;
+	private final SenderOptions senderOptions;
+	private final BodyCodec bodyCodec;
 
 	private MessageSender internalSender;
 
-	private PartitionSender(MessagingFactory factory, String eventHubName, String partitionId)
+	private PartitionSender(MessagingFactory factory, String eventHubName, String partitionId, SenderOptions senderOptions)
 	{
 		super(null, null);
 
 		this.partitionId = partitionId;
 		this.eventHubName = eventHubName;
 		this.factory = factory;
+		this.senderOptions = senderOptions;
+		this.bodyCodec = senderOptions.getBodyCodec();
 	}
 
 	/**
 	 * Internal-Only: factory pattern to Create EventHubSender
 	 */
-	static CompletableFuture<PartitionSender> Create(MessagingFactory factory, String eventHubName, String partitionId) throws ServiceBusException
+	static CompletableFuture<PartitionSender> Create(MessagingFactory factory, String eventHubName, String partitionId, SenderOptions senderOptions) throws ServiceBusException
 	{
-		final PartitionSender sender = new PartitionSender(factory, eventHubName, partitionId);
+		final PartitionSender sender = new PartitionSender(factory, eventHubName, partitionId, senderOptions);
 		return sender.createInternalSender()
 				.thenApplyAsync(new Function<Void, PartitionSender>()
 				{
@@ -51,7 +55,7 @@ public final class PartitionSender extends ClientEntity
 	private CompletableFuture<Void> createInternalSender() throws ServiceBusException
 	{
 		return MessageSender.create(this.factory, StringUtil.getRandomString(), 
-				String.format("%s/Partitions/%s", this.eventHubName, this.partitionId))
+				String.format("%s/Partitions/%s", this.eventHubName, this.partitionId), this.senderOptions)
 				.thenAcceptAsync(new Consumer<MessageSender>()
 				{
 					public void accept(MessageSender a) { PartitionSender.this.internalSender = a;}
@@ -121,7 +125,7 @@ public final class PartitionSender extends ClientEntity
 	public final CompletableFuture<Void> send(EventData data) 
 			throws ServiceBusException
 	{
-		return this.internalSender.send(data.toAmqpMessage());
+		return this.internalSender.send(data.toAmqpMessage(this.bodyCodec));
 	}
 
 	/**
@@ -210,7 +214,95 @@ public final class PartitionSender extends ClientEntity
 			throw new IllegalArgumentException("EventData batch cannot be empty.");
 		}
 
-		return this.internalSender.send(EventDataUtil.toAmqpMessages(eventDatas));
+		return this.internalSender.send(EventDataUtil.toAmqpMessages(eventDatas, null, this.bodyCodec));
+	}
+
+	/**
+	 * Number of sends in flight on this sender - sent or waiting for the send window, link credit or a retry - which haven't completed yet.
+	 * Bounded by {@link SenderOptions#setMaxPendingSends(int)}.
+	 * @return number of outstanding sends
+	 */
+	public final int getPendingSendCount()
+	{
+		return this.internalSender.getPendingSendCount();
+	}
+
+	/**
+	 * Encoded bytes of the sends in flight on this sender. Bounded by {@link SenderOptions#setMaxPendingBytes(long)}.
+	 * @return number of outstanding bytes
+	 */
+	public final long getPendingSendBytes()
+	{
+		return this.internalSender.getPendingSendBytes();
+	}
+
+	/**
+	 * Creates an empty {@link EventDataBatch} to be sent to this partition using {@link #send(EventDataBatch)}.
+	 * @return an empty batch, which can hold events upto the maximum message size
+	 */
+	public final EventDataBatch createBatch()
+	{
+		return new EventDataBatch(this.factory.getBufferPool(), null, this.bodyCodec);
+	}
+
+	/**
+	 * Synchronous version of {@link #send(EventDataBatch)}.
+	 * @param eventDataBatch batch of events to send to EventHub
+	 * @throws ServiceBusException if Service Bus service encountered problems during the operation.
+	 */
+	public final void sendSync(final EventDataBatch eventDataBatch) 
+			throws ServiceBusException
+	{
+		try
+		{
+			this.send(eventDataBatch).get();
+		}
+		catch (InterruptedException|ExecutionException exception)
+		{
+			if (exception instanceof InterruptedException)
+			{
+				// Re-assert the thread's interrupted status
+				Thread.currentThread().interrupt();
+			}
+
+			Throwable throwable = exception.getCause();
+			if (throwable != null)
+			{
+				if (throwable instanceof RuntimeException)
+				{
+					throw (RuntimeException)throwable;
+				}
+
+				if (throwable instanceof ServiceBusException)
+				{
+					throw (ServiceBusException)throwable;
+				}
+
+				throw new ServiceBusException(true, throwable);
+			}
+		}
+	}
+
+	/**
+	 * Send an {@link EventDataBatch} created by {@link #createBatch()} to this EventHub partition.
+	 * @param eventDataBatch batch of events to send to EventHub - the batch can be sent only once
+	 * @return     a CompletableFuture that can be completed when the send operations is done..
+	 * @throws ServiceBusException             if Service Bus service encountered problems during the operation.
+	 */
+	public final CompletableFuture<Void> send(final EventDataBatch eventDataBatch) 
+			throws ServiceBusException
+	{
+		if (eventDataBatch == null)
+		{
+			throw new IllegalArgumentException("EventDataBatch cannot be null.");
+		}
+
+		if (eventDataBatch.getPartitionKey() != null)
+		{
+			throw new IllegalArgumentException("A batch with a partitionKey cannot be sent to a specific partition - use EventHubClient.send(EventDataBatch).");
+		}
+
+		return this.internalSender.sendBatch(eventDataBatch.seal(), eventDataBatch.getSize());
 	}
 
 	@Override
@@ -0,0 +1,36 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+package com.microsoft.azure.eventhubs;
+
+/**
+ * Which thread runs the {@link PartitionReceiveHandler} of a {@link PartitionReceiver}.
+ * @see PartitionReceiver#setReceiveHandler(PartitionReceiveHandler, ReceiveHandlerDispatchMode)
+ */
+public enum ReceiveHandlerDispatchMode
+{
+	/**
+	 * Each receiver runs a thread of its own, which waits for the next batch and calls the handler.
+	 */
+	DedicatedThread,
+
+	/**
+	 * The handler is called on a bounded pool of threads shared by all receivers - once a batch is there; no thread waits for the batch.
+	 * The next batch is asked for after the handler returned, so the events of a partition are still handled one batch at a time, in order.
+	 */
+	SharedExecutor,
+
+	/**
+	 * Like {@link #SharedExecutor} - but each batch is handled on a virtual thread. Falls back to {@link #SharedExecutor} on JDKs without virtual threads.
+	 */
+	VirtualThread,
+
+	/**
+	 * The handler is called on the reactor thread, right as the events are delivered - without a hop through a pending receive and another thread.
+	 * Only for handlers that return within microseconds and never block: the reactor thread serves every link of the connection.
+	 * A handler that turns out to be slow is moved to the {@link #SharedExecutor}. The events are handed over as they arrive - 
+	 * the minEventCount and maxLinger of the handler don't apply.
+	 */
+	ReactorThread
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+package com.microsoft.azure.eventhubs;
+
+import java.util.Locale;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.microsoft.azure.servicebus.ClientConstants;
+
+/**
+ * Executors the {@link PartitionReceiveHandler}s run on in the {@link ReceiveHandlerDispatchMode#SharedExecutor} 
+ * and {@link ReceiveHandlerDispatchMode#VirtualThread} modes - created on first use and shared by all receivers in the process.
+ * Pool threads are daemon threads and time out when idle, so there is nothing to shut down.
+ */
+final class ReceiveHandlerExecutors
+{
+	private static final Logger TRACE_LOGGER = Logger.getLogger(ClientConstants.SERVICEBUS_CLIENT_TRACE);
+	private static final Object sync = new Object();
+
+	private static Executor sharedExecutor = null;
+	private static Executor virtualThreadExecutor = null;
+	private static boolean isVirtualThreadChecked = false;
+
+	private ReceiveHandlerExecutors()
+	{
+	}
+
+	static Executor get(final ReceiveHandlerDispatchMode dispatchMode)
+	{
+		synchronized (sync)
+		{
+			if (dispatchMode == ReceiveHandlerDispatchMode.VirtualThread)
+			{
+				if (!isVirtualThreadChecked)
+				{
+					virtualThreadExecutor = createVirtualThreadExecutor();
+					isVirtualThreadChecked = true;
+				}
+
+				if (virtualThreadExecutor != null)
+				{
+					return virtualThreadExecutor;
+				}
+			}
+
+			if (sharedExecutor == null)
+			{
+				final int poolSize = Math.max(Runtime.getRuntime().availableProcessors(), 4);
+				if (TRACE_LOGGER.isLoggable(Level.FINE))
+				{
+					TRACE_LOGGER.log(Level.FINE, String.format(Locale.US, "Starting receive handler executor with poolSize: %s", poolSize));
+				}
+
+				final ThreadPoolExecutor executor = new ThreadPoolExecutor(poolSize, poolSize, 60, TimeUnit.SECONDS, 
+						new LinkedBlockingQueue<Runnable>(), new ReceiveHandlerThreadFactory());
+				executor.allowCoreThreadTimeOut(true);
+				sharedExecutor = executor;
+			}
+
+			return sharedExecutor;
+		}
+	}
+
+	// Executors.newVirtualThreadPerTaskExecutor is only there on JDK 21+ - the library is built for Java 8
+	private static Executor createVirtualThreadExecutor()
+	{
+		try
+		{
+			return (Executor) java.util.concurrent.Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		}
+		catch (ReflectiveOperationException|RuntimeException exception)
+		{
+			if (TRACE_LOGGER.isLoggable(Level.WARNING))
+			{
+				TRACE_LOGGER.log(Level.WARNING, "virtual threads are not available on this JDK - receive handlers run on the shared executor");
+			}
+
+			return null;
+		}
+	}
+
+	private static final class ReceiveHandlerThreadFactory implements ThreadFactory
+	{
+		private final AtomicInteger threadCount = new AtomicInteger(0);
+
+		@Override
+		public Thread newThread(final Runnable runnable)
+		{
+			final Thread thread = new Thread(runnable, "eventhubs-receive-handler-" + this.threadCount.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+package com.microsoft.azure.servicebus;
+
+/**
+ * Sizes the link credit of a receiver from the rate at which its consumer drains the prefetched events
+ * and the round trip time of a flow: credit = drainRate * roundTripTime * HEADROOM, within [minCredit, maxCredit].
+ * So a fast consumer finds the next events already prefetched, while a slow consumer doesn't pull a backlog it can't drain.
+ * <p>
+ * The round trip time is sampled when the link ran out of credit - as the time between the flow and the next delivery.
+ * Not thread-safe: MessageReceiver calls it under its flow lock.
+ */
+final class AdaptiveCreditController
+{
+	static final long DEFAULT_ROUND_TRIP_TIME_NANOS = 50L * 1000 * 1000;
+
+	// credit covers twice the events the consumer drains in a round trip
+	static final int HEADROOM = 2;
+
+	private static final long DRAIN_RATE_SAMPLE_NANOS = 100L * 1000 * 1000;
+	// a starved link on an idle partition waits for new events, not just a round trip
+	private static final long MAX_ROUND_TRIP_TIME_NANOS = 500L * 1000 * 1000;
+	private static final double SMOOTHING = 0.3;
+
+	private final int minCredit;
+	private final int maxCredit;
+
+	private double drainRatePerNano;
+	private long drainedSinceSample;
+	private long sampleStartedAt;
+	private boolean isSampling;
+
+	private double roundTripTimeNanos;
+	private long starvedFlowSentAt;
+	private boolean isStarved;
+
+	AdaptiveCreditController(final int minCredit, final int maxCredit)
+	{
+		if (minCredit <= 0 || maxCredit < minCredit)
+		{
+			throw new IllegalArgumentException("minCredit should be greater than 0 and maxCredit should not be less than minCredit");
+		}
+
+		this.minCredit = minCredit;
+		this.maxCredit = maxCredit;
+		this.roundTripTimeNanos = DEFAULT_ROUND_TRIP_TIME_NANOS;
+		this.drainRatePerNano = 0;
+	}
+
+	int getMinCredit()
+	{
+		return this.minCredit;
+	}
+
+	int getMaxCredit()
+	{
+		return this.maxCredit;
+	}
+
+	/**
+	 * @return the credit the link should have outstanding - prefetched events included
+	 */
+	int getTargetCredit()
+	{
+		final double credit = Math.ceil(this.drainRatePerNano * this.roundTripTimeNanos * HEADROOM);
+		return (int) Math.max(this.minCredit, Math.min(this.maxCredit, credit));
+	}
+
+	long getRoundTripTimeNanos()
+	{
+		return (long) this.roundTripTimeNanos;
+	}
+
+	/**
+	 * @param count number of prefetched events handed over to the consumer
+	 */
+	void onDrained(final int count, final long nowNanos)
+	{
+		if (!this.isSampling)
+		{
+			this.sampleStartedAt = nowNanos;
+			this.isSampling = true;
+		}
+
+		this.drainedSinceSample += count;
+		final long elapsed = nowNanos - this.sampleStartedAt;
+		if (elapsed >= DRAIN_RATE_SAMPLE_NANOS)
+		{
+			final double drainRate = (double) this.drainedSinceSample / elapsed;
+			this.drainRatePerNano = this.drainRatePerNano == 0 ? drainRate : (SMOOTHING * drainRate + (1 - SMOOTHING) * this.drainRatePerNano);
+			this.drainedSinceSample = 0;
+			this.sampleStartedAt = nowNanos;
+		}
+	}
+
+	void onDelivery(final long nowNanos)
+	{
+		if (this.isStarved)
+		{
+			final long roundTripTime = Math.min(nowNanos - this.starvedFlowSentAt, MAX_ROUND_TRIP_TIME_NANOS);
+			this.roundTripTimeNanos = SMOOTHING * roundTripTime + (1 - SMOOTHING) * this.roundTripTimeNanos;
+			this.isStarved = false;
+		}
+	}
+
+	/**
+	 * @param outstandingCredit link credit not yet used by the service + events prefetched but not yet drained
+	 * @param linkCredit link credit not yet used by the service
+	 * @return the credit to flow now; 0 if the outstanding credit is close enough to the target - flows are batched to keep the protocol less chatty
+	 */
+	int getCreditToFlow(final int outstandingCredit, final int linkCredit, final long nowNanos)
+	{
+		final int targetCredit = this.getTargetCredit();
+		final int deficit = targetCredit - outstandingCredit;
+		if (deficit <= 0 || (deficit < Math.max(1, targetCredit / 4) && linkCredit > 0))
+		{
+			return 0;
+		}
+
+		if (linkCredit <= 0 && !this.isStarved)
+		{
+			this.starvedFlowSentAt = nowNanos;
+			this.isStarved = true;
+		}
+
+		return deficit;
+	}
+}
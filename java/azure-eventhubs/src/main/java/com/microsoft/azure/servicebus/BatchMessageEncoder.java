@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+package com.microsoft.azure.servicebus;
+
+import java.nio.BufferOverflowException;
+
+import org.apache.qpid.proton.Proton;
+import org.apache.qpid.proton.message.Message;
+
+/**
+ * Encodes an {@link com.microsoft.azure.servicebus.amqp.AmqpConstants#AMQP_BATCH_MESSAGE_FORMAT} message in a single pass:
+ * the annotations of the first message followed by one amqp data section per message - each inner message is encoded
+ * straight into the batch buffer and the data section header is written in front of it.
+ * <p>
+ * The bytes are identical to wrapping the encoded message in a {@link org.apache.qpid.proton.amqp.messaging.Data} section
+ * of a new message and encoding that - which is what proton-j recommends for batching (https://github.com/apache/qpid-proton/pull/54).
+ */
+public final class BatchMessageEncoder
+{
+	// described type: 0x00, smallulong (0x53) descriptor 0x75 - amqp:data:binary
+	private static final byte[] DATA_SECTION_DESCRIPTOR = new byte[] { 0x00, 0x53, 0x75 };
+
+	private static final byte VBIN8 = (byte) 0xa0;
+	private static final byte VBIN32 = (byte) 0xb0;
+
+	private static final int MAX_VBIN8_LENGTH = 255;
+	private static final int MAX_DATA_SECTION_HEADER_SIZE = DATA_SECTION_DESCRIPTOR.length + 5;
+
+	private BatchMessageEncoder()
+	{
+	}
+
+	/**
+	 * @return the number of bytes written - the message annotations of the first message in the batch
+	 * @throws BufferOverflowException if the header doesn't fit in length bytes
+	 */
+	public static int encodeHeader(final Message firstMessage, final byte[] buffer, final int offset, final int length)
+	{
+		final Message batchMessage = Proton.message();
+		batchMessage.setMessageAnnotations(firstMessage.getMessageAnnotations());
+		return batchMessage.encode(buffer, offset, length);
+	}
+
+	/**
+	 * @return the number of bytes written - the data section holding the encoded message
+	 * @throws BufferOverflowException if the data section doesn't fit in length bytes
+	 */
+	public static int encodeDataSection(final Message message, final byte[] buffer, final int offset, final int length)
+	{
+		final int minDataSectionHeaderSize = getDataSectionHeaderSize(0);
+		if (length < minDataSectionHeaderSize)
+		{
+			throw new BufferOverflowException();
+		}
+
+		// encode behind the largest possible header first - and move the message down if the vbin8 header suffices
+		int messageSize = -1;
+		int messageOffset = offset + MAX_DATA_SECTION_HEADER_SIZE;
+		if (length >= MAX_DATA_SECTION_HEADER_SIZE)
+		{
+			try
+			{
+				messageSize = message.encode(buffer, messageOffset, length - MAX_DATA_SECTION_HEADER_SIZE);
+			}
+			catch (BufferOverflowException exception)
+			{
+				messageSize = -1;
+			}
+		}
+
+		if (messageSize < 0)
+		{
+			// a small message which fits only behind the shorter vbin8 header
+			messageOffset = offset + minDataSectionHeaderSize;
+			messageSize = message.encode(buffer, messageOffset, length - minDataSectionHeaderSize);
+			if (messageSize > MAX_VBIN8_LENGTH)
+			{
+				throw new BufferOverflowException();
+			}
+		}
+
+		final int headerSize = getDataSectionHeaderSize(messageSize);
+		final int bodyOffset = offset + headerSize;
+		if (bodyOffset != messageOffset)
+		{
+			System.arraycopy(buffer, messageOffset, buffer, bodyOffset, messageSize);
+		}
+
+		System.arraycopy(DATA_SECTION_DESCRIPTOR, 0, buffer, offset, DATA_SECTION_DESCRIPTOR.length);
+		int position = offset + DATA_SECTION_DESCRIPTOR.length;
+		if (messageSize <= MAX_VBIN8_LENGTH)
+		{
+			buffer[position++] = VBIN8;
+			buffer[position] = (byte) messageSize;
+		}
+		else
+		{
+			buffer[position++] = VBIN32;
+			buffer[position++] = (byte) (messageSize >>> 24);
+			buffer[position++] = (byte) (messageSize >>> 16);
+			buffer[position++] = (byte) (messageSize >>> 8);
+			buffer[position] = (byte) messageSize;
+		}
+
+		return headerSize + messageSize;
+	}
+
+	/**
+	 * @param encodedMessageSize size of the encoded inner message
+	 * @return number of bytes the data section adds in front of the encoded message
+	 */
+	public static int getDataSectionHeaderSize(final int encodedMessageSize)
+	{
+		return DATA_SECTION_DESCRIPTOR.length + (encodedMessageSize <= MAX_VBIN8_LENGTH ? 2 : 5);
+	}
+}
@@ -0,0 +1,25 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+package com.microsoft.azure.servicebus;
+
+/**
+ * Transforms the body of the events on send - ex: compression - and reverts it on receive.
+ * The name of the codec travels with each event in the {@link BodyCodecs#PROPERTY_NAME} application property,
+ * so a codec used on send should be registered using {@link BodyCodecs#register(BodyCodec)} on the receive side.
+ * Implementations should be thread-safe.
+ * @see SenderOptions#setBodyCodec(BodyCodec)
+ * @see DeflateBodyCodec
+ */
+public interface BodyCodec
+{
+	/**
+	 * @return the name recorded on the events encoded by this codec
+	 */
+	String getName();
+
+	byte[] encode(byte[] data, int offset, int length);
+
+	byte[] decode(byte[] data, int offset, int length);
+}
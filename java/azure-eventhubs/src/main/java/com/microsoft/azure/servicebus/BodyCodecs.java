@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+package com.microsoft.azure.servicebus;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The {@link BodyCodec}'s known to the receivers - looked up by the name recorded on each received event.
+ * {@link DeflateBodyCodec} is registered by default.
+ */
+public final class BodyCodecs
+{
+	/**
+	 * application property carrying the name of the {@link BodyCodec} the event body is encoded with
+	 */
+	public static final String PROPERTY_NAME = "x-opt-body-codec";
+
+	private static final ConcurrentHashMap<String, BodyCodec> CODECS = new ConcurrentHashMap<String, BodyCodec>();
+
+	static
+	{
+		BodyCodecs.register(new DeflateBodyCodec());
+	}
+
+	private BodyCodecs()
+	{
+	}
+
+	/**
+	 * @param codec the codec to decode received events with - replaces the codec registered earlier with the same name
+	 */
+	public static void register(final BodyCodec codec)
+	{
+		if (codec == null || StringUtil.isNullOrWhiteSpace(codec.getName()))
+		{
+			throw new IllegalArgumentException("codec and its name cannot be null or empty");
+		}
+
+		CODECS.put(codec.getName(), codec);
+	}
+
+	/**
+	 * @return the codec registered with the name, or null
+	 */
+	public static BodyCodec get(final String name)
+	{
+		return name == null ? null : CODECS.get(name);
+	}
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+package com.microsoft.azure.servicebus;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Size-classed pool of encode buffers shared by all senders of a {@link MessagingFactory}.
+ * Buffer sizes are powers of two from {@link #MIN_BUFFER_SIZE} up to {@link ClientConstants#MAX_MESSAGE_LENGTH_BYTES};
+ * a borrowed buffer is at least as large as requested and has to be returned exactly once - after the send it backs
+ * is acknowledged or failed. Each size class retains at most {@link #MAX_POOLED_BYTES_PER_SIZE_CLASS} bytes.
+ * <p>
+ * Buffers are heap arrays - proton-j Sender.send only accepts byte[], so a direct buffer would be copied once more.
+ */
+public final class BufferPool
+{
+	public static final int MIN_BUFFER_SIZE = 512;
+	public static final int MAX_POOLED_BYTES_PER_SIZE_CLASS = 4 * 1024 * 1024;
+
+	private static final int MIN_BUFFER_SIZE_SHIFT = Integer.numberOfTrailingZeros(MIN_BUFFER_SIZE);
+
+	private final SizeClass[] sizeClasses;
+
+	private final AtomicLong borrowCount;
+	private final AtomicLong reuseCount;
+	private final AtomicLong returnCount;
+	private final AtomicLong discardCount;
+
+	public BufferPool()
+	{
+		final int sizeClassCount = Integer.numberOfTrailingZeros(ClientConstants.MAX_MESSAGE_LENGTH_BYTES) - MIN_BUFFER_SIZE_SHIFT + 1;
+		this.sizeClasses = new SizeClass[sizeClassCount];
+		for (int index = 0; index < sizeClassCount; index++)
+		{
+			final int bufferSize = MIN_BUFFER_SIZE << index;
+			this.sizeClasses[index] = new SizeClass(bufferSize, Math.max(1, MAX_POOLED_BYTES_PER_SIZE_CLASS / bufferSize));
+		}
+
+		this.borrowCount = new AtomicLong(0);
+		this.reuseCount = new AtomicLong(0);
+		this.returnCount = new AtomicLong(0);
+		this.discardCount = new AtomicLong(0);
+	}
+
+	/**
+	 * @param minimumSize the least number of bytes the caller needs
+	 * @return a buffer of at least minimumSize bytes - requests larger than the largest size class are not pooled
+	 */
+	public byte[] borrow(final int minimumSize)
+	{
+		this.borrowCount.incrementAndGet();
+
+		final SizeClass sizeClass = this.sizeClassFor(minimumSize);
+		if (sizeClass == null)
+		{
+			return new byte[minimumSize];
+		}
+
+		final byte[] buffer = sizeClass.buffers.poll();
+		if (buffer == null)
+		{
+			return new byte[sizeClass.bufferSize];
+		}
+
+		sizeClass.pooledCount.decrementAndGet();
+		this.reuseCount.incrementAndGet();
+		return buffer;
+	}
+
+	/**
+	 * @param buffer a buffer obtained from {@link #borrow(int)} - which must not be used by the caller afterwards
+	 */
+	public void giveBack(final byte[] buffer)
+	{
+		if (buffer == null)
+		{
+			return;
+		}
+
+		this.returnCount.incrementAndGet();
+
+		final SizeClass sizeClass = this.sizeClassFor(buffer.length);
+		if (sizeClass == null || sizeClass.bufferSize != buffer.length)
+		{
+			this.discardCount.incrementAndGet();
+			return;
+		}
+
+		if (sizeClass.pooledCount.incrementAndGet() > sizeClass.maxPooledCount)
+		{
+			sizeClass.pooledCount.decrementAndGet();
+			this.discardCount.incrementAndGet();
+			return;
+		}
+
+		sizeClass.buffers.offer(buffer);
+	}
+
+	public BufferPoolStatistics getStatistics()
+	{
+		int pooledBuffers = 0;
+		long pooledBytes = 0;
+		for (SizeClass sizeClass: this.sizeClasses)
+		{
+			final int count = Math.min(sizeClass.pooledCount.get(), sizeClass.maxPooledCount);
+			pooledBuffers += count;
+			pooledBytes += (long) count * sizeClass.bufferSize;
+		}
+
+		return new BufferPoolStatistics(this.borrowCount.get(), this.reuseCount.get(), this.returnCount.get(), this.discardCount.get(), pooledBuffers, pooledBytes);
+	}
+
+	private SizeClass sizeClassFor(final int size)
+	{
+		if (size > ClientConstants.MAX_MESSAGE_LENGTH_BYTES)
+		{
+			return null;
+		}
+
+		final int roundedSize = size <= MIN_BUFFER_SIZE ? MIN_BUFFER_SIZE : Integer.highestOneBit(size - 1) << 1;
+		return this.sizeClasses[Integer.numberOfTrailingZeros(roundedSize) - MIN_BUFFER_SIZE_SHIFT];
+	}
+
+	private static final class SizeClass
+	{
+		final int bufferSize;
+		final int maxPooledCount;
+		final AtomicInteger pooledCount;
+		final ConcurrentLinkedQueue<byte[]> buffers;
+
+		SizeClass(final int bufferSize, final int maxPooledCount)
+		{
+			this.bufferSize = bufferSize;
+			this.maxPooledCount = maxPooledCount;
+			this.pooledCount = new AtomicInteger(0);
+			this.buffers = new ConcurrentLinkedQueue<byte[]>();
+		}
+	}
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+package com.microsoft.azure.servicebus;
+
+import java.util.Locale;
+
+/**
+ * Point-in-time snapshot of the encode {@link BufferPool} counters.
+ */
+public final class BufferPoolStatistics
+{
+	private final long borrowCount;
+	private final long reuseCount;
+	private final long returnCount;
+	private final long discardCount;
+	private final int pooledBufferCount;
+	private final long pooledBytes;
+
+	BufferPoolStatistics(final long borrowCount, final long reuseCount, final long returnCount, final long discardCount, final int pooledBufferCount, final long pooledBytes)
+	{
+		this.borrowCount = borrowCount;
+		this.reuseCount = reuseCount;
+		this.returnCount = returnCount;
+		this.discardCount = discardCount;
+		this.pooledBufferCount = pooledBufferCount;
+		this.pooledBytes = pooledBytes;
+	}
+
+	/**
+	 * @return number of buffers handed out
+	 */
+	public long getBorrowCount()
+	{
+		return this.borrowCount;
+	}
+
+	/**
+	 * @return number of borrows served from the pool - the remaining borrows allocated a new array
+	 */
+	public long getReuseCount()
+	{
+		return this.reuseCount;
+	}
+
+	/**
+	 * @return number of buffers given back after their send completed
+	 */
+	public long getReturnCount()
+	{
+		return this.returnCount;
+	}
+
+	/**
+	 * @return number of returned buffers dropped because their size class was full or they were not pooled
+	 */
+	public long getDiscardCount()
+	{
+		return this.discardCount;
+	}
+
+	/**
+	 * @return number of buffers currently idle in the pool
+	 */
+	public int getPooledBufferCount()
+	{
+		return this.pooledBufferCount;
+	}
+
+	/**
+	 * @return bytes currently retained by idle buffers in the pool
+	 */
+	public long getPooledBytes()
+	{
+		return this.pooledBytes;
+	}
+
+	@Override
+	public String toString()
+	{
+		return String.format(Locale.US, "borrowed[%s], reused[%s], returned[%s], discarded[%s], pooledBuffers[%s], pooledBytes[%s]",
+				this.borrowCount, this.reuseCount, this.returnCount, this.discardCount, this.pooledBufferCount, this.pooledBytes);
+	}
+}
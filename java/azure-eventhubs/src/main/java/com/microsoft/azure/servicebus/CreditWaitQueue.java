@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+package com.microsoft.azure.servicebus;
+
+/**
+ * Ordered set of delivery tags waiting for link credit.
+ * membership, removal and insertion at either end are constant time -
+ * unlike ConcurrentLinkedDeque.contains/remove, which scan the whole backlog.
+ * Retries go to the front (offerFirst), new sends to the back (offerLast).
+ */
+final class CreditWaitQueue
+{
+	private final LongHashMap<Node> index;
+	private final Node head;
+
+	CreditWaitQueue()
+	{
+		this.index = new LongHashMap<Node>();
+		this.head = new Node(0);
+		this.head.previous = this.head;
+		this.head.next = this.head;
+	}
+
+	/**
+	 * @return false if the item is already waiting for credit
+	 */
+	synchronized boolean offerFirst(final long item)
+	{
+		if (this.index.containsKey(item))
+		{
+			return false;
+		}
+
+		final Node node = new Node(item);
+		this.link(node, this.head, this.head.next);
+		this.index.put(item, node);
+		return true;
+	}
+
+	/**
+	 * @return false if the item is already waiting for credit
+	 */
+	synchronized boolean offerLast(final long item)
+	{
+		if (this.index.containsKey(item))
+		{
+			return false;
+		}
+
+		final Node node = new Node(item);
+		this.link(node, this.head.previous, this.head);
+		this.index.put(item, node);
+		return true;
+	}
+
+	/**
+	 * @return the head of the queue, or 0 if the queue is empty - delivery tags start from 1
+	 */
+	synchronized long peek()
+	{
+		return this.head.next.item;
+	}
+
+	synchronized boolean contains(final long item)
+	{
+		return this.index.containsKey(item);
+	}
+
+	synchronized boolean remove(final long item)
+	{
+		final Node node = this.index.remove(item);
+		if (node == null)
+		{
+			return false;
+		}
+
+		node.previous.next = node.next;
+		node.next.previous = node.previous;
+		return true;
+	}
+
+	synchronized boolean isEmpty()
+	{
+		return this.index.isEmpty();
+	}
+
+	synchronized int size()
+	{
+		return this.index.size();
+	}
+
+	/**
+	 * @return hash slots probed by all operations so far - the constant cost per operation shows as a flat count per operation
+	 */
+	synchronized long getProbeCount()
+	{
+		return this.index.getProbeCount();
+	}
+
+	synchronized void clear()
+	{
+		this.index.clear();
+		this.head.previous = this.head;
+		this.head.next = this.head;
+	}
+
+	private void link(final Node node, final Node previous, final Node next)
+	{
+		node.previous = previous;
+		node.next = next;
+		previous.next = node;
+		next.previous = node;
+	}
+
+	private static final class Node
+	{
+		final long item;
+		Node previous;
+		Node next;
+
+		Node(final long item)
+		{
+			this.item = item;
+		}
+	}
+}
@@ -0,0 +1,195 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+package com.microsoft.azure.servicebus;
+
+import java.util.Arrays;
+
+/**
+ * Delivery tags ordered by their deadline (System.nanoTime() based) - an indexed binary min-heap.
+ * Expiry touches only the tags which are due (O(log n) each) and a tag is removed in O(log n) -
+ * unlike a sweep over all in-flight tags, which calls TimeoutTracker.remaining() on each of them.
+ */
+final class DeadlineQueue
+{
+	private final LongHashMap<Entry> index;
+	private Entry[] heap;
+	private int size;
+	// entries placed in a heap slot - an add or a removal places O(log n) of them, a sweep which finds nothing due none
+	private long moveCount;
+
+	DeadlineQueue()
+	{
+		this.index = new LongHashMap<Entry>();
+		this.heap = new Entry[16];
+	}
+
+	/**
+	 * adds the tag - or moves it to the new deadline if it's already queued
+	 */
+	synchronized void add(final long tag, final long deadlineNanos)
+	{
+		Entry entry = this.index.get(tag);
+		if (entry != null)
+		{
+			final long previousDeadline = entry.deadlineNanos;
+			entry.deadlineNanos = deadlineNanos;
+			if (deadlineNanos - previousDeadline < 0)
+			{
+				this.siftUp(entry.position);
+			}
+			else
+			{
+				this.siftDown(entry.position);
+			}
+
+			return;
+		}
+
+		if (this.size == this.heap.length)
+		{
+			this.heap = Arrays.copyOf(this.heap, this.size << 1);
+		}
+
+		entry = new Entry(tag, deadlineNanos);
+		entry.position = this.size++;
+		this.heap[entry.position] = entry;
+		this.index.put(tag, entry);
+		this.siftUp(entry.position);
+	}
+
+	synchronized boolean remove(final long tag)
+	{
+		final Entry entry = this.index.remove(tag);
+		if (entry == null)
+		{
+			return false;
+		}
+
+		this.removeAt(entry.position);
+		return true;
+	}
+
+	/**
+	 * @return the tag with the earliest deadline, if it is at or before nowNanos - and removes it; 0 if no tag is due - delivery tags start from 1
+	 */
+	synchronized long pollExpired(final long nowNanos)
+	{
+		if (this.size == 0 || this.heap[0].deadlineNanos - nowNanos > 0)
+		{
+			return 0;
+		}
+
+		final Entry entry = this.heap[0];
+		this.index.remove(entry.tag);
+		this.removeAt(0);
+		return entry.tag;
+	}
+
+	synchronized boolean contains(final long tag)
+	{
+		return this.index.containsKey(tag);
+	}
+
+	synchronized int size()
+	{
+		return this.size;
+	}
+
+	synchronized long getMoveCount()
+	{
+		return this.moveCount;
+	}
+
+	synchronized void clear()
+	{
+		Arrays.fill(this.heap, 0, this.size, null);
+		this.size = 0;
+		this.index.clear();
+	}
+
+	private void removeAt(final int position)
+	{
+		final Entry last = this.heap[--this.size];
+		this.heap[this.size] = null;
+		if (position == this.size)
+		{
+			return;
+		}
+
+		this.heap[position] = last;
+		last.position = position;
+		this.siftDown(position);
+		if (this.heap[position] == last)
+		{
+			this.siftUp(position);
+		}
+	}
+
+	private void siftUp(int position)
+	{
+		final Entry entry = this.heap[position];
+		while (position > 0)
+		{
+			final int parent = (position - 1) >>> 1;
+			if (this.heap[parent].deadlineNanos - entry.deadlineNanos <= 0)
+			{
+				break;
+			}
+
+			this.place(this.heap[parent], position);
+			position = parent;
+		}
+
+		this.place(entry, position);
+	}
+
+	private void siftDown(int position)
+	{
+		final Entry entry = this.heap[position];
+		while (true)
+		{
+			int child = (position << 1) + 1;
+			if (child >= this.size)
+			{
+				break;
+			}
+
+			if (child + 1 < this.size && this.heap[child + 1].deadlineNanos - this.heap[child].deadlineNanos < 0)
+			{
+				child++;
+			}
+
+			if (entry.deadlineNanos - this.heap[child].deadlineNanos <= 0)
+			{
+				break;
+			}
+
+			this.place(this.heap[child], position);
+			position = child;
+		}
+
+		this.place(entry, position);
+	}
+
+	private void place(final Entry entry, final int position)
+	{
+		this.heap[position] = entry;
+		entry.position = position;
+		this.moveCount++;
+	}
+
+	private static final class Entry
+	{
+		final long tag;
+		long deadlineNanos;
+		int position;
+
+		Entry(final long tag, final long deadlineNanos)
+		{
+			this.tag = tag;
+			this.deadlineNanos = deadlineNanos;
+		}
+	}
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+package com.microsoft.azure.servicebus;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Locale;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * {@link BodyCodec} which compresses the event body using the JDK {@link Deflater} (zlib format).
+ * A decoded body is capped - a small corrupt (or hostile) body could otherwise inflate to more memory than the consumer has.
+ */
+public final class DeflateBodyCodec implements BodyCodec
+{
+	public static final String NAME = "deflate";
+
+	/**
+	 * default cap of a decoded body - a message at its maximum size, compressed 16 to 1
+	 */
+	public static final int DEFAULT_MAX_DECODED_LENGTH = 16 * ClientConstants.MAX_MESSAGE_LENGTH_BYTES;
+
+	private static final int CHUNK_SIZE = 4096;
+
+	private final int level;
+	private final int maxDecodedLength;
+
+	public DeflateBodyCodec()
+	{
+		this(Deflater.DEFAULT_COMPRESSION);
+	}
+
+	/**
+	 * @param level compression level - from {@link Deflater#BEST_SPEED} to {@link Deflater#BEST_COMPRESSION}
+	 */
+	public DeflateBodyCodec(final int level)
+	{
+		this(level, DEFAULT_MAX_DECODED_LENGTH);
+	}
+
+	/**
+	 * @param level compression level - from {@link Deflater#BEST_SPEED} to {@link Deflater#BEST_COMPRESSION}
+	 * @param maxDecodedLength {@link #decode(byte[], int, int)} rejects a body which inflates to more bytes than this
+	 */
+	public DeflateBodyCodec(final int level, final int maxDecodedLength)
+	{
+		if (level != Deflater.DEFAULT_COMPRESSION && (level < Deflater.NO_COMPRESSION || level > Deflater.BEST_COMPRESSION))
+		{
+			throw new IllegalArgumentException("level should be in the range [0, 9]");
+		}
+
+		if (maxDecodedLength <= 0)
+		{
+			throw new IllegalArgumentException("maxDecodedLength should be a positive number");
+		}
+
+		this.level = level;
+		this.maxDecodedLength = maxDecodedLength;
+	}
+
+	@Override
+	public String getName()
+	{
+		return NAME;
+	}
+
+	@Override
+	public byte[] encode(final byte[] data, final int offset, final int length)
+	{
+		final Deflater deflater = new Deflater(this.level);
+		try
+		{
+			deflater.setInput(data, offset, length);
+			deflater.finish();
+
+			final ByteArrayOutputStream encoded = new ByteArrayOutputStream(Math.min(length, CHUNK_SIZE) + 16);
+			final byte[] chunk = new byte[CHUNK_SIZE];
+			while (!deflater.finished())
+			{
+				encoded.write(chunk, 0, deflater.deflate(chunk));
+			}
+
+			return encoded.toByteArray();
+		}
+		finally
+		{
+			deflater.end();
+		}
+	}
+
+	@Override
+	public byte[] decode(final byte[] data, final int offset, final int length)
+	{
+		final Inflater inflater = new Inflater();
+		try
+		{
+			inflater.setInput(data, offset, length);
+
+			final ByteArrayOutputStream decoded = new ByteArrayOutputStream((int) Math.min(length * 4L, this.maxDecodedLength));
+			final byte[] chunk = new byte[CHUNK_SIZE];
+			while (!inflater.finished())
+			{
+				final int inflated = inflater.inflate(chunk);
+				if (inflated == 0 && !inflater.finished() && (inflater.needsInput() || inflater.needsDictionary()))
+				{
+					throw new IllegalArgumentException("event body is truncated or is not deflate encoded");
+				}
+
+				if (decoded.size() + inflated > this.maxDecodedLength)
+				{
+					throw new IllegalArgumentException(String.format(Locale.US, "decoded event body exceeds the limit of %s bytes", this.maxDecodedLength));
+				}
+
+				decoded.write(chunk, 0, inflated);
+			}
+
+			return decoded.toByteArray();
+		}
+		catch (DataFormatException exception)
+		{
+			throw new IllegalArgumentException("event body is not deflate encoded", exception);
+		}
+		finally
+		{
+			inflater.end();
+		}
+	}
+}
@@ -0,0 +1,22 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+package com.microsoft.azure.servicebus;
+
+/**
+ * Push side of a {@link MessageReceiver} whose link credit follows the demand of its consumer - see {@link MessageReceiver#setReceiveListener}.
+ * Both callbacks run on the reactor thread and must not block.
+ */
+public interface IReceiveListener
+{
+	/**
+	 * a message was added to the prefetch queue - {@link MessageReceiver#poll()} returns it
+	 */
+	void onMessagesAvailable();
+
+	/**
+	 * @param error the error the receiver was closed with; null if it was closed normally
+	 */
+	void onClose(Exception error);
+}
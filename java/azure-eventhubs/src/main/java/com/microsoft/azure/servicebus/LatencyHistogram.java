@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+package com.microsoft.azure.servicebus;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free histogram of latencies in milliseconds - recording a value is an increment of its bucket.
+ * Buckets are log-linear: values below {@link #SUB_BUCKET_COUNT} have a bucket each, every larger power of two range
+ * is split into {@link #SUB_BUCKET_COUNT} buckets - so a percentile is reported within 12.5% of the recorded value.
+ * <p>
+ * Readers see the counts of a moving histogram - a percentile read while values are recorded is consistent to within the values in flight.
+ */
+public final class LatencyHistogram
+{
+	public static final int SUB_BUCKET_COUNT = 8;
+
+	private static final int SUB_BUCKET_BITS = Integer.numberOfTrailingZeros(SUB_BUCKET_COUNT);
+	private static final int BUCKET_COUNT = (Long.SIZE - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT;
+
+	private final AtomicLongArray buckets;
+	private final AtomicLong count;
+	private final AtomicLong sum;
+	private final AtomicLong max;
+
+	public LatencyHistogram()
+	{
+		this.buckets = new AtomicLongArray(BUCKET_COUNT);
+		this.count = new AtomicLong(0);
+		this.sum = new AtomicLong(0);
+		this.max = new AtomicLong(0);
+	}
+
+	/**
+	 * @param millis the latency to record - a negative latency (ex: from clock skew between the service and the client) is recorded as 0
+	 */
+	public void record(final long millis)
+	{
+		final long value = Math.max(0, millis);
+		this.buckets.incrementAndGet(bucketIndex(value));
+		this.count.incrementAndGet();
+		this.sum.addAndGet(value);
+
+		long currentMax = this.max.get();
+		while (value > currentMax && !this.max.compareAndSet(currentMax, value))
+		{
+			currentMax = this.max.get();
+		}
+	}
+
+	public long getCount()
+	{
+		return this.count.get();
+	}
+
+	public long getMax()
+	{
+		return this.max.get();
+	}
+
+	public double getMean()
+	{
+		final long currentCount = this.count.get();
+		return currentCount == 0 ? 0 : (double) this.sum.get() / currentCount;
+	}
+
+	/**
+	 * @param percentile between 0 and 100
+	 * @return the highest value of the bucket the percentile falls into - never more than {@link #getMax()}; 0 if nothing was recorded
+	 */
+	public long getValueAtPercentile(final double percentile)
+	{
+		if (percentile < 0 || percentile > 100)
+		{
+			throw new IllegalArgumentException("percentile should be between 0 and 100");
+		}
+
+		long total = 0;
+		for (int index = 0; index < BUCKET_COUNT; index++)
+		{
+			total += this.buckets.get(index);
+		}
+
+		if (total == 0)
+		{
+			return 0;
+		}
+
+		final long rank = Math.max(1, (long) Math.ceil(total * percentile / 100));
+		long seen = 0;
+		for (int index = 0; index < BUCKET_COUNT; index++)
+		{
+			seen += this.buckets.get(index);
+			if (seen >= rank)
+			{
+				return Math.min(bucketUpperBound(index), this.max.get());
+			}
+		}
+
+		return this.max.get();
+	}
+
+	static int bucketIndex(final long value)
+	{
+		if (value < SUB_BUCKET_COUNT)
+		{
+			return (int) value;
+		}
+
+		final int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+		final int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKET_COUNT - 1);
+		return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT + subBucket;
+	}
+
+	static long bucketUpperBound(final int index)
+	{
+		if (index < SUB_BUCKET_COUNT)
+		{
+			return index;
+		}
+
+		final int exponent = index / SUB_BUCKET_COUNT + SUB_BUCKET_BITS - 1;
+		final long subBucket = index % SUB_BUCKET_COUNT;
+		final long lowerBound = (SUB_BUCKET_COUNT + subBucket) << (exponent - SUB_BUCKET_BITS);
+		return lowerBound + (1L << (exponent - SUB_BUCKET_BITS)) - 1;
+	}
+}
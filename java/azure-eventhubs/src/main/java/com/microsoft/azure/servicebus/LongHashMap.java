@@ -0,0 +1,241 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+package com.microsoft.azure.servicebus;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Thread-safe hash map keyed by a primitive long (open addressing, linear probing).
+ * Used for per-delivery bookkeeping, so that lookups on the send/ack path do not box the key.
+ * Null values are not supported.
+ */
+final class LongHashMap<V>
+{
+	private static final int MINIMUM_CAPACITY = 16;
+
+	private long[] keys;
+	private Object[] values;
+	private int size;
+	// slots visited by lookups, inserts & removals - tells whether the probe sequences stay short as the map fills
+	private long probeCount;
+
+	LongHashMap()
+	{
+		this(MINIMUM_CAPACITY);
+	}
+
+	LongHashMap(final int expectedSize)
+	{
+		this.allocate(capacityFor(expectedSize));
+	}
+
+	@SuppressWarnings("unchecked")
+	synchronized V get(final long key)
+	{
+		final int slot = this.find(key);
+		return slot < 0 ? null : (V) this.values[slot];
+	}
+
+	synchronized boolean containsKey(final long key)
+	{
+		return this.find(key) >= 0;
+	}
+
+	@SuppressWarnings("unchecked")
+	synchronized V put(final long key, final V value)
+	{
+		if (value == null)
+		{
+			throw new IllegalArgumentException("value cannot be null");
+		}
+
+		final int mask = this.keys.length - 1;
+		int slot = mix(key) & mask;
+		this.probeCount++;
+		while (this.values[slot] != null)
+		{
+			if (this.keys[slot] == key)
+			{
+				final V previous = (V) this.values[slot];
+				this.values[slot] = value;
+				return previous;
+			}
+
+			slot = (slot + 1) & mask;
+			this.probeCount++;
+		}
+
+		this.keys[slot] = key;
+		this.values[slot] = value;
+		if (++this.size > (this.keys.length >> 1))
+		{
+			this.rehash(this.keys.length << 1);
+		}
+
+		return null;
+	}
+
+	@SuppressWarnings("unchecked")
+	synchronized V remove(final long key)
+	{
+		final int slot = this.find(key);
+		if (slot < 0)
+		{
+			return null;
+		}
+
+		final V removed = (V) this.values[slot];
+		this.removeSlot(slot);
+		return removed;
+	}
+
+	synchronized int size()
+	{
+		return this.size;
+	}
+
+	synchronized boolean isEmpty()
+	{
+		return this.size == 0;
+	}
+
+	synchronized long getProbeCount()
+	{
+		return this.probeCount;
+	}
+
+	synchronized void clear()
+	{
+		Arrays.fill(this.values, null);
+		this.size = 0;
+	}
+
+	/**
+	 * @return snapshot of the keys, in no particular order
+	 */
+	synchronized long[] keys()
+	{
+		final long[] snapshot = new long[this.size];
+		int index = 0;
+		for (int slot = 0; slot < this.values.length; slot++)
+		{
+			if (this.values[slot] != null)
+			{
+				snapshot[index++] = this.keys[slot];
+			}
+		}
+
+		return snapshot;
+	}
+
+	/**
+	 * @return snapshot of the values, in no particular order
+	 */
+	@SuppressWarnings("unchecked")
+	synchronized List<V> values()
+	{
+		final List<V> snapshot = new ArrayList<V>(this.size);
+		for (int slot = 0; slot < this.values.length; slot++)
+		{
+			if (this.values[slot] != null)
+			{
+				snapshot.add((V) this.values[slot]);
+			}
+		}
+
+		return snapshot;
+	}
+
+	private int find(final long key)
+	{
+		final int mask = this.keys.length - 1;
+		int slot = mix(key) & mask;
+		this.probeCount++;
+		while (this.values[slot] != null)
+		{
+			if (this.keys[slot] == key)
+			{
+				return slot;
+			}
+
+			slot = (slot + 1) & mask;
+			this.probeCount++;
+		}
+
+		return -1;
+	}
+
+	// backward-shift deletion - keeps probe sequences intact without tombstones
+	private void removeSlot(int slot)
+	{
+		final int mask = this.keys.length - 1;
+		int next = (slot + 1) & mask;
+		this.probeCount++;
+		while (this.values[next] != null)
+		{
+			final int home = mix(this.keys[next]) & mask;
+			if (((next - home) & mask) >= ((next - slot) & mask))
+			{
+				this.keys[slot] = this.keys[next];
+				this.values[slot] = this.values[next];
+				slot = next;
+			}
+
+			next = (next + 1) & mask;
+			this.probeCount++;
+		}
+
+		this.values[slot] = null;
+		this.size--;
+	}
+
+	private void rehash(final int capacity)
+	{
+		final long[] oldKeys = this.keys;
+		final Object[] oldValues = this.values;
+		this.allocate(capacity);
+
+		final int mask = capacity - 1;
+		for (int oldSlot = 0; oldSlot < oldValues.length; oldSlot++)
+		{
+			if (oldValues[oldSlot] != null)
+			{
+				int slot = mix(oldKeys[oldSlot]) & mask;
+				while (this.values[slot] != null)
+				{
+					slot = (slot + 1) & mask;
+				}
+
+				this.keys[slot] = oldKeys[oldSlot];
+				this.values[slot] = oldValues[oldSlot];
+			}
+		}
+	}
+
+	private void allocate(final int capacity)
+	{
+		this.keys = new long[capacity];
+		this.values = new Object[capacity];
+	}
+
+	private static int capacityFor(final int expectedSize)
+	{
+		int capacity = MINIMUM_CAPACITY;
+		while (capacity < expectedSize * 2)
+		{
+			capacity <<= 1;
+		}
+
+		return capacity;
+	}
+
+	static int mix(final long key)
+	{
+		final long hash = key * 0x9E3779B97F4A7C15L;
+		return (int) (hash ^ (hash >>> 32));
+	}
+}
@@ -7,9 +7,9 @@ package com.microsoft.azure.servicebus;
 import java.time.Duration;
 import java.time.Instant;
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -20,7 +20,6 @@ import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
-import org.apache.qpid.proton.Proton;
 import org.apache.qpid.proton.amqp.Symbol;
 import org.apache.qpid.proton.amqp.UnknownDescribedType;
 import org.apache.qpid.proton.amqp.messaging.Source;
@@ -34,7 +33,6 @@ import org.apache.qpid.proton.engine.Delivery;
 import org.apache.qpid.proton.engine.EndpointState;
 import org.apache.qpid.proton.engine.Receiver;
 import org.apache.qpid.proton.engine.Session;
-import org.apache.qpid.proton.message.Message;
 
 import com.microsoft.azure.servicebus.amqp.AmqpConstants;
 import com.microsoft.azure.servicebus.amqp.IAmqpReceiver;
@@ -54,7 +52,8 @@ public class MessageReceiver extends ClientEntity implements IAmqpReceiver, IErr
 	private final MessagingFactory underlyingFactory;
 	private final ITimeoutErrorHandler stuckTransportHandler;
 	private final String receivePath;
-	private final Runnable onOperationTimedout;
+	// the earliest receive timeout or linger deadline among the pending receives
+	private final ReceiveDeadline receiveDeadline;
 	private final Duration operationTimeout;
 	private final CompletableFuture<Void> linkClose;
 	private final Object prefetchCountSync;
@@ -63,7 +62,7 @@ public class MessageReceiver extends ClientEntity implements IAmqpReceiver, IErr
 
 	private int prefetchCount;
 
-	private ConcurrentLinkedQueue<Message> prefetchedMessages;
+	private ConcurrentLinkedQueue<ReceivedMessage> prefetchedMessages;
 	private Receiver receiveLink;
 	private WorkItem<MessageReceiver> linkOpen;
 	private Duration receiveTimeout;
@@ -71,15 +70,54 @@ public class MessageReceiver extends ClientEntity implements IAmqpReceiver, IErr
 	private long epoch;
 	private boolean isEpochReceiver;
 	private Instant dateTime;
+	private Long startingSequenceNumber;
+	private boolean sequenceNumberInclusive;
 	private boolean offsetInclusive;
 
-	private String lastReceivedOffset;
+	// the offset the receiver was created with - until a message is received
+	private String startingOffset;
+	// guarded by flowSync
+	private long lastReceivedOffset;
+	private boolean hasLastReceivedOffset;
 
 	private boolean linkCreateScheduled;
 	private Exception lastKnownLinkError;
 
 	private int nextCreditToFlow;
 
+	// null unless the prefetch is adaptive; guarded by flowSync
+	private AdaptiveCreditController creditController;
+	// guarded by flowSync - ConcurrentLinkedQueue.size() walks the queue
+	private int prefetchedMessageCount;
+
+	// 0 unless the prefetch is limited in bytes; guarded by flowSync
+	private long prefetchByteBudget;
+	private long prefetchedBytes;
+	// this receiver's part of the factory-wide (or the multi-partition receiver's) prefetch limit
+	private final PrefetchMemoryBudget prefetchMemoryBudget;
+	private final PrefetchMemoryBudget.Share prefetchMemoryShare;
+
+	// enqueued time (service clock) to the delivery of the message & delivery to its hand-over to the consumer (local clock)
+	private final LatencyHistogram enqueueToPrefetchLag;
+	private final LatencyHistogram prefetchToConsumerLag;
+
+	// null unless the credit follows the demand of a listener; guarded by flowSync
+	private IReceiveListener receiveListener;
+	// messages requested by the listener and not yet polled
+	private long requestedCount;
+	private int averageMessageSize;
+	private boolean isCreditHeldBack;
+	// no credit is flowed while paused; guarded by flowSync
+	private boolean isPaused;
+	// no credit is flowed till the service answers the drain either - the credit on the link isn't known till then; guarded by flowSync
+	private boolean isDrainPending;
+	// the flows sendFlow sent - a drained batch returns its credit in one flow at most; guarded by flowSync
+	private long creditFlowCount;
+
+	// deliveries are read into this buffer & scanned from it - ReceivedMessage copies the body & the sections it decodes lazily out of it,
+	// so it is reused across deliveries; guarded by flowSync
+	private byte[] receiveBuffer;
+
 	private MessageReceiver(final MessagingFactory factory,
 			final ITimeoutErrorHandler stuckTransportHandler,
 			final String name, 
@@ -87,9 +125,11 @@ public class MessageReceiver extends ClientEntity implements IAmqpReceiver, IErr
 			final String offset,
 			final boolean offsetInclusive,
 			final Instant dateTime,
+			final Long startingSequenceNumber,
 			final int prefetchCount,
 			final Long epoch,
-			final boolean isEpochReceiver)
+			final boolean isEpochReceiver,
+			final PrefetchMemoryBudget prefetchMemoryBudget)
 	{
 		super(name, factory);
 
@@ -100,70 +140,43 @@ public class MessageReceiver extends ClientEntity implements IAmqpReceiver, IErr
 		this.prefetchCount = prefetchCount;
 		this.epoch = epoch;
 		this.isEpochReceiver = isEpochReceiver;
-		this.prefetchedMessages = new ConcurrentLinkedQueue<Message>();
+		this.prefetchedMessages = new ConcurrentLinkedQueue<ReceivedMessage>();
 		this.linkCreateLock = new Object();
 		this.linkClose = new CompletableFuture<Void>();
 		this.lastKnownLinkError = null;
 		this.flowSync = new Object();
 		this.receiveTimeout = factory.getOperationTimeout();
 		this.prefetchCountSync = new Object();
+		this.receiveBuffer = new byte[ClientConstants.MAX_FRAME_SIZE_BYTES];
+		this.prefetchMemoryBudget = prefetchMemoryBudget;
+		this.prefetchMemoryShare = prefetchMemoryBudget.register();
+		this.enqueueToPrefetchLag = new LatencyHistogram();
+		this.prefetchToConsumerLag = new LatencyHistogram();
 
 		if (offset != null)
 		{
-			this.lastReceivedOffset = offset;
+			this.startingOffset = offset;
 			this.offsetInclusive = offsetInclusive;
 		}
+		else if (startingSequenceNumber != null)
+		{
+			this.startingSequenceNumber = startingSequenceNumber;
+			this.sequenceNumberInclusive = offsetInclusive;
+		}
 		else
 		{
 			this.dateTime = dateTime;
 		}
 
 		this.pendingReceives = new ConcurrentLinkedQueue<ReceiveWorkItem>();
-
-		// onOperationTimeout delegate - per receive call
-		this.onOperationTimedout = new Runnable()
+		this.receiveDeadline = new ReceiveDeadline(new Runnable()
 		{
+			@Override
 			public void run()
 			{
-				WorkItem<Collection<Message>> topWorkItem = null;
-				boolean workItemTimedout = false;
-				while((topWorkItem = MessageReceiver.this.pendingReceives.peek()) != null)
-				{
-					if (topWorkItem.getTimeoutTracker().remaining().toMillis() <= MessageReceiver.MIN_TIMEOUT_DURATION_MILLIS)
-					{
-						WorkItem<Collection<Message>> dequedWorkItem = MessageReceiver.this.pendingReceives.poll();
-						if (dequedWorkItem != null)
-						{
-							workItemTimedout = true;
-							dequedWorkItem.getWork().complete(null);
-						}
-						else
-							break;
-					}
-					else
-					{
-						MessageReceiver.this.scheduleOperationTimer(topWorkItem.getTimeoutTracker());
-						break;
-					}
-				}
-
-				if (workItemTimedout)
-				{
-					synchronized (MessageReceiver.this.flowSync)
-					{
-						// workaround to push the sendflow-performative to reactor
-						// this sets the receiveLink endpoint to modified state
-						// (and increment the unsentCredits in proton by 0)
-						MessageReceiver.this.receiveLink.flow(0);
-					}
-
-					// we have a known issue with proton libraries where transport layer is stuck while Sending Flow
-					// to workaround this - we built a mechanism to reset the transport whenever we encounter this
-					// https://issues.apache.org/jira/browse/PROTON-1185
-					MessageReceiver.this.stuckTransportHandler.reportTimeoutError();
-				}
+				MessageReceiver.this.onDeadline();
 			}
-		};
+		});
 	}
 
 
@@ -179,6 +192,40 @@ public class MessageReceiver extends ClientEntity implements IAmqpReceiver, IErr
 			final int prefetchCount,
 			final long epoch,
 			final boolean isEpochReceiver)
+	{
+		return MessageReceiver.create(factory, name, recvPath, offset, offsetInclusive, dateTime, null, prefetchCount, epoch, isEpochReceiver);
+	}
+
+	// @param startingSequenceNumber if not null, and offset is null - the receiver starts from this sequence number; offsetInclusive applies to it
+	public static CompletableFuture<MessageReceiver> create(
+			final MessagingFactory factory, 
+			final String name, 
+			final String recvPath, 
+			final String offset,
+			final boolean offsetInclusive,
+			final Instant dateTime,
+			final Long startingSequenceNumber,
+			final int prefetchCount,
+			final long epoch,
+			final boolean isEpochReceiver)
+	{
+		return MessageReceiver.create(factory, name, recvPath, offset, offsetInclusive, dateTime, startingSequenceNumber, prefetchCount, epoch, isEpochReceiver,
+				factory.getPrefetchMemoryBudget());
+	}
+
+	// @param prefetchMemoryBudget the prefetch limit the receiver takes a share of - instead of the factory's
+	public static CompletableFuture<MessageReceiver> create(
+			final MessagingFactory factory, 
+			final String name, 
+			final String recvPath, 
+			final String offset,
+			final boolean offsetInclusive,
+			final Instant dateTime,
+			final Long startingSequenceNumber,
+			final int prefetchCount,
+			final long epoch,
+			final boolean isEpochReceiver,
+			final PrefetchMemoryBudget prefetchMemoryBudget)
 	{
 		MessageReceiver msgReceiver = new MessageReceiver(
 				factory,
@@ -188,9 +235,11 @@ public class MessageReceiver extends ClientEntity implements IAmqpReceiver, IErr
 				offset, 
 				offsetInclusive, 
 				dateTime, 
+				startingSequenceNumber,
 				prefetchCount, 
 				epoch, 
-				isEpochReceiver);
+				isEpochReceiver,
+				prefetchMemoryBudget);
 		return msgReceiver.createLink();
 	}
 
@@ -210,55 +259,284 @@ public class MessageReceiver extends ClientEntity implements IAmqpReceiver, IErr
 		return this.linkOpen.getWork();
 	}
 
-	private List<Message> receiveCore(final int messageCount)
+	private List<ReceivedMessage> receiveCore(final int messageCount)
 	{
-		List<Message> returnMessages = null;
-		Message currentMessage = this.pollPrefetchQueue();
+		return this.pollPrefetchQueue(messageCount);
+	}
 
-		while (currentMessage != null) 
+	public int getPrefetchCount()
+	{
+		synchronized (this.prefetchCountSync)
+		{
+			return this.prefetchCount;
+		}
+	}
+
+	public void setPrefetchCount(final int value)
+	{
+		synchronized (this.prefetchCountSync)
 		{
-			if (returnMessages == null)
+			synchronized (this.flowSync)
 			{
-				returnMessages = new LinkedList<Message>();
+				final int deltaPrefetch = value - this.prefetchCount;
+				this.prefetchCount = value;
+				this.creditController = null;
+				if (deltaPrefetch > 0)
+				{
+					this.sendFlow(deltaPrefetch);
+				}
 			}
+		}
+	}
 
-			returnMessages.add(currentMessage);
-			if (returnMessages.size() >= messageCount)
+	/**
+	 * sizes the link credit from the drain rate of the prefetched messages and the round trip time of a flow - twice the messages drained in a round trip,
+	 * within [minPrefetchCount, maxPrefetchCount].
+	 * {@link #setPrefetchCount(int)} switches back to a fixed credit.
+	 */
+	public void setAdaptivePrefetch(final int minPrefetchCount, final int maxPrefetchCount)
+	{
+		final AdaptiveCreditController controller = new AdaptiveCreditController(minPrefetchCount, maxPrefetchCount);
+		synchronized (this.prefetchCountSync)
+		{
+			synchronized (this.flowSync)
 			{
-				break;
+				this.prefetchCount = maxPrefetchCount;
+				this.creditController = controller;
+				this.nextCreditToFlow = 0;
+				this.isCreditHeldBack = false;
+				this.sendFlow(0);
 			}
+		}
+	}
 
-			currentMessage = this.pollPrefetchQueue();
+	public boolean isAdaptivePrefetch()
+	{
+		synchronized (this.flowSync)
+		{
+			return this.creditController != null;
 		}
+	}
+
+	/**
+	 * @return milliseconds from the enqueued time of each message (as stamped by the service) to its delivery on this receiver -
+	 * includes the clock skew between the service and this client
+	 */
+	public LatencyHistogram getEnqueueToPrefetchLag()
+	{
+		return this.enqueueToPrefetchLag;
+	}
 
-		return returnMessages;
+	/**
+	 * @return milliseconds each message waited in the prefetch queue before it was handed over to the consumer
+	 */
+	public LatencyHistogram getPrefetchToConsumerLag()
+	{
+		return this.prefetchToConsumerLag;
 	}
 
-	public int getPrefetchCount()
+	public long getPrefetchByteBudget()
 	{
-		synchronized (this.prefetchCountSync)
+		synchronized (this.flowSync)
 		{
-			return this.prefetchCount;
+			return this.prefetchByteBudget;
 		}
 	}
 
-	public void setPrefetchCount(final int value)
+	/**
+	 * limits the prefetch to the given number of bytes - on top of the prefetch count: link credit is held back while
+	 * the prefetched messages plus the credit already on the link (at the average message size) would exceed the budget.
+	 * Credit already on the link is not revoked - so a lower budget takes effect as the prefetched messages drain.
+	 * The receiver's share of the factory-wide {@link PrefetchMemoryBudget} applies as well - the lower of the two limits the prefetch.
+	 * @param value budget in bytes; 0 removes the limit
+	 */
+	public void setPrefetchByteBudget(final long value)
 	{
-		synchronized (this.prefetchCountSync)
+		synchronized (this.flowSync)
+		{
+			this.prefetchByteBudget = value;
+			this.sendFlow(0);
+		}
+	}
+
+	/**
+	 * switches the link credit from the prefetch count to the demand signalled by {@link #request(long)}: the outstanding credit
+	 * (prefetched messages included) never exceeds the messages requested and not yet polled - capped at the prefetch count.
+	 * Credit granted before the listener is set is not revoked. {@link #receive(int)} is not allowed while a listener is set.
+	 * Setting a listener keeps the demand already requested; removing it clears the demand.
+	 * @param listener the listener to notify of prefetched messages; null switches back to the prefetch count
+	 */
+	public void setReceiveListener(final IReceiveListener listener)
+	{
+		synchronized (this.flowSync)
+		{
+			this.receiveListener = listener;
+			if (listener == null)
+			{
+				this.requestedCount = 0;
+			}
+
+			this.topUpCredit();
+		}
+	}
+
+	/**
+	 * removes the listener set by {@link #setReceiveListener} - only if it is still the one set, so a listener which replaced it stays
+	 * @param listener the listener to remove
+	 * @return true if the listener was removed
+	 */
+	public boolean removeReceiveListener(final IReceiveListener listener)
+	{
+		synchronized (this.flowSync)
+		{
+			if (this.receiveListener != listener)
+			{
+				return false;
+			}
+
+			this.setReceiveListener(null);
+			return true;
+		}
+	}
+
+	/**
+	 * stops granting link credit - the link stays open, and the messages already prefetched can still be received.
+	 * Without draining, the service keeps sending till the credit already on the link is used up; the drain asks the service
+	 * to use up or give back that credit right away - so only the messages in flight still arrive.
+	 * @param drainOutstandingCredit true to drain the credit already on the link
+	 */
+	public void pause(final boolean drainOutstandingCredit)
+	{
+		synchronized (this.flowSync)
 		{
-			if (this.prefetchCount < value)
+			this.isPaused = true;
+			if (drainOutstandingCredit && !this.isDrainPending && this.receiveLink != null && this.receiveLink.getCredit() > 0)
 			{
-				int deltaPrefetch = this.prefetchCount - value;
-				synchronized (this.flowSync)
+				this.isDrainPending = true;
+				this.receiveLink.drain(0);
+
+				if(TRACE_LOGGER.isLoggable(Level.FINE))
 				{
-					this.sendFlow(deltaPrefetch);
+					TRACE_LOGGER.log(Level.FINE, String.format("receiverPath[%s], linkname[%s], draining-link-credit[%s]",
+							this.receivePath, this.receiveLink.getName(), this.receiveLink.getCredit()));
 				}
 			}
+		}
+	}
+
+	/**
+	 * grants the credit held back since {@link #pause(boolean)} at once - up to the prefetch count, or the demand of the listener.
+	 * If the service didn't answer the drain yet, the credit is granted when it does.
+	 */
+	public void resume()
+	{
+		synchronized (this.flowSync)
+		{
+			if (!this.isPaused)
+			{
+				return;
+			}
+
+			this.isPaused = false;
+			this.topUpCredit();
+		}
+	}
+
+	@Override
+	public void onFlow()
+	{
+		synchronized (this.flowSync)
+		{
+			this.onDrainAnswered();
+		}
+	}
+
+	// the drain is answered once the credit on the link is used up (by deliveries) or given back (by a flow of the service); not-thread-safe
+	private void onDrainAnswered()
+	{
+		if (!this.isDrainPending || this.receiveLink.draining())
+		{
+			return;
+		}
+
+		this.isDrainPending = false;
+		this.receiveLink.setDrain(false);
+
+		if(TRACE_LOGGER.isLoggable(Level.FINE))
+		{
+			TRACE_LOGGER.log(Level.FINE, String.format("receiverPath[%s], linkname[%s], drained-link-credit[%s]",
+					this.receivePath, this.receiveLink.getName(), this.receiveLink.getCredit()));
+		}
+
+		this.topUpCredit();
+	}
+
+	// recomputes the credit to flow from the credit on the link - which is known only when no drain is pending; not-thread-safe
+	private void topUpCredit()
+	{
+		if (this.receiveLink == null || this.isPaused || this.isDrainPending)
+		{
+			// the link open or the drain flows the credit
+			return;
+		}
+
+		if (this.receiveListener == null && this.creditController == null)
+		{
+			// top up to the prefetch count again
+			this.nextCreditToFlow = Math.max(0, this.prefetchCount - this.receiveLink.getCredit() - this.prefetchedMessageCount);
+			this.isCreditHeldBack = this.nextCreditToFlow > 0;
+		}
+
+		this.sendFlow(0);
+	}
 
-			this.prefetchCount = value;
+	long getCreditFlowCount()
+	{
+		synchronized (this.flowSync)
+		{
+			return this.creditFlowCount;
 		}
 	}
 
+	public boolean isPaused()
+	{
+		synchronized (this.flowSync)
+		{
+			return this.isPaused;
+		}
+	}
+
+	/**
+	 * adds to the number of messages the listener set by {@link #setReceiveListener} is ready to poll
+	 * @param count number of messages; Long.MAX_VALUE for unbounded demand
+	 */
+	public void request(final long count)
+	{
+		synchronized (this.flowSync)
+		{
+			this.requestedCount = this.requestedCount + count < 0 ? Long.MAX_VALUE : this.requestedCount + count;
+			this.sendFlow(0);
+		}
+	}
+
+	/**
+	 * @return the next prefetched message - or null if there is none, or if the listener set by {@link #setReceiveListener} didn't request more
+	 */
+	public ReceivedMessage poll()
+	{
+		final List<ReceivedMessage> messages = this.pollPrefetchQueue(1);
+		return messages == null ? null : messages.get(0);
+	}
+
+	/**
+	 * @param maxMessageCount the most messages to return
+	 * @return the next prefetched messages - or null if there is none, or if the listener set by {@link #setReceiveListener} didn't request more
+	 */
+	public List<ReceivedMessage> poll(final int maxMessageCount)
+	{
+		return this.pollPrefetchQueue(maxMessageCount);
+	}
+
 	public Duration getReceiveTimeout()
 	{
 		return this.receiveTimeout;
@@ -269,33 +547,147 @@ public class MessageReceiver extends ClientEntity implements IAmqpReceiver, IErr
 		this.receiveTimeout = value;
 	}
 
-	public CompletableFuture<Collection<Message>> receive(final int maxMessageCount)
+	public CompletableFuture<Collection<ReceivedMessage>> receive(final int maxMessageCount)
+	{
+		return this.receive(maxMessageCount, 1, Duration.ZERO);
+	}
+
+	/**
+	 * receive that waits for a batch of at least minMessageCount messages - for at most maxLinger (and never longer than the receive timeout).
+	 * Once maxLinger elapsed, the receive completes with whatever is prefetched - or with the next message.
+	 * @param maxMessageCount the most messages to return
+	 * @param minMessageCount the messages to wait for, till maxLinger elapses
+	 * @param maxLinger the longest time to wait for minMessageCount messages - measured from the receive call
+	 */
+	public CompletableFuture<Collection<ReceivedMessage>> receive(final int maxMessageCount, final int minMessageCount, final Duration maxLinger)
 	{
 		this.throwIfClosed(this.lastKnownLinkError);
 
+		synchronized (this.flowSync)
+		{
+			if (this.receiveListener != null)
+			{
+				throw new IllegalStateException("receive is not allowed while the messages are pushed to a receive listener");
+			}
+		}
+
 		if (maxMessageCount <= 0 || maxMessageCount > this.prefetchCount)
 		{
 			throw new IllegalArgumentException(String.format(Locale.US, "parameter 'maxMessageCount' should be a positive number and should be less than prefetchCount(%s)", this.prefetchCount));
 		}
 
-		List<Message> returnMessages = this.receiveCore(maxMessageCount);
+		if (minMessageCount <= 0 || minMessageCount > maxMessageCount)
+		{
+			throw new IllegalArgumentException("parameter 'minMessageCount' should be a positive number and should not be greater than maxMessageCount");
+		}
+
+		if (maxLinger == null || maxLinger.isNegative())
+		{
+			throw new IllegalArgumentException("parameter 'maxLinger' should be a non-negative duration");
+		}
+
+		final int prefetchedCount;
+		synchronized (this.flowSync)
+		{
+			prefetchedCount = this.prefetchedMessageCount;
+		}
 
-		if (returnMessages != null)
+		if (prefetchedCount >= minMessageCount || (prefetchedCount > 0 && maxLinger.isZero()))
 		{
-			return CompletableFuture.completedFuture((Collection<Message>) returnMessages);				
+			List<ReceivedMessage> returnMessages = this.receiveCore(maxMessageCount);
+
+			if (returnMessages != null)
+			{
+				return CompletableFuture.completedFuture((Collection<ReceivedMessage>) returnMessages);				
+			}
 		}
 
-		if (this.pendingReceives.isEmpty())
+		CompletableFuture<Collection<ReceivedMessage>> onReceive = new CompletableFuture<Collection<ReceivedMessage>>();
+		final ReceiveWorkItem workItem = new ReceiveWorkItem(onReceive, this.receiveTimeout, maxMessageCount, minMessageCount, maxLinger, System.nanoTime());
+		if (minMessageCount == 1 || maxLinger.isZero())
 		{
-			this.scheduleOperationTimer(TimeoutTracker.create(this.receiveTimeout));
+			workItem.isLingerExpired = true;
 		}
 
-		CompletableFuture<Collection<Message>> onReceive = new CompletableFuture<Collection<Message>>();
-		this.pendingReceives.offer(new ReceiveWorkItem(onReceive, this.receiveTimeout, maxMessageCount));
+		this.pendingReceives.offer(workItem);
+		this.receiveDeadline.arm(workItem.getNextDeadlineNanos());
 
 		return onReceive;
 	}
 
+	// the armed deadline is reached - lingering receives which are due return what is prefetched, timed out receives complete
+	private void onDeadline()
+	{
+		final long nowNanos = System.nanoTime();
+		final int prefetchedCount;
+		synchronized (this.flowSync)
+		{
+			// set under flowSync - so a delivery either sees it or this sees the delivery
+			for (ReceiveWorkItem workItem : this.pendingReceives)
+			{
+				if (!workItem.isLingerExpired && workItem.lingerDeadlineNanos - nowNanos <= 0)
+				{
+					workItem.isLingerExpired = true;
+				}
+			}
+
+			prefetchedCount = this.prefetchedMessageCount;
+		}
+
+		// a receive that lingered long enough returns what is prefetched - if there is nothing yet, the next message completes it
+		final ReceiveWorkItem lingeredReceive = this.pendingReceives.peek();
+		if (lingeredReceive != null && lingeredReceive.isLingerExpired && prefetchedCount > 0 && this.pendingReceives.remove(lingeredReceive))
+		{
+			lingeredReceive.getWork().complete(this.receiveCore(lingeredReceive.maxMessageCount));
+		}
+
+		boolean workItemTimedout = false;
+		final long timeoutDueNanos = nowNanos + TimeUnit.MILLISECONDS.toNanos(MessageReceiver.MIN_TIMEOUT_DURATION_MILLIS);
+		for (ReceiveWorkItem workItem : this.pendingReceives)
+		{
+			if (workItem.timeoutDeadlineNanos - timeoutDueNanos <= 0 && this.pendingReceives.remove(workItem))
+			{
+				workItemTimedout = true;
+
+				// a receive waiting for a minimum batch returns what it has got so far
+				workItem.getWork().complete(this.receiveCore(workItem.maxMessageCount));
+			}
+		}
+
+		if (workItemTimedout)
+		{
+			synchronized (this.flowSync)
+			{
+				// workaround to push the sendflow-performative to reactor
+				// this sets the receiveLink endpoint to modified state
+				// (and increment the unsentCredits in proton by 0)
+				this.receiveLink.flow(0);
+			}
+
+			// we have a known issue with proton libraries where transport layer is stuck while Sending Flow
+			// to workaround this - we built a mechanism to reset the transport whenever we encounter this
+			// https://issues.apache.org/jira/browse/PROTON-1185
+			this.stuckTransportHandler.reportTimeoutError();
+		}
+
+		boolean hasPendingReceive = false;
+		long nextDeadlineNanos = 0;
+		for (ReceiveWorkItem workItem : this.pendingReceives)
+		{
+			final long deadlineNanos = workItem.getNextDeadlineNanos();
+			if (!hasPendingReceive || deadlineNanos - nextDeadlineNanos < 0)
+			{
+				nextDeadlineNanos = deadlineNanos;
+				hasPendingReceive = true;
+			}
+		}
+
+		if (hasPendingReceive)
+		{
+			this.receiveDeadline.arm(nextDeadlineNanos);
+		}
+	}
+
 	public void onOpenComplete(Exception exception)
 	{		
 		synchronized (this.linkCreateLock)
@@ -319,13 +711,21 @@ public class MessageReceiver extends ClientEntity implements IAmqpReceiver, IErr
 			synchronized (this.flowSync)
 			{
 				this.prefetchedMessages.clear();
-				this.nextCreditToFlow = 0;
-				this.receiveLink.flow(this.prefetchCount);
+				this.prefetchedMessageCount = 0;
+				this.prefetchedBytes = 0;
+				this.isDrainPending = false;
+
+				final int targetCredit = this.receiveListener != null ? (int) Math.min(this.requestedCount, this.prefetchCount) 
+						: this.creditController != null ? this.creditController.getTargetCredit() : this.prefetchCount;
+				final int initialCredit = this.isPaused ? 0 : Math.min(targetCredit, this.getByteBudgetCredit());
+				this.nextCreditToFlow = this.creditController != null || this.receiveListener != null ? 0 : targetCredit - initialCredit;
+				this.isCreditHeldBack = this.nextCreditToFlow > 0;
+				this.receiveLink.flow(initialCredit);
 
 				if(TRACE_LOGGER.isLoggable(Level.FINE))
 				{
 					TRACE_LOGGER.log(Level.FINE, String.format("receiverPath[%s], linkname[%s], updated-link-credit[%s], sentCredits[%s]",
-							this.receivePath, this.receiveLink.getName(), this.receiveLink.getCredit(), this.prefetchCount));
+							this.receivePath, this.receiveLink.getName(), this.receiveLink.getCredit(), initialCredit));
 				}
 			}
 		}
@@ -334,6 +734,7 @@ public class MessageReceiver extends ClientEntity implements IAmqpReceiver, IErr
 			if (this.linkOpen != null && !this.linkOpen.getWork().isDone())
 			{
 				this.setClosed();
+				this.prefetchMemoryBudget.unregister(this.prefetchMemoryShare);
 				ExceptionUtil.completeExceptionally(this.linkOpen.getWork(), exception, this);
 			}
 
@@ -346,30 +747,69 @@ public class MessageReceiver extends ClientEntity implements IAmqpReceiver, IErr
 	@Override
 	public void onReceiveComplete(Delivery delivery)
 	{
-		Message message = null;
+		ReceivedMessage message = null;
+		IReceiveListener listener = null;
+		int prefetchedCount = 0;
 		synchronized (this.flowSync)
 		{
 			int msgSize = delivery.pending();
-			byte[] buffer = new byte[msgSize];
-			
-			int read = receiveLink.recv(buffer, 0, msgSize);
-			
-			message = Proton.message();
-			message.decode(buffer, 0, read);
+			if (msgSize > this.receiveBuffer.length)
+			{
+				// grows to the largest message received on the link - at most MAX_MESSAGE_LENGTH_BYTES rounded up to a power of 2
+				this.receiveBuffer = new byte[Integer.highestOneBit(msgSize - 1) << 1];
+			}
+
+			int read = receiveLink.recv(this.receiveBuffer, 0, msgSize);
+
+			message = ReceivedMessage.create(this.receiveBuffer, 0, read);
 			
 			delivery.settle();
+
+			final long nowNanos = System.nanoTime();
+			message.setPrefetchedAtNanos(nowNanos);
+			if (message.getEnqueuedTimeUtc() > 0)
+			{
+				this.enqueueToPrefetchLag.record(System.currentTimeMillis() - message.getEnqueuedTimeUtc());
+			}
+
+			this.prefetchedMessages.add(message);
+			this.prefetchedMessageCount++;
+			if (this.creditController != null)
+			{
+				this.creditController.onDelivery(nowNanos);
+			}
+
+			this.prefetchedBytes += read;
+			this.averageMessageSize = this.averageMessageSize == 0 ? read : (int) ((7L * this.averageMessageSize + read) / 8);
+			if (this.getEffectiveByteBudget() > 0)
+			{
+				// the first deliveries tell the message size & the factory-wide share may have grown - credit held back till then can be released
+				this.sendFlow(0);
+			}
+
+			this.onDrainAnswered();
+
+			listener = this.receiveListener;
+			prefetchedCount = this.prefetchedMessageCount;
 		}
 
-		this.prefetchedMessages.add(message);
+		if (listener != null)
+		{
+			listener.onMessagesAvailable();
+		}
 
 		this.underlyingFactory.getRetryPolicy().resetRetryCount(this.getClientId());
 		this.stuckTransportHandler.resetTimeoutErrorTracking();
 
-		ReceiveWorkItem currentReceive = this.pendingReceives.poll();
-		if (currentReceive != null && !currentReceive.getWork().isDone())
+		// the oldest receive completes once it has got its minimum batch - or after it lingered for long enough
+		final ReceiveWorkItem currentReceive = this.pendingReceives.peek();
+		if (currentReceive != null
+				&& (currentReceive.isLingerExpired || prefetchedCount >= currentReceive.minMessageCount)
+				&& this.pendingReceives.remove(currentReceive)
+				&& !currentReceive.getWork().isDone())
 		{
-			List<Message> returnMessages = this.receiveCore(currentReceive.maxMessageCount);
-			CompletableFuture<Collection<Message>> future = currentReceive.getWork();
+			List<ReceivedMessage> returnMessages = this.receiveCore(currentReceive.maxMessageCount);
+			CompletableFuture<Collection<ReceivedMessage>> future = currentReceive.getWork();
 			future.complete(returnMessages);
 		}
 	}
@@ -383,16 +823,29 @@ public class MessageReceiver extends ClientEntity implements IAmqpReceiver, IErr
 	@Override
 	public void onError(Exception exception)
 	{
-		this.prefetchedMessages.clear();
+		IReceiveListener listener = null;
+		synchronized (this.flowSync)
+		{
+			this.prefetchedMessages.clear();
+			this.prefetchedMessageCount = 0;
+			this.prefetchedBytes = 0;
+			listener = this.receiveListener;
+		}
 
 		if (this.getIsClosingOrClosed())
 		{
 			this.linkClose.complete(null);
-			WorkItem<Collection<Message>> workItem = null;
+
+			if (listener != null)
+			{
+				listener.onClose(exception == null || (exception instanceof ServiceBusException && ((ServiceBusException) exception).getIsTransient()) ? null : exception);
+			}
+
+			WorkItem<Collection<ReceivedMessage>> workItem = null;
 
 			while ((workItem = this.pendingReceives.poll()) != null)
 			{
-				CompletableFuture<Collection<Message>> future = workItem.getWork();
+				CompletableFuture<Collection<ReceivedMessage>> future = workItem.getWork();
 				if (exception == null ||
 						(exception instanceof ServiceBusException && ((ServiceBusException) exception).getIsTransient()))
 				{
@@ -420,14 +873,6 @@ public class MessageReceiver extends ClientEntity implements IAmqpReceiver, IErr
 		}
 	}
 
-	private void scheduleOperationTimer(TimeoutTracker tracker)
-	{
-		if (tracker != null)
-		{
-			Timer.schedule(this.onOperationTimedout, tracker.remaining(), TimerType.OneTimeRun);
-		}
-	}
-
 	private Receiver createReceiveLink()
 	{	
 		Connection connection = null;
@@ -460,8 +905,25 @@ public class MessageReceiver extends ClientEntity implements IAmqpReceiver, IErr
 		Source source = new Source();
 		source.setAddress(receivePath);
 
+		final String filterOffset;
+		synchronized (this.flowSync)
+		{
+			filterOffset = this.hasLastReceivedOffset ? Long.toString(this.lastReceivedOffset) : this.startingOffset;
+		}
+
 		UnknownDescribedType filter = null;
-		if (this.lastReceivedOffset == null)
+		if (filterOffset == null && this.startingSequenceNumber != null)
+		{
+			if(TRACE_LOGGER.isLoggable(Level.FINE))
+			{
+				TRACE_LOGGER.log(Level.FINE, String.format("receiverPath[%s], action[createReceiveLink], sequenceNumber[%s], inclusive[%s]", this.receivePath, this.startingSequenceNumber, this.sequenceNumberInclusive));
+			}
+
+			// until the first message is received - a re-created link starts from the same sequence number
+			filter = new UnknownDescribedType(AmqpConstants.STRING_FILTER,
+					String.format(AmqpConstants.AMQP_ANNOTATION_FORMAT, AmqpConstants.SEQUENCE_NUMBER_ANNOTATION_NAME, this.sequenceNumberInclusive ? "=" : StringUtil.EMPTY, this.startingSequenceNumber));
+		}
+		else if (filterOffset == null)
 		{
 			long totalMilliSeconds;
 			try
@@ -485,11 +947,11 @@ public class MessageReceiver extends ClientEntity implements IAmqpReceiver, IErr
 		{
 			if(TRACE_LOGGER.isLoggable(Level.FINE))
 			{
-				TRACE_LOGGER.log(Level.FINE, String.format("receiverPath[%s], action[recreateReceiveLink], offset[%s], offsetInclusive[%s]", this.receivePath, this.lastReceivedOffset, this.offsetInclusive));
+				TRACE_LOGGER.log(Level.FINE, String.format("receiverPath[%s], action[recreateReceiveLink], offset[%s], offsetInclusive[%s]", this.receivePath, filterOffset, this.offsetInclusive));
 			}
 
 			filter =  new UnknownDescribedType(AmqpConstants.STRING_FILTER,
-					String.format(AmqpConstants.AMQP_ANNOTATION_FORMAT, AmqpConstants.OFFSET_ANNOTATION_NAME, this.offsetInclusive ? "=" : StringUtil.EMPTY, this.lastReceivedOffset));
+					String.format(AmqpConstants.AMQP_ANNOTATION_FORMAT, AmqpConstants.OFFSET_ANNOTATION_NAME, this.offsetInclusive ? "=" : StringUtil.EMPTY, filterOffset));
 		}
 
 		Map<Symbol, UnknownDescribedType> filterMap = Collections.singletonMap(AmqpConstants.STRING_FILTER, filter);
@@ -525,19 +987,49 @@ public class MessageReceiver extends ClientEntity implements IAmqpReceiver, IErr
 	}
 
 	// CONTRACT: message should be delivered to the caller of MessageReceiver.receive() only via Poll on prefetchqueue
-	private Message pollPrefetchQueue()
+	// a batch is taken under a single acquisition of flowSync - the accounting, the offset & the credit are updated once per batch
+	private List<ReceivedMessage> pollPrefetchQueue(final int maxMessageCount)
 	{
 		synchronized (this.flowSync)
 		{
-			final Message message = this.prefetchedMessages.poll();
-			if (message != null)
+			final int messageCount = this.receiveListener != null ? (int) Math.min(maxMessageCount, this.requestedCount) : maxMessageCount;
+			if (messageCount <= 0 || this.prefetchedMessageCount == 0)
+			{
+				return null;
+			}
+
+			final ArrayList<ReceivedMessage> messages = new ArrayList<ReceivedMessage>(Math.min(messageCount, this.prefetchedMessageCount));
+			final long nowNanos = System.nanoTime();
+			long drainedBytes = 0;
+			ReceivedMessage message = null;
+			while (messages.size() < messageCount && (message = this.prefetchedMessages.poll()) != null)
+			{
+				messages.add(message);
+				drainedBytes += message.getEncodedSize();
+				this.prefetchToConsumerLag.record(TimeUnit.NANOSECONDS.toMillis(nowNanos - message.getPrefetchedAtNanos()));
+			}
+
+			if (messages.isEmpty())
 			{
-				// message lastReceivedOffset should be up-to-date upon each poll - as recreateLink will depend on this 
-				this.lastReceivedOffset = message.getMessageAnnotations().getValue().get(AmqpConstants.OFFSET).toString();
-				this.sendFlow(1);
+				return null;
 			}
 
-			return message;
+			final int drainedCount = messages.size();
+			this.prefetchedMessageCount -= drainedCount;
+			if (this.receiveListener != null && this.requestedCount != Long.MAX_VALUE)
+			{
+				this.requestedCount -= drainedCount;
+			}
+
+			this.prefetchedBytes -= drainedBytes;
+			this.prefetchMemoryShare.onDrained(drainedBytes, nowNanos);
+
+			// recreateLink resumes after the last message handed over - the offsets of the others are not needed
+			this.lastReceivedOffset = Long.parseLong(messages.get(drainedCount - 1).getOffset());
+			this.hasLastReceivedOffset = true;
+			this.sendFlow(drainedCount);
+
+			return messages;
 		}
 	}
 
@@ -545,19 +1037,69 @@ public class MessageReceiver extends ClientEntity implements IAmqpReceiver, IErr
 	// set the link credit; not-thread-safe
 	private void sendFlow(final int credits)
 	{
+		if (this.isPaused || this.isDrainPending)
+		{
+			// resume (or the answer to the drain) restores the credit - the drain rate is still sampled, the consumer keeps draining the prefetch
+			if (this.creditController != null)
+			{
+				this.creditController.onDrained(credits, System.nanoTime());
+			}
+
+			return;
+		}
+
 		int tempFlow = 0;
 
-		// slow down sending the flow - to make the protocol less-chat'y
-		this.nextCreditToFlow += credits;
-		if (this.nextCreditToFlow >= this.prefetchCount)
+		if (this.receiveListener != null)
+		{
+			// credit follows the demand of the listener - flows are batched to a quarter of the demand, unless the link ran out of credit
+			final int linkCredit = this.receiveLink.getCredit();
+			final long targetCredit = Math.min(this.requestedCount, this.prefetchCount);
+			final long creditToFlow = Math.min(targetCredit - linkCredit - this.prefetchedMessageCount, this.getByteBudgetCredit());
+			if (creditToFlow > 0 && (creditToFlow >= targetCredit / 4 || linkCredit <= 0))
+			{
+				tempFlow = (int) creditToFlow;
+				this.receiveLink.flow(tempFlow);
+			}
+		}
+		else if (this.creditController != null)
+		{
+			final long now = System.nanoTime();
+			this.creditController.onDrained(credits, now);
+
+			final int linkCredit = this.receiveLink.getCredit();
+			final int byteBudgetCredit = this.getByteBudgetCredit();
+			if (byteBudgetCredit > 0)
+			{
+				tempFlow = Math.min(byteBudgetCredit, this.creditController.getCreditToFlow(linkCredit + this.prefetchedMessageCount, linkCredit, now));
+				if (tempFlow > 0)
+				{
+					this.receiveLink.flow(tempFlow);
+				}
+			}
+		}
+		else
 		{
-			tempFlow = this.nextCreditToFlow;
-			this.receiveLink.flow(tempFlow);
-			this.nextCreditToFlow = 0;
+			// slow down sending the flow - to make the protocol less-chat'y
+			// credit held back by the byte budget is released as soon as the budget allows it
+			this.nextCreditToFlow += credits;
+			if (this.nextCreditToFlow >= this.prefetchCount || this.isCreditHeldBack)
+			{
+				tempFlow = Math.min(this.nextCreditToFlow, this.getByteBudgetCredit());
+				if (tempFlow > 0)
+				{
+					this.receiveLink.flow(tempFlow);
+					this.nextCreditToFlow -= tempFlow;
+				}
+
+				this.isCreditHeldBack = this.nextCreditToFlow > 0;
+			}
 		}
 
 		if (tempFlow != 0)
 		{
+			this.creditFlowCount++;
+
 			if(TRACE_LOGGER.isLoggable(Level.FINE))
 			{
 				TRACE_LOGGER.log(Level.FINE, String.format("receiverPath[%s], linkname[%s], updated-link-credit[%s], sentCredits[%s]",
@@ -566,6 +1108,41 @@ public class MessageReceiver extends ClientEntity implements IAmqpReceiver, IErr
 		}
 	}
 
+	// the lower of this receiver's byte budget and its share of the factory-wide limit; 0 if neither applies
+	private long getEffectiveByteBudget()
+	{
+		final long shareBytes = this.prefetchMemoryShare.getBytes();
+		if (this.prefetchByteBudget <= 0 || shareBytes <= 0)
+		{
+			return Math.max(this.prefetchByteBudget, shareBytes);
+		}
+
+		return Math.min(this.prefetchByteBudget, shareBytes);
+	}
+
+	// credit the byte budget allows on top of the credit on the link; not-thread-safe
+	private int getByteBudgetCredit()
+	{
+		final long byteBudget = this.getEffectiveByteBudget();
+		if (byteBudget <= 0)
+		{
+			return Integer.MAX_VALUE;
+		}
+
+		final int linkCredit = this.receiveLink.getCredit();
+
+		// a message never fits into the budget if it is larger than the budget - still let one through at a time
+		final int minimumCredit = linkCredit <= 0 && this.prefetchedMessageCount == 0 ? 1 : 0;
+		if (this.averageMessageSize == 0)
+		{
+			// no message received yet to size the credit on
+			return minimumCredit;
+		}
+
+		final long availableBytes = byteBudget - this.prefetchedBytes - (long) linkCredit * this.averageMessageSize;
+		return (int) Math.max(minimumCredit, Math.min(Integer.MAX_VALUE, availableBytes / this.averageMessageSize));
+	}
+
 	/**
 	 *  Before invoking this - this.receiveLink is expected to be closed
 	 */
@@ -694,7 +1271,7 @@ public class MessageReceiver extends ClientEntity implements IAmqpReceiver, IErr
 		ReceiverContext errorContext = new ReceiverContext(this.underlyingFactory != null ? this.underlyingFactory.getHostName() : null,
 				this.receivePath,
 				referenceId,
-				isLinkOpened ? new Long(this.lastReceivedOffset) : null, 
+				isLinkOpened && this.hasLastReceivedOffset ? this.lastReceivedOffset : null, 
 						isLinkOpened ? this.prefetchCount : null, 
 								isLinkOpened ? this.receiveLink.getCredit(): null, 
 										isLinkOpened && this.prefetchedMessages != null ? this.prefetchedMessages.size(): null, 
@@ -703,20 +1280,38 @@ public class MessageReceiver extends ClientEntity implements IAmqpReceiver, IErr
 		return errorContext;
 	}	
 
-	private static class ReceiveWorkItem extends WorkItem<Collection<Message>>
+	private static class ReceiveWorkItem extends WorkItem<Collection<ReceivedMessage>>
 	{
 		private final int maxMessageCount;
+		private final int minMessageCount;
+		private final long timeoutDeadlineNanos;
+		private final long lingerDeadlineNanos;
 
-		public ReceiveWorkItem(CompletableFuture<Collection<Message>> completableFuture, Duration timeout, final int maxMessageCount)
+		// set under flowSync - so a delivery either sees it or the deadline timer sees the delivery
+		private volatile boolean isLingerExpired;
+
+		public ReceiveWorkItem(CompletableFuture<Collection<ReceivedMessage>> completableFuture, Duration timeout, final int maxMessageCount, final int minMessageCount,
+				final Duration maxLinger, final long nowNanos)
 		{
 			super(completableFuture, timeout);
 			this.maxMessageCount = maxMessageCount;
+			this.minMessageCount = minMessageCount;
+			this.timeoutDeadlineNanos = ReceiveDeadline.after(nowNanos, timeout);
+			this.lingerDeadlineNanos = ReceiveDeadline.after(nowNanos, maxLinger);
+		}
+
+		// the receive timeout - or the end of the linger, while it lasts
+		long getNextDeadlineNanos()
+		{
+			return this.isLingerExpired || this.timeoutDeadlineNanos - this.lingerDeadlineNanos <= 0 ? this.timeoutDeadlineNanos : this.lingerDeadlineNanos;
 		}
 	}
 
 	@Override
 	protected CompletableFuture<Void> onClose()
 	{
+		this.prefetchMemoryBudget.unregister(this.prefetchMemoryShare);
+
 		if (!this.getIsClosed())
 		{
 			if (this.receiveLink != null && this.receiveLink.getLocalState() != EndpointState.CLOSED)
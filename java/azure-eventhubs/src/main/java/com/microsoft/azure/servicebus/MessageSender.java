@@ -8,23 +8,19 @@ import java.nio.BufferOverflowException;
 import java.time.Duration;
 import java.time.Instant;
 import java.time.ZonedDateTime;
-import java.util.Iterator;
-import java.util.LinkedList;
+import java.util.Arrays;
 import java.util.Locale;
-import java.util.Map;
-import java.util.UUID;
-import java.util.Map.Entry;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
-import org.apache.qpid.proton.Proton;
 import org.apache.qpid.proton.amqp.Binary;
 import org.apache.qpid.proton.amqp.messaging.Accepted;
 import org.apache.qpid.proton.amqp.messaging.Data;
@@ -67,9 +63,20 @@ public class MessageSender extends ClientEntity implements IAmqpSender, IErrorCo
 	private final Runnable operationTimer;
 	private final Duration timerTimeout;
 	private final CompletableFuture<Void> linkClose;
+	private final BufferPool bufferPool;
+	private final SendDispatchMode dispatchMode;
+	private final SendSettleMode settleMode;
+	private final SendWindow sendWindow;
+	private final SendWindowFullBehavior windowFullBehavior;
+	private final ConcurrentLinkedQueue<ReplayableWorkItem<Void>> sendsWaitingForDispatch;
+	private final AtomicBoolean dispatchScheduled;
+	private final Runnable dispatchSends;
 
-	private ConcurrentHashMap<String, ReplayableWorkItem<Void>> pendingSendsData;
-	private ConcurrentLinkedDeque<String> pendingSendsWaitingForCredit;
+	private final AtomicLong nextDeliveryTag;
+
+	private LongHashMap<ReplayableWorkItem<Void>> pendingSendsData;
+	private DeadlineQueue pendingSendDeadlines;
+	private CreditWaitQueue pendingSendsWaitingForCredit;
 
 	private Sender sendLink;
 	private CompletableFuture<MessageSender> linkFirstOpen; 
@@ -86,7 +93,16 @@ public class MessageSender extends ClientEntity implements IAmqpSender, IErrorCo
 			final String sendLinkName,
 			final String senderPath)
 	{
-		final MessageSender msgSender = new MessageSender(factory, factory, sendLinkName, senderPath);
+		return MessageSender.create(factory, sendLinkName, senderPath, new SenderOptions());
+	}
+
+	public static CompletableFuture<MessageSender> create(
+			final MessagingFactory factory,
+			final String sendLinkName,
+			final String senderPath,
+			final SenderOptions options)
+	{
+		final MessageSender msgSender = new MessageSender(factory, factory, sendLinkName, senderPath, options);
 		msgSender.openLinkTracker = TimeoutTracker.create(factory.getOperationTimeout());
 		msgSender.initializeLinkOpen(msgSender.openLinkTracker);
 		msgSender.linkCreateScheduled = true;
@@ -101,7 +117,7 @@ public class MessageSender extends ClientEntity implements IAmqpSender, IErrorCo
 		return msgSender.linkFirstOpen;
 	}
 
-	private MessageSender(final MessagingFactory factory, final ITimeoutErrorHandler timeoutErrorHandler, final String sendLinkName, final String senderPath)
+	private MessageSender(final MessagingFactory factory, final ITimeoutErrorHandler timeoutErrorHandler, final String sendLinkName, final String senderPath, final SenderOptions options)
 	{
 		super(sendLinkName, factory);
 
@@ -114,48 +130,89 @@ public class MessageSender extends ClientEntity implements IAmqpSender, IErrorCo
 		this.lastKnownErrorReportedAt = Instant.EPOCH;
 
 		this.retryPolicy = factory.getRetryPolicy();
-
-		this.pendingSendsData = new ConcurrentHashMap<String, ReplayableWorkItem<Void>>();
-		this.pendingSendsWaitingForCredit = new ConcurrentLinkedDeque<String>();
-		new AtomicLong(0);
+		this.bufferPool = factory.getBufferPool();
+		this.dispatchMode = options.getDispatchMode();
+		this.settleMode = options.getSettleMode();
+		this.sendWindow = new SendWindow(options.getMaxPendingSends(), options.getMaxPendingBytes());
+		this.windowFullBehavior = options.getWindowFullBehavior();
+
+		this.pendingSendsData = new LongHashMap<ReplayableWorkItem<Void>>();
+		this.pendingSendDeadlines = new DeadlineQueue();
+		this.pendingSendsWaitingForCredit = new CreditWaitQueue();
+		this.nextDeliveryTag = new AtomicLong(0);
 		this.linkCredit = new AtomicInteger(0);
 
 		this.linkCreateLock = new Object();
 		this.sendCall = new Object();
 		this.linkClose = new CompletableFuture<Void>();
 
-		this.operationTimer = new Runnable()
+		this.sendsWaitingForDispatch = new ConcurrentLinkedQueue<ReplayableWorkItem<Void>>();
+		this.dispatchScheduled = new AtomicBoolean(false);
+		this.dispatchSends = new Runnable()
 		{
 			@Override
 			public void run()
 			{
-				if (MessageSender.this.pendingSendsData != null)
+				// reset before draining - a send queued from here on schedules the next pass
+				MessageSender.this.dispatchScheduled.set(false);
+
+				ReplayableWorkItem<Void> sendWork;
+				while ((sendWork = MessageSender.this.sendsWaitingForDispatch.poll()) != null)
 				{
-					Iterator<Entry<String, ReplayableWorkItem<Void>>> pendingDeliveries = MessageSender.this.pendingSendsData.entrySet().iterator();
-					while(pendingDeliveries.hasNext())
+					try
 					{
-						Entry<String, ReplayableWorkItem<Void>> pendingSend = pendingDeliveries.next();
-						if (pendingSend == null)
-						{
-							break;
-						}
+						MessageSender.this.sendCore(sendWork.getMessage(),
+								sendWork.getEncodedMessageSize(),
+								sendWork.getMessageFormat(),
+								sendWork.getWork(),
+								sendWork.getTimeoutTracker(),
+								0,
+								null,
+								false);
+					}
+					catch (IllegalStateException closedException)
+					{
+						MessageSender.this.bufferPool.giveBack(sendWork.getMessage());
+						ExceptionUtil.completeExceptionally(sendWork.getWork(), closedException, MessageSender.this);
+					}
+				}
+			}
+		};
 
-						ReplayableWorkItem<Void> pendingSendWork = pendingSend.getValue();
-						if (pendingSendWork.getTimeoutTracker().remaining().compareTo(ClientConstants.TIMER_TOLERANCE) < 0)
-						{
-							pendingSendsWaitingForCredit.remove(pendingSend.getKey());
-							pendingDeliveries.remove();
+		this.operationTimer = new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				if (!MessageSender.this.sendsWaitingForDispatch.isEmpty())
+				{
+					// the reactor might have gone down with a dispatch pending
+					MessageSender.this.dispatchScheduled.set(false);
+					MessageSender.this.scheduleDispatch();
+				}
 
-							if (TRACE_LOGGER.isLoggable(Level.FINE))
-							{
-								TRACE_LOGGER.log(Level.FINE,
-										String.format(Locale.US, 
-												"path[%s], linkName[%s], deliveryTag[%s] - send timedout", MessageSender.this.sendPath, MessageSender.this.sendLink.getName(), pendingSend.getKey()));
-							}
+				// only the sends which are due (within TIMER_TOLERANCE) are visited
+				final long expiredBefore = System.nanoTime() + ClientConstants.TIMER_TOLERANCE.toNanos();
+				MessageSender.this.sendWindow.expireDeferred(expiredBefore);
+				long pendingDeliveryTag;
+				while ((pendingDeliveryTag = MessageSender.this.pendingSendDeadlines.pollExpired(expiredBefore)) != 0)
+				{
+					MessageSender.this.pendingSendsWaitingForCredit.remove(pendingDeliveryTag);
+					final ReplayableWorkItem<Void> pendingSendWork = MessageSender.this.pendingSendsData.remove(pendingDeliveryTag);
+					if (pendingSendWork == null)
+					{
+						continue;
+					}
 
-							MessageSender.this.throwSenderTimeout(pendingSendWork.getWork(), pendingSendWork.getLastKnownException());
-						}
+					if (TRACE_LOGGER.isLoggable(Level.FINE))
+					{
+						TRACE_LOGGER.log(Level.FINE,
+								String.format(Locale.US, 
+										"path[%s], linkName[%s], deliveryTag[%s] - send timedout", MessageSender.this.sendPath, MessageSender.this.sendLink.getName(), pendingDeliveryTag));
 					}
+
+					MessageSender.this.bufferPool.giveBack(pendingSendWork.getMessage());
+					MessageSender.this.throwSenderTimeout(pendingSendWork.getWork(), pendingSendWork.getLastKnownException());
 				}
 			}
 		};
@@ -166,32 +223,233 @@ public class MessageSender extends ClientEntity implements IAmqpSender, IErrorCo
 		return this.sendPath;
 	}
 
-	private CompletableFuture<Void> send(byte[] bytes, int arrayOffset, int messageFormat)
+	/**
+	 * @return number of sends in flight - from send until the send completes
+	 */
+	public int getPendingSendCount()
+	{
+		return this.sendWindow.getPendingSends();
+	}
+
+	/**
+	 * @return encoded bytes of the sends in flight
+	 */
+	public long getPendingSendBytes()
+	{
+		return this.sendWindow.getPendingBytes();
+	}
+
+	private CompletableFuture<Void> send(final byte[] bytes, final int arrayOffset, final int messageFormat)
+	{
+		this.throwIfClosed(this.lastKnownLinkError);
+
+		switch (this.windowFullBehavior)
+		{
+		case Fail:
+			if (!this.sendWindow.tryAcquire(arrayOffset))
+			{
+				return this.failSendWindowFull(bytes);
+			}
+
+			break;
+
+		case Block:
+			boolean acquired = false;
+			try
+			{
+				acquired = this.sendWindow.acquire(arrayOffset, this.operationTimeout);
+			}
+			catch (InterruptedException interruptedException)
+			{
+				Thread.currentThread().interrupt();
+			}
+
+			if (!acquired)
+			{
+				return this.failSendWindowFull(bytes);
+			}
+
+			break;
+
+		case Defer:
+			final CompletableFuture<Void> deferredSend = new CompletableFuture<Void>();
+			final TimeoutTracker deferredSince = TimeoutTracker.create(this.operationTimeout);
+			final long deadlineNanos = System.nanoTime() + this.operationTimeout.toNanos();
+
+			// runs on the executor of the window - the operation timer expires the deferred sends whose deadline passed
+			final boolean admitted = this.sendWindow.tryAcquireOrDefer(arrayOffset, deadlineNanos, new SendWindow.DeferredSend()
+			{
+				@Override
+				public void onAcquired()
+				{
+					if (deferredSince.remaining().compareTo(ClientConstants.TIMER_TOLERANCE) < 0)
+					{
+						MessageSender.this.sendWindow.release(arrayOffset);
+						this.onExpired();
+						return;
+					}
+
+					try
+					{
+						MessageSender.this.dispatchInWindow(bytes, arrayOffset, messageFormat).whenComplete(new BiConsumer<Void, Throwable>()
+						{
+							@Override
+							public void accept(Void result, Throwable exception)
+							{
+								if (exception == null)
+								{
+									deferredSend.complete(null);
+								}
+								else
+								{
+									deferredSend.completeExceptionally(exception);
+								}
+							}
+						});
+					}
+					catch (IllegalStateException closedException)
+					{
+						deferredSend.completeExceptionally(closedException);
+					}
+				}
+
+				@Override
+				public void onExpired()
+				{
+					MessageSender.this.bufferPool.giveBack(bytes);
+					MessageSender.this.throwSenderTimeout(deferredSend, null);
+				}
+
+				@Override
+				public void onCancelled(Exception exception)
+				{
+					MessageSender.this.bufferPool.giveBack(bytes);
+					ExceptionUtil.completeExceptionally(deferredSend, exception, MessageSender.this);
+				}
+			});
+
+			if (!admitted)
+			{
+				return deferredSend;
+			}
+
+			break;
+
+		default:
+			throw new IllegalStateException("Unsupported send window behavior.");
+		}
+
+		return this.dispatchInWindow(bytes, arrayOffset, messageFormat);
+	}
+
+	private CompletableFuture<Void> failSendWindowFull(final byte[] bytes)
 	{
+		this.bufferPool.giveBack(bytes);
+
+		final CompletableFuture<Void> sendTask = new CompletableFuture<Void>();
+		sendTask.completeExceptionally(new SendBufferFullException(String.format(Locale.US, "path[%s] - the send window is full, pendingSends[%s], pendingBytes[%s]",
+				this.sendPath, this.sendWindow.getPendingSends(), this.sendWindow.getPendingBytes())));
+		return sendTask;
+	}
+
+	// the send holds its share of the window until it completes
+	private CompletableFuture<Void> dispatchInWindow(final byte[] bytes, final int arrayOffset, final int messageFormat)
+	{
+		final CompletableFuture<Void> onSend;
+		try
+		{
+			onSend = this.dispatch(bytes, arrayOffset, messageFormat);
+		}
+		catch (IllegalStateException closedException)
+		{
+			this.sendWindow.release(arrayOffset);
+			this.bufferPool.giveBack(bytes);
+			throw closedException;
+		}
+
+		onSend.whenComplete(new BiConsumer<Void, Throwable>()
+		{
+			@Override
+			public void accept(Void result, Throwable exception)
+			{
+				MessageSender.this.sendWindow.release(arrayOffset);
+			}
+		});
+
+		return onSend;
+	}
+
+	private CompletableFuture<Void> dispatch(final byte[] bytes, final int arrayOffset, final int messageFormat)
+	{
+		if (this.dispatchMode == SendDispatchMode.ReactorThread)
+		{
+			this.throwIfClosed(this.lastKnownLinkError);
+
+			final CompletableFuture<Void> onSend = new CompletableFuture<Void>();
+			this.sendsWaitingForDispatch.offer(new ReplayableWorkItem<Void>(bytes, arrayOffset, messageFormat, onSend, this.operationTimeout));
+			this.scheduleDispatch();
+			return onSend;
+		}
+
 		return this.send(bytes, arrayOffset, messageFormat, null, null);
 	}
 
+	// one reactor pass drains all the sends queued until then
+	private void scheduleDispatch()
+	{
+		if (this.dispatchScheduled.compareAndSet(false, true))
+		{
+			this.underlyingFactory.runOnReactorThread(this.dispatchSends);
+		}
+	}
+
+	// delivery tags are a per-sender sequence (starting at 1) encoded as 8 big-endian bytes
+	private static byte[] toDeliveryTagBytes(long deliveryTag)
+	{
+		final byte[] tagBytes = new byte[8];
+		for (int index = 7; index >= 0; index--)
+		{
+			tagBytes[index] = (byte) deliveryTag;
+			deliveryTag >>>= 8;
+		}
+
+		return tagBytes;
+	}
+
+	private static long fromDeliveryTagBytes(final byte[] tagBytes)
+	{
+		long deliveryTag = 0;
+		for (int index = 0; index < tagBytes.length; index++)
+		{
+			deliveryTag = (deliveryTag << 8) | (tagBytes[index] & 0xFF);
+		}
+
+		return deliveryTag;
+	}
+
 	// contract:
 	// 1. actual send on the SenderLink should happen only in this method
 	// 2. If there is any PendingSend waiting for Service to sendCreditFLow 
 	//        - this will not Send - & only Enqueue's the message
 	//  	  - except if the msgToBeSent is the PendingSend waiting for Credit
+	// 3. only a retry goes ahead of the sends waiting for credit - a first attempt waits behind them, to keep the order of sends
 	private CompletableFuture<Void> sendCore(
 			final byte[] bytes,
 			final int arrayOffset,
 			final int messageFormat,
 			final CompletableFuture<Void> onSend,
 			final TimeoutTracker tracker,
-			final String deliveryTag,
-			final Exception lastKnownError)
+			final long deliveryTag,
+			final Exception lastKnownError,
+			final boolean isRetry)
 	{
 		this.throwIfClosed(this.lastKnownLinkError);
 
 		if (tracker != null && onSend != null && (tracker.remaining().isNegative() || tracker.remaining().isZero()))
 		{
-			if (deliveryTag != null)
+			if (deliveryTag != 0)
 			{
-				this.pendingSendsData.remove(deliveryTag);
+				this.takePendingSend(deliveryTag);
 			}
 
 			if (TRACE_LOGGER.isLoggable(Level.FINE))
@@ -201,11 +459,12 @@ public class MessageSender extends ClientEntity implements IAmqpSender, IErrorCo
 								"path[%s], linkName[%s], deliveryTag[%s] - timed out at sendCore", this.sendPath, this.sendLink.getName(), deliveryTag));
 			}
 
+			this.bufferPool.giveBack(bytes);
 			this.throwSenderTimeout(onSend, null);
 			return onSend;
 		}
 
-		final String tag = (deliveryTag == null) ? UUID.randomUUID().toString().replace("-", StringUtil.EMPTY) : deliveryTag;
+		final long tag = (deliveryTag == 0) ? this.nextDeliveryTag.incrementAndGet() : deliveryTag;
 		boolean messageSent = false;
 		Delivery dlv = null;
 		int sentMsgSize = 0;
@@ -218,14 +477,20 @@ public class MessageSender extends ClientEntity implements IAmqpSender, IErrorCo
 			{
 				this.linkCredit.decrementAndGet();
 
-				dlv = this.sendLink.delivery(tag.getBytes());
+				dlv = this.sendLink.delivery(toDeliveryTagBytes(tag));
 				dlv.setMessageFormat(messageFormat);
 
 				sentMsgSize = this.sendLink.send(bytes, 0, arrayOffset);
 				assert sentMsgSize == arrayOffset : "Contract of the ProtonJ library for Sender.Send API changed";
 
 				if (this.sendLink.advance())
+				{
 					messageSent = true;
+					if (this.settleMode == SendSettleMode.Settled)
+					{
+						dlv.settle();
+					}
+				}
 				else
 				{
 					if (TRACE_LOGGER.isLoggable(Level.FINE))
@@ -242,13 +507,10 @@ public class MessageSender extends ClientEntity implements IAmqpSender, IErrorCo
 
 		if (!messageSent)
 		{
-			if (!this.pendingSendsWaitingForCredit.contains(tag))
-			{
-				if (onSend != null)
-					this.pendingSendsWaitingForCredit.offerFirst(tag);
-				else
-					this.pendingSendsWaitingForCredit.offer(tag);	
-			}
+			if (isRetry)
+				this.pendingSendsWaitingForCredit.offerFirst(tag);
+			else
+				this.pendingSendsWaitingForCredit.offerLast(tag);
 		}
 		else
 		{
@@ -259,6 +521,19 @@ public class MessageSender extends ClientEntity implements IAmqpSender, IErrorCo
 						String.format(Locale.US, "path[%s], linkName[%s], deliveryTag[%s], deliverySettled[%s], sentMessageSize[%s], payloadActualSize[%s]",
 								this.sendPath, this.sendLink.getName(), tag, dlv.isSettled(), sentMsgSize, arrayOffset));
 			}
+
+			if (this.settleMode == SendSettleMode.Settled)
+			{
+				// proton copied the payload and there is no outcome to wait for - nothing is kept for replay
+				this.bufferPool.giveBack(bytes);
+				if (onSend == null)
+				{
+					return CompletableFuture.completedFuture(null);
+				}
+
+				onSend.complete(null);
+				return onSend;
+			}
 		}
 
 		CompletableFuture<Void> onSendFuture = (onSend == null) ? new CompletableFuture<Void>() : onSend;
@@ -271,7 +546,7 @@ public class MessageSender extends ClientEntity implements IAmqpSender, IErrorCo
 					sendWaiterData.setLastKnownException(lastKnownError);
 				}
 
-				this.pendingSendsData.put(tag, sendWaiterData);
+				this.putPendingSend(tag, sendWaiterData);
 
 				return onSendFuture;
 	}
@@ -283,7 +558,7 @@ public class MessageSender extends ClientEntity implements IAmqpSender, IErrorCo
 			final CompletableFuture<Void> onSend,
 			final TimeoutTracker tracker)
 	{
-		return this.sendCore(bytes, arrayOffset, messageFormat, onSend, tracker, null, null);
+		return this.sendCore(bytes, arrayOffset, messageFormat, onSend, tracker, 0, null, false);
 	}
 
 	private int getPayloadSize(Message msg)
@@ -348,47 +623,45 @@ public class MessageSender extends ClientEntity implements IAmqpSender, IErrorCo
 
 		// proton-j doesn't support multiple dataSections to be part of AmqpMessage
 		// here's the alternate approach provided by them: https://github.com/apache/qpid-proton/pull/54
-		Message batchMessage = Proton.message();
-		batchMessage.setMessageAnnotations(firstMessage.getMessageAnnotations());
-
-		byte[] bytes = new byte[ClientConstants.MAX_MESSAGE_LENGTH_BYTES];
-		int encodedSize = batchMessage.encode(bytes, 0, ClientConstants.MAX_MESSAGE_LENGTH_BYTES);
-		int byteArrayOffset = encodedSize;
+		// - BatchMessageEncoder produces the same bytes in one pass, encoding each message directly into its data section
+		byte[] bytes = this.bufferPool.borrow(ClientConstants.MAX_MESSAGE_LENGTH_BYTES);
+		int byteArrayOffset = 0;
 
-		for(Message amqpMessage: messages)
+		try
 		{
-			Message messageWrappedByData = Proton.message();
-
-			int payloadSize = this.getDataSerializedSize(amqpMessage);
-			int allocationSize = Math.min(payloadSize + ClientConstants.MAX_EVENTHUB_AMQP_HEADER_SIZE_BYTES, ClientConstants.MAX_MESSAGE_LENGTH_BYTES);
-
-			byte[] messageBytes = new byte[allocationSize];
-			int messageSizeBytes = amqpMessage.encode(messageBytes, 0, allocationSize);
-			messageWrappedByData.setBody(new Data(new Binary(messageBytes, 0, messageSizeBytes)));
-
-			try
+			byteArrayOffset = BatchMessageEncoder.encodeHeader(firstMessage, bytes, 0, ClientConstants.MAX_MESSAGE_LENGTH_BYTES);
+			for(Message amqpMessage: messages)
 			{
-				encodedSize = messageWrappedByData.encode(bytes, byteArrayOffset, ClientConstants.MAX_MESSAGE_LENGTH_BYTES - byteArrayOffset - 1);
+				byteArrayOffset += BatchMessageEncoder.encodeDataSection(amqpMessage, bytes, byteArrayOffset, ClientConstants.MAX_MESSAGE_LENGTH_BYTES - byteArrayOffset - 1);
 			}
-			catch(BufferOverflowException exception)
-			{
-				final CompletableFuture<Void> sendTask = new CompletableFuture<Void>();
-				sendTask.completeExceptionally(new PayloadSizeExceededException(String.format("Size of the payload exceeded Maximum message size: %s kb", ClientConstants.MAX_MESSAGE_LENGTH_BYTES / 1024), exception));
-				return sendTask;
-			}
-
-			byteArrayOffset = byteArrayOffset + encodedSize;
+		}
+		catch(BufferOverflowException exception)
+		{
+			this.bufferPool.giveBack(bytes);
+			final CompletableFuture<Void> sendTask = new CompletableFuture<Void>();
+			sendTask.completeExceptionally(new PayloadSizeExceededException(String.format("Size of the payload exceeded Maximum message size: %s kb", ClientConstants.MAX_MESSAGE_LENGTH_BYTES / 1024), exception));
+			return sendTask;
 		}
 
 		return this.send(bytes, byteArrayOffset, AmqpConstants.AMQP_BATCH_MESSAGE_FORMAT);
 	}
 
+	/**
+	 * sends a batch which is already encoded in the {@link BatchMessageEncoder} format
+	 * @param encodedBatch buffer borrowed from the {@link MessagingFactory#getBufferPool()} - it is given back to the pool once the send completes
+	 * @param encodedSize number of bytes of the batch
+	 */
+	public CompletableFuture<Void> sendBatch(final byte[] encodedBatch, final int encodedSize)
+	{
+		return this.send(encodedBatch, encodedSize, AmqpConstants.AMQP_BATCH_MESSAGE_FORMAT);
+	}
+
 	public CompletableFuture<Void> send(Message msg)
 	{
 		int payloadSize = this.getDataSerializedSize(msg);
 		int allocationSize = Math.min(payloadSize + ClientConstants.MAX_EVENTHUB_AMQP_HEADER_SIZE_BYTES, ClientConstants.MAX_MESSAGE_LENGTH_BYTES);
 
-		byte[] bytes = new byte[allocationSize];
+		byte[] bytes = this.bufferPool.borrow(allocationSize);
 		int encodedSize = 0;
 		try
 		{
@@ -396,6 +669,7 @@ public class MessageSender extends ClientEntity implements IAmqpSender, IErrorCo
 		}
 		catch(BufferOverflowException exception)
 		{
+			this.bufferPool.giveBack(bytes);
 			final CompletableFuture<Void> sendTask = new CompletableFuture<Void>();
 			sendTask.completeExceptionally(new PayloadSizeExceededException(String.format("Size of the payload exceeded Maximum message size: %s kb", ClientConstants.MAX_MESSAGE_LENGTH_BYTES / 1024), exception));
 			return sendTask;
@@ -429,23 +703,14 @@ public class MessageSender extends ClientEntity implements IAmqpSender, IErrorCo
 			}
 			else if (!this.pendingSendsData.isEmpty())
 			{
-				LinkedList<String> unacknowledgedSends = new LinkedList<String>();
-				unacknowledgedSends.addAll(this.pendingSendsData.keySet());
+				// tags are sequential - replay the unacknowledged sends in their original order
+				long[] unacknowledgedSends = this.pendingSendsData.keys();
+				Arrays.sort(unacknowledgedSends);
 
-				if (unacknowledgedSends.size() > 0)
+				for (int index = unacknowledgedSends.length - 1; index >= 0; index--)
 				{
-					Iterator<String> reverseReader = unacknowledgedSends.descendingIterator();
-					while (reverseReader.hasNext())
-					{
-						String unacknowledgedSend = reverseReader.next();
-						if (!this.pendingSendsWaitingForCredit.contains(unacknowledgedSend))
-						{
-							this.pendingSendsWaitingForCredit.addFirst(unacknowledgedSend);
-						}
-					}
+					this.pendingSendsWaitingForCredit.offerFirst(unacknowledgedSends[index]);
 				}
-
-				unacknowledgedSends.clear();
 			}
 		}
 		else
@@ -472,16 +737,33 @@ public class MessageSender extends ClientEntity implements IAmqpSender, IErrorCo
 	{
 		if (this.getIsClosingOrClosed())
 		{
-			for (Map.Entry<String, ReplayableWorkItem<Void>> pendingSend: this.pendingSendsData.entrySet())
+			final Exception cancelReason = completionException == null
+					? new OperationCancelledException("Send cancelled as the Sender instance is Closed before the sendOperation completed.")
+							: completionException;
+
+			for (long pendingDeliveryTag: this.pendingSendsData.keys())
 			{
-				ExceptionUtil.completeExceptionally(pendingSend.getValue().getWork(),
-						completionException == null
-						? new OperationCancelledException("Send cancelled as the Sender instance is Closed before the sendOperation completed.")
-								: completionException,
-								this);					
+				final ReplayableWorkItem<Void> pendingSend = this.takePendingSend(pendingDeliveryTag);
+				if (pendingSend == null)
+				{
+					continue;
+				}
+
+				this.bufferPool.giveBack(pendingSend.getMessage());
+				ExceptionUtil.completeExceptionally(pendingSend.getWork(), cancelReason, this);					
 			}
 
+			ReplayableWorkItem<Void> sendWaitingForDispatch;
+			while ((sendWaitingForDispatch = this.sendsWaitingForDispatch.poll()) != null)
+			{
+				this.bufferPool.giveBack(sendWaitingForDispatch.getMessage());
+				ExceptionUtil.completeExceptionally(sendWaitingForDispatch.getWork(), cancelReason, this);
+			}
+
+			this.sendWindow.cancelDeferred(cancelReason);
+
 			this.pendingSendsData.clear();
+			this.pendingSendDeadlines.clear();
 			this.pendingSendsWaitingForCredit.clear();
 			this.linkClose.complete(null);
 			return;
@@ -553,7 +835,7 @@ public class MessageSender extends ClientEntity implements IAmqpSender, IErrorCo
 	public void onSendComplete(final Delivery delivery)
 	{
 		final DeliveryState outcome = delivery.getRemoteState();
-		final String deliveryTag = new String(delivery.getTag());
+		final long deliveryTag = fromDeliveryTagBytes(delivery.getTag());
 
 		if (TRACE_LOGGER.isLoggable(Level.FINEST))
 			TRACE_LOGGER.log(Level.FINEST, String.format(Locale.US, "path[%s], linkName[%s], deliveryTag[%s]", MessageSender.this.sendPath, this.sendLink.getName(), deliveryTag));
@@ -568,7 +850,7 @@ public class MessageSender extends ClientEntity implements IAmqpSender, IErrorCo
 				this.lastKnownLinkError = null;
 				this.retryPolicy.resetRetryCount(this.getClientId());
 				this.timeoutErrorHandler.resetTimeoutErrorTracking();
-				this.pendingSendsData.remove(deliveryTag);
+				this.removePendingSend(deliveryTag);
 				pendingSend.complete(null);
 			}
 			else if (outcome instanceof Rejected)
@@ -587,7 +869,7 @@ public class MessageSender extends ClientEntity implements IAmqpSender, IErrorCo
 						this.getClientId(), exception, pendingSendWorkItem.getTimeoutTracker().remaining());
 				if (retryInterval == null)
 				{
-					this.pendingSendsData.remove(deliveryTag);
+					this.removePendingSend(deliveryTag);
 					ExceptionUtil.completeExceptionally(pendingSend, exception, this);
 				}
 				else
@@ -598,7 +880,7 @@ public class MessageSender extends ClientEntity implements IAmqpSender, IErrorCo
 						@Override
 						public void run()
 						{
-							MessageSender.this.reSend(deliveryTag, false);
+							MessageSender.this.dispatchReSend(deliveryTag);
 						}
 					}, retryInterval, TimerType.OneTimeRun);
 				}
@@ -609,7 +891,7 @@ public class MessageSender extends ClientEntity implements IAmqpSender, IErrorCo
 			}
 			else 
 			{
-				this.pendingSendsData.remove(deliveryTag);
+				this.removePendingSend(deliveryTag);
 				ExceptionUtil.completeExceptionally(pendingSend, new ServiceBusException(false, outcome.toString()), this);
 			}
 		}
@@ -626,19 +908,80 @@ public class MessageSender extends ClientEntity implements IAmqpSender, IErrorCo
 		}
 	}
 
-	private void reSend(final String deliveryTag, boolean reuseDeliveryTag)
+	private void putPendingSend(final long deliveryTag, final ReplayableWorkItem<Void> pendingSend)
 	{
-		ReplayableWorkItem<Void> pendingSend = this.pendingSendsData.remove(deliveryTag);
+		this.pendingSendsData.put(deliveryTag, pendingSend);
+		this.pendingSendDeadlines.add(deliveryTag, System.nanoTime() + pendingSend.getTimeoutTracker().remaining().toNanos());
+	}
 
+	private ReplayableWorkItem<Void> takePendingSend(final long deliveryTag)
+	{
+		final ReplayableWorkItem<Void> pendingSend = this.pendingSendsData.remove(deliveryTag);
 		if (pendingSend != null)
 		{
-			this.sendCore(pendingSend.getMessage(), 
-					pendingSend.getEncodedMessageSize(), 
-					pendingSend.getMessageFormat(),
-					pendingSend.getWork(),
-					pendingSend.getTimeoutTracker(),
-					reuseDeliveryTag ? deliveryTag : null,
-							pendingSend.getLastKnownException());
+			this.pendingSendDeadlines.remove(deliveryTag);
+		}
+
+		return pendingSend;
+	}
+
+	// the encode buffer goes back to the pool only if this call removed the pending send - the timeout sweep may race with it
+	private void removePendingSend(final long deliveryTag)
+	{
+		final ReplayableWorkItem<Void> pendingSend = this.takePendingSend(deliveryTag);
+		if (pendingSend != null)
+		{
+			this.bufferPool.giveBack(pendingSend.getMessage());
+		}
+	}
+
+	private void dispatchReSend(final long deliveryTag)
+	{
+		if (this.dispatchMode != SendDispatchMode.ReactorThread)
+		{
+			this.reSend(deliveryTag, false);
+			return;
+		}
+
+		this.underlyingFactory.runOnReactorThread(new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				MessageSender.this.reSend(deliveryTag, false);
+			}
+		});
+	}
+
+	private void reSend(final long deliveryTag, boolean reuseDeliveryTag)
+	{
+		ReplayableWorkItem<Void> pendingSend = this.takePendingSend(deliveryTag);
+
+		if (pendingSend != null)
+		{
+			try
+			{
+				this.sendCore(pendingSend.getMessage(), 
+						pendingSend.getEncodedMessageSize(), 
+						pendingSend.getMessageFormat(),
+						pendingSend.getWork(),
+						pendingSend.getTimeoutTracker(),
+						reuseDeliveryTag ? deliveryTag : 0,
+								pendingSend.getLastKnownException(),
+								true);
+			}
+			catch (IllegalStateException closedException)
+			{
+				// the pending send was already taken - nobody else completes it
+				this.pendingSendsWaitingForCredit.remove(deliveryTag);
+				this.bufferPool.giveBack(pendingSend.getMessage());
+				ExceptionUtil.completeExceptionally(pendingSend.getWork(), closedException, this);
+			}
+		}
+		else
+		{
+			// the send already completed (timedout/cancelled) - it shouldn't block the sends waiting behind it
+			this.pendingSendsWaitingForCredit.remove(deliveryTag);
 		}
 	}
 
@@ -687,7 +1030,7 @@ public class MessageSender extends ClientEntity implements IAmqpSender, IErrorCo
 		Source source = new Source();
 		sender.setSource(source);
 
-		sender.setSenderSettleMode(SenderSettleMode.UNSETTLED);
+		sender.setSenderSettleMode(this.settleMode == SendSettleMode.Settled ? SenderSettleMode.SETTLED : SenderSettleMode.UNSETTLED);
 
 		SendLinkHandler handler = new SendLinkHandler(this);
 		BaseHandler.setHandler(sender, handler);
@@ -772,8 +1115,8 @@ public class MessageSender extends ClientEntity implements IAmqpSender, IErrorCo
 
 		while (!this.pendingSendsWaitingForCredit.isEmpty() && this.linkCredit.get() > 0)
 		{
-			final String deliveryTag = this.pendingSendsWaitingForCredit.peek();
-			if (deliveryTag != null)
+			final long deliveryTag = this.pendingSendsWaitingForCredit.peek();
+			if (deliveryTag != 0)
 			{
 				this.reSend(deliveryTag, true);
 			}
@@ -833,6 +1176,9 @@ public class MessageSender extends ClientEntity implements IAmqpSender, IErrorCo
 	@Override
 	protected CompletableFuture<Void> onClose()
 	{
+		// a deferred send would be admitted to a closed sender - none is admitted from here on
+		this.sendWindow.cancelDeferred(new OperationCancelledException("Send cancelled as the Sender instance is Closed before the sendOperation completed."));
+
 		if (!this.getIsClosed())
 		{
 			if (this.sendLink != null && this.sendLink.getLocalState() != EndpointState.CLOSED)
@@ -47,8 +47,11 @@ public class MessagingFactory extends ClientEntity implements IAmqpConnection, I
 	private final ConnectionHandler connectionHandler;
 	private final ReactorHandler reactorHandler;
 	private final LinkedList<Link> registeredLinks;
+	private final BufferPool bufferPool;
+	private final PrefetchMemoryBudget prefetchMemoryBudget;
 
 	private Reactor reactor;
+	private volatile ReactorDispatcher reactorDispatcher;
 	private Thread reactorThread;
 	private Connection connection;
 	private boolean waitingConnectionOpen;
@@ -74,6 +77,8 @@ public class MessagingFactory extends ClientEntity implements IAmqpConnection, I
 		this.operationTimeout = builder.getOperationTimeout();
 		this.retryPolicy = builder.getRetryPolicy();
 		this.registeredLinks = new LinkedList<Link>();
+		this.bufferPool = new BufferPool();
+		this.prefetchMemoryBudget = new PrefetchMemoryBudget();
 		this.resetConnectionSync = new Object();
 		this.closeTask = new CompletableFuture<Void>();
 		this.connectionHandler = new ConnectionHandler(this, 
@@ -107,6 +112,7 @@ public class MessagingFactory extends ClientEntity implements IAmqpConnection, I
 	private void startReactor(ReactorHandler reactorHandler) throws IOException
 	{
 		this.reactor = ProtonUtil.reactor(reactorHandler);
+		this.reactorDispatcher = new ReactorDispatcher(this.reactor);
 		this.reactorThread = new Thread(new RunReactor(this.reactor));
 		this.reactorThread.start();
 	}
@@ -157,6 +163,47 @@ public class MessagingFactory extends ClientEntity implements IAmqpConnection, I
 		return this.retryPolicy;
 	}
 
+	/**
+	 * Runs the work on the reactor thread - or on the calling thread, if the reactor is not running.
+	 */
+	void runOnReactorThread(final Runnable work)
+	{
+		final ReactorDispatcher dispatcher = this.reactorDispatcher;
+		if (dispatcher != null)
+		{
+			try
+			{
+				dispatcher.invoke(work);
+				return;
+			}
+			catch (IOException ioException)
+			{
+				if (TRACE_LOGGER.isLoggable(Level.FINE))
+				{
+					TRACE_LOGGER.log(Level.FINE, "reactor is not running - work is dispatched on the calling thread", ioException);
+				}
+			}
+		}
+
+		work.run();
+	}
+
+	/**
+	 * @return the encode buffers shared by all senders created on this factory
+	 */
+	public BufferPool getBufferPool()
+	{
+		return this.bufferPool;
+	}
+
+	/**
+	 * @return the prefetch memory shared by all receivers created on this factory
+	 */
+	public PrefetchMemoryBudget getPrefetchMemoryBudget()
+	{
+		return this.prefetchMemoryBudget;
+	}
+
 	public static CompletableFuture<MessagingFactory> createFromConnectionString(final String connectionString) throws IOException
 	{
 		ConnectionStringBuilder builder = new ConnectionStringBuilder(connectionString);
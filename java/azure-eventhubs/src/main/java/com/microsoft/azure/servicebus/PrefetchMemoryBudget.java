@@ -0,0 +1,244 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+package com.microsoft.azure.servicebus;
+
+import java.util.LinkedList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Prefetch memory shared by all receivers of a {@link MessagingFactory}. Each receiver holds a {@link Share} of the limit and
+ * holds back link credit once its prefetched bytes reach the share - so the prefetch of all receivers together stays within the limit.
+ * <p>
+ * Half of the limit is split evenly between the receivers; the other half follows the rate at which each receiver's consumer
+ * drains its prefetched bytes - so partitions that are read from get the memory partitions nobody reads from would only fill up.
+ * Shares are recomputed every {@link #REBALANCE_INTERVAL_NANOS} - by the receiver that drains after the interval elapsed -
+ * and whenever a receiver is added or removed.
+ * <p>
+ * A budget can be nested in another one - it then takes one share of its parent, and its limit is the lower of its own limit
+ * and that share: a multi-partition receiver splits its part of the factory-wide limit between its partitions.
+ */
+public final class PrefetchMemoryBudget
+{
+	public static final long REBALANCE_INTERVAL_NANOS = 100L * 1000 * 1000;
+
+	private final Object sync;
+	private final LinkedList<Share> shares;
+	// null unless the budget is nested in another one
+	private final PrefetchMemoryBudget parent;
+	private final Share parentShare;
+
+	private volatile long limit;
+	private volatile long nextRebalanceAt;
+
+	public PrefetchMemoryBudget()
+	{
+		this(null);
+	}
+
+	/**
+	 * @param parent the budget this one takes a share of; null if it is not nested
+	 */
+	public PrefetchMemoryBudget(final PrefetchMemoryBudget parent)
+	{
+		this.sync = new Object();
+		this.shares = new LinkedList<Share>();
+		this.nextRebalanceAt = System.nanoTime();
+		this.parent = parent;
+		this.parentShare = parent == null ? null : parent.register(this);
+	}
+
+	/**
+	 * gives the share of the parent budget back - once none of the receivers of a nested budget is left
+	 */
+	public void detach()
+	{
+		if (this.parent != null)
+		{
+			this.parent.unregister(this.parentShare);
+		}
+	}
+
+	/**
+	 * @return the prefetch limit in bytes set on this budget; 0 if it is not limited - other than by the parent, if it is nested
+	 */
+	public long getLimit()
+	{
+		return this.limit;
+	}
+
+	/**
+	 * @param value the prefetch limit in bytes; 0 removes the limit
+	 */
+	public void setLimit(final long value)
+	{
+		if (value < 0)
+		{
+			throw new IllegalArgumentException("prefetch memory limit cannot be negative");
+		}
+
+		synchronized (this.sync)
+		{
+			this.limit = value;
+			this.rebalance(System.nanoTime());
+		}
+	}
+
+	public Share register()
+	{
+		return this.register(null);
+	}
+
+	private Share register(final PrefetchMemoryBudget nestedBudget)
+	{
+		final Share share = new Share(nestedBudget);
+		synchronized (this.sync)
+		{
+			this.shares.add(share);
+			this.rebalance(System.nanoTime());
+		}
+
+		return share;
+	}
+
+	public void unregister(final Share share)
+	{
+		synchronized (this.sync)
+		{
+			if (this.shares.remove(share))
+			{
+				this.rebalance(System.nanoTime());
+			}
+		}
+	}
+
+	private void rebalanceIfDue(final long nowNanos)
+	{
+		if (nowNanos - this.nextRebalanceAt >= 0)
+		{
+			synchronized (this.sync)
+			{
+				if (nowNanos - this.nextRebalanceAt >= 0)
+				{
+					this.rebalance(nowNanos);
+				}
+			}
+		}
+	}
+
+	// not-thread-safe: called under sync
+	private void rebalance(final long nowNanos)
+	{
+		this.nextRebalanceAt = nowNanos + REBALANCE_INTERVAL_NANOS;
+
+		for (Share share : this.shares)
+		{
+			// drained bytes per interval - smoothed over the last few intervals
+			share.drainRate = (share.drainRate + share.drainedBytes.getAndSet(0)) / 2;
+		}
+
+		this.distribute();
+	}
+
+	// the share of the parent changed - split it again, with the drain rates sampled last
+	private void onParentShareChanged()
+	{
+		synchronized (this.sync)
+		{
+			this.distribute();
+		}
+	}
+
+	// not-thread-safe: called under sync
+	// lock order: a parent's sync is taken before the sync of the budgets nested in it
+	private void distribute()
+	{
+		double totalDrainRate = 0;
+		for (Share share : this.shares)
+		{
+			totalDrainRate += share.drainRate;
+		}
+
+		final long currentLimit = this.getEffectiveLimit();
+		final int shareCount = this.shares.size();
+		for (Share share : this.shares)
+		{
+			if (currentLimit == 0)
+			{
+				share.bytes = 0;
+			}
+			else if (totalDrainRate == 0)
+			{
+				share.bytes = Math.max(1, currentLimit / shareCount);
+			}
+			else
+			{
+				final long evenShare = currentLimit / (2 * shareCount);
+				final long drainShare = (long) ((currentLimit - evenShare * shareCount) * (share.drainRate / totalDrainRate));
+				share.bytes = Math.max(1, evenShare + drainShare);
+			}
+
+			if (share.nestedBudget != null)
+			{
+				share.nestedBudget.onParentShareChanged();
+			}
+		}
+	}
+
+	// the lower of the own limit and the share of the parent; 0 if neither applies
+	private long getEffectiveLimit()
+	{
+		final long parentShareBytes = this.parentShare == null ? 0 : this.parentShare.getBytes();
+		if (parentShareBytes == 0)
+		{
+			return this.limit;
+		}
+
+		return this.limit == 0 ? parentShareBytes : Math.min(this.limit, parentShareBytes);
+	}
+
+	/**
+	 * The part of the budget one receiver can prefetch.
+	 */
+	public final class Share
+	{
+		private final AtomicLong drainedBytes;
+		// null unless the share is taken by a nested budget
+		private final PrefetchMemoryBudget nestedBudget;
+
+		// guarded by PrefetchMemoryBudget.sync
+		private double drainRate;
+
+		private volatile long bytes;
+
+		private Share(final PrefetchMemoryBudget nestedBudget)
+		{
+			this.drainedBytes = new AtomicLong(0);
+			this.nestedBudget = nestedBudget;
+		}
+
+		/**
+		 * @return the number of bytes the receiver can prefetch; 0 if the prefetch is not limited
+		 */
+		public long getBytes()
+		{
+			return this.bytes;
+		}
+
+		/**
+		 * @param byteCount bytes of prefetched messages handed over to the consumer
+		 */
+		public void onDrained(final long byteCount, final long nowNanos)
+		{
+			this.drainedBytes.addAndGet(byteCount);
+			PrefetchMemoryBudget.this.rebalanceIfDue(nowNanos);
+
+			// the drain of the receivers of a nested budget is the drain of its share in the parent
+			if (PrefetchMemoryBudget.this.parentShare != null)
+			{
+				PrefetchMemoryBudget.this.parentShare.onDrained(byteCount, nowNanos);
+			}
+		}
+	}
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+package com.microsoft.azure.servicebus;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.Pipe;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.apache.qpid.proton.reactor.Reactor;
+import org.apache.qpid.proton.reactor.Selectable;
+
+/**
+ * Runs work on the reactor thread.
+ * Any thread can hand work over via {@link #invoke(Runnable)} - which queues it on a lock-free queue and
+ * wakes the reactor up by writing a byte to a pipe, whose source end is registered as a reactor {@link Selectable}.
+ * Must be created before the reactor thread starts, as Reactor.selectable() is not thread-safe.
+ */
+final class ReactorDispatcher
+{
+	private static final Logger TRACE_LOGGER = Logger.getLogger(ClientConstants.SERVICEBUS_CLIENT_TRACE);
+
+	private final Reactor reactor;
+	private final Pipe ioSignal;
+	private final ConcurrentLinkedQueue<Runnable> workQueue;
+
+	ReactorDispatcher(final Reactor reactor) throws IOException
+	{
+		this.reactor = reactor;
+		this.ioSignal = Pipe.open();
+		this.workQueue = new ConcurrentLinkedQueue<Runnable>();
+
+		this.ioSignal.source().configureBlocking(false);
+		this.ioSignal.sink().configureBlocking(false);
+
+		final Selectable workScheduler = this.reactor.selectable();
+		workScheduler.setChannel(this.ioSignal.source());
+		workScheduler.onReadable(new Selectable.Callback()
+		{
+			@Override
+			public void run(Selectable selectable)
+			{
+				ReactorDispatcher.this.drainWorkQueue();
+			}
+		});
+		workScheduler.onFree(new Selectable.Callback()
+		{
+			@Override
+			public void run(Selectable selectable)
+			{
+				ReactorDispatcher.this.close();
+			}
+		});
+		workScheduler.setReading(true);
+		this.reactor.update(workScheduler);
+	}
+
+	/**
+	 * @throws IOException if the reactor is no longer running - the work was not queued
+	 */
+	void invoke(final Runnable work) throws IOException
+	{
+		if (!this.ioSignal.sink().isOpen())
+		{
+			throw new ClosedChannelException();
+		}
+
+		this.workQueue.offer(work);
+
+		// a full pipe means the reactor is already signalled
+		this.ioSignal.sink().write(ByteBuffer.allocate(1));
+	}
+
+	private void drainWorkQueue()
+	{
+		final ByteBuffer signals = ByteBuffer.allocate(64);
+		try
+		{
+			while (this.ioSignal.source().read(signals) > 0)
+			{
+				signals.clear();
+			}
+		}
+		catch (IOException ioException)
+		{
+			if (TRACE_LOGGER.isLoggable(Level.WARNING))
+			{
+				TRACE_LOGGER.log(Level.WARNING, "ReactorDispatcher: reading the work queue signal failed", ioException);
+			}
+		}
+
+		Runnable work;
+		while ((work = this.workQueue.poll()) != null)
+		{
+			// a failing work item shouldn't take the reactor - or the work queued behind it - down
+			try
+			{
+				work.run();
+			}
+			catch (RuntimeException exception)
+			{
+				if (TRACE_LOGGER.isLoggable(Level.WARNING))
+				{
+					TRACE_LOGGER.log(Level.WARNING, "ReactorDispatcher: work item failed", exception);
+				}
+			}
+		}
+	}
+
+	private void close()
+	{
+		try
+		{
+			this.ioSignal.sink().close();
+			this.ioSignal.source().close();
+		}
+		catch (IOException ioException)
+		{
+			if (TRACE_LOGGER.isLoggable(Level.FINE))
+			{
+				TRACE_LOGGER.log(Level.FINE, "ReactorDispatcher: closing the work queue signal failed", ioException);
+			}
+		}
+	}
+}
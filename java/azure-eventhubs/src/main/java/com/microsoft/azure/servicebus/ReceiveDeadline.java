@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+package com.microsoft.azure.servicebus;
+
+import java.time.Duration;
+
+/**
+ * The single timer entry of a receiver - armed for the earliest deadline (System.nanoTime() based) among its pending receives.
+ * A timer task is scheduled only if the deadline is earlier than the armed one: a task armed for a later deadline goes stale and does nothing.
+ * The receiver handles what is due when the armed task fires and re-arms for its next deadline -
+ * so the timer tasks of a receiver don't grow with the number of receive calls.
+ */
+public final class ReceiveDeadline
+{
+	// caps deadlines far enough out to keep System.nanoTime() arithmetic from overflowing
+	static final long MAX_DEADLINE_NANOS = Long.MAX_VALUE >> 2;
+
+	private final Object sync;
+	private final Runnable onDeadline;
+
+	// guarded by sync
+	private boolean isArmed;
+	private long armedDeadlineNanos;
+	private long generation;
+
+	/**
+	 * @param onDeadline called on the timer thread when the armed deadline is reached - it re-arms for the next deadline, if there is one
+	 */
+	public ReceiveDeadline(final Runnable onDeadline)
+	{
+		this.sync = new Object();
+		this.onDeadline = onDeadline;
+	}
+
+	/**
+	 * @return the deadline the duration after nowNanos - capped, so that a long duration doesn't overflow
+	 */
+	public static long after(final long nowNanos, final Duration duration)
+	{
+		try
+		{
+			return nowNanos + Math.min(duration.toNanos(), MAX_DEADLINE_NANOS);
+		}
+		catch (ArithmeticException exception)
+		{
+			return nowNanos + MAX_DEADLINE_NANOS;
+		}
+	}
+
+	/**
+	 * arms the timer for the deadline - unless it is armed for the same or an earlier one already
+	 */
+	public void arm(final long deadlineNanos)
+	{
+		final long armedGeneration;
+		synchronized (this.sync)
+		{
+			if (this.isArmed && this.armedDeadlineNanos - deadlineNanos <= 0)
+			{
+				return;
+			}
+
+			this.isArmed = true;
+			this.armedDeadlineNanos = deadlineNanos;
+			armedGeneration = ++this.generation;
+		}
+
+		Timer.schedule(
+				new Runnable()
+				{
+					@Override
+					public void run()
+					{
+						ReceiveDeadline.this.onTimer(armedGeneration);
+					}
+				},
+				Duration.ofNanos(Math.max(0, deadlineNanos - System.nanoTime())),
+				TimerType.OneTimeRun);
+	}
+
+	private void onTimer(final long armedGeneration)
+	{
+		synchronized (this.sync)
+		{
+			if (armedGeneration != this.generation)
+			{
+				return;
+			}
+
+			this.isArmed = false;
+		}
+
+		this.onDeadline.run();
+	}
+}
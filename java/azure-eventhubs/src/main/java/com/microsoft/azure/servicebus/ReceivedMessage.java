@@ -0,0 +1,512 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+package com.microsoft.azure.servicebus;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Map;
+
+import org.apache.qpid.proton.Proton;
+import org.apache.qpid.proton.amqp.Binary;
+import org.apache.qpid.proton.amqp.Symbol;
+import org.apache.qpid.proton.amqp.messaging.Data;
+import org.apache.qpid.proton.message.Message;
+
+import com.microsoft.azure.servicebus.amqp.AmqpConstants;
+
+/**
+ * A message received on a link - held in its amqp encoding.
+ * The system annotations (offset, sequence number, enqueued time &amp; partition key), the body and the {@link BodyCodecs#PROPERTY_NAME}
+ * are picked out of the encoded message by a single scan - without decoding it; the rest of the message (annotations &amp; application properties)
+ * is decoded only when {@link #getMessage()} is first called.
+ * <p>
+ * Messages the scanner doesn't expect (ex: a body which is not a single Data section) are decoded right away.
+ */
+public final class ReceivedMessage
+{
+	private static final byte[] OFFSET_KEY = AmqpConstants.OFFSET.toString().getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] SEQUENCE_NUMBER_KEY = AmqpConstants.SEQUENCE_NUMBER.toString().getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] ENQUEUED_TIME_UTC_KEY = AmqpConstants.ENQUEUED_TIME_UTC.toString().getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] PARTITION_KEY_KEY = AmqpConstants.PARTITION_KEY.toString().getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] BODY_CODEC_KEY = BodyCodecs.PROPERTY_NAME.getBytes(StandardCharsets.UTF_8);
+
+	// section descriptors
+	private static final long MESSAGE_ANNOTATIONS = 0x72;
+	private static final long APPLICATION_PROPERTIES = 0x74;
+	private static final long DATA = 0x75;
+	private static final long AMQP_SEQUENCE = 0x76;
+	private static final long AMQP_VALUE = 0x77;
+
+	// format codes
+	private static final int DESCRIBED_TYPE = 0x00;
+	private static final int NULL = 0x40;
+	private static final int SMALL_LONG = 0x55;
+	private static final int LONG = 0x81;
+	private static final int TIMESTAMP = 0x83;
+	private static final int SMALL_ULONG = 0x53;
+	private static final int ULONG = 0x80;
+	private static final int VBIN8 = 0xa0;
+	private static final int STR8 = 0xa1;
+	private static final int SYM8 = 0xa3;
+	private static final int VBIN32 = 0xb0;
+	private static final int STR32 = 0xb1;
+	private static final int SYM32 = 0xb3;
+	private static final int MAP8 = 0xc1;
+	private static final int MAP32 = 0xd1;
+
+	private String offset;
+	private long sequenceNumber;
+	private long enqueuedTimeUtc;
+	private String partitionKey;
+	private String bodyCodecName;
+	private byte[] body;
+	private boolean hasProperties;
+	private int encodedSize;
+	// System.nanoTime() when the message was added to the prefetch queue
+	private long prefetchedAtNanos;
+
+	// all sections but the body - until they are decoded into message
+	private byte[] encodedSections;
+	private Message message;
+
+	// scan state
+	private byte[] buffer;
+	private boolean hasOffset;
+	private boolean hasSequenceNumber;
+	private boolean hasEnqueuedTime;
+
+	private ReceivedMessage()
+	{
+	}
+
+	/**
+	 * @param buffer the encoded message - is not referenced after this call, so it can be reused for the next message
+	 */
+	public static ReceivedMessage create(final byte[] buffer, final int offset, final int length)
+	{
+		final ReceivedMessage receivedMessage = new ReceivedMessage();
+		boolean isScanned;
+		try
+		{
+			isScanned = receivedMessage.scan(buffer, offset, length);
+		}
+		catch (IllegalArgumentException|IndexOutOfBoundsException exception)
+		{
+			isScanned = false;
+		}
+
+		if (!isScanned)
+		{
+			receivedMessage.decode(buffer, offset, length);
+		}
+
+		receivedMessage.buffer = null;
+		receivedMessage.encodedSize = length;
+		return receivedMessage;
+	}
+
+	public String getOffset()
+	{
+		return this.offset;
+	}
+
+	public long getSequenceNumber()
+	{
+		return this.sequenceNumber;
+	}
+
+	/**
+	 * @return enqueued time in milliseconds since the epoch
+	 */
+	public long getEnqueuedTimeUtc()
+	{
+		return this.enqueuedTimeUtc;
+	}
+
+	public String getPartitionKey()
+	{
+		return this.partitionKey;
+	}
+
+	/**
+	 * @return the payload of the Data section; null if the message has no body
+	 */
+	public byte[] getBody()
+	{
+		return this.body;
+	}
+
+	/**
+	 * @return the {@link BodyCodec} name the sender recorded in the application properties; null if the body is not encoded
+	 */
+	public String getBodyCodecName()
+	{
+		return this.bodyCodecName;
+	}
+
+	/**
+	 * @return true if the message carries application properties or annotations other than the system annotations
+	 */
+	public boolean hasProperties()
+	{
+		return this.hasProperties;
+	}
+
+	/**
+	 * @return the size of the message as it was received on the link
+	 */
+	public int getEncodedSize()
+	{
+		return this.encodedSize;
+	}
+
+	long getPrefetchedAtNanos()
+	{
+		return this.prefetchedAtNanos;
+	}
+
+	void setPrefetchedAtNanos(final long value)
+	{
+		this.prefetchedAtNanos = value;
+	}
+
+	/**
+	 * decodes the message on the first call - the body is not part of the decoded message unless the message had to be decoded on receive
+	 */
+	public Message getMessage()
+	{
+		if (this.message == null)
+		{
+			final Message decodedMessage = Proton.message();
+			if (this.encodedSections != null)
+			{
+				decodedMessage.decode(this.encodedSections, 0, this.encodedSections.length);
+			}
+
+			this.message = decodedMessage;
+			this.encodedSections = null;
+		}
+
+		return this.message;
+	}
+
+	private boolean scan(final byte[] buffer, final int offset, final int length)
+	{
+		this.buffer = buffer;
+		final int end = offset + length;
+		int bodySectionStart = -1;
+		int bodySectionEnd = -1;
+
+		int position = offset;
+		while (position < end)
+		{
+			final int sectionStart = position;
+			if ((buffer[position++] & 0xff) != DESCRIBED_TYPE)
+			{
+				return false;
+			}
+
+			final long descriptor;
+			final int descriptorCode = buffer[position++] & 0xff;
+			if (descriptorCode == SMALL_ULONG)
+			{
+				descriptor = buffer[position++] & 0xff;
+			}
+			else if (descriptorCode == ULONG)
+			{
+				descriptor = this.readLong(position);
+				position += 8;
+			}
+			else
+			{
+				return false;
+			}
+
+			if (descriptor == MESSAGE_ANNOTATIONS)
+			{
+				if (!this.scanMessageAnnotations(position))
+				{
+					return false;
+				}
+			}
+			else if (descriptor == APPLICATION_PROPERTIES)
+			{
+				if (!this.scanApplicationProperties(position))
+				{
+					return false;
+				}
+			}
+			else if (descriptor == DATA)
+			{
+				// more than one Data section
+				if (bodySectionStart != -1)
+				{
+					return false;
+				}
+
+				final int bodyCode = buffer[position] & 0xff;
+				final int bodyStart = bodyCode == VBIN8 ? position + 2 : position + 5;
+				if (bodyCode != VBIN8 && bodyCode != VBIN32)
+				{
+					return false;
+				}
+
+				final int bodyLength = bodyCode == VBIN8 ? buffer[position + 1] & 0xff : this.readInt(position + 1);
+				this.body = Arrays.copyOfRange(buffer, bodyStart, bodyStart + bodyLength);
+				bodySectionStart = sectionStart;
+			}
+			else if (descriptor == AMQP_SEQUENCE || descriptor == AMQP_VALUE)
+			{
+				return false;
+			}
+
+			position = this.skipValue(position);
+			if (descriptor == DATA)
+			{
+				bodySectionEnd = position;
+			}
+		}
+
+		if (position != end || !this.hasOffset || !this.hasSequenceNumber || !this.hasEnqueuedTime)
+		{
+			return false;
+		}
+
+		if (this.hasProperties)
+		{
+			if (bodySectionStart == -1)
+			{
+				this.encodedSections = Arrays.copyOfRange(buffer, offset, end);
+			}
+			else
+			{
+				// the sections around the body - ex: footer
+				this.encodedSections = new byte[length - (bodySectionEnd - bodySectionStart)];
+				System.arraycopy(buffer, offset, this.encodedSections, 0, bodySectionStart - offset);
+				System.arraycopy(buffer, bodySectionEnd, this.encodedSections, bodySectionStart - offset, end - bodySectionEnd);
+			}
+		}
+
+		return true;
+	}
+
+	private boolean scanMessageAnnotations(final int mapStart)
+	{
+		final int mapCode = this.buffer[mapStart] & 0xff;
+		if (mapCode != MAP8 && mapCode != MAP32)
+		{
+			return false;
+		}
+
+		final int elementCount = mapCode == MAP8 ? this.buffer[mapStart + 2] & 0xff : this.readInt(mapStart + 5);
+		int position = mapCode == MAP8 ? mapStart + 3 : mapStart + 9;
+		for (int entry = 0; entry < elementCount / 2; entry++)
+		{
+			final int keyCode = this.buffer[position] & 0xff;
+			if (keyCode != SYM8 && keyCode != SYM32)
+			{
+				return false;
+			}
+
+			final int keyStart = keyCode == SYM8 ? position + 2 : position + 5;
+			final int keyLength = keyCode == SYM8 ? this.buffer[position + 1] & 0xff : this.readInt(position + 1);
+			final int valuePosition = keyStart + keyLength;
+			final int valueCode = this.buffer[valuePosition] & 0xff;
+
+			if (this.keyEquals(keyStart, keyLength, OFFSET_KEY))
+			{
+				this.offset = this.readString(valuePosition);
+				if (this.offset == null)
+				{
+					return false;
+				}
+
+				this.hasOffset = true;
+			}
+			else if (this.keyEquals(keyStart, keyLength, SEQUENCE_NUMBER_KEY))
+			{
+				if (valueCode == LONG)
+				{
+					this.sequenceNumber = this.readLong(valuePosition + 1);
+				}
+				else if (valueCode == SMALL_LONG)
+				{
+					this.sequenceNumber = this.buffer[valuePosition + 1];
+				}
+				else
+				{
+					return false;
+				}
+
+				this.hasSequenceNumber = true;
+			}
+			else if (this.keyEquals(keyStart, keyLength, ENQUEUED_TIME_UTC_KEY))
+			{
+				if (valueCode != TIMESTAMP)
+				{
+					return false;
+				}
+
+				this.enqueuedTimeUtc = this.readLong(valuePosition + 1);
+				this.hasEnqueuedTime = true;
+			}
+			else if (this.keyEquals(keyStart, keyLength, PARTITION_KEY_KEY))
+			{
+				if (valueCode != NULL)
+				{
+					this.partitionKey = this.readString(valuePosition);
+					if (this.partitionKey == null)
+					{
+						return false;
+					}
+				}
+			}
+			else
+			{
+				this.hasProperties = true;
+			}
+
+			position = this.skipValue(valuePosition);
+		}
+
+		return true;
+	}
+
+	private boolean scanApplicationProperties(final int mapStart)
+	{
+		final int mapCode = this.buffer[mapStart] & 0xff;
+		if (mapCode != MAP8 && mapCode != MAP32)
+		{
+			return false;
+		}
+
+		final int elementCount = mapCode == MAP8 ? this.buffer[mapStart + 2] & 0xff : this.readInt(mapStart + 5);
+		int position = mapCode == MAP8 ? mapStart + 3 : mapStart + 9;
+		for (int entry = 0; entry < elementCount / 2; entry++)
+		{
+			final int keyCode = this.buffer[position] & 0xff;
+			final int valuePosition = this.skipValue(position);
+			if (keyCode == STR8 || keyCode == STR32)
+			{
+				final int keyStart = keyCode == STR8 ? position + 2 : position + 5;
+				if (this.keyEquals(keyStart, valuePosition - keyStart, BODY_CODEC_KEY))
+				{
+					this.bodyCodecName = this.readString(valuePosition);
+				}
+			}
+
+			position = this.skipValue(valuePosition);
+		}
+
+		this.hasProperties |= elementCount > 0;
+		return true;
+	}
+
+	// the constructor's subcategory (high nibble) tells the size of any amqp value
+	private int skipValue(final int position)
+	{
+		final int code = this.buffer[position] & 0xff;
+		if (code == DESCRIBED_TYPE)
+		{
+			return this.skipValue(this.skipValue(position + 1));
+		}
+
+		switch (code >> 4)
+		{
+			case 0x4: return position + 1;
+			case 0x5: return position + 2;
+			case 0x6: return position + 3;
+			case 0x7: return position + 5;
+			case 0x8: return position + 9;
+			case 0x9: return position + 17;
+			case 0xa:
+			case 0xc:
+			case 0xe: return position + 2 + (this.buffer[position + 1] & 0xff);
+			case 0xb:
+			case 0xd:
+			case 0xf: return position + 5 + this.readInt(position + 1);
+			default: throw new IllegalArgumentException(String.format("unknown amqp format code: 0x%x", code));
+		}
+	}
+
+	private String readString(final int position)
+	{
+		final int code = this.buffer[position] & 0xff;
+		if (code == STR8)
+		{
+			return new String(this.buffer, position + 2, this.buffer[position + 1] & 0xff, StandardCharsets.UTF_8);
+		}
+		else if (code == STR32)
+		{
+			return new String(this.buffer, position + 5, this.readInt(position + 1), StandardCharsets.UTF_8);
+		}
+
+		return null;
+	}
+
+	private boolean keyEquals(final int keyStart, final int keyLength, final byte[] key)
+	{
+		if (keyLength != key.length)
+		{
+			return false;
+		}
+
+		for (int index = 0; index < keyLength; index++)
+		{
+			if (this.buffer[keyStart + index] != key[index])
+			{
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	private int readInt(final int position)
+	{
+		return ((this.buffer[position] & 0xff) << 24) | ((this.buffer[position + 1] & 0xff) << 16)
+				| ((this.buffer[position + 2] & 0xff) << 8) | (this.buffer[position + 3] & 0xff);
+	}
+
+	private long readLong(final int position)
+	{
+		return ((long) this.readInt(position) << 32) | (this.readInt(position + 4) & 0xffffffffL);
+	}
+
+	// the fallback - the whole message is decoded by proton
+	private void decode(final byte[] buffer, final int offset, final int length)
+	{
+		final Message decodedMessage = Proton.message();
+		decodedMessage.decode(buffer, offset, length);
+
+		this.body = null;
+		this.bodyCodecName = null;
+		final Map<Symbol, Object> annotations = decodedMessage.getMessageAnnotations().getValue();
+		this.offset = annotations.get(AmqpConstants.OFFSET).toString();
+		this.sequenceNumber = (Long) annotations.get(AmqpConstants.SEQUENCE_NUMBER);
+		this.enqueuedTimeUtc = ((Date) annotations.get(AmqpConstants.ENQUEUED_TIME_UTC)).getTime();
+		final Object partitionKeyObj = annotations.get(AmqpConstants.PARTITION_KEY);
+		this.partitionKey = partitionKeyObj == null ? null : partitionKeyObj.toString();
+
+		if (decodedMessage.getApplicationProperties() != null)
+		{
+			final Object bodyCodecNameObj = decodedMessage.getApplicationProperties().getValue().get(BodyCodecs.PROPERTY_NAME);
+			this.bodyCodecName = bodyCodecNameObj == null ? null : bodyCodecNameObj.toString();
+		}
+
+		if (decodedMessage.getBody() instanceof Data)
+		{
+			final Binary bodyData = ((Data) decodedMessage.getBody()).getValue();
+			this.body = bodyData.getArrayOffset() == 0 && bodyData.getLength() == bodyData.getArray().length
+					? bodyData.getArray()
+					: Arrays.copyOfRange(bodyData.getArray(), bodyData.getArrayOffset(), bodyData.getArrayOffset() + bodyData.getLength());
+		}
+
+		this.hasProperties = true;
+		this.encodedSections = null;
+		this.message = decodedMessage;
+	}
+}
@@ -0,0 +1,35 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+package com.microsoft.azure.servicebus;
+
+/**
+ * This exception is thrown when a send is attempted while the sender already has the maximum number of sends (or bytes) 
+ * in flight - see {@link SenderOptions#setMaxPendingSends(int)} and {@link SenderOptions#setMaxPendingBytes(long)}.
+ * The send can be retried once outstanding sends complete.
+ */
+public class SendBufferFullException extends ServiceBusException
+{
+	private static final long serialVersionUID = -2716553227470390374L;
+
+	SendBufferFullException()
+	{
+		super(true);
+	}
+
+	SendBufferFullException(final String message)
+	{
+		super(true, message);
+	}
+
+	SendBufferFullException(final Throwable cause)
+	{
+		super(true, cause);
+	}
+
+	SendBufferFullException(final String message, final Throwable cause)
+	{
+		super(true, message, cause);
+	}
+}
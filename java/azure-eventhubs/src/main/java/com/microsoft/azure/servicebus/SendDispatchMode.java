@@ -0,0 +1,22 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+package com.microsoft.azure.servicebus;
+
+/**
+ * Which thread hands the encoded events over to the amqp link.
+ */
+public enum SendDispatchMode
+{
+	/**
+	 * The thread calling send writes to the link - serialized with the other senders by a lock on the link.
+	 */
+	CallerThread,
+
+	/**
+	 * send queues the encoded event on a lock-free queue and wakes the reactor up; the reactor thread 
+	 * writes all queued events to the link in one pass. Suits many threads sending concurrently on the same sender.
+	 */
+	ReactorThread
+}
@@ -0,0 +1,23 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+package com.microsoft.azure.servicebus;
+
+/**
+ * Whether the service acknowledges each event sent.
+ */
+public enum SendSettleMode
+{
+	/**
+	 * Every event is acknowledged by the service - send completes once the event is accepted and is retried as per the RetryPolicy.
+	 */
+	Unsettled,
+
+	/**
+	 * Events are settled (fire-and-forget) when they are handed over to the link - send completes right away, 
+	 * without a round trip to the service. An event lost on the way (ex: connection drops) is not reported or retried.
+	 * Suits high-volume, loss-tolerant telemetry.
+	 */
+	Settled
+}
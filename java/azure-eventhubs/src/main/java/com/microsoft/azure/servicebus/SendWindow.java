@@ -0,0 +1,329 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+package com.microsoft.azure.servicebus;
+
+import java.time.Duration;
+import java.util.LinkedList;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Accounts the sends (and their encoded bytes) a {@link MessageSender} has in flight - from send until the send completes.
+ * An unbounded window only counts; a bounded one admits a send while both limits hold - or if nothing is in flight,
+ * so that a single send larger than maxPendingBytes still goes through.
+ * <p>
+ * Deferred sends are admitted in order as the window opens up, and run one at a time on an executor - never on the thread
+ * releasing the window: a deferred send that completes right away releases the window again, which would otherwise recurse.
+ */
+final class SendWindow
+{
+	private static final Logger TRACE_LOGGER = Logger.getLogger(ClientConstants.SERVICEBUS_CLIENT_TRACE);
+
+	private final int maxPendingSends;
+	private final long maxPendingBytes;
+	private final boolean isBounded;
+
+	private final AtomicInteger pendingSends;
+	private final AtomicLong pendingBytes;
+	private final LinkedList<QueuedSend> deferredSends;
+
+	private final ConcurrentLinkedQueue<DeferredSend> admittedSends;
+	private final AtomicInteger pendingAdmissions;
+	private final Executor executor;
+	private final Runnable admissionTask;
+
+	// admitted sends which didn't run yet - new sends wait behind them, as behind the deferred ones; guarded by this
+	private int admittedSendCount;
+
+	/**
+	 * A send waiting for the window - see {@link SendWindow#tryAcquireOrDefer(int, long, DeferredSend)}.
+	 */
+	interface DeferredSend
+	{
+		// the window is acquired for the send
+		void onAcquired();
+
+		// the deadline passed before the window opened up
+		void onExpired();
+
+		// the sender closed before the window opened up
+		void onCancelled(Exception exception);
+	}
+
+	SendWindow(final int maxPendingSends, final long maxPendingBytes)
+	{
+		this.maxPendingSends = maxPendingSends;
+		this.maxPendingBytes = maxPendingBytes;
+		this.isBounded = maxPendingSends != Integer.MAX_VALUE || maxPendingBytes != Long.MAX_VALUE;
+
+		this.pendingSends = new AtomicInteger(0);
+		this.pendingBytes = new AtomicLong(0);
+		this.deferredSends = new LinkedList<QueuedSend>();
+
+		this.admittedSends = new ConcurrentLinkedQueue<DeferredSend>();
+		this.pendingAdmissions = new AtomicInteger(0);
+		this.executor = ForkJoinPool.commonPool();
+		this.admissionTask = new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				SendWindow.this.runAdmittedSends();
+			}
+		};
+	}
+
+	int getPendingSends()
+	{
+		return this.pendingSends.get();
+	}
+
+	long getPendingBytes()
+	{
+		return this.pendingBytes.get();
+	}
+
+	boolean tryAcquire(final int bytes)
+	{
+		if (!this.isBounded)
+		{
+			this.acquire(bytes);
+			return true;
+		}
+
+		synchronized (this)
+		{
+			// deferred sends go first
+			if (this.hasQueuedSends() || !this.fits(bytes))
+			{
+				return false;
+			}
+
+			this.acquire(bytes);
+			return true;
+		}
+	}
+
+	/**
+	 * @return false if the window didn't open up within the timeout
+	 */
+	boolean acquire(final int bytes, final Duration timeout) throws InterruptedException
+	{
+		if (this.tryAcquire(bytes))
+		{
+			return true;
+		}
+
+		final TimeoutTracker tracker = TimeoutTracker.create(timeout);
+		synchronized (this)
+		{
+			while (this.hasQueuedSends() || !this.fits(bytes))
+			{
+				final long waitMillis = tracker.remaining().toMillis();
+				if (waitMillis <= 0)
+				{
+					return false;
+				}
+
+				this.wait(waitMillis);
+			}
+
+			this.acquire(bytes);
+			return true;
+		}
+	}
+
+	/**
+	 * @param deadlineNanos System.nanoTime() after which {@link #expireDeferred(long)} gives up on the send
+	 * @return true if the window was acquired right away - otherwise deferredSend is called back once the send fits, or the deadline passed
+	 */
+	boolean tryAcquireOrDefer(final int bytes, final long deadlineNanos, final DeferredSend deferredSend)
+	{
+		if (!this.isBounded)
+		{
+			this.acquire(bytes);
+			return true;
+		}
+
+		synchronized (this)
+		{
+			if (!this.hasQueuedSends() && this.fits(bytes))
+			{
+				this.acquire(bytes);
+				return true;
+			}
+
+			this.deferredSends.offer(new QueuedSend(bytes, deadlineNanos, deferredSend));
+			return false;
+		}
+	}
+
+	/**
+	 * fails the deferred sends whose deadline is before expiredBefore - all deferred sends have the same timeout, so they are at the head
+	 */
+	void expireDeferred(final long expiredBefore)
+	{
+		LinkedList<DeferredSend> expiredSends = null;
+		synchronized (this)
+		{
+			while (!this.deferredSends.isEmpty() && this.deferredSends.peek().deadlineNanos - expiredBefore <= 0)
+			{
+				if (expiredSends == null)
+				{
+					expiredSends = new LinkedList<DeferredSend>();
+				}
+
+				expiredSends.add(this.deferredSends.poll().deferredSend);
+			}
+
+			if (expiredSends != null)
+			{
+				// the sends behind might fit now
+				this.admitDeferred();
+				this.notifyAll();
+			}
+		}
+
+		if (expiredSends != null)
+		{
+			for (DeferredSend expiredSend: expiredSends)
+			{
+				expiredSend.onExpired();
+			}
+		}
+	}
+
+	/**
+	 * fails all the deferred sends - the sender is closing
+	 */
+	void cancelDeferred(final Exception exception)
+	{
+		final LinkedList<DeferredSend> cancelledSends = new LinkedList<DeferredSend>();
+		synchronized (this)
+		{
+			while (!this.deferredSends.isEmpty())
+			{
+				cancelledSends.add(this.deferredSends.poll().deferredSend);
+			}
+
+			this.notifyAll();
+		}
+
+		for (DeferredSend cancelledSend: cancelledSends)
+		{
+			cancelledSend.onCancelled(exception);
+		}
+	}
+
+	void release(final int bytes)
+	{
+		this.pendingSends.decrementAndGet();
+		this.pendingBytes.addAndGet(-bytes);
+
+		if (!this.isBounded)
+		{
+			return;
+		}
+
+		synchronized (this)
+		{
+			this.admitDeferred();
+			this.notifyAll();
+		}
+	}
+
+	// not-thread-safe
+	private void admitDeferred()
+	{
+		boolean admitted = false;
+		while (!this.deferredSends.isEmpty() && this.fits(this.deferredSends.peek().bytes))
+		{
+			final QueuedSend queuedSend = this.deferredSends.poll();
+			this.acquire(queuedSend.bytes);
+			this.admittedSends.offer(queuedSend.deferredSend);
+			this.admittedSendCount++;
+			admitted = true;
+		}
+
+		if (admitted && this.pendingAdmissions.getAndIncrement() == 0)
+		{
+			this.executor.execute(this.admissionTask);
+		}
+	}
+
+	// serialized by the pending admission count - the admitted sends run one at a time, in the order they were deferred
+	private void runAdmittedSends()
+	{
+		int pending = this.pendingAdmissions.get();
+		while (pending != 0)
+		{
+			DeferredSend admittedSend;
+			while ((admittedSend = this.admittedSends.poll()) != null)
+			{
+				try
+				{
+					admittedSend.onAcquired();
+				}
+				catch (RuntimeException exception)
+				{
+					// a failing send shouldn't hold up the sends admitted behind it
+					if (TRACE_LOGGER.isLoggable(Level.WARNING))
+					{
+						TRACE_LOGGER.log(Level.WARNING, "SendWindow: admitted send failed", exception);
+					}
+				}
+				finally
+				{
+					synchronized (this)
+					{
+						if (--this.admittedSendCount == 0)
+						{
+							this.notifyAll();
+						}
+					}
+				}
+			}
+
+			pending = this.pendingAdmissions.addAndGet(-pending);
+		}
+	}
+
+	// not-thread-safe
+	private boolean hasQueuedSends()
+	{
+		return !this.deferredSends.isEmpty() || this.admittedSendCount > 0;
+	}
+
+	private boolean fits(final int bytes)
+	{
+		final int sends = this.pendingSends.get();
+		return sends == 0 || (sends < this.maxPendingSends && this.pendingBytes.get() + bytes <= this.maxPendingBytes);
+	}
+
+	private void acquire(final int bytes)
+	{
+		this.pendingSends.incrementAndGet();
+		this.pendingBytes.addAndGet(bytes);
+	}
+
+	private static final class QueuedSend
+	{
+		final int bytes;
+		final long deadlineNanos;
+		final DeferredSend deferredSend;
+
+		QueuedSend(final int bytes, final long deadlineNanos, final DeferredSend deferredSend)
+		{
+			this.bytes = bytes;
+			this.deadlineNanos = deadlineNanos;
+			this.deferredSend = deferredSend;
+		}
+	}
+}
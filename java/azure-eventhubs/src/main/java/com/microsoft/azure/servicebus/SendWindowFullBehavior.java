@@ -0,0 +1,29 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+package com.microsoft.azure.servicebus;
+
+/**
+ * What send does when the sender already has {@link SenderOptions#getMaxPendingSends()} sends 
+ * or {@link SenderOptions#getMaxPendingBytes()} bytes in flight.
+ */
+public enum SendWindowFullBehavior
+{
+	/**
+	 * send blocks the calling thread until outstanding sends complete - at most for the operationTimeout, 
+	 * after which the returned future fails with {@link SendBufferFullException}. Don't use from a receive handler, which runs on the reactor thread.
+	 */
+	Block,
+
+	/**
+	 * the returned future fails right away with {@link SendBufferFullException}.
+	 */
+	Fail,
+
+	/**
+	 * send returns right away; the event is sent (in order) once outstanding sends complete and the returned future completes with that send.
+	 * The deferred sends are not counted in the window - but are still subject to the operationTimeout.
+	 */
+	Defer
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+package com.microsoft.azure.servicebus;
+
+/**
+ * Tuning knobs for the senders created by an EventHubClient or PartitionSender.
+ * The options are read once - when the sender is created.
+ */
+public final class SenderOptions
+{
+	private SendDispatchMode dispatchMode;
+	private SendSettleMode settleMode;
+	private BodyCodec bodyCodec;
+	private int maxPendingSends;
+	private long maxPendingBytes;
+	private SendWindowFullBehavior windowFullBehavior;
+
+	public SenderOptions()
+	{
+		this.dispatchMode = SendDispatchMode.CallerThread;
+		this.settleMode = SendSettleMode.Unsettled;
+		this.maxPendingSends = Integer.MAX_VALUE;
+		this.maxPendingBytes = Long.MAX_VALUE;
+		this.windowFullBehavior = SendWindowFullBehavior.Block;
+	}
+
+	/**
+	 * @return the thread which writes to the link, {@link SendDispatchMode#CallerThread} by default
+	 */
+	public SendDispatchMode getDispatchMode()
+	{
+		return this.dispatchMode;
+	}
+
+	/**
+	 * @param dispatchMode the thread which writes to the link
+	 */
+	public void setDispatchMode(final SendDispatchMode dispatchMode)
+	{
+		if (dispatchMode == null)
+		{
+			throw new IllegalArgumentException("dispatchMode cannot be null");
+		}
+
+		this.dispatchMode = dispatchMode;
+	}
+
+	/**
+	 * @return whether the service acknowledges each event sent, {@link SendSettleMode#Unsettled} by default
+	 */
+	public SendSettleMode getSettleMode()
+	{
+		return this.settleMode;
+	}
+
+	/**
+	 * @param settleMode whether the service acknowledges each event sent
+	 */
+	public void setSettleMode(final SendSettleMode settleMode)
+	{
+		if (settleMode == null)
+		{
+			throw new IllegalArgumentException("settleMode cannot be null");
+		}
+
+		this.settleMode = settleMode;
+	}
+
+	/**
+	 * @return the codec the event bodies are encoded with on send, null (bodies are sent as is) by default
+	 */
+	public BodyCodec getBodyCodec()
+	{
+		return this.bodyCodec;
+	}
+
+	/**
+	 * Encodes the body of each event sent - single events and batches - using the codec, ex: {@link DeflateBodyCodec}. 
+	 * Receivers decode the body transparently when it is accessed.
+	 * @param bodyCodec the codec to encode the event bodies with, or null to send the bodies as is
+	 */
+	public void setBodyCodec(final BodyCodec bodyCodec)
+	{
+		this.bodyCodec = bodyCodec;
+	}
+
+	/**
+	 * @return the maximum number of sends in flight (sent or waiting to be sent, but not yet completed), unbounded by default
+	 */
+	public int getMaxPendingSends()
+	{
+		return this.maxPendingSends;
+	}
+
+	/**
+	 * @param maxPendingSends the maximum number of sends in flight - a send beyond it is handled as per {@link #getWindowFullBehavior()}
+	 */
+	public void setMaxPendingSends(final int maxPendingSends)
+	{
+		if (maxPendingSends <= 0)
+		{
+			throw new IllegalArgumentException("maxPendingSends should be greater than 0");
+		}
+
+		this.maxPendingSends = maxPendingSends;
+	}
+
+	/**
+	 * @return the maximum number of encoded bytes in flight, unbounded by default
+	 */
+	public long getMaxPendingBytes()
+	{
+		return this.maxPendingBytes;
+	}
+
+	/**
+	 * @param maxPendingBytes the maximum number of encoded bytes in flight - a send beyond it is handled as per {@link #getWindowFullBehavior()}.
+	 * A single send larger than this is let through when nothing else is in flight.
+	 */
+	public void setMaxPendingBytes(final long maxPendingBytes)
+	{
+		if (maxPendingBytes <= 0)
+		{
+			throw new IllegalArgumentException("maxPendingBytes should be greater than 0");
+		}
+
+		this.maxPendingBytes = maxPendingBytes;
+	}
+
+	/**
+	 * @return what send does when the sender is at {@link #getMaxPendingSends()} or {@link #getMaxPendingBytes()}, {@link SendWindowFullBehavior#Block} by default
+	 */
+	public SendWindowFullBehavior getWindowFullBehavior()
+	{
+		return this.windowFullBehavior;
+	}
+
+	/**
+	 * @param windowFullBehavior what send does when the sender is at {@link #getMaxPendingSends()} or {@link #getMaxPendingBytes()}
+	 */
+	public void setWindowFullBehavior(final SendWindowFullBehavior windowFullBehavior)
+	{
+		if (windowFullBehavior == null)
+		{
+			throw new IllegalArgumentException("windowFullBehavior cannot be null");
+		}
+
+		this.windowFullBehavior = windowFullBehavior;
+	}
+}
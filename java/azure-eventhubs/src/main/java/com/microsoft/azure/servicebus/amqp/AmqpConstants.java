@@ -16,10 +16,11 @@ public final class AmqpConstants
 	public static final String AMQP_ANNOTATION_FORMAT = "amqp.annotation.%s >%s '%s'";
 	public static final String OFFSET_ANNOTATION_NAME = "x-opt-offset";
 	public static final String RECEIVED_AT_ANNOTATION_NAME = "x-opt-enqueued-time";
+	public static final String SEQUENCE_NUMBER_ANNOTATION_NAME = "x-opt-sequence-number";
 
 	public static final Symbol PARTITION_KEY = Symbol.getSymbol("x-opt-partition-key");
 	public static final Symbol OFFSET = Symbol.getSymbol(AmqpConstants.OFFSET_ANNOTATION_NAME);
-	public static final Symbol SEQUENCE_NUMBER = Symbol.getSymbol("x-opt-sequence-number");
+	public static final Symbol SEQUENCE_NUMBER = Symbol.getSymbol(AmqpConstants.SEQUENCE_NUMBER_ANNOTATION_NAME);
 	public static final Symbol ENQUEUED_TIME_UTC = Symbol.getSymbol("x-opt-enqueued-time");
 
 	public static final Symbol STRING_FILTER = Symbol.valueOf(AmqpConstants.APACHE + ":selector-filter:string");
@@ -9,4 +9,6 @@ import org.apache.qpid.proton.engine.Delivery;
 public interface IAmqpReceiver extends IAmqpLink
 {
 	void onReceiveComplete(Delivery delivery);
+
+	void onFlow();
 }
@@ -99,6 +99,12 @@ public final class ReceiveLinkHandler extends BaseLinkHandler
 		}
 	}
 
+	@Override
+	public void onLinkFlow(Event event)
+	{
+		this.amqpReceiver.onFlow();
+	}
+
 	@Override
 	public void onDelivery(Event event)
 	{
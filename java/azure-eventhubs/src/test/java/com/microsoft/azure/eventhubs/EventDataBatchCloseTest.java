@@ -0,0 +1,66 @@
+package com.microsoft.azure.eventhubs;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.microsoft.azure.eventhubs.lib.TestBase;
+import com.microsoft.azure.servicebus.BufferPool;
+
+public class EventDataBatchCloseTest extends TestBase
+{
+	@Test()
+	public void testClosedBatchGivesBufferBack()
+	{
+		final BufferPool bufferPool = new BufferPool();
+		final EventDataBatch batch = new EventDataBatch(bufferPool, null, null);
+		Assert.assertTrue(batch.tryAdd(new EventData("closed batch".getBytes())));
+
+		batch.close();
+		Assert.assertEquals(1, bufferPool.getStatistics().getReturnCount());
+
+		// the next batch reuses the buffer
+		final EventDataBatch nextBatch = new EventDataBatch(bufferPool, null, null);
+		Assert.assertEquals(1, bufferPool.getStatistics().getReuseCount());
+		nextBatch.close();
+	}
+
+	@Test()
+	public void testCloseIsIdempotentAndEndsTheBatch()
+	{
+		final BufferPool bufferPool = new BufferPool();
+		final EventDataBatch batch = new EventDataBatch(bufferPool, null, null);
+		batch.close();
+		batch.close();
+		Assert.assertEquals(1, bufferPool.getStatistics().getReturnCount());
+
+		try
+		{
+			batch.tryAdd(new EventData("closed batch".getBytes()));
+			Assert.fail("a closed batch cannot be added to");
+		}
+		catch (IllegalStateException exception)
+		{
+		}
+
+		try
+		{
+			batch.seal();
+			Assert.fail("a closed batch cannot be sent");
+		}
+		catch (IllegalStateException exception)
+		{
+		}
+	}
+
+	@Test()
+	public void testSentBatchIsNotGivenBackByClose()
+	{
+		final BufferPool bufferPool = new BufferPool();
+		final EventDataBatch batch = new EventDataBatch(bufferPool, null, null);
+		Assert.assertTrue(batch.tryAdd(new EventData("sent batch".getBytes())));
+
+		batch.seal();
+		batch.close();
+		Assert.assertEquals(0, bufferPool.getStatistics().getReturnCount());
+	}
+}
@@ -0,0 +1,147 @@
+package com.microsoft.azure.eventhubs.concurrency;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.logging.*;
+
+import org.junit.*;
+
+import com.microsoft.azure.eventhubs.*;
+import com.microsoft.azure.eventhubs.lib.*;
+import com.microsoft.azure.servicebus.*;
+
+public class ReactorDispatchSendTest extends TestBase
+{
+	private static final int PRODUCERS = 8;
+	private static final int SENDS_PER_PRODUCER = 500;
+
+	@Test()
+	public void testConcurrentProducersOnReactorDispatchedSender() throws ServiceBusException, InterruptedException, ExecutionException, IOException
+	{
+		Assume.assumeTrue(TestBase.isServiceRun());
+
+		TestEventHubInfo eventHubInfo = TestBase.checkoutTestEventHub();
+		EventHubClient ehClient = EventHubClient.createFromConnectionStringSync(TestBase.getConnectionString(eventHubInfo).toString());
+		try
+		{
+			SenderOptions callerThreadOptions = new SenderOptions();
+			long callerThreadDuration = this.sendConcurrently(ehClient.createPartitionSenderSync("0", callerThreadOptions));
+
+			SenderOptions reactorThreadOptions = new SenderOptions();
+			reactorThreadOptions.setDispatchMode(SendDispatchMode.ReactorThread);
+			long reactorThreadDuration = this.sendConcurrently(ehClient.createPartitionSenderSync("0", reactorThreadOptions));
+
+			TEST_LOGGER.log(Level.INFO, String.format("%s producers x %s sends: callerThread[%s ms], reactorThread[%s ms]",
+					PRODUCERS, SENDS_PER_PRODUCER, callerThreadDuration, reactorThreadDuration));
+		}
+		finally
+		{
+			ehClient.close();
+		}
+	}
+
+	@Test()
+	public void testBurstBeyondLinkCreditKeepsSendOrder() throws ServiceBusException, InterruptedException, ExecutionException, IOException
+	{
+		Assume.assumeTrue(TestBase.isServiceRun());
+
+		TestEventHubInfo eventHubInfo = TestBase.checkoutTestEventHub();
+		EventHubClient ehClient = EventHubClient.createFromConnectionStringSync(TestBase.getConnectionString(eventHubInfo).toString());
+		try
+		{
+			final String partitionId = "0";
+			final String runId = UUID.randomUUID().toString();
+			PartitionReceiver receiver = ehClient.createReceiverSync(eventHubInfo.getRandomConsumerGroup(), partitionId, Instant.now());
+
+			SenderOptions reactorThreadOptions = new SenderOptions();
+			reactorThreadOptions.setDispatchMode(SendDispatchMode.ReactorThread);
+			PartitionSender sender = ehClient.createPartitionSenderSync(partitionId, reactorThreadOptions);
+			try
+			{
+				// more sends than the link credit - the sends beyond it wait for credit, and have to go out in the order they were made
+				final int burstSize = PRODUCERS * SENDS_PER_PRODUCER;
+				List<CompletableFuture<Void>> sends = new ArrayList<CompletableFuture<Void>>(burstSize);
+				for (int index = 0; index < burstSize; index++)
+				{
+					EventData event = new EventData("reactor dispatch".getBytes());
+					Map<String, String> properties = new HashMap<String, String>();
+					properties.put("runId", runId);
+					properties.put("index", Integer.toString(index));
+					event.setProperties(properties);
+					sends.add(sender.send(event));
+				}
+
+				CompletableFuture.allOf(sends.toArray(new CompletableFuture[sends.size()])).get();
+
+				receiver.setReceiveTimeout(Duration.ofSeconds(5));
+				int expectedIndex = 0;
+				while (expectedIndex < burstSize)
+				{
+					Iterable<EventData> events = receiver.receiveSync(100);
+					Assert.assertNotNull(events);
+					for (EventData event : events)
+					{
+						if (event.getProperties() != null && runId.equals(event.getProperties().get("runId")))
+						{
+							Assert.assertEquals(Integer.toString(expectedIndex), event.getProperties().get("index"));
+							expectedIndex++;
+						}
+					}
+				}
+			}
+			finally
+			{
+				sender.closeSync();
+				receiver.closeSync();
+			}
+		}
+		finally
+		{
+			ehClient.close();
+		}
+	}
+
+	private long sendConcurrently(final PartitionSender sender) throws InterruptedException, ExecutionException, ServiceBusException
+	{
+		final ConcurrentLinkedQueue<CompletableFuture<Void>> sends = new ConcurrentLinkedQueue<CompletableFuture<Void>>();
+		final ExecutorService producers = Executors.newFixedThreadPool(PRODUCERS);
+		final long start = System.currentTimeMillis();
+		try
+		{
+			List<Future<?>> producerRuns = new LinkedList<Future<?>>();
+			for (int producer = 0; producer < PRODUCERS; producer++)
+			{
+				producerRuns.add(producers.submit(new Callable<Void>()
+				{
+					@Override
+					public Void call() throws ServiceBusException
+					{
+						for (int count = 0; count < SENDS_PER_PRODUCER; count++)
+						{
+							sends.offer(sender.send(new EventData("reactor dispatch".getBytes())));
+						}
+
+						return null;
+					}
+				}));
+			}
+
+			for (Future<?> producerRun: producerRuns)
+			{
+				producerRun.get();
+			}
+
+			CompletableFuture.allOf(sends.toArray(new CompletableFuture[sends.size()])).get();
+			Assert.assertTrue(sends.size() == PRODUCERS * SENDS_PER_PRODUCER);
+			return System.currentTimeMillis() - start;
+		}
+		finally
+		{
+			producers.shutdown();
+			sender.closeSync();
+		}
+	}
+}
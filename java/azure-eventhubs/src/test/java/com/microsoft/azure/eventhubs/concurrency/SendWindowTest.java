@@ -0,0 +1,84 @@
+package com.microsoft.azure.eventhubs.concurrency;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.junit.*;
+
+import com.microsoft.azure.eventhubs.*;
+import com.microsoft.azure.eventhubs.lib.*;
+import com.microsoft.azure.servicebus.*;
+
+public class SendWindowTest extends TestBase
+{
+	@Test()
+	public void testFullWindowFailsFast() throws ServiceBusException, InterruptedException, ExecutionException, IOException
+	{
+		Assume.assumeTrue(TestBase.isServiceRun());
+
+		TestEventHubInfo eventHubInfo = TestBase.checkoutTestEventHub();
+		EventHubClient ehClient = EventHubClient.createFromConnectionStringSync(TestBase.getConnectionString(eventHubInfo).toString());
+		try
+		{
+			SenderOptions options = new SenderOptions();
+			options.setMaxPendingSends(1);
+			options.setWindowFullBehavior(SendWindowFullBehavior.Fail);
+			PartitionSender sender = ehClient.createPartitionSenderSync("0", options);
+
+			CompletableFuture<Void> firstSend = sender.send(new EventData("window".getBytes()));
+			Assert.assertTrue(sender.getPendingSendCount() == 1);
+
+			// the first send needs a round trip to the service before it completes
+			try
+			{
+				sender.send(new EventData("window".getBytes())).get();
+				Assert.fail("send should fail while the window is full");
+			}
+			catch (ExecutionException exception)
+			{
+				Assert.assertTrue(exception.getCause() instanceof SendBufferFullException);
+			}
+
+			firstSend.get();
+			TestBase.awaitNoPendingSends(sender);
+			sender.closeSync();
+		}
+		finally
+		{
+			ehClient.close();
+		}
+	}
+
+	@Test()
+	public void testDeferredSendsStayWithinWindow() throws ServiceBusException, InterruptedException, ExecutionException, IOException
+	{
+		Assume.assumeTrue(TestBase.isServiceRun());
+
+		TestEventHubInfo eventHubInfo = TestBase.checkoutTestEventHub();
+		EventHubClient ehClient = EventHubClient.createFromConnectionStringSync(TestBase.getConnectionString(eventHubInfo).toString());
+		try
+		{
+			SenderOptions options = new SenderOptions();
+			options.setMaxPendingSends(4);
+			options.setMaxPendingBytes(64 * 1024);
+			options.setWindowFullBehavior(SendWindowFullBehavior.Defer);
+			PartitionSender sender = ehClient.createPartitionSenderSync("0", options);
+
+			LinkedList<CompletableFuture<Void>> sends = new LinkedList<CompletableFuture<Void>>();
+			for (int count = 0; count < 100; count++)
+			{
+				sends.add(sender.send(new EventData(new byte[1024])));
+				Assert.assertTrue(sender.getPendingSendCount() <= 4);
+			}
+
+			CompletableFuture.allOf(sends.toArray(new CompletableFuture[sends.size()])).get();
+			TestBase.awaitNoPendingSends(sender);
+			sender.closeSync();
+		}
+		finally
+		{
+			ehClient.close();
+		}
+	}
+}
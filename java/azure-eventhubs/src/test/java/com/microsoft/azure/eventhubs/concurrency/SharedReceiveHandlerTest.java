@@ -0,0 +1,193 @@
+package com.microsoft.azure.eventhubs.concurrency;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+import org.junit.*;
+
+import com.microsoft.azure.eventhubs.*;
+import com.microsoft.azure.eventhubs.lib.*;
+import com.microsoft.azure.servicebus.*;
+
+public class SharedReceiveHandlerTest extends TestBase
+{
+	private static final int PARTITION_COUNT = 4;
+	private static final int EVENT_COUNT = 20;
+
+	@Test()
+	public void testHandlersShareExecutorAndKeepOrder() throws ServiceBusException, InterruptedException, ExecutionException, IOException
+	{
+		this.receiveOnExecutor(ReceiveHandlerDispatchMode.SharedExecutor);
+	}
+
+	@Test()
+	public void testVirtualThreadModeReceives() throws ServiceBusException, InterruptedException, ExecutionException, IOException
+	{
+		// falls back to the shared executor on JDKs without virtual threads
+		this.receiveOnExecutor(ReceiveHandlerDispatchMode.VirtualThread);
+	}
+
+	@Test()
+	public void testReactorThreadModeReceives() throws ServiceBusException, InterruptedException, ExecutionException, IOException
+	{
+		this.receiveOnExecutor(ReceiveHandlerDispatchMode.ReactorThread);
+	}
+
+	@Test()
+	public void testSlowReactorThreadHandlerKeepsOrder() throws ServiceBusException, InterruptedException, ExecutionException, IOException
+	{
+		// the handler blocks longer than the reactor thread allows - it is moved to the shared executor after its first batch
+		this.receiveOnExecutor(ReceiveHandlerDispatchMode.ReactorThread, 25);
+	}
+
+	@Test()
+	public void testSwitchingDispatchModeStopsTheRunningPump() throws ServiceBusException, InterruptedException, ExecutionException, IOException
+	{
+		Assume.assumeTrue(TestBase.isServiceRun());
+
+		TestEventHubInfo eventHubInfo = TestBase.checkoutTestEventHub();
+		EventHubClient ehClient = EventHubClient.createFromConnectionStringSync(TestBase.getConnectionString(eventHubInfo).toString());
+		PartitionReceiver receiver = null;
+		try
+		{
+			final String partitionId = "0";
+			receiver = ehClient.createReceiverSync(eventHubInfo.getRandomConsumerGroup(), partitionId, Instant.now());
+
+			// the same handler across the pumps - a pump left running next to its replacement would call it concurrently
+			OrderCheckingHandler handler = new OrderCheckingHandler(25);
+			receiver.setReceiveHandler(handler, ReceiveHandlerDispatchMode.DedicatedThread);
+			receiver.setReceiveHandler(handler, ReceiveHandlerDispatchMode.SharedExecutor);
+			receiver.setReceiveHandler(handler, ReceiveHandlerDispatchMode.SharedExecutor);
+			receiver.setReceiveHandler(handler, ReceiveHandlerDispatchMode.ReactorThread);
+			receiver.setReceiveHandler(handler, ReceiveHandlerDispatchMode.SharedExecutor);
+
+			TestBase.pushEventsToPartition(ehClient, partitionId, EVENT_COUNT).get();
+
+			Assert.assertTrue(handler.received.await(60, TimeUnit.SECONDS));
+			Assert.assertNull(handler.error);
+			Assert.assertFalse(handler.isOutOfOrder);
+			Assert.assertFalse(handler.isConcurrent);
+		}
+		finally
+		{
+			if (receiver != null)
+			{
+				receiver.setReceiveHandler(null);
+				receiver.closeSync();
+			}
+
+			ehClient.close();
+		}
+	}
+
+	private void receiveOnExecutor(final ReceiveHandlerDispatchMode dispatchMode) throws ServiceBusException, InterruptedException, ExecutionException, IOException
+	{
+		this.receiveOnExecutor(dispatchMode, 0);
+	}
+
+	private void receiveOnExecutor(final ReceiveHandlerDispatchMode dispatchMode, final long handlerDelayMillis) throws ServiceBusException, InterruptedException, ExecutionException, IOException
+	{
+		Assume.assumeTrue(TestBase.isServiceRun());
+
+		TestEventHubInfo eventHubInfo = TestBase.checkoutTestEventHub();
+		EventHubClient ehClient = EventHubClient.createFromConnectionStringSync(TestBase.getConnectionString(eventHubInfo).toString());
+		PartitionReceiver[] receivers = new PartitionReceiver[PARTITION_COUNT];
+		OrderCheckingHandler[] handlers = new OrderCheckingHandler[PARTITION_COUNT];
+		try
+		{
+			final String consumerGroupName = eventHubInfo.getRandomConsumerGroup();
+			final Instant start = Instant.now();
+			for (int index = 0; index < PARTITION_COUNT; index++)
+			{
+				receivers[index] = ehClient.createReceiverSync(consumerGroupName, Integer.toString(index), start);
+				handlers[index] = new OrderCheckingHandler(handlerDelayMillis);
+				receivers[index].setReceiveHandler(handlers[index], dispatchMode);
+			}
+
+			for (int index = 0; index < PARTITION_COUNT; index++)
+			{
+				TestBase.pushEventsToPartition(ehClient, Integer.toString(index), EVENT_COUNT).get();
+			}
+
+			for (OrderCheckingHandler handler : handlers)
+			{
+				Assert.assertTrue(handler.received.await(60, TimeUnit.SECONDS));
+				Assert.assertNull(handler.error);
+				Assert.assertFalse(handler.isOutOfOrder);
+				Assert.assertFalse(handler.isConcurrent);
+			}
+		}
+		finally
+		{
+			for (PartitionReceiver receiver : receivers)
+			{
+				if (receiver != null)
+				{
+					receiver.setReceiveHandler(null);
+					receiver.closeSync();
+				}
+			}
+
+			ehClient.close();
+		}
+	}
+
+	private static final class OrderCheckingHandler extends PartitionReceiveHandler
+	{
+		final CountDownLatch received = new CountDownLatch(EVENT_COUNT);
+		final AtomicInteger activeCalls = new AtomicInteger(0);
+		volatile long lastSequenceNumber = -1;
+		volatile boolean isOutOfOrder;
+		volatile boolean isConcurrent;
+		volatile Throwable error;
+		final long delayMillis;
+
+		OrderCheckingHandler(final long delayMillis)
+		{
+			super(5);
+			this.delayMillis = delayMillis;
+		}
+
+		@Override
+		public void onReceive(Iterable<EventData> events)
+		{
+			if (this.activeCalls.incrementAndGet() != 1)
+			{
+				this.isConcurrent = true;
+			}
+
+			if (events != null)
+			{
+				for (EventData event : events)
+				{
+					final long sequenceNumber = event.getSystemProperties().getSequenceNumber();
+					this.isOutOfOrder |= sequenceNumber <= this.lastSequenceNumber;
+					this.lastSequenceNumber = sequenceNumber;
+					this.received.countDown();
+				}
+			}
+
+			if (this.delayMillis > 0)
+			{
+				try
+				{
+					Thread.sleep(this.delayMillis);
+				}
+				catch (InterruptedException exception)
+				{
+					Thread.currentThread().interrupt();
+				}
+			}
+
+			this.activeCalls.decrementAndGet();
+		}
+
+		@Override
+		public void onError(Throwable error)
+		{
+			this.error = error;
+		}
+	}
+}
@@ -0,0 +1,99 @@
+package com.microsoft.azure.eventhubs.eventdata;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.Deflater;
+
+import org.junit.*;
+
+import com.microsoft.azure.eventhubs.lib.*;
+import com.microsoft.azure.servicebus.*;
+
+public class BodyCodecTest extends TestBase
+{
+	@Test()
+	public void testDeflateRoundTrip()
+	{
+		StringBuilder json = new StringBuilder("[");
+		for (int count = 0; count < 500; count++)
+		{
+			json.append(String.format("{\"deviceId\":\"device-%s\",\"temperature\":%s,\"humidity\":%s},", count % 10, 20 + count % 7, 40 + count % 13));
+		}
+
+		byte[] body = json.append("]").toString().getBytes(StandardCharsets.UTF_8);
+
+		// encode a slice of a larger array
+		byte[] framedBody = new byte[body.length + 20];
+		System.arraycopy(body, 0, framedBody, 10, body.length);
+
+		BodyCodec codec = new DeflateBodyCodec();
+		byte[] encoded = codec.encode(framedBody, 10, body.length);
+		Assert.assertTrue(encoded.length < body.length / 5);
+		Assert.assertTrue(Arrays.equals(codec.decode(encoded, 0, encoded.length), body));
+
+		byte[] empty = codec.encode(new byte[0], 0, 0);
+		Assert.assertTrue(codec.decode(empty, 0, empty.length).length == 0);
+	}
+
+	@Test()
+	public void testBodyNotEncodedIsRejected()
+	{
+		BodyCodec codec = new DeflateBodyCodec();
+		byte[] encoded = codec.encode(new byte[1000], 0, 1000);
+
+		try
+		{
+			codec.decode("not deflated".getBytes(StandardCharsets.UTF_8), 0, 12);
+			Assert.fail("decode should reject a body which is not deflate encoded");
+		}
+		catch (IllegalArgumentException exception)
+		{
+		}
+
+		try
+		{
+			codec.decode(encoded, 0, encoded.length / 2);
+			Assert.fail("decode should reject a truncated body");
+		}
+		catch (IllegalArgumentException exception)
+		{
+		}
+	}
+
+	@Test()
+	public void testDecodedBodyIsCapped()
+	{
+		// compresses ~1000 to 1 - a small body which inflates way past the cap
+		byte[] encoded = new DeflateBodyCodec().encode(new byte[8 * 1024 * 1024], 0, 8 * 1024 * 1024);
+		Assert.assertTrue(encoded.length < 16 * 1024);
+
+		try
+		{
+			new DeflateBodyCodec().decode(encoded, 0, encoded.length);
+			Assert.fail("decode should reject a body which inflates past the default cap");
+		}
+		catch (IllegalArgumentException exception)
+		{
+		}
+
+		byte[] small = new DeflateBodyCodec().encode(new byte[4096], 0, 4096);
+		Assert.assertTrue(new DeflateBodyCodec(Deflater.DEFAULT_COMPRESSION, 4096).decode(small, 0, small.length).length == 4096);
+
+		try
+		{
+			new DeflateBodyCodec(Deflater.DEFAULT_COMPRESSION, 4095).decode(small, 0, small.length);
+			Assert.fail("decode should reject a body which inflates past the configured cap");
+		}
+		catch (IllegalArgumentException exception)
+		{
+		}
+	}
+
+	@Test()
+	public void testCodecsAreLookedUpByName()
+	{
+		Assert.assertTrue(BodyCodecs.get(DeflateBodyCodec.NAME) instanceof DeflateBodyCodec);
+		Assert.assertNull(BodyCodecs.get("unknown"));
+		Assert.assertNull(BodyCodecs.get(null));
+	}
+}
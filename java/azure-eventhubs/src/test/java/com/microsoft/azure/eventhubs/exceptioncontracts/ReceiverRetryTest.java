@@ -95,7 +95,7 @@ public class ReceiverRetryTest extends TestBase
 		
 		MessageReceiver receiver = MessageReceiver.create(factory, 
 					"receiver1", "eventhub1/consumergroups/$default/partitions/0", "-1", false, null, 100, 0, false).get();
-		Collection<Message> messages = receiver.receive(10).get();
+		Collection<ReceivedMessage> messages = receiver.receive(10).get();
 		if (messages != null)
 		{
 			receiver.receive(10).get();
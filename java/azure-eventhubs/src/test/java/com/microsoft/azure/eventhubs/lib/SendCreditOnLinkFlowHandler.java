@@ -0,0 +1,127 @@
+package com.microsoft.azure.eventhubs.lib;
+
+import java.util.*;
+import java.util.logging.Level;
+
+import org.apache.qpid.proton.Proton;
+import org.apache.qpid.proton.amqp.Binary;
+import org.apache.qpid.proton.amqp.DescribedType;
+import org.apache.qpid.proton.amqp.Symbol;
+import org.apache.qpid.proton.amqp.messaging.*;
+import org.apache.qpid.proton.amqp.transport.ErrorCondition;
+import org.apache.qpid.proton.engine.*;
+import org.apache.qpid.proton.message.*;
+
+import com.microsoft.azure.servicebus.ClientConstants;
+import com.microsoft.azure.servicebus.amqp.AmqpConstants;
+
+/**
+ * Sends a Msg for every credit on onLinkFlow events - up to maxMessagesPerLink on each link, with offsets counting up from 1 across links.
+ * Records the filter of each receive link attached; can detach the first link with a retryable error on its n-th flow.
+ */
+public class SendCreditOnLinkFlowHandler extends ServerTraceHandler
+{
+	private final int maxMessagesPerLink;
+	private final int detachFirstLinkOnFlow;
+	private final Object sync;
+
+	// guarded by sync
+	private final List<String> attachFilters;
+	private final Map<String, Integer> sentCounts;
+	private final Map<String, Integer> flowCounts;
+	private String firstLinkName;
+	private long lastOffset;
+
+	/**
+	 * @param maxMessagesPerLink the most messages sent on a link
+	 * @param detachFirstLinkOnFlow the flow of the first link to detach it on, instead of sending; 0 to never detach
+	 */
+	public SendCreditOnLinkFlowHandler(final int maxMessagesPerLink, final int detachFirstLinkOnFlow)
+	{
+		this.maxMessagesPerLink = maxMessagesPerLink;
+		this.detachFirstLinkOnFlow = detachFirstLinkOnFlow;
+		this.sync = new Object();
+		this.attachFilters = new ArrayList<String>();
+		this.sentCounts = new HashMap<String, Integer>();
+		this.flowCounts = new HashMap<String, Integer>();
+	}
+
+	/**
+	 * @return the filters of the receive links attached so far, in order - e.g. "amqp.annotation.x-opt-offset > '10'"
+	 */
+	public List<String> getAttachFilters()
+	{
+		synchronized (this.sync)
+		{
+			return new ArrayList<String>(this.attachFilters);
+		}
+	}
+
+	@Override
+	public void onLinkRemoteOpen(Event event)
+	{
+		final Link link = event.getLink();
+		if (link instanceof Sender && link.getRemoteSource() instanceof Source)
+		{
+			final Map<?, ?> filterMap = ((Source) link.getRemoteSource()).getFilter();
+			final Object filter = filterMap != null ? filterMap.get(AmqpConstants.STRING_FILTER) : null;
+
+			synchronized (this.sync)
+			{
+				if (this.firstLinkName == null)
+				{
+					this.firstLinkName = link.getName();
+				}
+
+				this.attachFilters.add(filter instanceof DescribedType ? String.valueOf(((DescribedType) filter).getDescribed()) : null);
+			}
+
+			TestBase.TEST_LOGGER.log(Level.FINE, String.format("onLinkRemoteOpen: link[%s], filter[%s]", link.getName(), filter));
+		}
+	}
+
+	@Override
+	public void onLinkFlow(Event event)
+	{
+		final Link link = event.getLink();
+		if (!(link instanceof Sender) || link.getLocalState() != EndpointState.ACTIVE)
+		{
+			return;
+		}
+
+		final Sender sender = (Sender) link;
+		synchronized (this.sync)
+		{
+			final int flowCount = this.flowCounts.containsKey(sender.getName()) ? this.flowCounts.get(sender.getName()) + 1 : 1;
+			this.flowCounts.put(sender.getName(), flowCount);
+			if (flowCount == this.detachFirstLinkOnFlow && sender.getName().equals(this.firstLinkName))
+			{
+				TestBase.TEST_LOGGER.log(Level.FINE, String.format("onLinkFlow: detaching link[%s]", sender.getName()));
+				sender.setCondition(new ErrorCondition(ClientConstants.SERVER_BUSY_ERROR, "SimulateServerBusy"));
+				sender.detach();
+				sender.close();
+				return;
+			}
+
+			int sentCount = this.sentCounts.containsKey(sender.getName()) ? this.sentCounts.get(sender.getName()) : 0;
+			byte[] bytes = new byte[1024];
+			while (sender.getCredit() > 0 && sentCount < this.maxMessagesPerLink)
+			{
+				final String offset = Long.toString(++this.lastOffset);
+				Message msg = Proton.message();
+				msg.setBody(new Data(new Binary(offset.getBytes())));
+				Map<Symbol, Object> annotations = new HashMap<Symbol, Object>();
+				annotations.put(AmqpConstants.OFFSET, offset);
+				msg.setMessageAnnotations(new MessageAnnotations(annotations));
+				int length = msg.encode(bytes, 0, bytes.length);
+
+				sender.delivery(offset.getBytes());
+				sender.send(bytes, 0, length);
+				sender.advance();
+				sentCount++;
+			}
+
+			this.sentCounts.put(sender.getName(), sentCount);
+		}
+	}
+}
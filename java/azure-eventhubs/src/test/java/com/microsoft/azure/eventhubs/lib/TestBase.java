@@ -44,6 +44,17 @@ public abstract class TestBase
 		return !SasKey.equalsIgnoreCase(NoSasKey);
 	}
 
+	// a send gives its share of the send window back as it completes - so the window is polled, instead of checked right after the send
+	public static void awaitNoPendingSends(final PartitionSender sender) throws InterruptedException
+	{
+		final long deadlineNanos = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+		while (sender.getPendingSendCount() != 0 || sender.getPendingSendBytes() != 0)
+		{
+			assertTrue("the sends did not release the send window", System.nanoTime() - deadlineNanos < 0);
+			Thread.sleep(10);
+		}
+	}
+
 	public static void checkinTestEventHub(String name)
 	{
 		// TODO: Implement Checkin-Checkout functionality	
@@ -0,0 +1,64 @@
+package com.microsoft.azure.eventhubs.perf;
+
+import org.junit.*;
+
+import com.microsoft.azure.eventhubs.lib.*;
+import com.microsoft.azure.servicebus.*;
+
+public class BufferPoolTest extends TestBase
+{
+	@Test()
+	public void testBuffersAreRoundedToSizeClasses()
+	{
+		BufferPool pool = new BufferPool();
+
+		Assert.assertTrue(pool.borrow(1).length == BufferPool.MIN_BUFFER_SIZE);
+		Assert.assertTrue(pool.borrow(BufferPool.MIN_BUFFER_SIZE).length == BufferPool.MIN_BUFFER_SIZE);
+		Assert.assertTrue(pool.borrow(BufferPool.MIN_BUFFER_SIZE + 1).length == BufferPool.MIN_BUFFER_SIZE * 2);
+		Assert.assertTrue(pool.borrow(ClientConstants.MAX_MESSAGE_LENGTH_BYTES).length == ClientConstants.MAX_MESSAGE_LENGTH_BYTES);
+		Assert.assertTrue(pool.borrow(ClientConstants.MAX_MESSAGE_LENGTH_BYTES + 1).length == ClientConstants.MAX_MESSAGE_LENGTH_BYTES + 1);
+	}
+
+	@Test()
+	public void testReturnedBuffersAreReused()
+	{
+		BufferPool pool = new BufferPool();
+
+		byte[] buffer = pool.borrow(1000);
+		pool.giveBack(buffer);
+		Assert.assertTrue(pool.getStatistics().getPooledBufferCount() == 1);
+
+		Assert.assertTrue(pool.borrow(700) == buffer);
+		Assert.assertTrue(pool.getStatistics().getReuseCount() == 1);
+		Assert.assertTrue(pool.getStatistics().getPooledBufferCount() == 0);
+
+		// arrays which were not borrowed from a size class are dropped
+		pool.giveBack(new byte[1000]);
+		pool.giveBack(new byte[ClientConstants.MAX_MESSAGE_LENGTH_BYTES + 1]);
+		Assert.assertTrue(pool.getStatistics().getDiscardCount() == 2);
+		Assert.assertTrue(pool.getStatistics().getPooledBufferCount() == 0);
+	}
+
+	@Test()
+	public void testPooledBytesAreBounded()
+	{
+		BufferPool pool = new BufferPool();
+
+		int maxPooledBuffers = BufferPool.MAX_POOLED_BYTES_PER_SIZE_CLASS / ClientConstants.MAX_MESSAGE_LENGTH_BYTES;
+		byte[][] buffers = new byte[maxPooledBuffers + 4][];
+		for (int index = 0; index < buffers.length; index++)
+		{
+			buffers[index] = pool.borrow(ClientConstants.MAX_MESSAGE_LENGTH_BYTES);
+		}
+
+		for (byte[] buffer: buffers)
+		{
+			pool.giveBack(buffer);
+		}
+
+		BufferPoolStatistics statistics = pool.getStatistics();
+		Assert.assertTrue(statistics.getPooledBufferCount() == maxPooledBuffers);
+		Assert.assertTrue(statistics.getPooledBytes() == BufferPool.MAX_POOLED_BYTES_PER_SIZE_CLASS);
+		Assert.assertTrue(statistics.getDiscardCount() == 4);
+	}
+}
@@ -0,0 +1,46 @@
+package com.microsoft.azure.eventhubs.perf;
+
+import org.junit.*;
+
+import com.microsoft.azure.eventhubs.lib.*;
+import com.microsoft.azure.servicebus.*;
+
+public class LatencyHistogramTest extends TestBase
+{
+	@Test()
+	public void testPercentilesAreWithinBucketPrecision()
+	{
+		LatencyHistogram histogram = new LatencyHistogram();
+		Assert.assertTrue(histogram.getValueAtPercentile(99) == 0);
+
+		for (long value = 1; value <= 1000; value++)
+		{
+			histogram.record(value);
+		}
+
+		Assert.assertTrue(histogram.getCount() == 1000);
+		Assert.assertTrue(histogram.getMax() == 1000);
+		Assert.assertTrue(histogram.getMean() == 500.5);
+
+		long median = histogram.getValueAtPercentile(50);
+		Assert.assertTrue(median >= 500 && median <= 500 * 9 / 8);
+
+		long p99 = histogram.getValueAtPercentile(99);
+		Assert.assertTrue(p99 >= 990 && p99 <= 1000);
+
+		Assert.assertTrue(histogram.getValueAtPercentile(100) == 1000);
+		Assert.assertTrue(histogram.getValueAtPercentile(0) == 1);
+	}
+
+	@Test()
+	public void testSkewedLatencyIsRecordedAsZero()
+	{
+		LatencyHistogram histogram = new LatencyHistogram();
+		histogram.record(-20);
+		histogram.record(Long.MAX_VALUE);
+
+		Assert.assertTrue(histogram.getCount() == 2);
+		Assert.assertTrue(histogram.getValueAtPercentile(50) == 0);
+		Assert.assertTrue(histogram.getValueAtPercentile(100) == Long.MAX_VALUE);
+	}
+}
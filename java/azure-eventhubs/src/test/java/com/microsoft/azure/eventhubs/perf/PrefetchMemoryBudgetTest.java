@@ -0,0 +1,110 @@
+package com.microsoft.azure.eventhubs.perf;
+
+import org.junit.*;
+
+import com.microsoft.azure.eventhubs.lib.*;
+import com.microsoft.azure.servicebus.*;
+
+public class PrefetchMemoryBudgetTest extends TestBase
+{
+	@Test()
+	public void testLimitIsSharedEvenlyUntilReceiversDrain()
+	{
+		PrefetchMemoryBudget budget = new PrefetchMemoryBudget();
+		PrefetchMemoryBudget.Share[] shares = new PrefetchMemoryBudget.Share[4];
+		for (int index = 0; index < shares.length; index++)
+		{
+			shares[index] = budget.register();
+			Assert.assertTrue(shares[index].getBytes() == 0);
+		}
+
+		budget.setLimit(1000);
+		for (PrefetchMemoryBudget.Share share : shares)
+		{
+			Assert.assertTrue(share.getBytes() == 250);
+		}
+
+		// only the first receiver is drained: it gets the drain half of the limit on top of its even share
+		shares[0].onDrained(300, System.nanoTime() + 2 * PrefetchMemoryBudget.REBALANCE_INTERVAL_NANOS);
+		Assert.assertTrue(shares[0].getBytes() == 625);
+		long total = 0;
+		for (PrefetchMemoryBudget.Share share : shares)
+		{
+			Assert.assertTrue(share.getBytes() >= 125);
+			total += share.getBytes();
+		}
+
+		Assert.assertTrue(total <= 1000);
+
+		// a removed receiver leaves its share to the others
+		budget.unregister(shares[0]);
+		Assert.assertTrue(shares[1].getBytes() == 333);
+
+		budget.setLimit(0);
+		Assert.assertTrue(shares[1].getBytes() == 0);
+	}
+
+	@Test()
+	public void testDrainIsSampledPerInterval()
+	{
+		PrefetchMemoryBudget budget = new PrefetchMemoryBudget();
+		budget.setLimit(1000);
+		PrefetchMemoryBudget.Share fast = budget.register();
+		PrefetchMemoryBudget.Share slow = budget.register();
+
+		long now = System.nanoTime();
+		for (int interval = 1; interval <= 10; interval++)
+		{
+			now += 2 * PrefetchMemoryBudget.REBALANCE_INTERVAL_NANOS;
+			slow.onDrained(100, now);
+			fast.onDrained(300, now);
+		}
+
+		// 250 even + 500 * 3/4 of the drain half
+		Assert.assertTrue(Math.abs(fast.getBytes() - 625) <= 10);
+		Assert.assertTrue(Math.abs(slow.getBytes() - 375) <= 10);
+	}
+
+	@Test()
+	public void testNestedBudgetSplitsItsShareOfTheParent()
+	{
+		PrefetchMemoryBudget factoryBudget = new PrefetchMemoryBudget();
+		PrefetchMemoryBudget.Share partitionReceiver = factoryBudget.register();
+		PrefetchMemoryBudget multiPartitionBudget = new PrefetchMemoryBudget(factoryBudget);
+		PrefetchMemoryBudget.Share[] partitions = new PrefetchMemoryBudget.Share[] { multiPartitionBudget.register(), multiPartitionBudget.register() };
+		Assert.assertTrue(partitions[0].getBytes() == 0);
+
+		// the parent's limit reaches the partitions of the nested budget without a drain
+		factoryBudget.setLimit(1000);
+		Assert.assertTrue(partitionReceiver.getBytes() == 500);
+		Assert.assertTrue(partitions[0].getBytes() == 250);
+		Assert.assertTrue(partitions[1].getBytes() == 250);
+
+		// the lower of the own limit & the share of the parent applies
+		multiPartitionBudget.setLimit(200);
+		Assert.assertTrue(partitions[0].getBytes() == 100);
+		multiPartitionBudget.setLimit(4000);
+		Assert.assertTrue(partitions[0].getBytes() == 250);
+
+		factoryBudget.setLimit(0);
+		Assert.assertTrue(partitions[0].getBytes() == 2000);
+		multiPartitionBudget.setLimit(0);
+		Assert.assertTrue(partitions[0].getBytes() == 0);
+
+		// the drain of the partitions counts for the nested budget's share of the parent
+		factoryBudget.setLimit(1000);
+		partitions[0].onDrained(300, System.nanoTime() + 2 * PrefetchMemoryBudget.REBALANCE_INTERVAL_NANOS);
+		Assert.assertTrue(partitionReceiver.getBytes() == 250);
+		Assert.assertTrue(partitions[0].getBytes() + partitions[1].getBytes() <= 750);
+
+		// a detached budget leaves its share to the other receivers of the parent
+		multiPartitionBudget.detach();
+		Assert.assertTrue(partitionReceiver.getBytes() == 1000);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNegativeLimitIsRejected()
+	{
+		new PrefetchMemoryBudget().setLimit(-1);
+	}
+}
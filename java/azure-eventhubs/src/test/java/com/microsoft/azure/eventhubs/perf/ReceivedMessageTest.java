@@ -0,0 +1,156 @@
+package com.microsoft.azure.eventhubs.perf;
+
+import java.util.*;
+import java.util.logging.*;
+
+import org.apache.qpid.proton.Proton;
+import org.apache.qpid.proton.amqp.Binary;
+import org.apache.qpid.proton.amqp.Symbol;
+import org.apache.qpid.proton.amqp.messaging.AmqpValue;
+import org.apache.qpid.proton.amqp.messaging.ApplicationProperties;
+import org.apache.qpid.proton.amqp.messaging.Data;
+import org.apache.qpid.proton.amqp.messaging.MessageAnnotations;
+import org.apache.qpid.proton.message.Message;
+import org.junit.*;
+
+import com.microsoft.azure.eventhubs.lib.*;
+import com.microsoft.azure.servicebus.*;
+import com.microsoft.azure.servicebus.amqp.AmqpConstants;
+
+public class ReceivedMessageTest extends TestBase
+{
+	private static final Logger TEST_LOGGER = Logger.getLogger(ReceivedMessageTest.class.toString());
+
+	@Test()
+	public void testSystemAnnotationsAndBodyAreScanned()
+	{
+		byte[] encodedMessage = this.encode(this.newReceivedMessage(true));
+		byte[] receiveBuffer = new byte[encodedMessage.length + 10];
+		System.arraycopy(encodedMessage, 0, receiveBuffer, 10, encodedMessage.length);
+
+		ReceivedMessage receivedMessage = ReceivedMessage.create(receiveBuffer, 10, encodedMessage.length);
+
+		// the receive buffer is reused for the next delivery
+		Arrays.fill(receiveBuffer, (byte) 0);
+
+		Assert.assertEquals("4294967296", receivedMessage.getOffset());
+		Assert.assertTrue(receivedMessage.getSequenceNumber() == 12345678901L);
+		Assert.assertTrue(receivedMessage.getEnqueuedTimeUtc() == 1480000000000L);
+		Assert.assertEquals("partitionKey", receivedMessage.getPartitionKey());
+		Assert.assertEquals(DeflateBodyCodec.NAME, receivedMessage.getBodyCodecName());
+		Assert.assertTrue(receivedMessage.getBody().length == 300 && receivedMessage.getBody()[299] == (byte) 299);
+
+		Assert.assertTrue(receivedMessage.hasProperties());
+		Message message = receivedMessage.getMessage();
+		Assert.assertEquals("telemetry", message.getApplicationProperties().getValue().get("eventType"));
+		Assert.assertEquals("userAnnotationValue", message.getMessageAnnotations().getValue().get(Symbol.getSymbol("userAnnotation")));
+	}
+
+	@Test()
+	public void testUnexpectedMessagesAreDecoded()
+	{
+		Message amqpValueMessage = this.newReceivedMessage(false);
+		amqpValueMessage.setBody(new AmqpValue("not a Data section"));
+		byte[] encodedMessage = this.encode(amqpValueMessage);
+
+		ReceivedMessage receivedMessage = ReceivedMessage.create(encodedMessage, 0, encodedMessage.length);
+		Assert.assertEquals("4294967296", receivedMessage.getOffset());
+		Assert.assertTrue(receivedMessage.getSequenceNumber() == 12345678901L);
+		Assert.assertNull(receivedMessage.getBody());
+		Assert.assertTrue(receivedMessage.getMessage().getBody() instanceof AmqpValue);
+
+		Message systemAnnotationsOnly = this.newReceivedMessage(false);
+		encodedMessage = this.encode(systemAnnotationsOnly);
+		Assert.assertFalse(ReceivedMessage.create(encodedMessage, 0, encodedMessage.length).hasProperties());
+	}
+
+	// the receive path of today (full decode) vs the scan - for a consumer reading the body, offset & sequence number
+	@Test()
+	public void testScanIsCheaperThanDecode()
+	{
+		final int operations = 200000;
+		final byte[] encodedMessage = this.encode(this.newReceivedMessage(true));
+
+		// warm-up
+		this.measureDecodeCostNanos(encodedMessage, operations);
+		this.measureScanCostNanos(encodedMessage, operations);
+
+		double decodeCost = this.measureDecodeCostNanos(encodedMessage, operations);
+		double scanCost = this.measureScanCostNanos(encodedMessage, operations);
+
+		TEST_LOGGER.log(Level.INFO, String.format("per-event cost: decode %.1f ns, scan %.1f ns", decodeCost, scanCost));
+		Assert.assertTrue(scanCost < decodeCost);
+	}
+
+	private double measureDecodeCostNanos(final byte[] encodedMessage, final int operations)
+	{
+		long checksum = 0;
+		long start = System.nanoTime();
+		for (int count = 0; count < operations; count++)
+		{
+			Message message = Proton.message();
+			message.decode(encodedMessage, 0, encodedMessage.length);
+			Map<Symbol, Object> annotations = message.getMessageAnnotations().getValue();
+			checksum += (Long) annotations.get(AmqpConstants.SEQUENCE_NUMBER) + annotations.get(AmqpConstants.OFFSET).toString().length();
+			checksum += ((Data) message.getBody()).getValue().getLength();
+		}
+
+		long duration = System.nanoTime() - start;
+		Assert.assertTrue(checksum != 0);
+		return (double) duration / operations;
+	}
+
+	private double measureScanCostNanos(final byte[] encodedMessage, final int operations)
+	{
+		long checksum = 0;
+		long start = System.nanoTime();
+		for (int count = 0; count < operations; count++)
+		{
+			ReceivedMessage message = ReceivedMessage.create(encodedMessage, 0, encodedMessage.length);
+			checksum += message.getSequenceNumber() + message.getOffset().length() + message.getBody().length;
+		}
+
+		long duration = System.nanoTime() - start;
+		Assert.assertTrue(checksum != 0);
+		return (double) duration / operations;
+	}
+
+	private Message newReceivedMessage(final boolean withProperties)
+	{
+		Message message = Proton.message();
+
+		Map<Symbol, Object> annotations = new HashMap<Symbol, Object>();
+		annotations.put(AmqpConstants.OFFSET, "4294967296");
+		annotations.put(AmqpConstants.SEQUENCE_NUMBER, 12345678901L);
+		annotations.put(AmqpConstants.ENQUEUED_TIME_UTC, new Date(1480000000000L));
+		annotations.put(AmqpConstants.PARTITION_KEY, "partitionKey");
+		if (withProperties)
+		{
+			annotations.put(Symbol.getSymbol("userAnnotation"), "userAnnotationValue");
+
+			Map<String, Object> properties = new HashMap<String, Object>();
+			properties.put("eventType", "telemetry");
+			properties.put("sampleRate", 10);
+			properties.put(BodyCodecs.PROPERTY_NAME, DeflateBodyCodec.NAME);
+			message.setApplicationProperties(new ApplicationProperties(properties));
+		}
+
+		message.setMessageAnnotations(new MessageAnnotations(annotations));
+
+		byte[] body = new byte[300];
+		for (int index = 0; index < body.length; index++)
+		{
+			body[index] = (byte) index;
+		}
+
+		message.setBody(new Data(new Binary(body)));
+		return message;
+	}
+
+	private byte[] encode(final Message message)
+	{
+		byte[] buffer = new byte[4096];
+		int length = message.encode(buffer, 0, buffer.length);
+		return Arrays.copyOf(buffer, length);
+	}
+}
@@ -0,0 +1,199 @@
+package com.microsoft.azure.eventhubs.perf;
+
+import java.io.IOException;
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.logging.*;
+
+import org.apache.qpid.proton.Proton;
+import org.apache.qpid.proton.amqp.Binary;
+import org.apache.qpid.proton.amqp.messaging.Data;
+import org.apache.qpid.proton.engine.*;
+import org.apache.qpid.proton.message.Message;
+
+import org.junit.*;
+
+import com.microsoft.azure.eventhubs.*;
+import com.microsoft.azure.eventhubs.lib.*;
+import com.microsoft.azure.servicebus.*;
+
+public class SettledSendTest extends TestBase
+{
+	private static final int SENDS = 5000;
+
+	@Test()
+	public void testSettledSendCompletesWithoutADisposition() throws Exception
+	{
+		// grants credit and never settles - there is no disposition for a send to wait for
+		MockServer server = MockServer.Create(new ServerTraceHandler()
+		{
+			@Override
+			public void onLinkRemoteOpen(Event event)
+			{
+				Link link = event.getLink();
+				if (link instanceof Receiver)
+				{
+					if (link.getLocalState() == EndpointState.UNINITIALIZED)
+					{
+						link.setSource(link.getRemoteSource());
+						link.setTarget(link.getRemoteTarget());
+						link.open();
+					}
+
+					((Receiver) link).flow(100);
+				}
+			}
+		});
+
+		MessagingFactory factory = null;
+		try
+		{
+			factory = MessagingFactory.createFromConnectionString(
+					new ConnectionStringBuilder("Endpoint=amqps://localhost;SharedAccessKeyName=somename;EntityPath=eventhub1;SharedAccessKey=somekey").toString()).get();
+
+			SenderOptions settledOptions = new SenderOptions();
+			settledOptions.setSettleMode(SendSettleMode.Settled);
+			MessageSender settledSender = MessageSender.create(factory, "settled", "eventhub1/partitions/0", settledOptions).get();
+			MessageSender unsettledSender = MessageSender.create(factory, "unsettled", "eventhub1/partitions/0").get();
+
+			CompletableFuture<Void> unsettledSend = unsettledSender.send(createMessage());
+			settledSender.send(createMessage()).get(10, TimeUnit.SECONDS);
+
+			// the unsettled send went out first, on the same connection - it waits for the disposition the server never sends
+			Assert.assertFalse(unsettledSend.isDone());
+		}
+		finally
+		{
+			if (factory != null)
+				factory.close();
+
+			server.close();
+		}
+	}
+
+	@Test()
+	public void testSettledSendsArrive() throws ServiceBusException, InterruptedException, ExecutionException, IOException
+	{
+		Assume.assumeTrue(TestBase.isServiceRun());
+
+		TestEventHubInfo eventHubInfo = TestBase.checkoutTestEventHub();
+		EventHubClient ehClient = EventHubClient.createFromConnectionStringSync(TestBase.getConnectionString(eventHubInfo).toString());
+		try
+		{
+			final String partitionId = "0";
+			final String runId = UUID.randomUUID().toString();
+
+			// starts a minute back - events of this run enqueued on a service clock behind the local one are not skipped
+			PartitionReceiver receiver = ehClient.createReceiverSync(eventHubInfo.getRandomConsumerGroup(), partitionId, Instant.now().minus(Duration.ofMinutes(1)));
+
+			SenderOptions settledOptions = new SenderOptions();
+			settledOptions.setSettleMode(SendSettleMode.Settled);
+			PartitionSender sender = ehClient.createPartitionSenderSync(partitionId, settledOptions);
+			try
+			{
+				final int sendCount = 100;
+				final HashSet<String> missingIndexes = new HashSet<String>();
+				List<CompletableFuture<Void>> sends = new ArrayList<CompletableFuture<Void>>(sendCount);
+				for (int index = 0; index < sendCount; index++)
+				{
+					EventData event = new EventData("settled".getBytes());
+					Map<String, String> properties = new HashMap<String, String>();
+					properties.put("runId", runId);
+					properties.put("index", Integer.toString(index));
+					event.setProperties(properties);
+					sends.add(sender.send(event));
+					missingIndexes.add(Integer.toString(index));
+				}
+
+				CompletableFuture.allOf(sends.toArray(new CompletableFuture[sends.size()])).get();
+				TestBase.awaitNoPendingSends(sender);
+
+				receiver.setReceiveTimeout(Duration.ofSeconds(5));
+				final long deadlineNanos = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+				while (!missingIndexes.isEmpty() && System.nanoTime() - deadlineNanos < 0)
+				{
+					Iterable<EventData> events = receiver.receiveSync(100);
+					if (events != null)
+					{
+						for (EventData event : events)
+						{
+							if (event.getProperties() != null && runId.equals(event.getProperties().get("runId")))
+							{
+								missingIndexes.remove(event.getProperties().get("index"));
+							}
+						}
+					}
+				}
+
+				Assert.assertTrue(String.format("%s settled events did not arrive", missingIndexes.size()), missingIndexes.isEmpty());
+			}
+			finally
+			{
+				sender.closeSync();
+				receiver.closeSync();
+			}
+		}
+		finally
+		{
+			ehClient.close();
+		}
+	}
+
+	@Test()
+	public void testSettledSendThroughput() throws ServiceBusException, InterruptedException, ExecutionException, IOException
+	{
+		Assume.assumeTrue(TestBase.isServiceRun());
+
+		TestEventHubInfo eventHubInfo = TestBase.checkoutTestEventHub();
+		EventHubClient ehClient = EventHubClient.createFromConnectionStringSync(TestBase.getConnectionString(eventHubInfo).toString());
+		try
+		{
+			// warm-up
+			this.measureSendsPerSecond(ehClient.createPartitionSenderSync("0", new SenderOptions()));
+
+			double unsettledThroughput = this.measureSendsPerSecond(ehClient.createPartitionSenderSync("0", new SenderOptions()));
+
+			SenderOptions settledOptions = new SenderOptions();
+			settledOptions.setSettleMode(SendSettleMode.Settled);
+			double settledThroughput = this.measureSendsPerSecond(ehClient.createPartitionSenderSync("0", settledOptions));
+
+			TEST_LOGGER.log(Level.INFO, String.format("%s sends of 1KB: unsettled[%.0f sends/sec], settled[%.0f sends/sec]",
+					SENDS, unsettledThroughput, settledThroughput));
+		}
+		finally
+		{
+			ehClient.close();
+		}
+	}
+
+	private double measureSendsPerSecond(final PartitionSender sender) throws InterruptedException, ExecutionException, ServiceBusException
+	{
+		try
+		{
+			LinkedList<CompletableFuture<Void>> sends = new LinkedList<CompletableFuture<Void>>();
+			long start = System.nanoTime();
+			for (int count = 0; count < SENDS; count++)
+			{
+				sends.add(sender.send(new EventData(new byte[1024])));
+			}
+
+			CompletableFuture.allOf(sends.toArray(new CompletableFuture[sends.size()])).get();
+			final double sendsPerSecond = SENDS * 1000000000.0 / (System.nanoTime() - start);
+
+			TestBase.awaitNoPendingSends(sender);
+			return sendsPerSecond;
+		}
+		finally
+		{
+			sender.closeSync();
+		}
+	}
+
+	private static Message createMessage()
+	{
+		Message message = Proton.message();
+		message.setBody(new Data(new Binary("settled".getBytes())));
+		return message;
+	}
+}
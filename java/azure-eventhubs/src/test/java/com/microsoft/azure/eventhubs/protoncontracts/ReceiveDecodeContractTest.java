@@ -0,0 +1,50 @@
+package com.microsoft.azure.eventhubs.protoncontracts;
+
+import java.util.*;
+
+import org.apache.qpid.proton.Proton;
+import org.apache.qpid.proton.amqp.Binary;
+import org.apache.qpid.proton.amqp.Symbol;
+import org.apache.qpid.proton.amqp.messaging.ApplicationProperties;
+import org.apache.qpid.proton.amqp.messaging.Data;
+import org.apache.qpid.proton.amqp.messaging.MessageAnnotations;
+import org.apache.qpid.proton.message.Message;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ReceiveDecodeContractTest
+{
+	// MessageReceiver decodes every delivery from the same scratch buffer:
+	// the decoded message shouldn't reference the buffer it is decoded from
+	@Test
+	public void decodedMessageDoesNotAliasTheReceiveBuffer()
+	{
+		byte[] payload = new byte[1000];
+		new Random(3).nextBytes(payload);
+
+		Message message = Proton.message();
+		Map<Symbol, Object> annotations = new HashMap<Symbol, Object>();
+		annotations.put(Symbol.getSymbol("x-opt-offset"), "12345");
+		message.setMessageAnnotations(new MessageAnnotations(annotations));
+		Map<String, String> properties = new HashMap<String, String>();
+		properties.put("eventType", "telemetry");
+		message.setApplicationProperties(new ApplicationProperties(properties));
+		message.setBody(new Data(new Binary(payload)));
+
+		byte[] receiveBuffer = new byte[8192];
+		int encodedSize = message.encode(receiveBuffer, 0, receiveBuffer.length);
+
+		Message decodedMessage = Proton.message();
+		decodedMessage.decode(receiveBuffer, 0, encodedSize);
+
+		// the next delivery overwrites the buffer
+		Arrays.fill(receiveBuffer, (byte) 0x5a);
+
+		Binary body = ((Data) decodedMessage.getBody()).getValue();
+		Assert.assertTrue(body.getLength() == payload.length);
+		Assert.assertTrue(Arrays.equals(Arrays.copyOfRange(body.getArray(), body.getArrayOffset(), body.getArrayOffset() + body.getLength()), payload));
+		Assert.assertTrue(body.getArray() != receiveBuffer);
+		Assert.assertEquals("12345", decodedMessage.getMessageAnnotations().getValue().get(Symbol.getSymbol("x-opt-offset")));
+		Assert.assertEquals("telemetry", decodedMessage.getApplicationProperties().getValue().get("eventType"));
+	}
+}
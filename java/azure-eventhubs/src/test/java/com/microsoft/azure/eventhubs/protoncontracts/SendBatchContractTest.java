@@ -1,7 +1,19 @@
 package com.microsoft.azure.eventhubs.protoncontracts;
 
+import java.util.*;
+
+import org.apache.qpid.proton.Proton;
+import org.apache.qpid.proton.amqp.Binary;
+import org.apache.qpid.proton.amqp.Symbol;
+import org.apache.qpid.proton.amqp.messaging.Data;
+import org.apache.qpid.proton.amqp.messaging.MessageAnnotations;
+import org.apache.qpid.proton.message.Message;
+import org.junit.Assert;
 import org.junit.Test;
 
+import com.microsoft.azure.servicebus.BatchMessageEncoder;
+import com.microsoft.azure.servicebus.ClientConstants;
+
 public class SendBatchContractTest
 {
 	@Test
@@ -9,4 +21,44 @@ public class SendBatchContractTest
 	{
 		// TODO add test to validate the sendBatch contract : https://github.com/apache/qpid-proton/commit/e9e0f31c6894736e54d7d5b624bf3245f704d9af
 	}
+
+	@Test
+	public void singlePassBatchEncodingMatchesDataSectionWrapping()
+	{
+		// payloads on both sides of the vbin8/vbin32 boundary of the data section
+		LinkedList<Message> messages = new LinkedList<Message>();
+		for (int payloadSize: new int[] { 0, 10, 200, 255, 256, 4096 })
+		{
+			Message message = Proton.message();
+			Map<Symbol, Object> annotations = new HashMap<Symbol, Object>();
+			annotations.put(Symbol.getSymbol("x-opt-partition-key"), "pk");
+			message.setMessageAnnotations(new MessageAnnotations(annotations));
+			message.setBody(new Data(new Binary(new byte[payloadSize])));
+			messages.add(message);
+		}
+
+		// the approach proton-j recommends: https://github.com/apache/qpid-proton/pull/54
+		byte[] expected = new byte[ClientConstants.MAX_MESSAGE_LENGTH_BYTES];
+		Message batchMessage = Proton.message();
+		batchMessage.setMessageAnnotations(messages.getFirst().getMessageAnnotations());
+		int expectedSize = batchMessage.encode(expected, 0, expected.length);
+		for (Message message: messages)
+		{
+			byte[] messageBytes = new byte[8192];
+			int messageSize = message.encode(messageBytes, 0, messageBytes.length);
+			Message messageWrappedByData = Proton.message();
+			messageWrappedByData.setBody(new Data(new Binary(messageBytes, 0, messageSize)));
+			expectedSize += messageWrappedByData.encode(expected, expectedSize, expected.length - expectedSize);
+		}
+
+		byte[] actual = new byte[ClientConstants.MAX_MESSAGE_LENGTH_BYTES];
+		int actualSize = BatchMessageEncoder.encodeHeader(messages.getFirst(), actual, 0, actual.length);
+		for (Message message: messages)
+		{
+			actualSize += BatchMessageEncoder.encodeDataSection(message, actual, actualSize, actual.length - actualSize);
+		}
+
+		Assert.assertEquals(expectedSize, actualSize);
+		Assert.assertArrayEquals(Arrays.copyOf(expected, expectedSize), Arrays.copyOf(actual, actualSize));
+	}
 }
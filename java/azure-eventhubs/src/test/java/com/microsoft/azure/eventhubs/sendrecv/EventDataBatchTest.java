@@ -0,0 +1,98 @@
+package com.microsoft.azure.eventhubs.sendrecv;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.junit.*;
+
+import com.microsoft.azure.eventhubs.*;
+import com.microsoft.azure.eventhubs.lib.*;
+import com.microsoft.azure.servicebus.*;
+
+public class EventDataBatchTest extends TestBase
+{
+	@Test()
+	public void testBatchIsFilledUptoMaxMessageSize() throws ServiceBusException, InterruptedException, ExecutionException, IOException
+	{
+		Assume.assumeTrue(TestBase.isServiceRun());
+
+		TestEventHubInfo eventHubInfo = TestBase.checkoutTestEventHub();
+		EventHubClient ehClient = EventHubClient.createFromConnectionStringSync(TestBase.getConnectionString(eventHubInfo).toString());
+		try
+		{
+			EventDataBatch batch = ehClient.createBatch("batchPartitionKey");
+			int previousSize = batch.getSize();
+			while (batch.tryAdd(this.newEvent(batch.getCount())))
+			{
+				Assert.assertTrue(batch.getSize() > previousSize);
+				previousSize = batch.getSize();
+			}
+
+			// a rejected event leaves the batch as it was
+			Assert.assertTrue(batch.getSize() == previousSize);
+			Assert.assertTrue(batch.getSize() < ClientConstants.MAX_MESSAGE_LENGTH_BYTES);
+			Assert.assertTrue(batch.getSize() > ClientConstants.MAX_MESSAGE_LENGTH_BYTES - 2048);
+
+			ehClient.sendSync(batch);
+
+			try
+			{
+				ehClient.sendSync(batch);
+				Assert.fail("a batch can be sent only once");
+			}
+			catch (IllegalStateException exception)
+			{
+			}
+		}
+		finally
+		{
+			ehClient.close();
+		}
+	}
+
+	@Test()
+	public void testPartitionSenderBatch() throws ServiceBusException, InterruptedException, ExecutionException, IOException
+	{
+		Assume.assumeTrue(TestBase.isServiceRun());
+
+		TestEventHubInfo eventHubInfo = TestBase.checkoutTestEventHub();
+		EventHubClient ehClient = EventHubClient.createFromConnectionStringSync(TestBase.getConnectionString(eventHubInfo).toString());
+		try
+		{
+			PartitionSender sender = ehClient.createPartitionSenderSync("0");
+			EventDataBatch batch = sender.createBatch();
+			for (int count = 0; count < 10; count++)
+			{
+				Assert.assertTrue(batch.tryAdd(this.newEvent(count)));
+			}
+
+			Assert.assertTrue(batch.getCount() == 10);
+			sender.sendSync(batch);
+
+			try
+			{
+				sender.send(ehClient.createBatch("batchPartitionKey"));
+				Assert.fail("a batch with partitionKey cannot be sent to a partition");
+			}
+			catch (IllegalArgumentException exception)
+			{
+			}
+
+			sender.closeSync();
+		}
+		finally
+		{
+			ehClient.close();
+		}
+	}
+
+	private EventData newEvent(final int sequence)
+	{
+		EventData event = new EventData(new byte[1000]);
+		Map<String, String> properties = new HashMap<String, String>();
+		properties.put("sequence", Integer.toString(sequence));
+		event.setProperties(properties);
+		return event;
+	}
+}
@@ -0,0 +1,83 @@
+package com.microsoft.azure.eventhubs.sendrecv;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.*;
+
+import org.junit.*;
+
+import com.microsoft.azure.eventhubs.*;
+import com.microsoft.azure.eventhubs.lib.*;
+import com.microsoft.azure.servicebus.*;
+
+public class LingerReceiveTest extends TestBase
+{
+	@Test()
+	public void testReceiveWaitsForMinimumBatch() throws ServiceBusException, InterruptedException, ExecutionException, IOException
+	{
+		Assume.assumeTrue(TestBase.isServiceRun());
+
+		TestEventHubInfo eventHubInfo = TestBase.checkoutTestEventHub();
+		final EventHubClient ehClient = EventHubClient.createFromConnectionStringSync(TestBase.getConnectionString(eventHubInfo).toString());
+		try
+		{
+			final String partitionId = "0";
+			PartitionReceiver receiver = ehClient.createReceiverSync(eventHubInfo.getRandomConsumerGroup(), partitionId, Instant.now());
+			final PartitionSender sender = ehClient.createPartitionSenderSync(partitionId);
+
+			// a trickle of events - one every 200 millis
+			CompletableFuture<Void> trickle = CompletableFuture.runAsync(new Runnable()
+			{
+				@Override
+				public void run()
+				{
+					try
+					{
+						for (int count = 0; count < 7; count++)
+						{
+							sender.sendSync(new EventData("linger".getBytes()));
+							Thread.sleep(200);
+						}
+					}
+					catch (ServiceBusException|InterruptedException exception)
+					{
+						throw new CompletionException(exception);
+					}
+				}
+			});
+
+			Iterable<EventData> batch = receiver.receiveSync(100, 5, Duration.ofSeconds(30));
+			Assert.assertTrue(count(batch) >= 5);
+
+			trickle.get();
+
+			// fewer events than the minimum: the receive returns what it got when maxLinger elapses
+			Instant start = Instant.now();
+			int remaining = count(receiver.receiveSync(100, 50, Duration.ofSeconds(2)));
+			Assert.assertTrue(remaining > 0 && remaining <= 2);
+			Assert.assertTrue(Duration.between(start, Instant.now()).compareTo(Duration.ofSeconds(1)) >= 0);
+
+			sender.closeSync();
+			receiver.closeSync();
+		}
+		finally
+		{
+			ehClient.close();
+		}
+	}
+
+	private static int count(final Iterable<EventData> events)
+	{
+		int count = 0;
+		if (events != null)
+		{
+			for (EventData event : events)
+			{
+				count++;
+			}
+		}
+
+		return count;
+	}
+}
@@ -0,0 +1,152 @@
+package com.microsoft.azure.eventhubs.sendrecv;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+import org.junit.*;
+
+import com.microsoft.azure.eventhubs.*;
+import com.microsoft.azure.eventhubs.lib.*;
+import com.microsoft.azure.servicebus.*;
+
+public class MultiPartitionReceiveTest extends TestBase
+{
+	@Test()
+	public void testEventsOfAllPartitionsAreReceivedAndTagged() throws ServiceBusException, InterruptedException, ExecutionException, IOException
+	{
+		Assume.assumeTrue(TestBase.isServiceRun());
+
+		TestEventHubInfo eventHubInfo = TestBase.checkoutTestEventHub();
+		EventHubClient ehClient = EventHubClient.createFromConnectionStringSync(TestBase.getConnectionString(eventHubInfo).toString());
+		try
+		{
+			final String[] partitionIds = new String[] { "0", "1" };
+			final int eventCount = 20;
+			MultiPartitionReceiver receiver = ehClient.createMultiPartitionReceiverSync(eventHubInfo.getRandomConsumerGroup(), partitionIds, PartitionReceiver.START_OF_STREAM);
+			try
+			{
+				TestBase.pushEventsToPartition(ehClient, "0", eventCount).get();
+				TestBase.pushEventsToPartition(ehClient, "1", eventCount).get();
+
+				// both partitions have events prefetched - a batch takes from each of them
+				HashMap<String, Integer> receivedCounts = new HashMap<String, Integer>();
+				int totalCount = 0;
+				while (totalCount < 2 * eventCount)
+				{
+					Iterable<EventData> events = receiver.receiveSync(10);
+					Assert.assertTrue(events != null);
+					for (EventData event : events)
+					{
+						String partitionId = event.getSystemProperties().getPartitionId();
+						Assert.assertTrue("0".equals(partitionId) || "1".equals(partitionId));
+						receivedCounts.put(partitionId, receivedCounts.getOrDefault(partitionId, 0) + 1);
+						totalCount++;
+					}
+				}
+
+				Assert.assertTrue(receivedCounts.get("0") >= eventCount);
+				Assert.assertTrue(receivedCounts.get("1") >= eventCount);
+			}
+			finally
+			{
+				receiver.closeSync();
+			}
+		}
+		finally
+		{
+			ehClient.close();
+		}
+	}
+
+	@Test()
+	public void testReplacingTheHandlerKeepsOnePump() throws ServiceBusException, InterruptedException, ExecutionException, IOException
+	{
+		Assume.assumeTrue(TestBase.isServiceRun());
+
+		TestEventHubInfo eventHubInfo = TestBase.checkoutTestEventHub();
+		EventHubClient ehClient = EventHubClient.createFromConnectionStringSync(TestBase.getConnectionString(eventHubInfo).toString());
+		try
+		{
+			final String[] partitionIds = new String[] { "0", "1" };
+			final int eventCount = 20;
+			MultiPartitionReceiver receiver = ehClient.createMultiPartitionReceiverSync(eventHubInfo.getRandomConsumerGroup(), partitionIds, PartitionReceiver.START_OF_STREAM);
+			try
+			{
+				// stop & set again while the receive of the first pump is outstanding - a pump left running would call the handler concurrently
+				ConcurrencyCheckingHandler handler = new ConcurrencyCheckingHandler(2 * eventCount);
+				receiver.setReceiveHandler(handler);
+				receiver.setReceiveHandler(null);
+				receiver.setReceiveHandler(handler);
+				receiver.setReceiveHandler(null);
+				receiver.setReceiveHandler(handler);
+
+				TestBase.pushEventsToPartition(ehClient, "0", eventCount).get();
+				TestBase.pushEventsToPartition(ehClient, "1", eventCount).get();
+
+				Assert.assertTrue(handler.received.await(60, TimeUnit.SECONDS));
+				Assert.assertNull(handler.error);
+				Assert.assertFalse(handler.isConcurrent);
+			}
+			finally
+			{
+				receiver.setReceiveHandler(null);
+				receiver.closeSync();
+			}
+		}
+		finally
+		{
+			ehClient.close();
+		}
+	}
+
+	private static final class ConcurrencyCheckingHandler extends PartitionReceiveHandler
+	{
+		final CountDownLatch received;
+		final AtomicInteger activeCalls = new AtomicInteger(0);
+		volatile boolean isConcurrent;
+		volatile Throwable error;
+
+		ConcurrencyCheckingHandler(final int eventCount)
+		{
+			super(5);
+			this.received = new CountDownLatch(eventCount);
+		}
+
+		@Override
+		public void onReceive(Iterable<EventData> events)
+		{
+			if (this.activeCalls.incrementAndGet() != 1)
+			{
+				this.isConcurrent = true;
+			}
+
+			if (events != null)
+			{
+				for (EventData event : events)
+				{
+					this.received.countDown();
+				}
+			}
+
+			try
+			{
+				// widens the window in which a second pump would overlap
+				Thread.sleep(10);
+			}
+			catch (InterruptedException exception)
+			{
+				Thread.currentThread().interrupt();
+			}
+
+			this.activeCalls.decrementAndGet();
+		}
+
+		@Override
+		public void onError(Throwable error)
+		{
+			this.error = error;
+		}
+	}
+}
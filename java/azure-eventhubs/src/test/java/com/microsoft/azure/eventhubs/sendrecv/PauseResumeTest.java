@@ -0,0 +1,105 @@
+package com.microsoft.azure.eventhubs.sendrecv;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.*;
+
+import org.junit.*;
+
+import com.microsoft.azure.eventhubs.*;
+import com.microsoft.azure.eventhubs.lib.*;
+import com.microsoft.azure.servicebus.*;
+
+public class PauseResumeTest extends TestBase
+{
+	@Test()
+	public void testPausedReceiverResumesWithoutReopen() throws ServiceBusException, InterruptedException, ExecutionException, IOException
+	{
+		Assume.assumeTrue(TestBase.isServiceRun());
+
+		TestEventHubInfo eventHubInfo = TestBase.checkoutTestEventHub();
+		EventHubClient ehClient = EventHubClient.createFromConnectionStringSync(TestBase.getConnectionString(eventHubInfo).toString());
+		try
+		{
+			final String partitionId = "0";
+			PartitionReceiver receiver = ehClient.createReceiverSync(eventHubInfo.getRandomConsumerGroup(), partitionId, Instant.now());
+			try
+			{
+				receiver.setReceiveTimeout(Duration.ofSeconds(5));
+
+				// the drain takes back the credit granted on open - events sent while paused stay on the partition
+				receiver.pause(true);
+				Assert.assertTrue(receiver.isPaused());
+
+				final int eventCount = 10;
+				TestBase.pushEventsToPartition(ehClient, partitionId, eventCount).get();
+				Assert.assertNull(receiver.receiveSync(eventCount));
+
+				receiver.resume();
+				Assert.assertFalse(receiver.isPaused());
+
+				PauseResumeTest.receiveEvents(receiver, eventCount);
+			}
+			finally
+			{
+				receiver.closeSync();
+			}
+		}
+		finally
+		{
+			ehClient.close();
+		}
+	}
+
+	@Test()
+	public void testResumeBeforeDrainIsAnsweredKeepsReceiving() throws ServiceBusException, InterruptedException, ExecutionException, IOException
+	{
+		Assume.assumeTrue(TestBase.isServiceRun());
+
+		TestEventHubInfo eventHubInfo = TestBase.checkoutTestEventHub();
+		EventHubClient ehClient = EventHubClient.createFromConnectionStringSync(TestBase.getConnectionString(eventHubInfo).toString());
+		try
+		{
+			final String partitionId = "0";
+			PartitionReceiver receiver = ehClient.createReceiverSync(eventHubInfo.getRandomConsumerGroup(), partitionId, Instant.now());
+			try
+			{
+				receiver.setReceiveTimeout(Duration.ofSeconds(5));
+
+				// the resume races the answer of the service to the drain - the credit is granted once it arrives
+				for (int cycle = 0; cycle < 10; cycle++)
+				{
+					receiver.pause(true);
+					receiver.resume();
+				}
+
+				final int eventCount = 10;
+				TestBase.pushEventsToPartition(ehClient, partitionId, eventCount).get();
+				PauseResumeTest.receiveEvents(receiver, eventCount);
+			}
+			finally
+			{
+				receiver.closeSync();
+			}
+		}
+		finally
+		{
+			ehClient.close();
+		}
+	}
+
+	private static void receiveEvents(final PartitionReceiver receiver, final int eventCount) throws ServiceBusException
+	{
+		int receivedCount = 0;
+		while (receivedCount < eventCount)
+		{
+			Iterable<EventData> events = receiver.receiveSync(eventCount);
+			Assert.assertNotNull(events);
+			for (EventData event : events)
+			{
+				receivedCount++;
+			}
+		}
+	}
+}
@@ -0,0 +1,72 @@
+package com.microsoft.azure.eventhubs.sendrecv;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.concurrent.*;
+
+import org.junit.*;
+
+import com.microsoft.azure.eventhubs.*;
+import com.microsoft.azure.eventhubs.lib.*;
+import com.microsoft.azure.servicebus.*;
+
+public class PrefetchByteBudgetTest extends TestBase
+{
+	@Test()
+	public void testEventsLargerThanBudgetAreReceived() throws ServiceBusException, InterruptedException, ExecutionException, IOException
+	{
+		Assume.assumeTrue(TestBase.isServiceRun());
+
+		TestEventHubInfo eventHubInfo = TestBase.checkoutTestEventHub();
+		EventHubClient ehClient = EventHubClient.createFromConnectionStringSync(TestBase.getConnectionString(eventHubInfo).toString());
+		try
+		{
+			final String partitionId = "0";
+			PartitionReceiver receiver = ehClient.createReceiverSync(eventHubInfo.getRandomConsumerGroup(), partitionId, Instant.now());
+			try
+			{
+				receiver.setPrefetchByteBudget(16 * 1024);
+				Assert.assertTrue(receiver.getPrefetchByteBudget() == 16 * 1024);
+
+				try
+				{
+					receiver.setPrefetchByteBudget(-1);
+					Assert.fail("negative prefetch budget should be rejected");
+				}
+				catch (IllegalArgumentException exception)
+				{
+				}
+
+				final int eventCount = 20;
+				PartitionSender sender = ehClient.createPartitionSenderSync(partitionId);
+				for (int count = 0; count < eventCount; count++)
+				{
+					sender.sendSync(new EventData(new byte[64 * 1024]));
+				}
+
+				sender.closeSync();
+
+				// a budget below the size of a single event still lets the events through - one at a time
+				int receivedCount = 0;
+				while (receivedCount < eventCount)
+				{
+					Iterable<EventData> events = receiver.receiveSync(100);
+					Assert.assertNotNull(events);
+					for (EventData event : events)
+					{
+						Assert.assertTrue(event.getBody().length == 64 * 1024);
+						receivedCount++;
+					}
+				}
+			}
+			finally
+			{
+				receiver.closeSync();
+			}
+		}
+		finally
+		{
+			ehClient.close();
+		}
+	}
+}
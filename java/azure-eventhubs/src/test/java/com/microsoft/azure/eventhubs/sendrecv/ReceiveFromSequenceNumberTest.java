@@ -0,0 +1,63 @@
+package com.microsoft.azure.eventhubs.sendrecv;
+
+import java.io.IOException;
+import java.util.concurrent.*;
+
+import org.junit.*;
+
+import com.microsoft.azure.eventhubs.*;
+import com.microsoft.azure.eventhubs.lib.*;
+import com.microsoft.azure.servicebus.*;
+
+public class ReceiveFromSequenceNumberTest extends TestBase
+{
+	@Test()
+	public void testReceiverStartsAtSequenceNumber() throws ServiceBusException, InterruptedException, ExecutionException, IOException
+	{
+		Assume.assumeTrue(TestBase.isServiceRun());
+
+		TestEventHubInfo eventHubInfo = TestBase.checkoutTestEventHub();
+		EventHubClient ehClient = EventHubClient.createFromConnectionStringSync(TestBase.getConnectionString(eventHubInfo).toString());
+		try
+		{
+			final String partitionId = "0";
+			final String consumerGroupName = eventHubInfo.getRandomConsumerGroup();
+			TestBase.pushEventsToPartition(ehClient, partitionId, 10).get();
+
+			PartitionReceiver offsetReceiver = ehClient.createReceiverSync(consumerGroupName, partitionId, PartitionReceiver.START_OF_STREAM, false);
+			Iterable<EventData> events = offsetReceiver.receiveSync(10);
+			Assert.assertTrue(events != null && events.iterator().hasNext());
+			final long sequenceNumber = events.iterator().next().getSystemProperties().getSequenceNumber();
+			offsetReceiver.closeSync();
+
+			PartitionReceiver inclusiveReceiver = ehClient.createReceiverSync(consumerGroupName, partitionId, sequenceNumber, true);
+			Assert.assertTrue(inclusiveReceiver.receiveSync(1).iterator().next().getSystemProperties().getSequenceNumber() == sequenceNumber);
+			inclusiveReceiver.closeSync();
+
+			PartitionReceiver exclusiveReceiver = ehClient.createEpochReceiverSync(consumerGroupName, partitionId, sequenceNumber, false, 1);
+			Assert.assertTrue(exclusiveReceiver.receiveSync(1).iterator().next().getSystemProperties().getSequenceNumber() == sequenceNumber + 1);
+			exclusiveReceiver.closeSync();
+		}
+		finally
+		{
+			ehClient.close();
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNegativeSequenceNumberIsRejected() throws ServiceBusException, InterruptedException, ExecutionException, IOException
+	{
+		Assume.assumeTrue(TestBase.isServiceRun());
+
+		TestEventHubInfo eventHubInfo = TestBase.checkoutTestEventHub();
+		EventHubClient ehClient = EventHubClient.createFromConnectionStringSync(TestBase.getConnectionString(eventHubInfo).toString());
+		try
+		{
+			ehClient.createReceiver(eventHubInfo.getRandomConsumerGroup(), "0", -1L, true);
+		}
+		finally
+		{
+			ehClient.close();
+		}
+	}
+}
@@ -0,0 +1,156 @@
+package com.microsoft.azure.eventhubs.sendrecv;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+import org.junit.*;
+
+import com.microsoft.azure.eventhubs.*;
+import com.microsoft.azure.eventhubs.lib.*;
+import com.microsoft.azure.servicebus.*;
+
+public class SubscribeTest extends TestBase
+{
+	@Test()
+	public void testEventsArePushedAsRequested() throws ServiceBusException, InterruptedException, ExecutionException, IOException
+	{
+		Assume.assumeTrue(TestBase.isServiceRun());
+
+		TestEventHubInfo eventHubInfo = TestBase.checkoutTestEventHub();
+		EventHubClient ehClient = EventHubClient.createFromConnectionStringSync(TestBase.getConnectionString(eventHubInfo).toString());
+		try
+		{
+			final String partitionId = "0";
+			PartitionReceiver receiver = ehClient.createReceiverSync(eventHubInfo.getRandomConsumerGroup(), partitionId, Instant.now());
+			CountingSubscriber subscriber = new CountingSubscriber();
+			receiver.subscribe(subscriber);
+			Assert.assertNotNull(subscriber.subscription);
+
+			try
+			{
+				receiver.subscribe(new CountingSubscriber());
+				Assert.fail("a second subscriber should be rejected");
+			}
+			catch (IllegalStateException exception)
+			{
+			}
+
+			TestBase.pushEventsToPartition(ehClient, partitionId, 10).get();
+
+			subscriber.subscription.request(4);
+			Assert.assertTrue(subscriber.awaitEvents(4));
+
+			// no more events than requested
+			Thread.sleep(2000);
+			Assert.assertTrue(subscriber.eventCount.get() == 4);
+
+			subscriber.subscription.request(6);
+			Assert.assertTrue(subscriber.awaitEvents(10));
+
+			receiver.closeSync();
+			Assert.assertTrue(subscriber.completed.await(30, TimeUnit.SECONDS));
+			Assert.assertNull(subscriber.error);
+		}
+		finally
+		{
+			ehClient.close();
+		}
+	}
+
+	@Test()
+	public void testDemandRequestedOnSubscribeIsHonored() throws ServiceBusException, InterruptedException, ExecutionException, IOException
+	{
+		Assume.assumeTrue(TestBase.isServiceRun());
+
+		TestEventHubInfo eventHubInfo = TestBase.checkoutTestEventHub();
+		EventHubClient ehClient = EventHubClient.createFromConnectionStringSync(TestBase.getConnectionString(eventHubInfo).toString());
+		try
+		{
+			final String partitionId = "0";
+			PartitionReceiver receiver = ehClient.createReceiverSync(eventHubInfo.getRandomConsumerGroup(), partitionId, Instant.now());
+
+			// prefetched before the subscriber shows up - only the demand requested from onSubscribe is pushed
+			TestBase.pushEventsToPartition(ehClient, partitionId, 10).get();
+			Thread.sleep(2000);
+
+			CountingSubscriber subscriber = new CountingSubscriber(3);
+			receiver.subscribe(subscriber);
+			Assert.assertTrue(subscriber.awaitEvents(3));
+
+			Thread.sleep(2000);
+			Assert.assertTrue(subscriber.eventCount.get() == 3);
+
+			subscriber.subscription.request(7);
+			Assert.assertTrue(subscriber.awaitEvents(10));
+
+			receiver.closeSync();
+			Assert.assertTrue(subscriber.completed.await(30, TimeUnit.SECONDS));
+			Assert.assertNull(subscriber.error);
+		}
+		finally
+		{
+			ehClient.close();
+		}
+	}
+
+	private static final class CountingSubscriber implements EventSubscriber
+	{
+		final AtomicInteger eventCount = new AtomicInteger(0);
+		final CountDownLatch completed = new CountDownLatch(1);
+		final long requestOnSubscribe;
+		volatile EventSubscription subscription;
+		volatile Throwable error;
+
+		CountingSubscriber()
+		{
+			this(0);
+		}
+
+		CountingSubscriber(final long requestOnSubscribe)
+		{
+			this.requestOnSubscribe = requestOnSubscribe;
+		}
+
+		@Override
+		public void onSubscribe(EventSubscription subscription)
+		{
+			this.subscription = subscription;
+			if (this.requestOnSubscribe > 0)
+			{
+				subscription.request(this.requestOnSubscribe);
+			}
+		}
+
+		@Override
+		public void onNext(EventData event)
+		{
+			this.eventCount.incrementAndGet();
+		}
+
+		@Override
+		public void onError(Throwable error)
+		{
+			this.error = error;
+			this.completed.countDown();
+		}
+
+		@Override
+		public void onComplete()
+		{
+			this.completed.countDown();
+		}
+
+		boolean awaitEvents(final int count) throws InterruptedException
+		{
+			final long deadline = System.currentTimeMillis() + 30000;
+			while (this.eventCount.get() < count && System.currentTimeMillis() < deadline)
+			{
+				Thread.sleep(100);
+			}
+
+			return this.eventCount.get() == count;
+		}
+	}
+}
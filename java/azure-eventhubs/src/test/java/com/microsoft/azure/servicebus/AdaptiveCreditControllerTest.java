@@ -0,0 +1,78 @@
+package com.microsoft.azure.servicebus;
+
+import org.junit.*;
+
+import com.microsoft.azure.eventhubs.lib.*;
+
+public class AdaptiveCreditControllerTest extends TestBase
+{
+	private static final long MILLIS = 1000L * 1000;
+
+	@Test()
+	public void testCreditFollowsDrainRate()
+	{
+		AdaptiveCreditController controller = new AdaptiveCreditController(10, 5000);
+		Assert.assertTrue(controller.getTargetCredit() == 10);
+
+		// a consumer draining 10k events/sec with the default 50ms round trip: 10000 * 0.05 * 2 = 1000
+		long now = this.drain(controller, 0, 10000, 1000);
+		Assert.assertTrue(Math.abs(controller.getTargetCredit() - 1000) <= 10);
+
+		// the consumer slows down to 20 events/sec - the credit shrinks to the minimum
+		now = this.drain(controller, now, 20, 10000);
+		Assert.assertTrue(controller.getTargetCredit() == 10);
+
+		// bounded by maxCredit
+		this.drain(controller, now, 1000000, 1000);
+		Assert.assertTrue(controller.getTargetCredit() == 5000);
+	}
+
+	@Test()
+	public void testRoundTripIsSampledWhenLinkIsStarved()
+	{
+		AdaptiveCreditController controller = new AdaptiveCreditController(10, 5000);
+		long now = this.drain(controller, 0, 10000, 1000);
+
+		// credit left on the link - the next delivery tells nothing about the round trip
+		Assert.assertTrue(controller.getCreditToFlow(0, 5, now) > 0);
+		controller.onDelivery(now + 300 * MILLIS);
+		Assert.assertTrue(controller.getRoundTripTimeNanos() == AdaptiveCreditController.DEFAULT_ROUND_TRIP_TIME_NANOS);
+
+		// starved link: the flow to delivery time is the round trip
+		for (int sample = 0; sample < 20; sample++)
+		{
+			now += 1000 * MILLIS;
+			Assert.assertTrue(controller.getCreditToFlow(0, 0, now) > 0);
+			controller.onDelivery(now + 10 * MILLIS);
+		}
+
+		Assert.assertTrue(Math.abs(controller.getRoundTripTimeNanos() - 10 * MILLIS) < MILLIS);
+		Assert.assertTrue(controller.getTargetCredit() < 250);
+	}
+
+	@Test()
+	public void testFlowsAreBatched()
+	{
+		AdaptiveCreditController controller = new AdaptiveCreditController(100, 100);
+
+		// a deficit below a quarter of the target waits, unless the link ran out of credit
+		Assert.assertTrue(controller.getCreditToFlow(90, 50, 0) == 0);
+		Assert.assertTrue(controller.getCreditToFlow(90, 0, 0) == 10);
+		Assert.assertTrue(controller.getCreditToFlow(70, 50, 0) == 30);
+		Assert.assertTrue(controller.getCreditToFlow(120, 120, 0) == 0);
+	}
+
+	private long drain(final AdaptiveCreditController controller, final long startNanos, final int eventsPerSecond, final int durationMillis)
+	{
+		long now = startNanos;
+		final long end = startNanos + durationMillis * MILLIS;
+		final long interval = 1000L * 1000 * 1000 / eventsPerSecond;
+		while (now < end)
+		{
+			now += interval;
+			controller.onDrained(1, now);
+		}
+
+		return now;
+	}
+}
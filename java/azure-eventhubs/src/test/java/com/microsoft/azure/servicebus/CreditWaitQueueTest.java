@@ -0,0 +1,76 @@
+package com.microsoft.azure.servicebus;
+
+import java.util.logging.*;
+
+import org.junit.*;
+
+import com.microsoft.azure.eventhubs.lib.*;
+
+public class CreditWaitQueueTest extends TestBase
+{
+	private static final Logger TEST_LOGGER = Logger.getLogger(CreditWaitQueueTest.class.toString());
+
+	@Test()
+	public void testRetriesAreServedFirst()
+	{
+		CreditWaitQueue queue = new CreditWaitQueue();
+		queue.offerLast(2);
+		queue.offerLast(3);
+		queue.offerFirst(1);
+
+		Assert.assertFalse(queue.offerLast(2));
+		Assert.assertFalse(queue.offerFirst(3));
+		Assert.assertTrue(queue.size() == 3);
+
+		Assert.assertTrue(queue.peek() == 1);
+		Assert.assertTrue(queue.remove(1));
+		Assert.assertTrue(queue.peek() == 2);
+
+		Assert.assertTrue(queue.remove(3));
+		Assert.assertFalse(queue.contains(3));
+		Assert.assertTrue(queue.remove(2));
+		Assert.assertTrue(queue.isEmpty() && queue.peek() == 0);
+	}
+
+	// replays the MessageSender.sendCore pattern while the service withholds credit:
+	// every new send checks membership & enqueues behind the backlog, every flow drains from the front
+	@Test()
+	public void testSendCostIsFlatWithPendingBacklog()
+	{
+		final int operations = 50000;
+
+		// the work of a send is counted in hash slots probed - a scan of the backlog would grow 100x from the small to the large backlog
+		double smallBacklogProbes = this.measureProbesPerSend(1000, operations);
+		double largeBacklogProbes = this.measureProbesPerSend(100000, operations);
+		TEST_LOGGER.log(Level.INFO, String.format("probes per send: backlog[1000] %.2f, backlog[100000] %.2f", smallBacklogProbes, largeBacklogProbes));
+
+		// a send checks membership, enqueues & the flow dequeues (which shifts back the rest of its probe run): ~10 probes at any backlog
+		Assert.assertTrue(smallBacklogProbes < 20);
+		Assert.assertTrue(largeBacklogProbes < 20);
+		Assert.assertTrue(largeBacklogProbes < 1.5 * smallBacklogProbes);
+	}
+
+	private double measureProbesPerSend(final int backlog, final int operations)
+	{
+		CreditWaitQueue queue = new CreditWaitQueue();
+		long deliveryTag = 0;
+		for (int count = 0; count < backlog; count++)
+		{
+			queue.offerLast(++deliveryTag);
+		}
+
+		long startProbeCount = queue.getProbeCount();
+		for (int count = 0; count < operations; count++)
+		{
+			deliveryTag++;
+			if (!queue.isEmpty() && !queue.contains(deliveryTag))
+			{
+				queue.offerLast(deliveryTag);
+			}
+
+			queue.remove(queue.peek());
+		}
+
+		return (double) (queue.getProbeCount() - startProbeCount) / operations;
+	}
+}
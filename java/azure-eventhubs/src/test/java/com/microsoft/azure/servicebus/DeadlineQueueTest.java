@@ -0,0 +1,130 @@
+package com.microsoft.azure.servicebus;
+
+import java.util.*;
+import java.util.logging.*;
+
+import org.junit.*;
+
+import com.microsoft.azure.eventhubs.lib.*;
+
+public class DeadlineQueueTest extends TestBase
+{
+	private static final Logger TEST_LOGGER = Logger.getLogger(DeadlineQueueTest.class.toString());
+
+	@Test()
+	public void testTagsExpireInDeadlineOrder()
+	{
+		DeadlineQueue deadlines = new DeadlineQueue();
+		Random random = new Random(7);
+		long[] expected = new long[1000];
+		for (int tag = 1; tag <= expected.length; tag++)
+		{
+			long deadline = random.nextInt(1000000);
+			deadlines.add(tag, deadline);
+			expected[tag - 1] = deadline;
+		}
+
+		// acknowledged sends leave the index
+		for (int tag = 2; tag <= expected.length; tag += 2)
+		{
+			Assert.assertTrue(deadlines.remove(tag));
+			expected[tag - 1] = Long.MAX_VALUE;
+		}
+
+		Assert.assertFalse(deadlines.remove(2));
+		Assert.assertTrue(deadlines.size() == expected.length / 2);
+
+		long previousDeadline = Long.MIN_VALUE;
+		long tag;
+		while ((tag = deadlines.pollExpired(Long.MAX_VALUE - 1)) != 0)
+		{
+			Assert.assertTrue(tag % 2 == 1);
+			Assert.assertTrue(expected[(int) tag - 1] >= previousDeadline);
+			previousDeadline = expected[(int) tag - 1];
+		}
+
+		Assert.assertTrue(deadlines.size() == 0);
+	}
+
+	@Test()
+	public void testOnlyDueTagsArePolled()
+	{
+		DeadlineQueue deadlines = new DeadlineQueue();
+		deadlines.add(1, 300);
+		deadlines.add(2, 100);
+		deadlines.add(3, 200);
+
+		// a retried send moves to its new deadline
+		deadlines.add(2, 400);
+
+		Assert.assertTrue(deadlines.pollExpired(150) == 0);
+		Assert.assertTrue(deadlines.pollExpired(250) == 3);
+		Assert.assertTrue(deadlines.pollExpired(250) == 0);
+		Assert.assertTrue(deadlines.pollExpired(500) == 1);
+		Assert.assertTrue(deadlines.pollExpired(500) == 2);
+		Assert.assertFalse(deadlines.contains(2));
+	}
+
+	// replays the MessageSender send/ack/timeout-sweep pattern with a deep pipeline of in-flight sends
+	@Test()
+	public void testSweepCostIsFlatWithSendsInFlight()
+	{
+		final int operations = 50000;
+
+		// heap entries moved per send - a sweep visiting every in-flight send would move with the pipeline depth, 100x from the small to the large one
+		double smallPipelineMoves = this.measureMovesPerSend(1000, operations);
+		double largePipelineMoves = this.measureMovesPerSend(100000, operations);
+		TEST_LOGGER.log(Level.INFO, String.format("heap moves per send: inFlight[1000] %.2f, inFlight[100000] %.2f", smallPipelineMoves, largePipelineMoves));
+
+		// the ack of the oldest send sifts down from the root: log2(inFlight) moves, plus the placement of the new send
+		Assert.assertTrue(smallPipelineMoves <= log2(1000) + 2);
+		Assert.assertTrue(largePipelineMoves <= log2(100000) + 2);
+	}
+
+	@Test()
+	public void testSweepWithNothingDueMovesNothing()
+	{
+		DeadlineQueue deadlines = new DeadlineQueue();
+		for (int tag = 1; tag <= 100000; tag++)
+		{
+			deadlines.add(tag, 60000 + tag);
+		}
+
+		long moveCount = deadlines.getMoveCount();
+		for (int now = 0; now < 1000; now++)
+		{
+			Assert.assertTrue(deadlines.pollExpired(now) == 0);
+		}
+
+		Assert.assertTrue(deadlines.getMoveCount() == moveCount);
+	}
+
+	private static int log2(final int value)
+	{
+		return 32 - Integer.numberOfLeadingZeros(value - 1);
+	}
+
+	private double measureMovesPerSend(final int inFlight, final int operations)
+	{
+		DeadlineQueue deadlines = new DeadlineQueue();
+		long deliveryTag = 0;
+		long now = 0;
+		for (int count = 0; count < inFlight; count++)
+		{
+			deadlines.add(++deliveryTag, now + 60000);
+		}
+
+		long startMoveCount = deadlines.getMoveCount();
+		for (int count = 0; count < operations; count++)
+		{
+			now++;
+
+			// send, ack of the oldest send & a sweep which finds nothing due
+			deadlines.add(++deliveryTag, now + 60000);
+			deadlines.remove(deliveryTag - inFlight);
+			deadlines.pollExpired(now);
+		}
+
+		return (double) (deadlines.getMoveCount() - startMoveCount) / operations;
+	}
+}
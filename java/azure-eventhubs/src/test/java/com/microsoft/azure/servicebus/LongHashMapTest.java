@@ -0,0 +1,158 @@
+package com.microsoft.azure.servicebus;
+
+import java.util.*;
+
+import org.junit.*;
+
+import com.microsoft.azure.eventhubs.lib.*;
+
+public class LongHashMapTest extends TestBase
+{
+	// the default capacity - 8 entries fit before the map grows
+	private static final int CAPACITY = 16;
+
+	@Test()
+	public void testCollidingKeysShareAProbeRun()
+	{
+		long[] keys = collidingKeys(3, 4);
+		LongHashMap<String> map = new LongHashMap<String>();
+		for (long key : keys)
+		{
+			Assert.assertNull(map.put(key, "value" + key));
+		}
+
+		Assert.assertTrue(map.size() == keys.length);
+		for (long key : keys)
+		{
+			Assert.assertEquals("value" + key, map.get(key));
+		}
+
+		// a key with the same home slot that isn't in the map - the lookup walks the run to its end
+		Assert.assertFalse(map.containsKey(collidingKeys(3, 5)[4]));
+	}
+
+	@Test()
+	public void testRemovingFromTheMiddleOfAProbeRunKeepsTheRestReachable()
+	{
+		// the run starts in the last slot and wraps around to the first ones
+		long[] keys = collidingKeys(CAPACITY - 1, 5);
+		LongHashMap<String> map = new LongHashMap<String>();
+		for (long key : keys)
+		{
+			map.put(key, "value" + key);
+		}
+
+		// a key homed in slot 0 sits behind the wrapped run - backward shift must not move it before its home
+		long homedAtZero = collidingKeys(0, 1)[0];
+		map.put(homedAtZero, "zero");
+
+		Assert.assertEquals("value" + keys[1], map.remove(keys[1]));
+		Assert.assertNull(map.get(keys[1]));
+		for (int index = 0; index < keys.length; index++)
+		{
+			if (index != 1)
+			{
+				Assert.assertEquals("value" + keys[index], map.get(keys[index]));
+			}
+		}
+
+		Assert.assertEquals("zero", map.get(homedAtZero));
+
+		Assert.assertEquals("value" + keys[3], map.remove(keys[3]));
+		Assert.assertEquals("value" + keys[4], map.get(keys[4]));
+		Assert.assertEquals("zero", map.get(homedAtZero));
+		Assert.assertNull(map.remove(keys[3]));
+		Assert.assertTrue(map.size() == keys.length - 1);
+	}
+
+	@Test()
+	public void testGrowthKeepsLiveEntries()
+	{
+		LongHashMap<Long> map = new LongHashMap<Long>();
+		for (long key = 1; key <= 10000; key++)
+		{
+			map.put(key, key * 10);
+
+			// removals while growing - the rehash only carries the live entries over
+			if (key % 3 == 0)
+			{
+				Assert.assertEquals(Long.valueOf((key - 1) * 10), map.remove(key - 1));
+			}
+		}
+
+		Assert.assertTrue(map.size() == 10000 - 10000 / 3);
+		for (long key = 1; key <= 10000; key++)
+		{
+			Assert.assertEquals(key % 3 == 2 ? null : Long.valueOf(key * 10), map.get(key));
+		}
+
+		Assert.assertTrue(map.keys().length == map.size());
+		Assert.assertTrue(map.values().size() == map.size());
+	}
+
+	@Test()
+	public void testPutOverAnExistingKeyReplacesTheValue()
+	{
+		long[] keys = collidingKeys(7, 3);
+		LongHashMap<String> map = new LongHashMap<String>();
+		for (long key : keys)
+		{
+			map.put(key, "first");
+		}
+
+		// the last key of the run - put walks past the others to find it
+		Assert.assertEquals("first", map.put(keys[2], "second"));
+		Assert.assertTrue(map.size() == 3);
+		Assert.assertEquals("second", map.get(keys[2]));
+		Assert.assertEquals("first", map.get(keys[0]));
+	}
+
+	@Test()
+	public void testMatchesHashMapUnderRandomOperations()
+	{
+		Random random = new Random(11);
+		LongHashMap<Long> map = new LongHashMap<Long>();
+		HashMap<Long, Long> expected = new HashMap<Long, Long>();
+		for (int operation = 0; operation < 200000; operation++)
+		{
+			// a narrow key range - so that puts hit existing keys and removals hit live ones
+			long key = random.nextInt(2000);
+			switch (random.nextInt(3))
+			{
+			case 0:
+				Assert.assertEquals(expected.put(key, (long) operation), map.put(key, (long) operation));
+				break;
+			case 1:
+				Assert.assertEquals(expected.remove(key), map.remove(key));
+				break;
+			default:
+				Assert.assertEquals(expected.get(key), map.get(key));
+				break;
+			}
+
+			Assert.assertTrue(map.size() == expected.size());
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNullValueIsRejected()
+	{
+		new LongHashMap<String>().put(1, null);
+	}
+
+	// the first count keys homed in the slot of a map with the default capacity
+	private static long[] collidingKeys(final int slot, final int count)
+	{
+		long[] keys = new long[count];
+		int found = 0;
+		for (long key = 1; found < count; key++)
+		{
+			if ((LongHashMap.mix(key) & (CAPACITY - 1)) == slot)
+			{
+				keys[found++] = key;
+			}
+		}
+
+		return keys;
+	}
+}
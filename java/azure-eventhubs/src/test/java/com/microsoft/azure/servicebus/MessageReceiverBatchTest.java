@@ -0,0 +1,122 @@
+package com.microsoft.azure.servicebus;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.junit.*;
+
+import com.microsoft.azure.eventhubs.lib.*;
+import com.microsoft.azure.servicebus.amqp.AmqpConstants;
+
+public class MessageReceiverBatchTest extends TestBase
+{
+	private static final int PREFETCH_COUNT = 10;
+	private static final String RECEIVE_PATH = "eventhub1/consumergroups/$default/partitions/0";
+
+	MockServer server;
+	MessagingFactory factory;
+
+	@Test()
+	public void testRecreatedLinkResumesAfterTheLastMessageOfTheBatch() throws Exception
+	{
+		// the credit returned for the batch is the first link's second flow - the link is detached instead
+		final SendCreditOnLinkFlowHandler handler = new SendCreditOnLinkFlowHandler(PREFETCH_COUNT, 2);
+		final MessageReceiver receiver = this.createReceiver(handler);
+
+		final Collection<ReceivedMessage> messages = receiver.receive(PREFETCH_COUNT, PREFETCH_COUNT, Duration.ofSeconds(30)).get();
+		Assert.assertEquals(PREFETCH_COUNT, messages.size());
+
+		final long deadlineNanos = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+		while (handler.getAttachFilters().size() < 2)
+		{
+			Assert.assertTrue("the link was not re-created", System.nanoTime() - deadlineNanos < 0);
+			Thread.sleep(10);
+		}
+
+		Assert.assertEquals(
+				String.format(AmqpConstants.AMQP_ANNOTATION_FORMAT, AmqpConstants.OFFSET_ANNOTATION_NAME, StringUtil.EMPTY, PREFETCH_COUNT),
+				handler.getAttachFilters().get(1));
+	}
+
+	@Test()
+	public void testDrainedBatchReturnsItsCreditInOneFlow() throws Exception
+	{
+		final MessageReceiver receiver = this.createReceiver(new SendCreditOnLinkFlowHandler(PREFETCH_COUNT, 0));
+		awaitPrefetched(receiver, PREFETCH_COUNT);
+
+		// the link has no credit left - draining a message at a time would flow its credit right away
+		receiver.setReceiveListener(new NoopReceiveListener());
+		receiver.request(2 * PREFETCH_COUNT);
+		final long flowCount = receiver.getCreditFlowCount();
+
+		Assert.assertEquals(PREFETCH_COUNT, receiver.poll(PREFETCH_COUNT).size());
+		Assert.assertEquals(flowCount + 1, receiver.getCreditFlowCount());
+	}
+
+	@Test()
+	public void testReceiveDoesNotUseUpTheDemandOfALaterListener() throws Exception
+	{
+		// the batch received returns its credit - the second batch is sent on it
+		final MessageReceiver receiver = this.createReceiver(new SendCreditOnLinkFlowHandler(2 * PREFETCH_COUNT, 0));
+		Assert.assertEquals(PREFETCH_COUNT, receiver.receive(PREFETCH_COUNT, PREFETCH_COUNT, Duration.ofSeconds(30)).get().size());
+		awaitPrefetched(receiver, PREFETCH_COUNT);
+
+		receiver.setReceiveListener(new NoopReceiveListener());
+		receiver.request(5);
+
+		final List<ReceivedMessage> messages = receiver.poll(PREFETCH_COUNT);
+		Assert.assertNotNull(messages);
+		Assert.assertEquals(5, messages.size());
+		Assert.assertNull(receiver.poll());
+	}
+
+	@After
+	public void cleanup() throws IOException
+	{
+		if (this.factory != null)
+			this.factory.close();
+
+		if (this.server != null)
+			this.server.close();
+	}
+
+	private MessageReceiver createReceiver(final SendCreditOnLinkFlowHandler handler) throws Exception
+	{
+		this.server = MockServer.Create(handler);
+		this.factory = MessagingFactory.createFromConnectionString(
+				new ConnectionStringBuilder("Endpoint=amqps://localhost;SharedAccessKeyName=somename;EntityPath=eventhub1;SharedAccessKey=somekey").toString()).get();
+
+		return MessageReceiver.create(this.factory, "receiver1", RECEIVE_PATH, "-1", false, null, PREFETCH_COUNT, 0, false).get();
+	}
+
+	static void awaitPrefetched(final MessageReceiver receiver, final int count) throws InterruptedException
+	{
+		final long deadlineNanos = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+		while (true)
+		{
+			final Integer prefetchedCount = ((ReceiverContext) receiver.getContext()).prefetchQueueLength;
+			if (prefetchedCount != null && prefetchedCount >= count)
+			{
+				return;
+			}
+
+			Assert.assertTrue("the messages were not prefetched", System.nanoTime() - deadlineNanos < 0);
+			Thread.sleep(10);
+		}
+	}
+
+	private static class NoopReceiveListener implements IReceiveListener
+	{
+		@Override
+		public void onMessagesAvailable()
+		{
+		}
+
+		@Override
+		public void onClose(Exception error)
+		{
+		}
+	}
+}
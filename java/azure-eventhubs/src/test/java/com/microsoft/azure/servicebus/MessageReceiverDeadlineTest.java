@@ -0,0 +1,93 @@
+package com.microsoft.azure.servicebus;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.junit.*;
+
+import com.microsoft.azure.eventhubs.lib.*;
+
+public class MessageReceiverDeadlineTest extends TestBase
+{
+	private static final int PREFETCH_COUNT = 10;
+	private static final String RECEIVE_PATH = "eventhub1/consumergroups/$default/partitions/0";
+
+	MockServer server;
+	MessagingFactory factory;
+
+	@Test()
+	public void testExpiredLingerReturnsWhatIsPrefetched() throws Exception
+	{
+		// fewer messages than the minimum batch
+		final MessageReceiver receiver = this.createReceiver(new SendCreditOnLinkFlowHandler(3, 0));
+		MessageReceiverBatchTest.awaitPrefetched(receiver, 3);
+
+		final long startNanos = System.nanoTime();
+		final Collection<ReceivedMessage> messages = receiver.receive(PREFETCH_COUNT, 5, Duration.ofMillis(500)).get(10, TimeUnit.SECONDS);
+		final long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+
+		Assert.assertNotNull(messages);
+		Assert.assertEquals(3, messages.size());
+		Assert.assertTrue(String.format("returned after %sms", elapsedMillis), elapsedMillis >= 500);
+	}
+
+	@Test()
+	public void testTimedOutReceiveReturnsWhatIsPrefetched() throws Exception
+	{
+		final MessageReceiver receiver = this.createReceiver(new SendCreditOnLinkFlowHandler(3, 0));
+		MessageReceiverBatchTest.awaitPrefetched(receiver, 3);
+
+		// the receive times out long before its linger ends
+		receiver.setReceiveTimeout(Duration.ofSeconds(1));
+		final Collection<ReceivedMessage> messages = receiver.receive(PREFETCH_COUNT, 5, Duration.ofMinutes(5)).get(10, TimeUnit.SECONDS);
+
+		Assert.assertNotNull(messages);
+		Assert.assertEquals(3, messages.size());
+	}
+
+	@Test()
+	public void testEveryDueReceiveTimesOut() throws Exception
+	{
+		// no messages at all
+		final MessageReceiver receiver = this.createReceiver(new SendCreditOnLinkFlowHandler(0, 0));
+
+		receiver.setReceiveTimeout(Duration.ofSeconds(1));
+		final List<CompletableFuture<Collection<ReceivedMessage>>> dueReceives = new ArrayList<CompletableFuture<Collection<ReceivedMessage>>>();
+		for (int count = 0; count < 3; count++)
+		{
+			dueReceives.add(receiver.receive(PREFETCH_COUNT));
+		}
+
+		receiver.setReceiveTimeout(Duration.ofMinutes(5));
+		final CompletableFuture<Collection<ReceivedMessage>> laterReceive = receiver.receive(PREFETCH_COUNT);
+
+		// the armed deadline fires once - all the receives due by then time out on it
+		for (CompletableFuture<Collection<ReceivedMessage>> dueReceive : dueReceives)
+		{
+			Assert.assertNull(dueReceive.get(10, TimeUnit.SECONDS));
+		}
+
+		Assert.assertFalse(laterReceive.isDone());
+	}
+
+	@After
+	public void cleanup() throws IOException
+	{
+		if (this.factory != null)
+			this.factory.close();
+
+		if (this.server != null)
+			this.server.close();
+	}
+
+	private MessageReceiver createReceiver(final SendCreditOnLinkFlowHandler handler) throws Exception
+	{
+		this.server = MockServer.Create(handler);
+		this.factory = MessagingFactory.createFromConnectionString(
+				new ConnectionStringBuilder("Endpoint=amqps://localhost;SharedAccessKeyName=somename;EntityPath=eventhub1;SharedAccessKey=somekey").toString()).get();
+
+		return MessageReceiver.create(this.factory, "receiver1", RECEIVE_PATH, "-1", false, null, PREFETCH_COUNT, 0, false).get();
+	}
+}
@@ -0,0 +1,105 @@
+package com.microsoft.azure.servicebus;
+
+import java.time.Duration;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+import org.junit.*;
+
+import com.microsoft.azure.eventhubs.lib.*;
+
+public class ReceiveDeadlineTest extends TestBase
+{
+	private static final String TIMER_CLIENT_ID = "ReceiveDeadlineTest";
+
+	@Before
+	public void registerTimer()
+	{
+		Timer.register(TIMER_CLIENT_ID);
+	}
+
+	@After
+	public void unregisterTimer()
+	{
+		Timer.unregister(TIMER_CLIENT_ID);
+	}
+
+	@Test()
+	public void testLaterDeadlineDoesNotScheduleAnotherTask() throws InterruptedException
+	{
+		final AtomicInteger firedCount = new AtomicInteger(0);
+		final ReceiveDeadline deadline = new ReceiveDeadline(new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				firedCount.incrementAndGet();
+			}
+		});
+
+		// a receive loop - every receive has a later deadline than the armed one
+		final long nowNanos = System.nanoTime();
+		for (int count = 0; count < 1000; count++)
+		{
+			deadline.arm(nowNanos + TimeUnit.MILLISECONDS.toNanos(100 + count));
+		}
+
+		Thread.sleep(1500);
+		Assert.assertEquals(1, firedCount.get());
+	}
+
+	@Test()
+	public void testEarlierDeadlineRearmsAndStalesTheArmedTask() throws InterruptedException
+	{
+		final AtomicInteger firedCount = new AtomicInteger(0);
+		final CountDownLatch fired = new CountDownLatch(1);
+		final ReceiveDeadline deadline = new ReceiveDeadline(new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				firedCount.incrementAndGet();
+				fired.countDown();
+			}
+		});
+
+		final long nowNanos = System.nanoTime();
+		deadline.arm(nowNanos + TimeUnit.SECONDS.toNanos(1));
+		deadline.arm(nowNanos + TimeUnit.MILLISECONDS.toNanos(50));
+
+		Assert.assertTrue(fired.await(500, TimeUnit.MILLISECONDS));
+
+		// the task armed for the later deadline fires too - but it is stale and does nothing
+		Thread.sleep(1500);
+		Assert.assertEquals(1, firedCount.get());
+	}
+
+	@Test()
+	public void testFiredDeadlineCanBeArmedAgain() throws InterruptedException
+	{
+		final Semaphore fired = new Semaphore(0);
+		final ReceiveDeadline deadline = new ReceiveDeadline(new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				fired.release();
+			}
+		});
+
+		deadline.arm(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(20));
+		Assert.assertTrue(fired.tryAcquire(500, TimeUnit.MILLISECONDS));
+
+		// a deadline later than the one which fired still arms the timer
+		deadline.arm(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(50));
+		Assert.assertTrue(fired.tryAcquire(500, TimeUnit.MILLISECONDS));
+	}
+
+	@Test()
+	public void testLongDurationDoesNotOverflow()
+	{
+		final long nowNanos = System.nanoTime();
+		Assert.assertTrue(ReceiveDeadline.after(nowNanos, Duration.ofDays(365L * 1000000)) - nowNanos > 0);
+		Assert.assertEquals(nowNanos + TimeUnit.SECONDS.toNanos(5), ReceiveDeadline.after(nowNanos, Duration.ofSeconds(5)));
+	}
+}
@@ -0,0 +1,64 @@
+package com.microsoft.azure.servicebus;
+
+import java.io.IOException;
+
+import org.junit.*;
+
+import com.microsoft.azure.eventhubs.lib.*;
+
+public class ReceiveListenerTest extends TestBase
+{
+	MockServer server;
+	MessagingFactory factory;
+
+	@Test()
+	public void testRemovingAReplacedListenerKeepsTheNewOne() throws Exception
+	{
+		this.server = MockServer.Create(new SendCreditOnLinkFlowHandler(0, 0));
+		this.factory = MessagingFactory.createFromConnectionString(
+				new ConnectionStringBuilder("Endpoint=amqps://localhost;SharedAccessKeyName=somename;EntityPath=eventhub1;SharedAccessKey=somekey").toString()).get();
+		final MessageReceiver receiver = MessageReceiver.create(this.factory, "receiver1", "eventhub1/consumergroups/$default/partitions/0", "-1", false, null, 10, 0, false).get();
+
+		// a cancelled subscription removes its listener late - after a newer subscription set its own
+		final IReceiveListener cancelledListener = new NoopReceiveListener();
+		final IReceiveListener newListener = new NoopReceiveListener();
+		receiver.setReceiveListener(cancelledListener);
+		receiver.setReceiveListener(newListener);
+
+		Assert.assertFalse(receiver.removeReceiveListener(cancelledListener));
+		try
+		{
+			receiver.receive(1);
+			Assert.fail("receive should not be allowed while the new listener is set");
+		}
+		catch (IllegalStateException exception)
+		{
+		}
+
+		Assert.assertTrue(receiver.removeReceiveListener(newListener));
+		Assert.assertNotNull(receiver.receive(1));
+	}
+
+	@After
+	public void cleanup() throws IOException
+	{
+		if (this.factory != null)
+			this.factory.close();
+
+		if (this.server != null)
+			this.server.close();
+	}
+
+	private static class NoopReceiveListener implements IReceiveListener
+	{
+		@Override
+		public void onMessagesAvailable()
+		{
+		}
+
+		@Override
+		public void onClose(Exception error)
+		{
+		}
+	}
+}
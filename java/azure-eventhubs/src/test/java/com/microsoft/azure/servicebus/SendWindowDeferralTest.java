@@ -0,0 +1,96 @@
+package com.microsoft.azure.servicebus;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+import org.junit.*;
+
+import com.microsoft.azure.eventhubs.lib.*;
+
+public class SendWindowDeferralTest extends TestBase
+{
+	@Test()
+	public void testDeferredSendsCompletingRightAwayDoNotRecurse() throws InterruptedException
+	{
+		final SendWindow window = new SendWindow(1, Long.MAX_VALUE);
+		Assert.assertTrue(window.tryAcquire(10));
+
+		// each deferred send releases the window as soon as it gets it - as an expired send does
+		final int deferredCount = 20000;
+		final AtomicInteger nextIndex = new AtomicInteger(0);
+		final AtomicBoolean isInOrder = new AtomicBoolean(true);
+		final CountDownLatch allAcquired = new CountDownLatch(deferredCount);
+		for (int index = 0; index < deferredCount; index++)
+		{
+			final int sendIndex = index;
+			Assert.assertFalse(window.tryAcquireOrDefer(10, Long.MAX_VALUE, new CountingDeferredSend()
+			{
+				@Override
+				public void onAcquired()
+				{
+					if (nextIndex.getAndIncrement() != sendIndex)
+					{
+						isInOrder.set(false);
+					}
+
+					window.release(10);
+					allAcquired.countDown();
+				}
+			}));
+		}
+
+		window.release(10);
+		Assert.assertTrue(allAcquired.await(30, TimeUnit.SECONDS));
+		Assert.assertTrue(isInOrder.get());
+		Assert.assertTrue(window.getPendingSends() == 0);
+	}
+
+	@Test()
+	public void testDeferredSendsExpireAndCancel()
+	{
+		final SendWindow window = new SendWindow(1, Long.MAX_VALUE);
+		Assert.assertTrue(window.tryAcquire(10));
+
+		final long nowNanos = System.nanoTime();
+		final CountingDeferredSend expiringSend = new CountingDeferredSend();
+		final CountingDeferredSend cancelledSend = new CountingDeferredSend();
+		Assert.assertFalse(window.tryAcquireOrDefer(10, nowNanos - 1, expiringSend));
+		Assert.assertFalse(window.tryAcquireOrDefer(10, nowNanos + TimeUnit.MINUTES.toNanos(1), cancelledSend));
+
+		window.expireDeferred(nowNanos);
+		Assert.assertTrue(expiringSend.expiredCount.get() == 1);
+		Assert.assertTrue(cancelledSend.expiredCount.get() == 0);
+
+		window.cancelDeferred(new OperationCancelledException("closing"));
+		Assert.assertTrue(cancelledSend.cancelledCount.get() == 1);
+		Assert.assertTrue(expiringSend.cancelledCount.get() == 0);
+
+		// nothing is left to admit
+		window.release(10);
+		Assert.assertTrue(window.getPendingSends() == 0);
+		Assert.assertTrue(window.tryAcquire(10));
+	}
+
+	private static class CountingDeferredSend implements SendWindow.DeferredSend
+	{
+		final AtomicInteger expiredCount = new AtomicInteger(0);
+		final AtomicInteger cancelledCount = new AtomicInteger(0);
+
+		@Override
+		public void onAcquired()
+		{
+		}
+
+		@Override
+		public void onExpired()
+		{
+			this.expiredCount.incrementAndGet();
+		}
+
+		@Override
+		public void onCancelled(Exception exception)
+		{
+			this.cancelledCount.incrementAndGet();
+		}
+	}
+}